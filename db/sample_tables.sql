@@ -5,6 +5,44 @@ CREATE TABLE IF NOT EXISTS shopping.order (
   order_datetime TIMESTAMP,
   order_qty INT,
   product_id INT,
+  bucket INT,
   PRIMARY KEY ((id))
 );
 
+CREATE INDEX IF NOT EXISTS ON shopping.order (product_id);
+-- Low cardinality (64 values): fine on JDBC backends, a poor fit for Cassandra, DynamoDB and Cosmos DB
+-- (see Parallel Full-Table Scan in README.md)
+CREATE INDEX IF NOT EXISTS ON shopping.order (bucket);
+
+-- Upgrading an existing shopping.order: add the column, create the index above, then run
+-- POST /order/backfill
+-- ALTER TABLE shopping.order ADD bucket INT;
+
+-- Orders by hour (time_bucket, e.g. 2025-09-15T14), maintained by the order repositories
+CREATE TABLE IF NOT EXISTS shopping.order_by_time (
+  time_bucket TEXT,
+  order_datetime TIMESTAMP,
+  id TEXT,
+  product_id INT,
+  order_qty INT,
+  PRIMARY KEY ((time_bucket), order_datetime, id)
+) WITH CLUSTERING ORDER BY (order_datetime ASC, id ASC);
+
+-- Per-product order totals in counter shards, maintained by the order repositories
+CREATE TABLE IF NOT EXISTS shopping.order_product_summary (
+  product_id INT,
+  shard INT,
+  total_qty BIGINT,
+  order_count BIGINT,
+  PRIMARY KEY ((product_id), shard)
+) WITH CLUSTERING ORDER BY (shard ASC);
+
+-- Stored responses for Idempotency-Key (idempotency.store=scalardb)
+CREATE TABLE IF NOT EXISTS shopping.idempotency_key (
+  idempotency_key TEXT,
+  request_digest TEXT,
+  http_status INT,
+  response_body TEXT,
+  created_at TIMESTAMP,
+  PRIMARY KEY ((idempotency_key))
+);
@@ -0,0 +1,41 @@
+#!/usr/bin/env bash
+# Builds the fast-startup variant: Spring AOT jar, extracted layout and AppCDS archive.
+#
+# Usage: [AOT_PROPERTIES=key=value,...] scripts/fast-startup.sh [profile]
+#   profile         Spring profile used for AOT processing and the training run (e.g. local)
+#   AOT_PROPERTIES  @ConditionalOnProperty switches fixed at AOT time
+#                   (e.g. grpc.server.enabled=true,app.warmup.enabled=true)
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+PROFILE="${1:-}"
+AOT_PROPERTIES="${AOT_PROPERTIES:-}"
+OUT_DIR=build/fast-startup
+JAR_NAME=demo-multiple-tm-order-0.0.1-SNAPSHOT.jar
+
+GRADLE_ARGS=(bootJar -PfastStartup)
+PROFILE_ARGS=()
+if [[ -n "$PROFILE" ]]; then
+  GRADLE_ARGS+=("-PaotProfiles=$PROFILE")
+  PROFILE_ARGS+=("--spring.profiles.active=$PROFILE")
+fi
+if [[ -n "$AOT_PROPERTIES" ]]; then
+  GRADLE_ARGS+=("-PaotProperties=$AOT_PROPERTIES")
+fi
+
+./gradlew "${GRADLE_ARGS[@]}"
+
+# Extract the jar so classes are loaded from plain jars on the class path (required by CDS)
+rm -rf "$OUT_DIR"
+java -Djarmode=tools -jar "build/libs/$JAR_NAME" extract --destination "$OUT_DIR"
+
+# Training run: refresh the context, then exit and dump the loaded classes into the archive
+java -XX:ArchiveClassesAtExit="$OUT_DIR/app.jsa" \
+  -Dspring.aot.enabled=true \
+  -Dspring.context.exit=onRefresh \
+  -jar "$OUT_DIR/$JAR_NAME" "${PROFILE_ARGS[@]}"
+
+echo
+echo "Run with:"
+echo "  java -XX:SharedArchiveFile=$OUT_DIR/app.jsa -Dspring.aot.enabled=true -jar $OUT_DIR/$JAR_NAME ${PROFILE_ARGS[*]}"
@@ -0,0 +1,72 @@
+#!/usr/bin/env bash
+# Compares time-to-ready and resident memory of the standard jar and the fast-startup mode.
+# Run scripts/fast-startup.sh first.
+#
+# Usage: scripts/startup-benchmark.sh [runs] [profile]
+#   runs     Starts per mode (default 5)
+#   profile  Spring profile passed to the application (e.g. local)
+#
+# Time-to-ready is measured from process start until /actuator/health/readiness reports UP,
+# so it includes the optional warm-up (app.warmup.enabled). RSS is read from /proc (Linux only).
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS="${1:-5}"
+PROFILE="${2:-}"
+PORT="${PORT:-18080}"
+JAR_NAME=demo-multiple-tm-order-0.0.1-SNAPSHOT.jar
+STANDARD_JAR="build/libs/$JAR_NAME"
+FAST_DIR=build/fast-startup
+
+APP_ARGS=("--server.port=$PORT")
+if [[ -n "$PROFILE" ]]; then
+  APP_ARGS+=("--spring.profiles.active=$PROFILE")
+fi
+
+if [[ ! -f "$FAST_DIR/app.jsa" ]]; then
+  echo "Missing $FAST_DIR/app.jsa, run scripts/fast-startup.sh first" >&2
+  exit 1
+fi
+
+now_ms() {
+  date +%s%3N
+}
+
+# Starts the application, waits for readiness and prints "<ready ms> <rss kB>"
+measure() {
+  local start pid ready rss
+  start=$(now_ms)
+  "$@" "${APP_ARGS[@]}" > /dev/null 2>&1 &
+  pid=$!
+  until curl -sf "http://localhost:$PORT/actuator/health/readiness" > /dev/null 2>&1; do
+    if ! kill -0 "$pid" 2> /dev/null; then
+      echo "Application exited before becoming ready" >&2
+      exit 1
+    fi
+    sleep 0.05
+  done
+  ready=$(( $(now_ms) - start ))
+  rss=$(awk '/VmRSS/ {print $2}' "/proc/$pid/status")
+  kill "$pid"
+  wait "$pid" 2> /dev/null || true
+  echo "$ready $rss"
+}
+
+run_mode() {
+  local name=$1
+  shift
+  local total_ready=0 total_rss=0 result ready rss
+  for ((i = 1; i <= RUNS; i++)); do
+    result=$(measure "$@")
+    read -r ready rss <<< "$result"
+    printf '%-14s run %2d: ready %6d ms, rss %7d kB\n' "$name" "$i" "$ready" "$rss"
+    total_ready=$((total_ready + ready))
+    total_rss=$((total_rss + rss))
+  done
+  printf '%-14s avg   : ready %6d ms, rss %7d kB\n\n' "$name" $((total_ready / RUNS)) $((total_rss / RUNS))
+}
+
+run_mode standard java -jar "$STANDARD_JAR"
+run_mode fast-startup java -XX:SharedArchiveFile="$FAST_DIR/app.jsa" -Dspring.aot.enabled=true \
+  -jar "$FAST_DIR/$JAR_NAME"
@@ -0,0 +1,71 @@
+package com.example.demo_multiple_tm_order.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of the ApiResponse envelope, configured like Spring Boot's ObjectMapper
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApiResponseSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private ApiResponse<OrderDto> singleResponse;
+    private ApiResponse<List<OrderDto>> listResponse;
+    private ApiResponse<Void> statusResponse;
+    private byte[] singleResponseJson;
+
+    @Setup
+    public void setup() throws JsonProcessingException {
+        objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        LocalDateTime now = LocalDateTime.of(2025, 9, 15, 14, 30);
+        OrderDto orderDto = OrderDto.builder().id("ORD-2025-001").productId(10).orderQty(2).orderDatetime(now).build();
+        List<OrderDto> orderDtoList = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            orderDtoList.add(OrderDto.builder().id("ORD-" + i).productId(i).orderQty(1).orderDatetime(now).build());
+        }
+        singleResponse = ApiResponse.success(orderDto);
+        listResponse = ApiResponse.success(orderDtoList);
+        statusResponse = ApiResponse.fromResponseStatus(ResponseStatusDto.builder().code(0).message("").build());
+        singleResponseJson = objectMapper.writeValueAsBytes(singleResponse);
+    }
+
+    @Benchmark
+    public byte[] serializeStatus() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(statusResponse);
+    }
+
+    @Benchmark
+    public byte[] serializeOrder() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(singleResponse);
+    }
+
+    @Benchmark
+    public byte[] serializeOrderList100() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(listResponse);
+    }
+
+    @Benchmark
+    public ApiResponse<OrderDto> deserializeOrder() throws IOException {
+        return objectMapper.readValue(singleResponseJson, new TypeReference<ApiResponse<OrderDto>>() {});
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.demo_multiple_tm_order.dto;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One participant call worth of encoding work per wire format (twopc.wire-format):
+ * - roundTripOrderCall: encode OrderDto request body, decode ApiResponse<Void> reply
+ * - roundTripGetCall: encode and decode ApiResponse<OrderDto> (GET reply)
+ * - roundTripPhaseCall: encode and decode the ApiResponse<Void> envelope (prepare/validate/commit)
+ *
+ * Payload sizes per format are printed once per trial ("payload bytes [format] ...") in the JMH output.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    private static final TypeReference<ApiResponse<Void>> STATUS_TYPE = new TypeReference<>() {};
+    private static final TypeReference<ApiResponse<OrderDto>> ORDER_TYPE = new TypeReference<>() {};
+
+    @Param({"json", "cbor"})
+    public String format;
+
+    private ObjectMapper objectMapper;
+    private OrderDto orderDto;
+    private ApiResponse<Void> statusResponse;
+    private ApiResponse<OrderDto> orderResponse;
+
+    @Setup
+    public void setup() throws IOException {
+        objectMapper = "cbor".equals(format)
+                ? CBORMapper.builder().findAndAddModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build()
+                : JsonMapper.builder().findAndAddModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+
+        LocalDateTime now = LocalDateTime.of(2025, 9, 15, 14, 30);
+        orderDto = OrderDto.builder().id("ORD-2025-001").productId(10).orderQty(2).orderDatetime(now).build();
+        statusResponse = ApiResponse.fromResponseStatus(ResponseStatusDto.builder().code(0).message("").build());
+        orderResponse = ApiResponse.success(orderDto);
+
+        System.out.printf("payload bytes [%s] order=%d status=%d order-response=%d%n", format,
+                objectMapper.writeValueAsBytes(orderDto).length,
+                objectMapper.writeValueAsBytes(statusResponse).length,
+                objectMapper.writeValueAsBytes(orderResponse).length);
+    }
+
+    @Benchmark
+    public ApiResponse<Void> roundTripOrderCall() throws IOException {
+        byte[] request = objectMapper.writeValueAsBytes(orderDto);
+        OrderDto received = objectMapper.readValue(request, OrderDto.class);
+        byte[] response = objectMapper.writeValueAsBytes(statusResponse);
+        return received != null ? objectMapper.readValue(response, STATUS_TYPE) : null;
+    }
+
+    @Benchmark
+    public ApiResponse<OrderDto> roundTripGetCall() throws IOException {
+        byte[] response = objectMapper.writeValueAsBytes(orderResponse);
+        return objectMapper.readValue(response, ORDER_TYPE);
+    }
+
+    @Benchmark
+    public ApiResponse<Void> roundTripPhaseCall() throws IOException {
+        byte[] response = objectMapper.writeValueAsBytes(statusResponse);
+        return objectMapper.readValue(response, STATUS_TYPE);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo_multiple_tm_order.mapper;
+
+import com.example.demo_multiple_tm_order.dto.OrderDto;
+import com.example.demo_multiple_tm_order.model.Order;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OrderMapper conversions between Order and OrderDto
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderMapperBenchmark {
+
+    private Order order;
+    private OrderDto orderDto;
+    private List<Order> orderList;
+
+    @Setup
+    public void setup() {
+        LocalDateTime now = LocalDateTime.of(2025, 9, 15, 14, 30);
+        order = Order.builder().id("ORD-2025-001").productId(10).orderQty(2).orderDatetime(now).build();
+        orderDto = OrderDto.builder().id("ORD-2025-001").productId(10).orderQty(2).orderDatetime(now).build();
+        orderList = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            orderList.add(Order.builder().id("ORD-" + i).productId(i).orderQty(1).orderDatetime(now).build());
+        }
+    }
+
+    @Benchmark
+    public OrderDto mapToOrderDto() {
+        return OrderMapper.mapToOrderDto(order);
+    }
+
+    @Benchmark
+    public Order mapToOrder() {
+        return OrderMapper.mapToOrder(orderDto);
+    }
+
+    @Benchmark
+    public List<OrderDto> mapToOrderDtoList100() {
+        return OrderMapper.mapToOrderDtoList(orderList);
+    }
+}
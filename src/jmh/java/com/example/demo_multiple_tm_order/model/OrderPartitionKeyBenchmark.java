@@ -0,0 +1,30 @@
+package com.example.demo_multiple_tm_order.model;
+
+import com.scalar.db.io.Key;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Partition key construction for ScalarDB operations
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderPartitionKeyBenchmark {
+
+    private Order order;
+
+    @Setup
+    public void setup() {
+        order = Order.builder().id("ORD-2025-001").productId(10).orderQty(2).build();
+    }
+
+    @Benchmark
+    public Key getPartitionKey() {
+        return order.getPartitionKey();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo_multiple_tm_order.util;
+
+import com.example.demo_multiple_tm_order.mapper.OrderRecordMapper;
+import com.example.demo_multiple_tm_order.model.Order;
+import com.scalar.db.sql.ResultSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ExecuteSqlUtil hot paths: record-to-entity mapping (reflective and SqlRecordMapper) and SQL statement validation
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecuteSqlUtilBenchmark {
+
+    private static final String SELECT_STATEMENT =
+            "SELECT id, product_id, order_qty, order_datetime FROM shopping.order WHERE id = 'ORD-2025-001'";
+    private static final String UPDATE_STATEMENT =
+            "UPDATE shopping.order SET order_qty = 5 WHERE id = 'ORD-2025-001' AND product_id = 10";
+
+    @Param({"1", "100", "1000"})
+    public int rows;
+
+    private ResultSet resultSet;
+    private ExecuteSqlUtil<Order> executeSqlUtil;
+    private ExecuteSqlUtil<Order> recordMapperSqlUtil;
+
+    @Setup
+    public void setup() {
+        resultSet = FakeSqlResults.orderResultSet(rows);
+        executeSqlUtil = new ExecuteSqlUtil<>(Order.class);
+        recordMapperSqlUtil = new ExecuteSqlUtil<>(Order.class, OrderRecordMapper.INSTANCE);
+    }
+
+    @Benchmark
+    public List<Order> mapResultSet() {
+        return executeSqlUtil.mapResultSet(resultSet);
+    }
+
+    @Benchmark
+    public List<Order> mapResultSetWithRecordMapper() {
+        return recordMapperSqlUtil.mapResultSet(resultSet);
+    }
+
+    @Benchmark
+    public void validateSelectStatement(Blackhole blackhole) {
+        ExecuteSqlUtil.validateSqlStatement(SELECT_STATEMENT);
+        blackhole.consume(SELECT_STATEMENT);
+    }
+
+    @Benchmark
+    public void validateUpdateStatement(Blackhole blackhole) {
+        ExecuteSqlUtil.validateSqlStatement(UPDATE_STATEMENT);
+        blackhole.consume(UPDATE_STATEMENT);
+    }
+}
@@ -0,0 +1,352 @@
+package com.example.demo_multiple_tm_order.util;
+
+import com.scalar.db.sql.ColumnDefinition;
+import com.scalar.db.sql.ColumnDefinitions;
+import com.scalar.db.sql.DataType;
+import com.scalar.db.sql.Record;
+import com.scalar.db.sql.ResultSet;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory ScalarDB SQL result sets for benchmarks
+ *
+ * Record, ResultSet and ColumnDefinitions are small concrete classes over plain arrays, so the
+ * mapping code can be measured without a ScalarDB cluster and without reflective dispatch on the
+ * measured path. Column values are looked up by index, or by name through a shared name-to-index
+ * map, as in the ScalarDB client. Only the methods used by the mapping utilities are meaningful.
+ */
+public final class FakeSqlResults {
+
+    public static final String NAMESPACE = "shopping";
+    public static final String TABLE = "order";
+
+    private FakeSqlResults() {
+    }
+
+    /**
+     * Result set with the four columns of shopping.order
+     *
+     * @param rows Number of rows to generate
+     */
+    public static ResultSet orderResultSet(int rows) {
+        String[] names = {"id", "product_id", "order_qty", "order_datetime"};
+        DataType[] types = {DataType.TEXT, DataType.INT, DataType.INT, DataType.TIMESTAMP};
+        LocalDateTime base = LocalDateTime.of(2025, 9, 15, 14, 30);
+
+        List<Object[]> values = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            values.add(new Object[] {"ORD-" + i, i % 50, 1 + (i % 10), base.plusSeconds(i)});
+        }
+        return resultSet(names, types, values);
+    }
+
+    /**
+     * Result set with the given number of columns, cycling through TEXT, INT, BIGINT, DOUBLE and TIMESTAMP
+     *
+     * @param rows    Number of rows to generate
+     * @param columns Number of columns
+     */
+    public static ResultSet wideResultSet(int rows, int columns) {
+        DataType[] cycle = {DataType.TEXT, DataType.INT, DataType.BIGINT, DataType.DOUBLE, DataType.TIMESTAMP};
+        String[] names = new String[columns];
+        DataType[] types = new DataType[columns];
+        for (int c = 0; c < columns; c++) {
+            names[c] = "column_" + c;
+            types[c] = cycle[c % cycle.length];
+        }
+        LocalDateTime base = LocalDateTime.of(2025, 9, 15, 14, 30);
+
+        List<Object[]> values = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Object[] row = new Object[columns];
+            for (int c = 0; c < columns; c++) {
+                row[c] = switch (types[c]) {
+                    case TEXT -> "value-" + i + "-" + c;
+                    case INT -> i + c;
+                    case BIGINT -> (long) i * c;
+                    case DOUBLE -> i * 0.5 + c;
+                    default -> base.plusSeconds(i + c);
+                };
+            }
+            values.add(row);
+        }
+        return resultSet(names, types, values);
+    }
+
+    /**
+     * Result set with the given columns and row values
+     */
+    public static ResultSet resultSet(String[] names, DataType[] types, List<Object[]> values) {
+        FakeColumnDefinitions columnDefinitions = new FakeColumnDefinitions(names, types);
+        List<Record> records = new ArrayList<>(values.size());
+        for (Object[] row : values) {
+            records.add(new FakeRecord(columnDefinitions, row));
+        }
+        return new FakeResultSet(columnDefinitions, records);
+    }
+
+    private static final class FakeResultSet implements ResultSet {
+        private final ColumnDefinitions columnDefinitions;
+        private final List<Record> records;
+
+        FakeResultSet(ColumnDefinitions columnDefinitions, List<Record> records) {
+            this.columnDefinitions = columnDefinitions;
+            this.records = records;
+        }
+
+        public Optional<Record> one() {
+            return records.isEmpty() ? Optional.empty() : Optional.of(records.get(0));
+        }
+
+        public List<Record> all() {
+            return records;
+        }
+
+        @Override
+        public ColumnDefinitions getColumnDefinitions() {
+            return columnDefinitions;
+        }
+
+        @Override
+        public Iterator<Record> iterator() {
+            return records.iterator();
+        }
+
+        public void close() {
+        }
+    }
+
+    private static final class FakeColumnDefinitions implements ColumnDefinitions {
+        private final String[] names;
+        private final List<ColumnDefinition> definitions;
+        private final Map<String, Integer> indexes;
+
+        FakeColumnDefinitions(String[] names, DataType[] types) {
+            this.names = names;
+            this.definitions = new ArrayList<>(names.length);
+            this.indexes = new HashMap<>();
+            for (int i = 0; i < names.length; i++) {
+                definitions.add(ColumnDefinition.of(NAMESPACE, TABLE, names[i], types[i]));
+                indexes.put(names[i], i);
+            }
+        }
+
+        // Index of a column, or -1
+        int indexOf(String columnName) {
+            Integer index = indexes.get(columnName);
+            return index == null ? -1 : index;
+        }
+
+        public ColumnDefinition getColumnDefinition(String columnName) {
+            int index = indexOf(columnName);
+            if (index < 0) {
+                throw new IllegalArgumentException("Unknown column: " + columnName);
+            }
+            return definitions.get(index);
+        }
+
+        @Override
+        public ColumnDefinition getColumnDefinition(int index) {
+            return definitions.get(index);
+        }
+
+        public boolean contains(String columnName) {
+            return indexes.containsKey(columnName);
+        }
+
+        @Override
+        public int size() {
+            return definitions.size();
+        }
+
+        public List<String> getColumnNames() {
+            return Arrays.asList(names);
+        }
+
+        @Override
+        public Iterator<ColumnDefinition> iterator() {
+            return definitions.iterator();
+        }
+    }
+
+    private static final class FakeRecord implements Record {
+        private final FakeColumnDefinitions columnDefinitions;
+        private final Object[] row;
+
+        FakeRecord(FakeColumnDefinitions columnDefinitions, Object[] row) {
+            this.columnDefinitions = columnDefinitions;
+            this.row = row;
+        }
+
+        private Object value(String columnName) {
+            int index = columnDefinitions.indexOf(columnName);
+            return index < 0 ? null : row[index];
+        }
+
+        @Override
+        public boolean isNull(String columnName) {
+            return value(columnName) == null;
+        }
+
+        @Override
+        public boolean isNull(int i) {
+            return row[i] == null;
+        }
+
+        @Override
+        public boolean getBoolean(String columnName) {
+            Object value = value(columnName);
+            return value != null && (Boolean) value;
+        }
+
+        @Override
+        public boolean getBoolean(int i) {
+            return row[i] != null && (Boolean) row[i];
+        }
+
+        @Override
+        public int getInt(String columnName) {
+            Object value = value(columnName);
+            return value == null ? 0 : (Integer) value;
+        }
+
+        @Override
+        public int getInt(int i) {
+            return row[i] == null ? 0 : (Integer) row[i];
+        }
+
+        @Override
+        public long getBigInt(String columnName) {
+            Object value = value(columnName);
+            return value == null ? 0L : (Long) value;
+        }
+
+        @Override
+        public long getBigInt(int i) {
+            return row[i] == null ? 0L : (Long) row[i];
+        }
+
+        @Override
+        public float getFloat(String columnName) {
+            Object value = value(columnName);
+            return value == null ? 0.0f : (Float) value;
+        }
+
+        @Override
+        public float getFloat(int i) {
+            return row[i] == null ? 0.0f : (Float) row[i];
+        }
+
+        @Override
+        public double getDouble(String columnName) {
+            Object value = value(columnName);
+            return value == null ? 0.0d : (Double) value;
+        }
+
+        @Override
+        public double getDouble(int i) {
+            return row[i] == null ? 0.0d : (Double) row[i];
+        }
+
+        @Override
+        public String getText(String columnName) {
+            return (String) value(columnName);
+        }
+
+        @Override
+        public String getText(int i) {
+            return (String) row[i];
+        }
+
+        public ByteBuffer getBlobAsByteBuffer(String columnName) {
+            Object value = value(columnName);
+            return value == null ? null : ByteBuffer.wrap((byte[]) value);
+        }
+
+        public ByteBuffer getBlobAsByteBuffer(int i) {
+            return row[i] == null ? null : ByteBuffer.wrap((byte[]) row[i]);
+        }
+
+        @Override
+        public byte[] getBlobAsBytes(String columnName) {
+            return (byte[]) value(columnName);
+        }
+
+        @Override
+        public byte[] getBlobAsBytes(int i) {
+            return (byte[]) row[i];
+        }
+
+        @Override
+        public LocalDate getDate(String columnName) {
+            return (LocalDate) value(columnName);
+        }
+
+        @Override
+        public LocalDate getDate(int i) {
+            return (LocalDate) row[i];
+        }
+
+        @Override
+        public LocalTime getTime(String columnName) {
+            return (LocalTime) value(columnName);
+        }
+
+        @Override
+        public LocalTime getTime(int i) {
+            return (LocalTime) row[i];
+        }
+
+        @Override
+        public LocalDateTime getTimestamp(String columnName) {
+            return (LocalDateTime) value(columnName);
+        }
+
+        @Override
+        public LocalDateTime getTimestamp(int i) {
+            return (LocalDateTime) row[i];
+        }
+
+        @Override
+        public Instant getTimestampTZ(String columnName) {
+            return (Instant) value(columnName);
+        }
+
+        @Override
+        public Instant getTimestampTZ(int i) {
+            return (Instant) row[i];
+        }
+
+        public Object getObject(String columnName) {
+            return value(columnName);
+        }
+
+        public Object getObject(int i) {
+            return row[i];
+        }
+
+        public boolean contains(String columnName) {
+            return columnDefinitions.contains(columnName);
+        }
+
+        public ColumnDefinitions getColumnDefinitions() {
+            return columnDefinitions;
+        }
+
+        public int size() {
+            return row.length;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo_multiple_tm_order.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.scalar.db.sql.ResultSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GenericSqlUtil result building and JSON serialization: one Map per row vs SqlResultTable
+ * (shared header, Object[] rows)
+ *
+ * shape=order uses the four columns of shopping.order, shape=wide a 20-column result.
+ * Run with -PjmhProfilers=gc to compare allocation per operation (gc.alloc.rate.norm).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenericSqlUtilBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int rows;
+
+    @Param({"order", "wide"})
+    public String shape;
+
+    private ResultSet resultSet;
+    private ObjectMapper objectMapper;
+    private List<Map<String, Object>> mapRows;
+    private SqlResultTable table;
+
+    @Setup
+    public void setup() {
+        resultSet = shape.equals("wide") ? FakeSqlResults.wideResultSet(rows, 20) : FakeSqlResults.orderResultSet(rows);
+        objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        mapRows = GenericSqlUtil.buildRows(resultSet);
+        table = GenericSqlUtil.buildTable(resultSet);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> buildRows() {
+        return GenericSqlUtil.buildRows(resultSet);
+    }
+
+    @Benchmark
+    public SqlResultTable buildTable() {
+        return GenericSqlUtil.buildTable(resultSet);
+    }
+
+    @Benchmark
+    public byte[] serializeRows() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(mapRows);
+    }
+
+    @Benchmark
+    public byte[] serializeTable() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(table);
+    }
+}
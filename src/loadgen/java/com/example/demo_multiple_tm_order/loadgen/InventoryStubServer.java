@@ -0,0 +1,164 @@
+package com.example.demo_multiple_tm_order.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for the inventory service (port 8081) used by placeOrder
+ *
+ * Implements the /product-two-pc participant contract in memory:
+ * - GET /product-two-pc/{id}                 returns the product with its current stock
+ * - PUT /product-two-pc                      stages a new stock value for the transaction
+ * - GET /product-two-pc/{prepare|validate}   no-op
+ * - GET /product-two-pc/commit               applies staged stock values
+ * - GET /product-two-pc/rollback, /rollback  discards staged stock values
+ *
+ * Bodies are read in the request's Content-Type and written in the Accept type: JSON, or CBOR
+ * (application/cbor) when the BFF runs with twopc.wire-format=cbor.
+ *
+ * Stock is never persisted; every product starts with the configured initial stock.
+ * This lets /place-order-two-pc-bff be driven on one machine without a real inventory service.
+ */
+public class InventoryStubServer {
+
+    private static final String TRANSACTION_HEADER = "ScalarDB-Transaction-ID";
+    private static final Pattern PRODUCT_PATH = Pattern.compile("^/product-two-pc/(\\d+)$");
+    private static final String CBOR = "application/cbor";
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+    private static final ObjectMapper CBOR_MAPPER = new ObjectMapper(new CBORFactory());
+
+    private final int initialStock;
+    private final Map<Integer, Integer> stock = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, Integer>> staged = new ConcurrentHashMap<>();
+    private final HttpServer server;
+
+    public InventoryStubServer(int port, int initialStock, int threads) throws IOException {
+        this.initialStock = initialStock;
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        this.server.setExecutor(Executors.newFixedThreadPool(threads));
+        this.server.createContext("/", this::handle);
+    }
+
+    public static void main(String[] args) throws IOException {
+        WorkloadConfig config = WorkloadConfig.parse(args);
+        InventoryStubServer stub = new InventoryStubServer(
+                config.inventoryStubPort(), config.inventoryStubStock(), config.threads());
+        stub.start();
+        System.out.println("Inventory stub listening on port " + config.inventoryStubPort());
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            String transactionId = exchange.getRequestHeaders().getFirst(TRANSACTION_HEADER);
+
+            Matcher productMatcher = PRODUCT_PATH.matcher(path);
+            if (method.equals("GET") && productMatcher.matches()) {
+                int id = Integer.parseInt(productMatcher.group(1));
+                Map<String, Object> product = new LinkedHashMap<>();
+                product.put("id", id);
+                product.put("productName", "product-" + id);
+                product.put("stock", currentStock(transactionId, id));
+                Map<String, Object> body = ok();
+                body.put("data", product);
+                respond(exchange, 200, body);
+            } else if (method.equals("PUT") && path.equals("/product-two-pc")) {
+                JsonNode product = readBody(exchange);
+                if (transactionId == null || !product.path("id").canConvertToInt() || !product.path("stock").canConvertToInt()) {
+                    respond(exchange, 400, error("Invalid product"));
+                    return;
+                }
+                staged.computeIfAbsent(transactionId, k -> new ConcurrentHashMap<>())
+                        .put(product.get("id").asInt(), product.get("stock").asInt());
+                respond(exchange, 200, ok());
+            } else if (path.equals("/product-two-pc/commit")) {
+                Map<Integer, Integer> changes = transactionId == null ? null : staged.remove(transactionId);
+                if (changes != null) {
+                    stock.putAll(changes);
+                }
+                respond(exchange, 200, ok());
+            } else if (path.equals("/product-two-pc/rollback") || path.equals("/rollback")) {
+                if (transactionId != null) {
+                    staged.remove(transactionId);
+                }
+                respond(exchange, 200, ok());
+            } else if (path.equals("/product-two-pc/prepare") || path.equals("/product-two-pc/validate")) {
+                respond(exchange, 200, ok());
+            } else {
+                respond(exchange, 404, error("Not found"));
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private int currentStock(String transactionId, int id) {
+        if (transactionId != null) {
+            Map<Integer, Integer> changes = staged.get(transactionId);
+            if (changes != null && changes.containsKey(id)) {
+                return changes.get(id);
+            }
+        }
+        return stock.getOrDefault(id, initialStock);
+    }
+
+    private static Map<String, Object> ok() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("success", true);
+        body.put("message", "Success");
+        return body;
+    }
+
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("success", false);
+        body.put("message", message);
+        body.put("errorCode", 9400);
+        return body;
+    }
+
+    // Request body in its Content-Type (JSON unless application/cbor); a missing body reads as empty
+    private static JsonNode readBody(HttpExchange exchange) throws IOException {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        ObjectMapper mapper = contentType != null && contentType.startsWith(CBOR) ? CBOR_MAPPER : JSON_MAPPER;
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readAllBytes();
+            return bytes.length == 0 ? mapper.createObjectNode() : mapper.readTree(bytes);
+        }
+    }
+
+    // Response body in CBOR if the client accepts it, JSON otherwise
+    private static void respond(HttpExchange exchange, int status, Map<String, Object> body) throws IOException {
+        String accept = exchange.getRequestHeaders().getFirst("Accept");
+        boolean cbor = accept != null && accept.contains(CBOR);
+        byte[] bytes = (cbor ? CBOR_MAPPER : JSON_MAPPER).writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", cbor ? CBOR : "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
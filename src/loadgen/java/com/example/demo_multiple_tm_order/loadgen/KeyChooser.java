@@ -0,0 +1,102 @@
+package com.example.demo_multiple_tm_order.loadgen;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Chooses record keys in [0, itemCount) following a YCSB-style distribution
+ */
+public interface KeyChooser {
+
+    long nextKey();
+
+    static KeyChooser create(String distribution, long itemCount, WorkloadConfig config) {
+        return switch (distribution) {
+            case WorkloadConfig.DISTRIBUTION_UNIFORM -> new Uniform(itemCount);
+            case WorkloadConfig.DISTRIBUTION_ZIPFIAN -> new ScrambledZipfian(itemCount, config.zipfianConstant());
+            case WorkloadConfig.DISTRIBUTION_HOTKEY -> new HotKey(itemCount, config.hotSetFraction(), config.hotOpFraction());
+            default -> throw new IllegalArgumentException("Unknown distribution: " + distribution);
+        };
+    }
+
+    /**
+     * Every key equally likely
+     */
+    record Uniform(long itemCount) implements KeyChooser {
+        @Override
+        public long nextKey() {
+            return ThreadLocalRandom.current().nextLong(itemCount);
+        }
+    }
+
+    /**
+     * A fraction of operations (hotOpFraction) goes to a small set of keys (hotSetFraction)
+     */
+    record HotKey(long itemCount, double hotSetFraction, double hotOpFraction) implements KeyChooser {
+        @Override
+        public long nextKey() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long hotSetSize = Math.max(1, (long) (itemCount * hotSetFraction));
+            if (hotSetSize >= itemCount || random.nextDouble() < hotOpFraction) {
+                return random.nextLong(hotSetSize);
+            }
+            return hotSetSize + random.nextLong(itemCount - hotSetSize);
+        }
+    }
+
+    /**
+     * Zipfian distribution (Gray et al., as used by YCSB) with popular keys scattered over the
+     * key space by hashing, so hot keys do not cluster at the low end.
+     */
+    final class ScrambledZipfian implements KeyChooser {
+        private static final long FNV_OFFSET_BASIS_64 = 0xCBF29CE484222325L;
+        private static final long FNV_PRIME_64 = 1099511628211L;
+
+        private final long itemCount;
+        private final double theta;
+        private final double zetaN;
+        private final double alpha;
+        private final double eta;
+
+        public ScrambledZipfian(long itemCount, double theta) {
+            this.itemCount = itemCount;
+            this.theta = theta;
+            this.zetaN = zeta(itemCount, theta);
+            double zeta2 = zeta(2, theta);
+            this.alpha = 1.0 / (1.0 - theta);
+            this.eta = (1 - Math.pow(2.0 / itemCount, 1 - theta)) / (1 - zeta2 / zetaN);
+        }
+
+        @Override
+        public long nextKey() {
+            double u = ThreadLocalRandom.current().nextDouble();
+            double uz = u * zetaN;
+            long rank;
+            if (uz < 1.0) {
+                rank = 0;
+            } else if (uz < 1.0 + Math.pow(0.5, theta)) {
+                rank = 1;
+            } else {
+                rank = (long) (itemCount * Math.pow(eta * u - eta + 1, alpha));
+            }
+            return Math.floorMod(fnvHash(Math.min(rank, itemCount - 1)), itemCount);
+        }
+
+        private static double zeta(long n, double theta) {
+            double sum = 0;
+            for (long i = 1; i <= n; i++) {
+                sum += 1 / Math.pow(i, theta);
+            }
+            return sum;
+        }
+
+        private static long fnvHash(long value) {
+            long hash = FNV_OFFSET_BASIS_64;
+            for (int i = 0; i < 8; i++) {
+                hash ^= value & 0xFF;
+                hash *= FNV_PRIME_64;
+                value >>= 8;
+            }
+            return hash;
+        }
+    }
+}
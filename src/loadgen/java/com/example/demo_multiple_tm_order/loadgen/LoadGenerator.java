@@ -0,0 +1,267 @@
+package com.example.demo_multiple_tm_order.loadgen;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * YCSB-style workload generator for the order service
+ *
+ * Drives /order, /order-two-pc-bff, /order-two-pc-grpc-bff or /place-order-two-pc-bff with a configurable mix of reads,
+ * writes and scans (time-range reads of recent orders from /order/by-time), a key distribution (uniform, zipfian, hotkey), a fixed number of closed-loop
+ * client threads and a fixed duration. Latency is recorded with HdrHistogram and reported as
+ * throughput and p50/p99/p99.9 per operation after the warm-up period.
+ *
+ * Usage:
+ *   ./gradlew loadgen -PloadgenArgs="--target=place-order-two-pc-bff --inventory-stub=true --threads=32"
+ *
+ * See WorkloadConfig for all options.
+ */
+public class LoadGenerator {
+
+    enum Operation { READ, WRITE, SCAN }
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.SECONDS.toMicros(60);
+    private static final DateTimeFormatter DATETIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private final WorkloadConfig config;
+    private final HttpClient client;
+    private final KeyChooser orderKeys;
+    private final KeyChooser productKeys;
+    private final AtomicLong placedOrders = new AtomicLong();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+
+    private volatile boolean recording;
+
+    public LoadGenerator(WorkloadConfig config) {
+        this.config = config;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(2, config.threads())))
+                .build();
+        this.orderKeys = KeyChooser.create(config.distribution(), config.recordCount(), config);
+        this.productKeys = KeyChooser.create(config.distribution(), config.productCount(), config);
+        for (Operation operation : Operation.values()) {
+            histograms.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+            errors.put(operation, new AtomicLong());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        WorkloadConfig config = WorkloadConfig.parse(args);
+        InventoryStubServer stub = null;
+        if (config.inventoryStub()) {
+            stub = new InventoryStubServer(config.inventoryStubPort(), config.inventoryStubStock(), config.threads());
+            stub.start();
+            System.out.println("Inventory stub listening on port " + config.inventoryStubPort());
+        }
+        // The HTTP client and the stub keep non-daemon threads, so the JVM is ended explicitly
+        int exitCode = 0;
+        try {
+            LoadGenerator generator = new LoadGenerator(config);
+            if (config.load()) {
+                generator.load();
+            }
+            generator.run();
+        } catch (Exception e) {
+            System.err.println("Load generator failed: " + e);
+            e.printStackTrace();
+            exitCode = 1;
+        } finally {
+            if (stub != null) {
+                stub.stop();
+            }
+        }
+        System.exit(exitCode);
+    }
+
+    /**
+     * Insert record-count orders so reads and scans hit existing keys
+     */
+    public void load() throws InterruptedException {
+        System.out.println("Loading " + config.recordCount() + " orders...");
+        ExecutorService workers = Executors.newFixedThreadPool(config.threads());
+        AtomicLong failures = new AtomicLong();
+        for (long key = 0; key < config.recordCount(); key++) {
+            long k = key;
+            workers.submit(() -> {
+                try {
+                    if (!isSuccess(send(post(config.baseUrl() + "/order/upsert", orderJson(orderId(k)))))) {
+                        failures.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.HOURS);
+        System.out.println("Load finished, failures: " + failures.get());
+    }
+
+    /**
+     * Run warm-up then the measured period with closed-loop client threads
+     */
+    public void run() throws Exception {
+        System.out.println("Workload: " + config);
+        ExecutorService workers = Executors.newFixedThreadPool(config.threads());
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.warmupSeconds());
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(config.durationSeconds());
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < config.threads(); i++) {
+            futures.add(workers.submit(() -> workerLoop(end)));
+        }
+
+        TimeUnit.NANOSECONDS.sleep(Math.max(0, warmupEnd - System.nanoTime()));
+        histograms.values().forEach(Histogram::reset);
+        errors.values().forEach(counter -> counter.set(0));
+        recording = true;
+        long measureStart = System.nanoTime();
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long measuredNanos = System.nanoTime() - measureStart;
+        workers.shutdown();
+
+        report(measuredNanos);
+    }
+
+    private void workerLoop(long end) {
+        while (System.nanoTime() < end) {
+            Operation operation = chooseOperation();
+            long start = System.nanoTime();
+            boolean success;
+            try {
+                success = isSuccess(send(buildRequest(operation)));
+            } catch (Exception e) {
+                success = false;
+            }
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            if (recording) {
+                histograms.get(operation).recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+                if (!success) {
+                    errors.get(operation).incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private Operation chooseOperation() {
+        double total = config.readRatio() + config.writeRatio() + config.scanRatio();
+        double r = ThreadLocalRandom.current().nextDouble() * total;
+        if (r < config.readRatio()) {
+            return Operation.READ;
+        }
+        if (r < config.readRatio() + config.writeRatio()) {
+            return Operation.WRITE;
+        }
+        return Operation.SCAN;
+    }
+
+    private HttpRequest buildRequest(Operation operation) {
+        String base = config.baseUrl();
+        String target = config.target();
+        // Reads for place-order go to the plain order endpoints. Scans are range reads of the orders
+        // placed in the last scan-minutes through /order/by-time, the only range read the service has
+        String readPath = target.equals(WorkloadConfig.TARGET_PLACE_ORDER_TWO_PC_BFF) ? "/order" : "/" + target;
+        String id = orderId(orderKeys.nextKey());
+        LocalDateTime now = LocalDateTime.now();
+
+        return switch (operation) {
+            case READ -> get(base + readPath + "/" + id);
+            case SCAN -> get(base + "/order/by-time?from=" + now.minusMinutes(config.scanMinutes()).format(DATETIME_FORMAT)
+                    + "&to=" + now.format(DATETIME_FORMAT));
+            case WRITE -> target.equals(WorkloadConfig.TARGET_PLACE_ORDER_TWO_PC_BFF)
+                    ? post(base + "/place-order-two-pc-bff", orderJson("PO-" + runId + "-" + placedOrders.incrementAndGet()))
+                    : post(base + "/" + target + "/upsert", orderJson(id));
+        };
+    }
+
+    private String orderJson(String id) {
+        int productId = (int) productKeys.nextKey() + 1;
+        return "{\"id\":\"" + id + "\",\"productId\":" + productId + ",\"orderQty\":1,\"orderDatetime\":\""
+                + LocalDateTime.now().format(DATETIME_FORMAT) + "\"}";
+    }
+
+    private static String orderId(long key) {
+        return "ORD-" + key;
+    }
+
+    private HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(config.requestTimeoutMillis()))
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(String url, String json) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(config.requestTimeoutMillis()))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private HttpResponse<Void> send(HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    private static boolean isSuccess(HttpResponse<?> response) {
+        return response.statusCode() >= 200 && response.statusCode() < 300;
+    }
+
+    private void report(long measuredNanos) {
+        double seconds = measuredNanos / 1_000_000_000.0;
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        long totalErrors = 0;
+
+        System.out.println();
+        System.out.printf("%-8s %10s %8s %12s %10s %10s %10s %10s%n",
+                "op", "count", "errors", "ops/sec", "p50(ms)", "p99(ms)", "p99.9(ms)", "max(ms)");
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = histograms.get(operation);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            total.add(histogram);
+            totalErrors += errors.get(operation).get();
+            printRow(operation.name(), histogram, errors.get(operation).get(), seconds);
+        }
+        printRow("TOTAL", total, totalErrors, seconds);
+    }
+
+    private static void printRow(String name, Histogram histogram, long errorCount, double seconds) {
+        System.out.printf("%-8s %10d %8d %12.1f %10.2f %10.2f %10.2f %10.2f%n",
+                name,
+                histogram.getTotalCount(),
+                errorCount,
+                histogram.getTotalCount() / seconds,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demo_multiple_tm_order.loadgen;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Load generator settings, parsed from --key=value arguments
+ *
+ * Ratios are relative weights and do not need to add up to 1.
+ */
+public class WorkloadConfig {
+
+    public static final String TARGET_ORDER = "order";
+    public static final String TARGET_ORDER_TWO_PC_BFF = "order-two-pc-bff";
+    public static final String TARGET_PLACE_ORDER_TWO_PC_BFF = "place-order-two-pc-bff";
+    public static final String TARGET_ORDER_TWO_PC_GRPC_BFF = "order-two-pc-grpc-bff";
+    public static final List<String> TARGETS = List.of(
+            TARGET_ORDER, TARGET_ORDER_TWO_PC_BFF, TARGET_PLACE_ORDER_TWO_PC_BFF, TARGET_ORDER_TWO_PC_GRPC_BFF);
+
+    public static final String DISTRIBUTION_UNIFORM = "uniform";
+    public static final String DISTRIBUTION_ZIPFIAN = "zipfian";
+    public static final String DISTRIBUTION_HOTKEY = "hotkey";
+
+    private final Map<String, String> values;
+
+    private WorkloadConfig(Map<String, String> values) {
+        this.values = values;
+    }
+
+    public static WorkloadConfig parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Arguments must be --key=value: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            values.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        WorkloadConfig config = new WorkloadConfig(values);
+        // Any other value would silently build URLs for an endpoint that does not exist
+        if (!TARGETS.contains(config.target())) {
+            throw new IllegalArgumentException("Unknown --target " + config.target() + ", expected one of " + TARGETS);
+        }
+        return config;
+    }
+
+    // Service under test
+    public String baseUrl() { return get("base-url", "http://localhost:8080"); }
+    public String target() { return get("target", TARGET_ORDER); }
+
+    // Operation mix
+    public double readRatio() { return getDouble("read-ratio", 0.5); }
+    public double writeRatio() { return getDouble("write-ratio", 0.5); }
+    public double scanRatio() { return getDouble("scan-ratio", 0.0); }
+    // Scans read the orders of the last scan-minutes (order_by_time partitions)
+    public long scanMinutes() { return getLong("scan-minutes", 5); }
+
+    // Key space and distribution
+    public long recordCount() { return getLong("record-count", 10_000); }
+    public String distribution() { return get("distribution", DISTRIBUTION_UNIFORM); }
+    public double zipfianConstant() { return getDouble("zipfian-constant", 0.99); }
+    public double hotSetFraction() { return getDouble("hot-set-fraction", 0.01); }
+    public double hotOpFraction() { return getDouble("hot-op-fraction", 0.9); }
+    public int productCount() { return (int) getLong("product-count", 100); }
+
+    // Execution
+    public int threads() { return (int) getLong("threads", 16); }
+    public long durationSeconds() { return getLong("duration", 60); }
+    public long warmupSeconds() { return getLong("warmup", 10); }
+    public boolean load() { return Boolean.parseBoolean(get("load", "false")); }
+    public long requestTimeoutMillis() { return getLong("request-timeout-ms", 10_000); }
+
+    // Inventory stand-in for place-order
+    public boolean inventoryStub() { return Boolean.parseBoolean(get("inventory-stub", "false")); }
+    public int inventoryStubPort() { return (int) getLong("inventory-stub-port", 8081); }
+    public int inventoryStubStock() { return (int) getLong("inventory-stub-stock", 1_000_000_000); }
+
+    private String get(String key, String defaultValue) {
+        return values.getOrDefault(key, defaultValue);
+    }
+
+    private long getLong(String key, long defaultValue) {
+        String value = values.get(key);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    private double getDouble(String key, double defaultValue) {
+        String value = values.get(key);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    @Override
+    public String toString() {
+        return "target=" + target() + ", baseUrl=" + baseUrl()
+                + ", mix(read/write/scan)=" + readRatio() + "/" + writeRatio() + "/" + scanRatio()
+                + ", distribution=" + distribution() + ", records=" + recordCount()
+                + ", threads=" + threads() + ", duration=" + durationSeconds() + "s, warmup=" + warmupSeconds() + "s";
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.demo_multiple_tm_order.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Async Request Handling Configuration
+ *
+ * The /order and /order-two-pc endpoints return CompletableFuture. The blocking ScalarDB round
+ * trip runs on orderIoExecutor, so the Tomcat worker thread is released while the request waits:
+ * - order.async.enabled=true: bounded I/O pool (order.async.io.core-threads, max-threads,
+ *   queue-capacity); a full queue rejects the task and the request fails with 503
+ * - order.async.enabled=false (default): futures complete on the calling Tomcat thread, the same
+ *   threading as plain synchronous endpoints
+ *
+ * Trace and MDC context is copied to the I/O threads (ContextPropagatingTaskDecorator).
+ * spring.mvc.async.request-timeout bounds how long an async request may wait.
+ */
+@Configuration
+public class AsyncIoConfig implements WebMvcConfigurer {
+
+    private final AsyncTaskExecutor orderIoExecutor;
+
+    public AsyncIoConfig(@Qualifier("orderIoExecutor") AsyncTaskExecutor orderIoExecutor) {
+        this.orderIoExecutor = orderIoExecutor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(orderIoExecutor);
+    }
+
+    @Configuration
+    static class ExecutorConfig {
+
+        @Bean
+        public AsyncTaskExecutor orderIoExecutor(@Value("${order.async.enabled:false}") boolean enabled,
+                                                 @Value("${order.async.io.core-threads:64}") int coreThreads,
+                                                 @Value("${order.async.io.max-threads:256}") int maxThreads,
+                                                 @Value("${order.async.io.queue-capacity:1000}") int queueCapacity) {
+            if (!enabled) {
+                return new TaskExecutorAdapter(Runnable::run);
+            }
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setThreadNamePrefix("order-io-");
+            executor.setCorePoolSize(coreThreads);
+            executor.setMaxPoolSize(maxThreads);
+            executor.setQueueCapacity(queueCapacity);
+            executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+            executor.setWaitForTasksToCompleteOnShutdown(true);
+            executor.setAwaitTerminationSeconds(30);
+            executor.initialize();
+            return executor;
+        }
+    }
+}
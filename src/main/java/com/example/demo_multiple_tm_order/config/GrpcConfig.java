@@ -0,0 +1,56 @@
+package com.example.demo_multiple_tm_order.config;
+
+import com.example.demo_multiple_tm_order.grpc.proto.OrderTwoPCParticipantGrpc;
+import io.grpc.BindableService;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * gRPC Configuration
+ *
+ * - grpc.server.enabled=true starts a gRPC server on grpc.server.port serving all BindableService beans
+ *   (OrderTwoPCGrpcService)
+ * - The client channel to the order participant (grpc.client.order.target) is shared by all transactions;
+ *   each transaction opens its own stream, multiplexed over the channel's HTTP/2 connection.
+ *   The channel connects lazily on the first call.
+ */
+@Slf4j
+@Configuration
+public class GrpcConfig {
+
+    @Value("${grpc.server.port:9090}")
+    private int serverPort;
+
+    @Value("${grpc.client.order.target:localhost:9090}")
+    private String orderTarget;
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "grpc.server.enabled", havingValue = "true")
+    public Server grpcServer(List<BindableService> services) throws IOException {
+        ServerBuilder<?> builder = ServerBuilder.forPort(serverPort);
+        services.forEach(builder::addService);
+        Server server = builder.build().start();
+        log.info("gRPC server started on port {}", serverPort);
+        return server;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ManagedChannel orderParticipantChannel() {
+        return ManagedChannelBuilder.forTarget(orderTarget).usePlaintext().build();
+    }
+
+    @Bean
+    public OrderTwoPCParticipantGrpc.OrderTwoPCParticipantStub orderParticipantStub(ManagedChannel orderParticipantChannel) {
+        return OrderTwoPCParticipantGrpc.newStub(orderParticipantChannel);
+    }
+}
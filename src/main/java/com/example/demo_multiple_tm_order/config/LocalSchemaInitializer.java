@@ -0,0 +1,111 @@
+package com.example.demo_multiple_tm_order.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scalar.db.api.DistributedTransactionAdmin;
+import com.scalar.db.api.Scan;
+import com.scalar.db.api.TableMetadata;
+import com.scalar.db.io.DataType;
+import com.scalar.db.service.TransactionFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Schema initializer for the local profile
+ *
+ * Creates the Consensus Commit coordinator tables and every table defined in the ScalarDB
+ * schema file (db/sample_tables.json, Schema Loader format) on startup, so the service runs
+ * against an embedded SQLite store without running the Schema Loader first.
+ * Existing namespaces and tables are left untouched, except that columns and secondary indexes
+ * added to the schema file later are created on them.
+ */
+@Slf4j
+@Component
+@Profile("local")
+public class LocalSchemaInitializer implements InitializingBean {
+
+    @Value("${scalardb.schema.file:file:db/sample_tables.json}")
+    private String schemaFile;
+
+    private final TransactionFactory transactionFactory;
+    private final ResourceLoader resourceLoader;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public LocalSchemaInitializer(TransactionFactory transactionFactory, ResourceLoader resourceLoader) {
+        this.transactionFactory = transactionFactory;
+        this.resourceLoader = resourceLoader;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        Files.createDirectories(Paths.get("build", "local"));
+
+        JsonNode schema;
+        Resource resource = resourceLoader.getResource(schemaFile);
+        try (InputStream in = resource.getInputStream()) {
+            schema = objectMapper.readTree(in);
+        }
+
+        DistributedTransactionAdmin admin = transactionFactory.getTransactionAdmin();
+        try {
+            admin.createCoordinatorTables(true);
+            Iterator<Map.Entry<String, JsonNode>> tables = schema.fields();
+            while (tables.hasNext()) {
+                Map.Entry<String, JsonNode> table = tables.next();
+                String[] names = table.getKey().split("\\.", 2);
+                admin.createNamespace(names[0], true);
+                TableMetadata metadata = buildTableMetadata(table.getValue());
+                admin.createTable(names[0], names[1], metadata, true);
+                TableMetadata existing = admin.getTableMetadata(names[0], names[1]);
+                for (String column : metadata.getColumnNames()) {
+                    if (!existing.getColumnNames().contains(column)) {
+                        admin.addNewColumnToTable(names[0], names[1], column, metadata.getColumnDataType(column));
+                    }
+                }
+                for (JsonNode secondaryIndex : table.getValue().path("secondary-index")) {
+                    admin.createIndex(names[0], names[1], secondaryIndex.asText(), true);
+                }
+                log.info("Local schema ready: {}", table.getKey());
+            }
+        } finally {
+            admin.close();
+        }
+    }
+
+    // Build TableMetadata from a Schema Loader table definition
+    private TableMetadata buildTableMetadata(JsonNode definition) {
+        TableMetadata.Builder builder = TableMetadata.newBuilder();
+
+        Iterator<Map.Entry<String, JsonNode>> columns = definition.get("columns").fields();
+        while (columns.hasNext()) {
+            Map.Entry<String, JsonNode> column = columns.next();
+            builder.addColumn(column.getKey(), DataType.valueOf(column.getValue().asText().toUpperCase()));
+        }
+        for (JsonNode partitionKey : definition.path("partition-key")) {
+            builder.addPartitionKey(partitionKey.asText());
+        }
+        for (JsonNode clusteringKey : definition.path("clustering-key")) {
+            // Entries are "column" or "column ASC|DESC"
+            String[] parts = clusteringKey.asText().trim().split("\\s+");
+            Scan.Ordering.Order order = parts.length > 1 && parts[1].equalsIgnoreCase("DESC")
+                    ? Scan.Ordering.Order.DESC
+                    : Scan.Ordering.Order.ASC;
+            builder.addClusteringKey(parts[0], order);
+        }
+        for (JsonNode secondaryIndex : definition.path("secondary-index")) {
+            builder.addSecondaryIndex(secondaryIndex.asText());
+        }
+        return builder.build();
+    }
+}
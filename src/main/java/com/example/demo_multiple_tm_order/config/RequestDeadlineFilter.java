@@ -0,0 +1,76 @@
+package com.example.demo_multiple_tm_order.config;
+
+import com.example.demo_multiple_tm_order.util.RequestDeadline;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Sets the request deadline (see RequestDeadline) for each API request
+ *
+ * - X-Request-Deadline (epoch ms): deadline forwarded by an upstream coordinator, used as is
+ * - X-Request-Timeout (ms): client timeout, the deadline is now + timeout
+ * - Neither: now + request.deadline.default-timeout-ms; the default is 0 (no deadline), so existing
+ *   endpoints such as /import, /export or /execute-sql get no deadline unless the client asks for one
+ *
+ * Unparsable header values are ignored. Actuator endpoints get no deadline.
+ */
+@Slf4j
+@Component
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+
+    private final long defaultTimeoutMs;
+
+    public RequestDeadlineFilter(@Value("${request.deadline.default-timeout-ms:0}") long defaultTimeoutMs) {
+        this.defaultTimeoutMs = defaultTimeoutMs;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Long previous = RequestDeadline.set(deadlineOf(request));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestDeadline.set(previous);
+        }
+    }
+
+    private Long deadlineOf(HttpServletRequest request) {
+        long now = System.currentTimeMillis();
+        Long deadline = parse(request, RequestDeadline.HEADER);
+        if (deadline != null) {
+            return deadline;
+        }
+        Long timeoutMs = parse(request, RequestDeadline.TIMEOUT_HEADER);
+        if (timeoutMs != null && timeoutMs > 0) {
+            return now + timeoutMs;
+        }
+        return defaultTimeoutMs > 0 ? now + defaultTimeoutMs : null;
+    }
+
+    private static Long parse(HttpServletRequest request, String header) {
+        String value = request.getHeader(header);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring invalid {} header: {}", header, value);
+            return null;
+        }
+    }
+}
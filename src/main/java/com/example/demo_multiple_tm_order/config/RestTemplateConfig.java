@@ -1,27 +1,73 @@
 package com.example.demo_multiple_tm_order.config;
 
+import com.example.demo_multiple_tm_order.util.RequestDeadline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.net.HttpURLConnection;
+
 /**
  * RestTemplate Configuration
  *
  * Provides a RestTemplate bean for making HTTP requests to other microservices.
  * Used by BffService to coordinate distributed transactions across services.
  *
+ * The RestTemplate is built from Spring Boot's RestTemplateBuilder so that client observations
+ * are applied: each participant call gets a client span and carries the W3C traceparent header
+ * next to ScalarDB-Transaction-ID.
+ *
+ * Timeouts are set per call from the request deadline (see RequestDeadline): the connect and read
+ * timeouts are twopc.http.connect-timeout-ms and twopc.http.read-timeout-ms, cut down to the
+ * budget left until the deadline.
+ *
  * Note: In production environments, consider:
  * - Adding connection pooling configuration
- * - Setting appropriate timeouts
  * - Adding retry logic
- * - Implementing circuit breaker patterns (e.g., with Resilience4j)
  * - Using service discovery (e.g., with Spring Cloud)
  */
 @Configuration
 public class RestTemplateConfig {
 
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(RestTemplateBuilder builder,
+                                     @Value("${twopc.http.connect-timeout-ms:2000}") int connectTimeoutMs,
+                                     @Value("${twopc.http.read-timeout-ms:30000}") int readTimeoutMs) {
+        return builder.requestFactory(() -> new DeadlineRequestFactory(connectTimeoutMs, readTimeoutMs)).build();
+    }
+
+    /**
+     * HttpURLConnection factory that derives each call's timeouts from the remaining deadline budget
+     */
+    static class DeadlineRequestFactory extends SimpleClientHttpRequestFactory {
+
+        private final int connectTimeoutMs;
+        private final int readTimeoutMs;
+
+        DeadlineRequestFactory(int connectTimeoutMs, int readTimeoutMs) {
+            this.connectTimeoutMs = connectTimeoutMs;
+            this.readTimeoutMs = readTimeoutMs;
+        }
+
+        @Override
+        protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
+            super.prepareConnection(connection, httpMethod);
+            long remainingMs = RequestDeadline.remainingMs();
+            connection.setConnectTimeout(budget(connectTimeoutMs, remainingMs));
+            connection.setReadTimeout(budget(readTimeoutMs, remainingMs));
+        }
+
+        // Configured timeout (0 = none) capped by the remaining budget; never 0, which would mean no timeout
+        private static int budget(int timeoutMs, long remainingMs) {
+            if (remainingMs == Long.MAX_VALUE) {
+                return timeoutMs;
+            }
+            long capped = timeoutMs > 0 ? Math.min(timeoutMs, remainingMs) : remainingMs;
+            return (int) Math.max(1, Math.min(Integer.MAX_VALUE, capped));
+        }
     }
 }
@@ -0,0 +1,34 @@
+package com.example.demo_multiple_tm_order.config;
+
+import com.example.demo_multiple_tm_order.dto.ApiResponse;
+import com.example.demo_multiple_tm_order.dto.OrderBackfillReportDto;
+import com.example.demo_multiple_tm_order.dto.OrderDto;
+import com.example.demo_multiple_tm_order.dto.OrderExportJobDto;
+import com.example.demo_multiple_tm_order.dto.OrderImportReportDto;
+import com.example.demo_multiple_tm_order.dto.OrderImportRowErrorDto;
+import com.example.demo_multiple_tm_order.dto.OrderProductSummaryDto;
+import com.example.demo_multiple_tm_order.dto.ProductDto;
+import com.example.demo_multiple_tm_order.dto.ProductSummaryReconcileDto;
+import com.example.demo_multiple_tm_order.dto.ResponseStatusDto;
+import com.example.demo_multiple_tm_order.dto.SqlBatchDto;
+import com.example.demo_multiple_tm_order.dto.SqlBatchStatementDto;
+import com.example.demo_multiple_tm_order.dto.SqlCommandDto;
+import com.example.demo_multiple_tm_order.util.SqlResultTable;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Runtime hints for Spring AOT builds (./gradlew bootJar -PfastStartup)
+ *
+ * - DTOs are registered for Jackson binding, including payloads exchanged with other services via RestTemplate
+ * - Order entities are mapped with OrderRecordMapper and OrderMapper, so the model needs no reflection hints
+ */
+@Configuration
+@RegisterReflectionForBinding({
+        ApiResponse.class, OrderBackfillReportDto.class, OrderDto.class, OrderExportJobDto.class, OrderImportReportDto.class,
+        OrderImportRowErrorDto.class, OrderProductSummaryDto.class,
+        ProductDto.class, ProductSummaryReconcileDto.class, ResponseStatusDto.class, SqlBatchDto.class,
+        SqlBatchStatementDto.class, SqlCommandDto.class, SqlResultTable.class
+})
+public class RuntimeHintsConfig {
+}
@@ -7,6 +7,16 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import java.io.IOException;
 
+/**
+ * ScalarDB Transaction Manager Configuration
+ *
+ * Properties are read from scalardb.config.file: ScalarDB Cluster by default,
+ * embedded Consensus Commit on SQLite with the local profile (scalardb-local.properties).
+ *
+ * The TransactionFactory is a shared bean: the standard and 2PC transaction managers
+ * (and the local schema initializer) are created from the same factory instead of each
+ * parsing the config file and building its own factory.
+ */
 @Configuration
 public class ScalarDbConfig {
 
@@ -14,8 +24,12 @@ public class ScalarDbConfig {
     private String scalarDbConfigFile;
 
     @Bean
-    public DistributedTransactionManager distributedTransactionManager() throws IOException {
-        TransactionFactory factory = TransactionFactory.create(scalarDbConfigFile);
-        return factory.getTransactionManager();
+    public TransactionFactory transactionFactory() throws IOException {
+        return TransactionFactory.create(scalarDbConfigFile);
     }
-}
\ No newline at end of file
+
+    @Bean
+    public DistributedTransactionManager distributedTransactionManager(TransactionFactory transactionFactory) {
+        return transactionFactory.getTransactionManager();
+    }
+}
@@ -6,6 +6,16 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import java.io.IOException;
 
+/**
+ * ScalarDB SQL Configuration
+ *
+ * Properties are read from scalardb_sql.config.file: cluster mode by default,
+ * direct mode on the local SQLite store with the local profile (scalardb_sql-local.properties).
+ *
+ * One SqlSessionFactory (and so one ScalarDB client) serves every SQL session. Sessions use
+ * one-phase transactions by default; GenericSqlTwoPCService switches its sessions to two-phase
+ * commit mode before joining a coordinator's transaction.
+ */
 @Configuration
 public class ScalarDbSqlConfig {
 
@@ -0,0 +1,34 @@
+package com.example.demo_multiple_tm_order.config;
+
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.aop.ObservedAspect;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Tracing Configuration
+ *
+ * Spring Boot auto-configures the OpenTelemetry tracer, W3C propagation and the OTLP exporter
+ * (set management.otlp.tracing.endpoint). This class adds:
+ * - ObservedAspect, so @Observed repositories produce a span per ScalarDB call
+ * - An optional local file exporter for testing without a collector
+ *   (tracing.file-exporter.enabled=true)
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    public ObservedAspect observedAspect(ObservationRegistry observationRegistry) {
+        return new ObservedAspect(observationRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "tracing.file-exporter.enabled", havingValue = "true")
+    public SpanExporter fileSpanExporter(
+            @Value("${tracing.file-exporter.path:build/traces/spans.jsonl}") String path) {
+        return new FileSpanExporter(path);
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.demo_multiple_tm_order.config;
+
+import com.example.demo_multiple_tm_order.dto.ApiResponse;
+import com.example.demo_multiple_tm_order.dto.OrderDto;
+import com.example.demo_multiple_tm_order.dto.ResponseStatusDto;
+import com.example.demo_multiple_tm_order.mapper.OrderMapper;
+import com.example.demo_multiple_tm_order.mapper.OrderRecordMapper;
+import com.example.demo_multiple_tm_order.model.Order;
+import com.example.demo_multiple_tm_order.util.ExecuteSqlUtil;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scalar.db.api.DistributedTransaction;
+import com.scalar.db.api.DistributedTransactionManager;
+import com.scalar.db.api.Get;
+import com.scalar.db.api.TwoPhaseCommitTransaction;
+import com.scalar.db.api.TwoPhaseCommitTransactionManager;
+import com.scalar.db.sql.SqlSession;
+import com.scalar.db.sql.SqlSessionFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Startup warm-up (app.warmup.enabled=true)
+ *
+ * Runs before the application reports readiness: Spring Boot publishes
+ * ReadinessState.ACCEPTING_TRAFFIC only after all ApplicationRunners have completed, so
+ * /actuator/health/readiness stays DOWN until warm-up finishes. Steps:
+ * - Pre-connect: start and roll back transactions on both transaction managers and the SQL
+ *   session factory, reading one key so ScalarDB table metadata is cached
+ * - Exercise OrderMapper, ExecuteSqlUtil and Jackson serializers so serializer caches are
+ *   built and the code is JIT-compiled before real traffic arrives
+ *
+ * Failures are logged and do not stop the application.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.warmup.enabled", havingValue = "true")
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final String WARMUP_KEY = "__warmup__";
+
+    private final DistributedTransactionManager manager;
+    private final TwoPhaseCommitTransactionManager twoPhaseCommitManager;
+    private final SqlSessionFactory sqlSessionFactory;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.warmup.iterations:2000}")
+    private int iterations;
+
+    @Value("${app.warmup.connection-rounds:4}")
+    private int connectionRounds;
+
+    public WarmupRunner(DistributedTransactionManager manager,
+                        TwoPhaseCommitTransactionManager twoPhaseCommitManager,
+                        SqlSessionFactory sqlSessionFactory,
+                        ObjectMapper objectMapper,
+                        MeterRegistry meterRegistry) {
+        this.manager = manager;
+        this.twoPhaseCommitManager = twoPhaseCommitManager;
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        log.info("Warm-up started");
+        Timer.Sample sample = Timer.start(meterRegistry);
+        for (int i = 0; i < connectionRounds; i++) {
+            warmUpTransactionManager();
+            warmUpTwoPhaseCommitManager();
+            warmUpSqlSession();
+        }
+        warmUpMappersAndSerializers();
+        long nanos = sample.stop(Timer.builder("app.startup.warmup")
+                .description("Duration of the startup warm-up")
+                .register(meterRegistry));
+        log.info("Warm-up finished in {} ms", nanos / 1_000_000);
+    }
+
+    private void warmUpTransactionManager() {
+        DistributedTransaction transaction = null;
+        try {
+            transaction = manager.start();
+            transaction.get(warmupGet());
+        } catch (Exception e) {
+            log.warn("Warm-up of transaction manager failed: {}", e.getMessage());
+        } finally {
+            if (transaction != null) {
+                try {
+                    transaction.rollback();
+                } catch (Exception ex) {
+                    log.debug(ex.getMessage(), ex);
+                }
+            }
+        }
+    }
+
+    private void warmUpTwoPhaseCommitManager() {
+        TwoPhaseCommitTransaction transaction = null;
+        try {
+            transaction = twoPhaseCommitManager.start();
+            transaction.get(warmupGet());
+        } catch (Exception e) {
+            log.warn("Warm-up of 2PC transaction manager failed: {}", e.getMessage());
+        } finally {
+            if (transaction != null) {
+                try {
+                    transaction.rollback();
+                } catch (Exception ex) {
+                    log.debug(ex.getMessage(), ex);
+                }
+            }
+        }
+    }
+
+    private void warmUpSqlSession() {
+        SqlSession sqlSession = null;
+        try {
+            sqlSession = sqlSessionFactory.createSqlSession();
+            sqlSession.begin();
+            sqlSession.execute("SELECT id FROM " + Order.NAMESPACE + "." + Order.TABLE
+                    + " WHERE id = '" + WARMUP_KEY + "'");
+            sqlSession.rollback();
+        } catch (Exception e) {
+            log.warn("Warm-up of SQL session failed: {}", e.getMessage());
+        } finally {
+            if (sqlSession != null) {
+                try {
+                    sqlSession.close();
+                } catch (Exception ex) {
+                    log.debug(ex.getMessage(), ex);
+                }
+            }
+        }
+    }
+
+    private void warmUpMappersAndSerializers() {
+        try {
+            new ExecuteSqlUtil<>(Order.class, OrderRecordMapper.INSTANCE);
+            ExecuteSqlUtil.validateSqlStatement("SELECT * FROM " + Order.NAMESPACE + "." + Order.TABLE
+                    + " WHERE id = '" + WARMUP_KEY + "'");
+
+            LocalDateTime now = LocalDateTime.now();
+            List<Order> orders = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                orders.add(Order.builder().id(WARMUP_KEY + i).productId(i).orderQty(1).orderDatetime(now).build());
+            }
+            TypeReference<ApiResponse<List<OrderDto>>> listType = new TypeReference<>() {};
+            for (int i = 0; i < iterations; i++) {
+                List<OrderDto> orderDtos = OrderMapper.mapToOrderDtoList(orders);
+                OrderMapper.mapToOrder(orderDtos.get(0));
+
+                byte[] json = objectMapper.writeValueAsBytes(ApiResponse.success(orderDtos));
+                objectMapper.readValue(json, listType);
+                objectMapper.writeValueAsBytes(ApiResponse.fromResponseStatus(
+                        ResponseStatusDto.builder().code(0).message("").build()));
+            }
+        } catch (Exception e) {
+            log.warn("Warm-up of mappers and serializers failed: {}", e.getMessage());
+        }
+    }
+
+    private Get warmupGet() {
+        return Get.newBuilder()
+                .namespace(Order.NAMESPACE)
+                .table(Order.TABLE)
+                .partitionKey(Order.builder().id(WARMUP_KEY).build().getPartitionKey())
+                .build();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.demo_multiple_tm_order.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Wire Format Configuration
+ *
+ * Registers a CBOR (application/cbor) message converter built from Spring Boot's Jackson settings.
+ * Spring Boot adds it to both Spring MVC and the RestTemplate in place of the default CBOR converter,
+ * which comes after the JSON converter, so:
+ * - External clients keep getting JSON unless they send Accept: application/cbor
+ * - Participant controllers accept and produce CBOR when the BFF asks for it (twopc.wire-format=cbor)
+ */
+@Configuration
+public class WireFormatConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
@@ -1,13 +1,18 @@
 package com.example.demo_multiple_tm_order.controller;
 
+import com.example.demo_multiple_tm_order.service.AdaptiveConcurrencyLimiter;
 import com.example.demo_multiple_tm_order.dto.ApiResponse;
-import com.example.demo_multiple_tm_order.dto.ResponseStatusDto;
 import com.example.demo_multiple_tm_order.exception.CustomException;
+import com.example.demo_multiple_tm_order.metrics.TwoPCTracing;
 import com.example.demo_multiple_tm_order.service.BaseTwoPCService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Base controller for Two-Phase Commit (2PC) REST endpoints
  *
@@ -18,54 +23,70 @@ import org.springframework.web.bind.annotation.*;
  * - GET /rollback - Rolls back the transaction
  *
  * All endpoints receive transaction ID via ScalarDB-Transaction-ID header.
+ * The W3C traceparent header sent by the BFF is picked up by the server observation, and the
+ * transaction ID is added to the server span of every endpoint in concrete controllers.
+ * Lifecycle endpoints are async: the phase runs on orderIoExecutor (see AsyncIoConfig).
+ * The X-Request-Deadline header sent by the BFF bounds prepare, validate and CRUD (see RequestDeadline).
  * Concrete controllers extend this and implement getService().
  */
 public abstract class BaseTwoPCController {
 
+    @Autowired
+    private TwoPCTracing tracing;
+
     /**
      * Get the service instance for this controller
      * Must be implemented by concrete controllers
      */
     protected abstract BaseTwoPCService getService();
 
+    /**
+     * Tag the server span with the ScalarDB transaction ID before any endpoint runs
+     */
+    @ModelAttribute
+    public void tagTransaction(
+            @RequestHeader(value = "ScalarDB-Transaction-ID", required = false) String transactionId) {
+        tracing.tagTransaction(transactionId);
+    }
+
     /**
      * Prepare endpoint - prepares the transaction for commit
      */
     @GetMapping("/prepare")
-    public ResponseEntity<ApiResponse<Void>> prepare(
+    public CompletableFuture<ResponseEntity<ApiResponse<Void>>> prepare(
             @RequestHeader("ScalarDB-Transaction-ID") String transactionId) throws CustomException {
-        ResponseStatusDto status = getService().prepare(transactionId);
-        return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+        return getService().prepareAsync(transactionId)
+                .thenApply(status -> ResponseEntity.ok(ApiResponse.fromResponseStatus(status)));
     }
 
     /**
      * Validate endpoint - validates the transaction state
      */
     @GetMapping("/validate")
-    public ResponseEntity<ApiResponse<Void>> validate(
+    public CompletableFuture<ResponseEntity<ApiResponse<Void>>> validate(
             @RequestHeader("ScalarDB-Transaction-ID") String transactionId) throws CustomException {
-        ResponseStatusDto status = getService().validate(transactionId);
-        return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+        return getService().validateAsync(transactionId)
+                .thenApply(status -> ResponseEntity.ok(ApiResponse.fromResponseStatus(status)));
     }
 
     /**
      * Commit endpoint - commits the transaction
      */
     @GetMapping("/commit")
-    public ResponseEntity<ApiResponse<Void>> commit(
+    public CompletableFuture<ResponseEntity<ApiResponse<Void>>> commit(
             @RequestHeader("ScalarDB-Transaction-ID") String transactionId) throws CustomException {
-        ResponseStatusDto status = getService().commit(transactionId);
-        return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+        return getService().commitAsync(transactionId)
+                .thenApply(status -> ResponseEntity.ok(ApiResponse.fromResponseStatus(status)));
     }
 
     /**
      * Rollback endpoint - rolls back the transaction
      */
     @GetMapping("/rollback")
-    public ResponseEntity<ApiResponse<Void>> rollback(
+    public CompletableFuture<ResponseEntity<ApiResponse<Void>>> rollback(
             @RequestHeader("ScalarDB-Transaction-ID") String transactionId) throws CustomException {
-        ResponseStatusDto status = getService().rollback(transactionId);
-        return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+        return getService().rollbackAsync(transactionId)
+                .thenApply(status -> ResponseEntity.ok(ApiResponse.fromResponseStatus(status)));
     }
 
     /**
@@ -77,6 +98,9 @@ public abstract class BaseTwoPCController {
         return switch (ex.getErrorCode()) {
             case 9100, 9400 -> new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
             case 9200, 9300 -> new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
+            case 9800 -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, AdaptiveConcurrencyLimiter.RETRY_AFTER_SECONDS).body(errorResponse);
+            case 9820 -> new ResponseEntity<>(errorResponse, HttpStatus.GATEWAY_TIMEOUT);
             default -> new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
         };
     }
@@ -1,10 +1,14 @@
 package com.example.demo_multiple_tm_order.controller;
 
+import com.example.demo_multiple_tm_order.service.AdaptiveConcurrencyLimiter;
 import com.example.demo_multiple_tm_order.service.GenericSqlService;
 import com.example.demo_multiple_tm_order.dto.ApiResponse;
 import com.example.demo_multiple_tm_order.dto.ResponseStatusDto;
+import com.example.demo_multiple_tm_order.dto.SqlBatchDto;
 import com.example.demo_multiple_tm_order.dto.SqlCommandDto;
 import com.example.demo_multiple_tm_order.exception.CustomException;
+import com.example.demo_multiple_tm_order.util.SqlResultTable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -18,18 +22,35 @@ public class GenericSqlController {
     @Autowired
     private GenericSqlService genericSqlService;
 
+    // format=rows returns {"columns":[...],"rows":[[...]]} instead of one object per row
     @PostMapping("/execute")
-    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> executeSQLGeneric(@RequestBody SqlCommandDto sqlCommandDto) {
+    public ResponseEntity<? extends ApiResponse<?>> executeSQLGeneric(@RequestBody SqlCommandDto sqlCommandDto,
+            @RequestParam(value = "format", defaultValue = "objects") String format) {
+        if ("rows".equals(format)) {
+            SqlResultTable result = genericSqlService.executeSQLGenericTable(sqlCommandDto);
+            return ResponseEntity.ok(ApiResponse.success(result));
+        }
         List<Map<String, Object>> result = genericSqlService.executeSQLGeneric(sqlCommandDto);
         return ResponseEntity.ok(ApiResponse.success(result));
     }
 
+    // Statements run in order in one transaction; one result table per statement (empty for DML)
+    @PostMapping("/execute-batch")
+    public ResponseEntity<ApiResponse<List<SqlResultTable>>> executeSQLBatch(@RequestBody SqlBatchDto sqlBatchDto) {
+        List<SqlResultTable> result = genericSqlService.executeSQLBatch(sqlBatchDto);
+        return ResponseEntity.ok(ApiResponse.success(result));
+    }
+
     @ExceptionHandler(value = CustomException.class)
     public ResponseEntity<ApiResponse<Void>> handleScalarDbException(CustomException ex) {
         ApiResponse<Void> errorResponse = ApiResponse.error(ex.getErrorCode(), ex.getMessage());
         return switch (ex.getErrorCode()) {
             case 9100, 9400 -> new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
             case 9200, 9300 -> new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
+            case 9710, 9720 -> new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+            case 9730 -> new ResponseEntity<>(errorResponse, HttpStatus.REQUEST_TIMEOUT);
+            case 9800 -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, AdaptiveConcurrencyLimiter.RETRY_AFTER_SECONDS).body(errorResponse);
             default -> new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
         };
     }
@@ -0,0 +1,94 @@
+package com.example.demo_multiple_tm_order.controller;
+
+import com.example.demo_multiple_tm_order.service.AdaptiveConcurrencyLimiter;
+import com.example.demo_multiple_tm_order.service.GenericSqlTwoPCService;
+import com.example.demo_multiple_tm_order.dto.ApiResponse;
+import com.example.demo_multiple_tm_order.dto.ResponseStatusDto;
+import com.example.demo_multiple_tm_order.dto.SqlBatchDto;
+import com.example.demo_multiple_tm_order.exception.CustomException;
+import com.example.demo_multiple_tm_order.metrics.TwoPCTracing;
+import com.example.demo_multiple_tm_order.util.SqlResultTable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import java.util.List;
+
+/**
+ * Two-Phase Commit (2PC) participant endpoints over the SQL interface
+ *
+ * - POST /execute joins the ScalarDB-Transaction-ID transaction and runs the statements in it
+ * - GET /prepare, /validate, /commit, /rollback drive the joined SQL session
+ *
+ * Same lifecycle paths as BaseTwoPCController, but backed by GenericSqlTwoPCService because the
+ * transaction lives in a SQL session kept on this instance instead of the transaction manager.
+ * The X-Request-Deadline header sent by the coordinator bounds execute, prepare and validate.
+ */
+@RequestMapping(value = "/generic-sql-two-pc")
+@RestController
+public class GenericSqlTwoPCController {
+    @Autowired
+    private GenericSqlTwoPCService genericSqlTwoPCService;
+
+    @Autowired
+    private TwoPCTracing tracing;
+
+    @ModelAttribute
+    public void tagTransaction(
+            @RequestHeader(value = "ScalarDB-Transaction-ID", required = false) String transactionId) {
+        tracing.tagTransaction(transactionId);
+    }
+
+    // One result table per statement (empty for DML); nothing is committed until /commit
+    @PostMapping("/execute")
+    public ResponseEntity<ApiResponse<List<SqlResultTable>>> execute(
+            @RequestBody SqlBatchDto sqlBatchDto,
+            @RequestHeader("ScalarDB-Transaction-ID") String transactionId) {
+        List<SqlResultTable> result = genericSqlTwoPCService.execute(sqlBatchDto, transactionId);
+        return ResponseEntity.ok(ApiResponse.success(result));
+    }
+
+    @GetMapping("/prepare")
+    public ResponseEntity<ApiResponse<Void>> prepare(
+            @RequestHeader("ScalarDB-Transaction-ID") String transactionId) {
+        ResponseStatusDto status = genericSqlTwoPCService.prepare(transactionId);
+        return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+    }
+
+    @GetMapping("/validate")
+    public ResponseEntity<ApiResponse<Void>> validate(
+            @RequestHeader("ScalarDB-Transaction-ID") String transactionId) {
+        ResponseStatusDto status = genericSqlTwoPCService.validate(transactionId);
+        return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+    }
+
+    @GetMapping("/commit")
+    public ResponseEntity<ApiResponse<Void>> commit(
+            @RequestHeader("ScalarDB-Transaction-ID") String transactionId) {
+        ResponseStatusDto status = genericSqlTwoPCService.commit(transactionId);
+        return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+    }
+
+    @GetMapping("/rollback")
+    public ResponseEntity<ApiResponse<Void>> rollback(
+            @RequestHeader("ScalarDB-Transaction-ID") String transactionId) {
+        ResponseStatusDto status = genericSqlTwoPCService.rollback(transactionId);
+        return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+    }
+
+    @ExceptionHandler(value = CustomException.class)
+    public ResponseEntity<ApiResponse<Void>> handleScalarDbException(CustomException ex) {
+        ApiResponse<Void> errorResponse = ApiResponse.error(ex.getErrorCode(), ex.getMessage());
+        return switch (ex.getErrorCode()) {
+            case 9100, 9400 -> new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+            case 9200, 9300 -> new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
+            case 9710, 9720 -> new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+            case 9730 -> new ResponseEntity<>(errorResponse, HttpStatus.REQUEST_TIMEOUT);
+            case 9800 -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, AdaptiveConcurrencyLimiter.RETRY_AFTER_SECONDS).body(errorResponse);
+            case 9820 -> new ResponseEntity<>(errorResponse, HttpStatus.GATEWAY_TIMEOUT);
+            default -> new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
+        };
+    }
+}
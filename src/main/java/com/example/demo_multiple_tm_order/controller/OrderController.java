@@ -1,89 +1,221 @@
 package com.example.demo_multiple_tm_order.controller;
 
+import com.example.demo_multiple_tm_order.service.AdaptiveConcurrencyLimiter;
+import com.example.demo_multiple_tm_order.service.IdempotencyService;
+import com.example.demo_multiple_tm_order.service.OrderBackfillService;
+import com.example.demo_multiple_tm_order.service.OrderExportService;
+import com.example.demo_multiple_tm_order.service.OrderImportService;
+import com.example.demo_multiple_tm_order.service.OrderParallelScanService;
 import com.example.demo_multiple_tm_order.service.OrderService;
+import com.example.demo_multiple_tm_order.dto.OrderBackfillReportDto;
 import com.example.demo_multiple_tm_order.dto.OrderDto;
+import com.example.demo_multiple_tm_order.dto.OrderExportJobDto;
+import com.example.demo_multiple_tm_order.dto.OrderImportReportDto;
+import com.example.demo_multiple_tm_order.dto.OrderProductSummaryDto;
+import com.example.demo_multiple_tm_order.dto.ProductSummaryReconcileDto;
 import com.example.demo_multiple_tm_order.dto.ApiResponse;
 import com.example.demo_multiple_tm_order.dto.ResponseStatusDto;
 import com.example.demo_multiple_tm_order.dto.SqlCommandDto;
 import com.example.demo_multiple_tm_order.exception.CustomException;
 import com.scalar.db.exception.transaction.CrudException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 
+import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
+/**
+ * Order endpoints (standard transaction API)
+ *
+ * CRUD and query endpoints return CompletableFuture: the transaction runs on orderIoExecutor and
+ * the Tomcat thread is released while it waits (see AsyncIoConfig). Writes with an Idempotency-Key
+ * run the whole key check on that executor as well, since the idempotency store may hit ScalarDB.
+ */
 @RequestMapping(value = "/order")
 @RestController
 public class OrderController {
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private OrderParallelScanService orderParallelScanService;
+
+    @Autowired
+    private OrderBackfillService orderBackfillService;
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private OrderImportService orderImportService;
+
     @PostMapping
-    public ResponseEntity<ApiResponse<Void>> insertOrder(@RequestBody OrderDto orderDto) {
-        ResponseStatusDto status = orderService.insertOrder(orderDto);
-        return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+    public CompletableFuture<ResponseEntity<ApiResponse<Void>>> insertOrder(@RequestBody OrderDto orderDto,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return write(idempotencyKey, "POST /order", orderDto,
+                () -> orderService.insertOrderAsync(orderDto), () -> orderService.insertOrder(orderDto));
     }
 
     @PostMapping("/upsert")
-    public ResponseEntity<ApiResponse<Void>> upsertOrder(@RequestBody OrderDto orderDto) {
-        ResponseStatusDto status = orderService.upsertOrder(orderDto);
-        return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+    public CompletableFuture<ResponseEntity<ApiResponse<Void>>> upsertOrder(@RequestBody OrderDto orderDto,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return write(idempotencyKey, "POST /order/upsert", orderDto,
+                () -> orderService.upsertOrderAsync(orderDto), () -> orderService.upsertOrder(orderDto));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<OrderDto>> getOrder(@PathVariable("id") String id) {
+    public CompletableFuture<ResponseEntity<ApiResponse<OrderDto>>> getOrder(@PathVariable("id") String id,
+            @RequestParam(value = "fields", required = false) String fields) {
         OrderDto orderDto = OrderDto.builder()
             .id(id)
             .build();
-        OrderDto result = orderService.getOrder(orderDto);
-        return ResponseEntity.ok(ApiResponse.success(result));
+        return orderService.getOrderAsync(orderDto, fields)
+                .thenApply(result -> ResponseEntity.ok(ApiResponse.success(result)));
     }
 
     @PutMapping
-    public ResponseEntity<ApiResponse<Void>> updateOrder(@RequestBody OrderDto orderDto) {
-        ResponseStatusDto status = orderService.updateOrder(orderDto);
-        return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+    public CompletableFuture<ResponseEntity<ApiResponse<Void>>> updateOrder(@RequestBody OrderDto orderDto,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return write(idempotencyKey, "PUT /order", orderDto,
+                () -> orderService.updateOrderAsync(orderDto), () -> orderService.updateOrder(orderDto));
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<ApiResponse<Void>> deleteOrder(@PathVariable("id") String id) {
+    public CompletableFuture<ResponseEntity<ApiResponse<Void>>> deleteOrder(@PathVariable("id") String id,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         OrderDto orderDto = OrderDto.builder()
             .id(id)
             .build();
-        ResponseStatusDto status = orderService.deleteOrder(orderDto);
-        return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+        return write(idempotencyKey, "DELETE /order/{id}", id,
+                () -> orderService.deleteOrderAsync(orderDto), () -> orderService.deleteOrder(orderDto));
     }
 
     @GetMapping("/scan-by-pk/{id}")
-    public ResponseEntity<ApiResponse<List<OrderDto>>> getOrderByPk(@PathVariable("id") String id) {
+    public CompletableFuture<ResponseEntity<ApiResponse<List<OrderDto>>>> getOrderByPk(@PathVariable("id") String id,
+            @RequestParam(value = "fields", required = false) String fields) {
         OrderDto orderDto = OrderDto.builder()
             .id(id)
             .build();
-        List<OrderDto> result = orderService.getOrderListByPk(orderDto);
-        return ResponseEntity.ok(ApiResponse.success(result));
+        return orderService.getOrderListByPkAsync(orderDto, fields)
+                .thenApply(result -> ResponseEntity.ok(ApiResponse.success(result)));
     }
 
     @GetMapping("/scan-all")
-    public ResponseEntity<ApiResponse<List<OrderDto>>> getOrderListAll() {
-        List<OrderDto> result = orderService.getOrderListAll();
+    public CompletableFuture<ResponseEntity<ApiResponse<List<OrderDto>>>> getOrderListAll(
+            @RequestParam(value = "fields", required = false) String fields) {
+        return orderService.getOrderListAllAsync(fields)
+                .thenApply(result -> ResponseEntity.ok(ApiResponse.success(result)));
+    }
+
+    @GetMapping("/by-product/{productId}")
+    public CompletableFuture<ResponseEntity<ApiResponse<List<OrderDto>>>> getOrderListByProductId(@PathVariable("productId") int productId,
+            @RequestParam(value = "fields", required = false) String fields) {
+        return orderService.getOrderListByProductIdAsync(productId, fields)
+                .thenApply(result -> ResponseEntity.ok(ApiResponse.success(result)));
+    }
+
+    @GetMapping("/summary/by-product/{productId}")
+    public CompletableFuture<ResponseEntity<ApiResponse<OrderProductSummaryDto>>> getProductSummary(@PathVariable("productId") int productId) {
+        return orderService.getProductSummaryAsync(productId)
+                .thenApply(result -> ResponseEntity.ok(ApiResponse.success(result)));
+    }
+
+    @GetMapping("/summary/reconcile")
+    public ResponseEntity<ApiResponse<List<ProductSummaryReconcileDto>>> reconcileProductSummary() {
+        List<ProductSummaryReconcileDto> result = orderParallelScanService.reconcileProductSummary();
         return ResponseEntity.ok(ApiResponse.success(result));
     }
 
+    @PostMapping("/backfill")
+    public ResponseEntity<ApiResponse<OrderBackfillReportDto>> backfill() {
+        OrderBackfillReportDto result = orderBackfillService.backfill();
+        return ResponseEntity.ok(ApiResponse.success(result));
+    }
+
+    @PostMapping("/export")
+    public ResponseEntity<ApiResponse<OrderExportJobDto>> startExport(
+            @RequestParam(value = "resume", required = false) String resumeJobId) {
+        OrderExportJobDto result = orderExportService.startExport(resumeJobId);
+        return new ResponseEntity<>(ApiResponse.success(result), HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/export/{jobId}")
+    public ResponseEntity<ApiResponse<OrderExportJobDto>> getExport(@PathVariable("jobId") String jobId) {
+        OrderExportJobDto result = orderExportService.getExport(jobId);
+        return ResponseEntity.ok(ApiResponse.success(result));
+    }
+
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ApiResponse<OrderImportReportDto>> importOrders(InputStream body,
+            @RequestHeader("Content-Type") String contentType,
+            @RequestParam(value = "mode", defaultValue = OrderImportService.MODE_INSERT) String mode,
+            @RequestParam(value = "importId", required = false) String importId) {
+        String format = contentType.startsWith("text/csv") ? OrderImportService.FORMAT_CSV : OrderImportService.FORMAT_NDJSON;
+        OrderImportReportDto result = orderImportService.importOrders(body, format, mode, importId);
+        return ResponseEntity.ok(ApiResponse.success(result));
+    }
+
+    @GetMapping("/import/{importId}")
+    public ResponseEntity<ApiResponse<OrderImportReportDto>> getImport(@PathVariable("importId") String importId) {
+        OrderImportReportDto result = orderImportService.getImport(importId);
+        return ResponseEntity.ok(ApiResponse.success(result));
+    }
+
+    @GetMapping("/by-time")
+    public CompletableFuture<ResponseEntity<ApiResponse<List<OrderDto>>>> getOrderListByTimeRange(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return orderService.getOrderListByTimeRangeAsync(from, to)
+                .thenApply(result -> ResponseEntity.ok(ApiResponse.success(result)));
+    }
+
     @PostMapping("/execute-sql")
     public ResponseEntity<ApiResponse<List<OrderDto>>> executeSQL(@RequestBody SqlCommandDto sqlCommandDto) {
         List<OrderDto> result = orderService.executeSQL(sqlCommandDto);
         return ResponseEntity.ok(ApiResponse.success(result));
     }
 
+    /**
+     * Run a write on orderIoExecutor, behind the Idempotency-Key check when a key is given
+     *
+     * @param idempotencyKey The Idempotency-Key header value, or null
+     * @param operation The endpoint, e.g. "POST /order"; stored keys are scoped per endpoint
+     * @param request The request body (or path variables) used to detect key reuse
+     * @param asyncWrite The async service write, used without a key
+     * @param write The blocking service write, run inside the key check
+     * @return The response, or the stored response of the first request with the same key
+     */
+    private CompletableFuture<ResponseEntity<ApiResponse<Void>>> write(String idempotencyKey, String operation, Object request,
+            Supplier<CompletableFuture<ResponseStatusDto>> asyncWrite, Supplier<ResponseStatusDto> write) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return asyncWrite.get().thenApply(status -> ResponseEntity.ok(ApiResponse.fromResponseStatus(status)));
+        }
+        return orderService.supplyAsync(() -> idempotencyService.execute(idempotencyKey, operation, request,
+                () -> ResponseEntity.ok(ApiResponse.fromResponseStatus(write.get()))));
+    }
+
     @ExceptionHandler(value = CustomException.class)
     public ResponseEntity<ApiResponse<Void>> handleScalarDbException(CustomException ex) {
         ApiResponse<Void> errorResponse = ApiResponse.error(ex.getErrorCode(), ex.getMessage());
         return switch (ex.getErrorCode()) {
             case 9100, 9400 -> new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
             case 9200, 9300 -> new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
+            case 9600 -> new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+            case 9710, 9720 -> new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+            case 9730 -> new ResponseEntity<>(errorResponse, HttpStatus.REQUEST_TIMEOUT);
+            case 9800 -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, AdaptiveConcurrencyLimiter.RETRY_AFTER_SECONDS).body(errorResponse);
             default -> new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
         };
     }
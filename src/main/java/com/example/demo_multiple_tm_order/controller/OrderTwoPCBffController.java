@@ -1,10 +1,13 @@
 package com.example.demo_multiple_tm_order.controller;
 
+import com.example.demo_multiple_tm_order.service.AdaptiveConcurrencyLimiter;
+import com.example.demo_multiple_tm_order.service.IdempotencyService;
 import com.example.demo_multiple_tm_order.service.OrderTwoPCBffService;
 import com.example.demo_multiple_tm_order.dto.OrderDto;
 import com.example.demo_multiple_tm_order.dto.ApiResponse;
 import com.example.demo_multiple_tm_order.dto.ResponseStatusDto;
 import com.example.demo_multiple_tm_order.exception.CustomException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -27,57 +30,75 @@ import java.util.List;
 @RequestMapping(value = "/order-two-pc-bff")
 @RestController
 public class OrderTwoPCBffController {
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @Autowired
     private OrderTwoPCBffService orderTwoPCBffService;
 
     @PostMapping
-    public ResponseEntity<ApiResponse<Void>> insertOrder(@RequestBody OrderDto orderDto) {
-        ResponseStatusDto status = orderTwoPCBffService.insertOrder(orderDto);
-        return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+    public ResponseEntity<ApiResponse<Void>> insertOrder(@RequestBody OrderDto orderDto,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "POST /order-two-pc-bff", orderDto, () -> {
+            ResponseStatusDto status = orderTwoPCBffService.insertOrder(orderDto);
+            return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+        });
     }
 
     @PostMapping("/upsert")
-    public ResponseEntity<ApiResponse<Void>> upsertOrder(@RequestBody OrderDto orderDto) {
-        ResponseStatusDto status = orderTwoPCBffService.upsertOrder(orderDto);
-        return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+    public ResponseEntity<ApiResponse<Void>> upsertOrder(@RequestBody OrderDto orderDto,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "POST /order-two-pc-bff/upsert", orderDto, () -> {
+            ResponseStatusDto status = orderTwoPCBffService.upsertOrder(orderDto);
+            return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+        });
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<OrderDto>> getOrder(@PathVariable("id") String id) {
+    public ResponseEntity<ApiResponse<OrderDto>> getOrder(@PathVariable("id") String id,
+            @RequestParam(value = "fields", required = false) String fields) {
         OrderDto orderDto = OrderDto.builder()
             .id(id)
             .build();
-        OrderDto result = orderTwoPCBffService.getOrder(orderDto);
+        OrderDto result = orderTwoPCBffService.getOrder(orderDto, fields);
         return ResponseEntity.ok(ApiResponse.success(result));
     }
 
     @PutMapping
-    public ResponseEntity<ApiResponse<Void>> updateOrder(@RequestBody OrderDto orderDto) {
-        ResponseStatusDto status = orderTwoPCBffService.updateOrder(orderDto);
-        return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+    public ResponseEntity<ApiResponse<Void>> updateOrder(@RequestBody OrderDto orderDto,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "PUT /order-two-pc-bff", orderDto, () -> {
+            ResponseStatusDto status = orderTwoPCBffService.updateOrder(orderDto);
+            return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+        });
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<ApiResponse<Void>> deleteOrder(@PathVariable("id") String id) {
+    public ResponseEntity<ApiResponse<Void>> deleteOrder(@PathVariable("id") String id,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         OrderDto orderDto = OrderDto.builder()
             .id(id)
             .build();
-        ResponseStatusDto status = orderTwoPCBffService.deleteOrder(orderDto);
-        return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+        return idempotencyService.execute(idempotencyKey, "DELETE /order-two-pc-bff/{id}", id, () -> {
+            ResponseStatusDto status = orderTwoPCBffService.deleteOrder(orderDto);
+            return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+        });
     }
 
     @GetMapping("/scan-by-pk/{id}")
-    public ResponseEntity<ApiResponse<List<OrderDto>>> getOrderByPk(@PathVariable("id") String id) {
+    public ResponseEntity<ApiResponse<List<OrderDto>>> getOrderByPk(@PathVariable("id") String id,
+            @RequestParam(value = "fields", required = false) String fields) {
         OrderDto orderDto = OrderDto.builder()
             .id(id)
             .build();
-        List<OrderDto> result = orderTwoPCBffService.getOrderListByPk(orderDto);
+        List<OrderDto> result = orderTwoPCBffService.getOrderListByPk(orderDto, fields);
         return ResponseEntity.ok(ApiResponse.success(result));
     }
 
     @GetMapping("/scan-all")
-    public ResponseEntity<ApiResponse<List<OrderDto>>> getOrderListAll() {
-        List<OrderDto> result = orderTwoPCBffService.getOrderListAll();
+    public ResponseEntity<ApiResponse<List<OrderDto>>> getOrderListAll(
+            @RequestParam(value = "fields", required = false) String fields) {
+        List<OrderDto> result = orderTwoPCBffService.getOrderListAll(fields);
         return ResponseEntity.ok(ApiResponse.success(result));
     }
 
@@ -87,6 +108,11 @@ public class OrderTwoPCBffController {
         return switch (ex.getErrorCode()) {
             case 9100, 9400 -> new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
             case 9200, 9300 -> new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
+            case 9600 -> new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+            case 9800 -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, AdaptiveConcurrencyLimiter.RETRY_AFTER_SECONDS).body(errorResponse);
+            case 9810 -> new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
+            case 9820 -> new ResponseEntity<>(errorResponse, HttpStatus.GATEWAY_TIMEOUT);
             default -> new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
         };
     }
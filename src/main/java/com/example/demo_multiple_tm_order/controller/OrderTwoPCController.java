@@ -4,12 +4,12 @@ import com.example.demo_multiple_tm_order.service.OrderTwoPCService;
 import com.example.demo_multiple_tm_order.service.BaseTwoPCService;
 import com.example.demo_multiple_tm_order.dto.OrderDto;
 import com.example.demo_multiple_tm_order.dto.ApiResponse;
-import com.example.demo_multiple_tm_order.dto.ResponseStatusDto;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Two-Phase Commit (2PC) Controller for Order
@@ -22,6 +22,7 @@ import java.util.List;
  * - Transaction is joined in the service layer using manager.join()
  * - Transaction commit is handled by BFF via /commit endpoint
  * - Inherits lifecycle endpoints (prepare, validate, commit, rollback) from BaseTwoPCController
+ * - Endpoints are async: the service call runs on orderIoExecutor (see AsyncIoConfig)
  */
 @RequestMapping(value = "/order-two-pc")
 @RestController
@@ -35,66 +36,69 @@ public class OrderTwoPCController extends BaseTwoPCController {
     }
 
     @PostMapping
-    public ResponseEntity<ApiResponse<Void>> insertOrder(
+    public CompletableFuture<ResponseEntity<ApiResponse<Void>>> insertOrder(
             @RequestBody OrderDto orderDto,
             @RequestHeader("ScalarDB-Transaction-ID") String transactionId) {
-        ResponseStatusDto status = orderService.insertOrder(orderDto, transactionId);
-        return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+        return orderService.insertOrderAsync(orderDto, transactionId)
+                .thenApply(status -> ResponseEntity.ok(ApiResponse.fromResponseStatus(status)));
     }
 
     @PostMapping("/upsert")
-    public ResponseEntity<ApiResponse<Void>> upsertOrder(
+    public CompletableFuture<ResponseEntity<ApiResponse<Void>>> upsertOrder(
             @RequestBody OrderDto orderDto,
             @RequestHeader("ScalarDB-Transaction-ID") String transactionId) {
-        ResponseStatusDto status = orderService.upsertOrder(orderDto, transactionId);
-        return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+        return orderService.upsertOrderAsync(orderDto, transactionId)
+                .thenApply(status -> ResponseEntity.ok(ApiResponse.fromResponseStatus(status)));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<OrderDto>> getOrder(
+    public CompletableFuture<ResponseEntity<ApiResponse<OrderDto>>> getOrder(
             @PathVariable("id") String id,
-            @RequestHeader("ScalarDB-Transaction-ID") String transactionId) {
+            @RequestHeader("ScalarDB-Transaction-ID") String transactionId,
+            @RequestParam(value = "fields", required = false) String fields) {
         OrderDto orderDto = OrderDto.builder()
             .id(id)
             .build();
-        OrderDto result = orderService.getOrder(orderDto, transactionId);
-        return ResponseEntity.ok(ApiResponse.success(result));
+        return orderService.getOrderAsync(orderDto, transactionId, fields)
+                .thenApply(result -> ResponseEntity.ok(ApiResponse.success(result)));
     }
 
     @PutMapping
-    public ResponseEntity<ApiResponse<Void>> updateOrder(
+    public CompletableFuture<ResponseEntity<ApiResponse<Void>>> updateOrder(
             @RequestBody OrderDto orderDto,
             @RequestHeader("ScalarDB-Transaction-ID") String transactionId) {
-        ResponseStatusDto status = orderService.updateOrder(orderDto, transactionId);
-        return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+        return orderService.updateOrderAsync(orderDto, transactionId)
+                .thenApply(status -> ResponseEntity.ok(ApiResponse.fromResponseStatus(status)));
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<ApiResponse<Void>> deleteOrder(
+    public CompletableFuture<ResponseEntity<ApiResponse<Void>>> deleteOrder(
             @PathVariable("id") String id,
             @RequestHeader("ScalarDB-Transaction-ID") String transactionId) {
         OrderDto orderDto = OrderDto.builder()
             .id(id)
             .build();
-        ResponseStatusDto status = orderService.deleteOrder(orderDto, transactionId);
-        return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+        return orderService.deleteOrderAsync(orderDto, transactionId)
+                .thenApply(status -> ResponseEntity.ok(ApiResponse.fromResponseStatus(status)));
     }
 
     @GetMapping("/scan-by-pk/{id}")
-    public ResponseEntity<ApiResponse<List<OrderDto>>> getOrderByPk(
+    public CompletableFuture<ResponseEntity<ApiResponse<List<OrderDto>>>> getOrderByPk(
             @PathVariable("id") String id,
-            @RequestHeader("ScalarDB-Transaction-ID") String transactionId) {
+            @RequestHeader("ScalarDB-Transaction-ID") String transactionId,
+            @RequestParam(value = "fields", required = false) String fields) {
         OrderDto orderDto = OrderDto.builder()
             .id(id)
             .build();
-        List<OrderDto> result = orderService.getOrderListByPk(orderDto, transactionId);
-        return ResponseEntity.ok(ApiResponse.success(result));
+        return orderService.getOrderListByPkAsync(orderDto, transactionId, fields)
+                .thenApply(result -> ResponseEntity.ok(ApiResponse.success(result)));
     }
 
     @GetMapping("/scan-all")
-    public ResponseEntity<ApiResponse<List<OrderDto>>> getOrderListAll(
-            @RequestHeader("ScalarDB-Transaction-ID") String transactionId) {
-        List<OrderDto> result = orderService.getOrderListAll(transactionId);
-        return ResponseEntity.ok(ApiResponse.success(result));
+    public CompletableFuture<ResponseEntity<ApiResponse<List<OrderDto>>>> getOrderListAll(
+            @RequestHeader("ScalarDB-Transaction-ID") String transactionId,
+            @RequestParam(value = "fields", required = false) String fields) {
+        return orderService.getOrderListAllAsync(transactionId, fields)
+                .thenApply(result -> ResponseEntity.ok(ApiResponse.success(result)));
     }
 }
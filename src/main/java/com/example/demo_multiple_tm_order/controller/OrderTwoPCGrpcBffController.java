@@ -0,0 +1,114 @@
+package com.example.demo_multiple_tm_order.controller;
+
+import com.example.demo_multiple_tm_order.service.AdaptiveConcurrencyLimiter;
+import com.example.demo_multiple_tm_order.service.IdempotencyService;
+import com.example.demo_multiple_tm_order.service.OrderTwoPCGrpcBffService;
+import com.example.demo_multiple_tm_order.dto.OrderDto;
+import com.example.demo_multiple_tm_order.dto.ApiResponse;
+import com.example.demo_multiple_tm_order.dto.ResponseStatusDto;
+import com.example.demo_multiple_tm_order.exception.CustomException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+
+/**
+ * Two-Phase Commit BFF Controller for Order over gRPC
+ *
+ * Same endpoints as OrderTwoPCBffController under /order-two-pc-grpc-bff, but participant calls use one
+ * bidirectional gRPC stream per transaction (see OrderTwoPCGrpcBffService). Requires the order
+ * participant's gRPC server (grpc.server.enabled=true) at grpc.client.order.target.
+ */
+@RequestMapping(value = "/order-two-pc-grpc-bff")
+@RestController
+public class OrderTwoPCGrpcBffController {
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private OrderTwoPCGrpcBffService orderTwoPCGrpcBffService;
+
+    @PostMapping
+    public ResponseEntity<ApiResponse<Void>> insertOrder(@RequestBody OrderDto orderDto,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "POST /order-two-pc-grpc-bff", orderDto, () -> {
+            ResponseStatusDto status = orderTwoPCGrpcBffService.insertOrder(orderDto);
+            return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+        });
+    }
+
+    @PostMapping("/upsert")
+    public ResponseEntity<ApiResponse<Void>> upsertOrder(@RequestBody OrderDto orderDto,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "POST /order-two-pc-grpc-bff/upsert", orderDto, () -> {
+            ResponseStatusDto status = orderTwoPCGrpcBffService.upsertOrder(orderDto);
+            return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+        });
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ApiResponse<OrderDto>> getOrder(@PathVariable("id") String id,
+            @RequestParam(value = "fields", required = false) String fields) {
+        OrderDto orderDto = OrderDto.builder()
+            .id(id)
+            .build();
+        OrderDto result = orderTwoPCGrpcBffService.getOrder(orderDto, fields);
+        return ResponseEntity.ok(ApiResponse.success(result));
+    }
+
+    @PutMapping
+    public ResponseEntity<ApiResponse<Void>> updateOrder(@RequestBody OrderDto orderDto,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "PUT /order-two-pc-grpc-bff", orderDto, () -> {
+            ResponseStatusDto status = orderTwoPCGrpcBffService.updateOrder(orderDto);
+            return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+        });
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ApiResponse<Void>> deleteOrder(@PathVariable("id") String id,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        OrderDto orderDto = OrderDto.builder()
+            .id(id)
+            .build();
+        return idempotencyService.execute(idempotencyKey, "DELETE /order-two-pc-grpc-bff/{id}", id, () -> {
+            ResponseStatusDto status = orderTwoPCGrpcBffService.deleteOrder(orderDto);
+            return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+        });
+    }
+
+    @GetMapping("/scan-by-pk/{id}")
+    public ResponseEntity<ApiResponse<List<OrderDto>>> getOrderByPk(@PathVariable("id") String id,
+            @RequestParam(value = "fields", required = false) String fields) {
+        OrderDto orderDto = OrderDto.builder()
+            .id(id)
+            .build();
+        List<OrderDto> result = orderTwoPCGrpcBffService.getOrderListByPk(orderDto, fields);
+        return ResponseEntity.ok(ApiResponse.success(result));
+    }
+
+    @GetMapping("/scan-all")
+    public ResponseEntity<ApiResponse<List<OrderDto>>> getOrderListAll(
+            @RequestParam(value = "fields", required = false) String fields) {
+        List<OrderDto> result = orderTwoPCGrpcBffService.getOrderListAll(fields);
+        return ResponseEntity.ok(ApiResponse.success(result));
+    }
+
+    @ExceptionHandler(value = CustomException.class)
+    public ResponseEntity<ApiResponse<Void>> handleScalarDbException(CustomException ex) {
+        ApiResponse<Void> errorResponse = ApiResponse.error(ex.getErrorCode(), ex.getMessage());
+        return switch (ex.getErrorCode()) {
+            case 9100, 9400 -> new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+            case 9200, 9300 -> new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
+            case 9600 -> new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+            case 9800 -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, AdaptiveConcurrencyLimiter.RETRY_AFTER_SECONDS).body(errorResponse);
+            case 9810 -> new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
+            case 9820 -> new ResponseEntity<>(errorResponse, HttpStatus.GATEWAY_TIMEOUT);
+            default -> new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
+        };
+    }
+}
@@ -1,11 +1,14 @@
 package com.example.demo_multiple_tm_order.controller;
 
+import com.example.demo_multiple_tm_order.service.AdaptiveConcurrencyLimiter;
 import com.example.demo_multiple_tm_order.dto.ApiResponse;
 import com.example.demo_multiple_tm_order.dto.OrderDto;
 import com.example.demo_multiple_tm_order.dto.ResponseStatusDto;
 import com.example.demo_multiple_tm_order.exception.CustomException;
+import com.example.demo_multiple_tm_order.service.IdempotencyService;
 import com.example.demo_multiple_tm_order.service.PlaceOrderTwoPCBffService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -25,13 +28,19 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping(value = "/place-order-two-pc-bff")
 @RestController
 public class PlaceOrderTwoPCBffController {
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @Autowired
     private PlaceOrderTwoPCBffService placeOrderTwoPCBffService;
 
     @PostMapping
-    public ResponseEntity<ApiResponse<Void>> placeOrder(@RequestBody OrderDto orderDto) {
-        ResponseStatusDto status = placeOrderTwoPCBffService.placeOrder(orderDto);
-        return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+    public ResponseEntity<ApiResponse<Void>> placeOrder(@RequestBody OrderDto orderDto,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "POST /place-order-two-pc-bff", orderDto, () -> {
+            ResponseStatusDto status = placeOrderTwoPCBffService.placeOrder(orderDto);
+            return ResponseEntity.ok(ApiResponse.fromResponseStatus(status));
+        });
     }
 
 
@@ -41,6 +50,11 @@ public class PlaceOrderTwoPCBffController {
         return switch (ex.getErrorCode()) {
             case 9100, 9400 -> new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
             case 9200, 9300 -> new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
+            case 9600 -> new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+            case 9800 -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, AdaptiveConcurrencyLimiter.RETRY_AFTER_SECONDS).body(errorResponse);
+            case 9810 -> new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
+            case 9820 -> new ResponseEntity<>(errorResponse, HttpStatus.GATEWAY_TIMEOUT);
             default -> new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
         };
     }
@@ -0,0 +1,23 @@
+package com.example.demo_multiple_tm_order.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderExportJobDto {
+    private String jobId;
+    private String status;
+    private String directory;
+    private Integer bucketsDone;
+    private Integer bucketsTotal;
+    private Long rows;
+    private Long rowsPerSecond;
+    private String error;
+}
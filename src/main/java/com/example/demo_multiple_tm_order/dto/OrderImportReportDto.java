@@ -0,0 +1,24 @@
+package com.example.demo_multiple_tm_order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class OrderImportReportDto {
+    private String importId;
+    private String status;
+    private Long rowsRead;
+    private Long rowsImported;
+    private Long rowsFailed;
+    private Long rowsUnknown;
+    private Long conflicts;
+    private Integer chunkSize;
+    private Long rowsPerSecond;
+    private List<OrderImportRowErrorDto> errors;
+}
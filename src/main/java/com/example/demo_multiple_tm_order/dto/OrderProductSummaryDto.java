@@ -0,0 +1,16 @@
+package com.example.demo_multiple_tm_order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class OrderProductSummaryDto {
+    private Integer productId;
+    private Long totalQty;
+    private Long orderCount;
+}
@@ -0,0 +1,18 @@
+package com.example.demo_multiple_tm_order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ProductSummaryReconcileDto {
+    private Integer productId;
+    private Long scannedTotalQty;
+    private Long scannedOrderCount;
+    private Long summaryTotalQty;
+    private Long summaryOrderCount;
+}
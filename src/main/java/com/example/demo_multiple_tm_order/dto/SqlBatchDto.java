@@ -0,0 +1,19 @@
+package com.example.demo_multiple_tm_order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SqlBatchDto {
+    private List<SqlBatchStatementDto> statements;
+    // Optional per-request limits for the whole batch; they can only lower the sql.governor.* limits
+    private Integer maxRows;
+    private Long maxBytes;
+    private Long timeoutMs;
+}
@@ -0,0 +1,17 @@
+package com.example.demo_multiple_tm_order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SqlBatchStatementDto {
+    private String sqlCommand;
+    // Values for the ? placeholders in order: JSON scalars, or {"type": "TIMESTAMP", "value": "..."} for other types
+    private List<Object> params;
+}
@@ -10,4 +10,8 @@ import lombok.NoArgsConstructor;
 @Builder
 public class SqlCommandDto {
     private String sqlCommand;
+    // Optional per-request limits; they can only lower the sql.governor.* limits
+    private Integer maxRows;
+    private Long maxBytes;
+    private Long timeoutMs;
 }
@@ -0,0 +1,132 @@
+package com.example.demo_multiple_tm_order.grpc;
+
+import com.example.demo_multiple_tm_order.dto.OrderDto;
+import com.example.demo_multiple_tm_order.exception.CustomException;
+import com.example.demo_multiple_tm_order.grpc.proto.Operation;
+import com.example.demo_multiple_tm_order.grpc.proto.OrderTwoPCParticipantGrpc;
+import com.example.demo_multiple_tm_order.grpc.proto.TwoPCRequest;
+import com.example.demo_multiple_tm_order.grpc.proto.TwoPCResponse;
+import com.example.demo_multiple_tm_order.mapper.OrderProtoMapper;
+import com.example.demo_multiple_tm_order.service.OrderTwoPCService;
+import com.example.demo_multiple_tm_order.util.RequestDeadline;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * gRPC participant endpoint for Order (alternative to OrderTwoPCController)
+ *
+ * One bidirectional stream per distributed transaction:
+ * - The first request carries the transaction ID; later requests reuse it
+ * - CRUD operations and 2PC phases are delegated to OrderTwoPCService, so join/resume,
+ *   error codes and participant metrics behave exactly as on the REST path
+ * - Failures are returned as TwoPCResponse(success=false, error_code) and keep the stream open
+ * - If the stream is cancelled or completed before COMMIT/ROLLBACK, the transaction is rolled back
+ * - The request deadline comes in each request (deadline_ms) and is checked by OrderTwoPCService
+ *   before CRUD, prepare and validate; commit and rollback arrive without one
+ */
+@Slf4j
+@Component
+public class OrderTwoPCGrpcService extends OrderTwoPCParticipantGrpc.OrderTwoPCParticipantImplBase {
+
+    @Autowired
+    private OrderTwoPCService orderService;
+
+    @Override
+    public StreamObserver<TwoPCRequest> transact(StreamObserver<TwoPCResponse> responseObserver) {
+        return new StreamObserver<>() {
+            private String transactionId;
+            private boolean finished;
+
+            @Override
+            public void onNext(TwoPCRequest request) {
+                if (transactionId == null) {
+                    transactionId = request.getTransactionId();
+                }
+                TwoPCResponse response;
+                try {
+                    response = RequestDeadline.with(request.getDeadlineMs() > 0 ? request.getDeadlineMs() : null,
+                            () -> handle(request, transactionId));
+                    if (request.getOperation() == Operation.COMMIT || request.getOperation() == Operation.ROLLBACK) {
+                        finished = true;
+                    }
+                } catch (CustomException e) {
+                    response = error(e.getErrorCode(), e.getMessage());
+                } catch (Exception e) {
+                    log.error("gRPC {} failed: {}", request.getOperation(), e.getMessage(), e);
+                    response = error(9400, e.getMessage());
+                }
+                responseObserver.onNext(response);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                log.warn("gRPC stream for transaction {} failed: {}", transactionId, t.getMessage());
+                rollbackIfOpen();
+            }
+
+            @Override
+            public void onCompleted() {
+                rollbackIfOpen();
+                responseObserver.onCompleted();
+            }
+
+            private void rollbackIfOpen() {
+                if (transactionId == null || finished) {
+                    return;
+                }
+                finished = true;
+                try {
+                    orderService.rollback(transactionId);
+                } catch (Exception e) {
+                    log.error("Rollback of abandoned transaction {} failed: {}", transactionId, e.getMessage(), e);
+                }
+            }
+        };
+    }
+
+    private TwoPCResponse handle(TwoPCRequest request, String transactionId) throws CustomException {
+        OrderDto orderDto = request.hasOrder() ? OrderProtoMapper.mapToOrderDto(request.getOrder()) : null;
+        String fields = request.getFieldsCount() > 0 ? String.join(",", request.getFieldsList()) : null;
+        return switch (request.getOperation()) {
+            case INSERT -> status(orderService.insertOrder(orderDto, transactionId).getMessage());
+            case UPSERT -> status(orderService.upsertOrder(orderDto, transactionId).getMessage());
+            case UPDATE -> status(orderService.updateOrder(orderDto, transactionId).getMessage());
+            case DELETE -> status(orderService.deleteOrder(orderDto, transactionId).getMessage());
+            case GET -> orders(Collections.singletonList(orderService.getOrder(orderDto, transactionId, fields)));
+            case SCAN_ALL -> orders(orderService.getOrderListAll(transactionId, fields));
+            case SCAN_BY_PK -> orders(orderService.getOrderListByPk(orderDto, transactionId, fields));
+            case PREPARE -> status(orderService.prepare(transactionId).getMessage());
+            case VALIDATE -> status(orderService.validate(transactionId).getMessage());
+            case COMMIT -> status(orderService.commit(transactionId).getMessage());
+            case ROLLBACK -> status(orderService.rollback(transactionId).getMessage());
+            default -> error(9400, "Unsupported operation: " + request.getOperation());
+        };
+    }
+
+    private static TwoPCResponse status(String message) {
+        return TwoPCResponse.newBuilder().setSuccess(true).setMessage(message != null ? message : "").build();
+    }
+
+    private static TwoPCResponse orders(List<OrderDto> orderDtoList) {
+        TwoPCResponse.Builder builder = TwoPCResponse.newBuilder().setSuccess(true);
+        for (OrderDto orderDto : orderDtoList) {
+            if (orderDto != null) {
+                builder.addOrders(OrderProtoMapper.mapToOrderMessage(orderDto));
+            }
+        }
+        return builder.build();
+    }
+
+    private static TwoPCResponse error(Integer errorCode, String message) {
+        return TwoPCResponse.newBuilder()
+                .setSuccess(false)
+                .setErrorCode(errorCode != null ? errorCode : 9400)
+                .setMessage(message != null ? message : "")
+                .build();
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.demo_multiple_tm_order.grpc;
+
+import com.example.demo_multiple_tm_order.exception.CustomException;
+import com.example.demo_multiple_tm_order.grpc.proto.Operation;
+import com.example.demo_multiple_tm_order.grpc.proto.OrderMessage;
+import com.example.demo_multiple_tm_order.grpc.proto.OrderTwoPCParticipantGrpc;
+import com.example.demo_multiple_tm_order.grpc.proto.TwoPCRequest;
+import com.example.demo_multiple_tm_order.grpc.proto.TwoPCResponse;
+import com.example.demo_multiple_tm_order.util.RequestDeadline;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coordinator side of one gRPC transaction stream
+ *
+ * Sends requests in lockstep (one outstanding request at a time) and blocks for the matching
+ * response. The stream deadline is set on the stub; when it expires or the stream fails,
+ * the pending call fails with error code 9400.
+ *
+ * The current request deadline (see RequestDeadline) is sent with each request, and the wait for
+ * the response ends when it passes: the stream is cancelled, so the participant rolls back, and the
+ * call fails with 9820. Commit and rollback are sent with no request deadline set, so they carry
+ * none and only the stream deadline applies.
+ */
+public class TwoPCStreamSession implements AutoCloseable {
+
+    private static final Object COMPLETED = new Object();
+
+    private final String transactionId;
+    private final StreamObserver<TwoPCRequest> requestObserver;
+    private final BlockingQueue<Object> responses = new LinkedBlockingQueue<>();
+    private boolean transactionIdSent;
+    private boolean closed;
+
+    public TwoPCStreamSession(OrderTwoPCParticipantGrpc.OrderTwoPCParticipantStub stub, String transactionId) {
+        this.transactionId = transactionId;
+        this.requestObserver = stub.transact(new StreamObserver<>() {
+            @Override
+            public void onNext(TwoPCResponse response) {
+                responses.add(response);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                responses.add(t);
+            }
+
+            @Override
+            public void onCompleted() {
+                responses.add(COMPLETED);
+            }
+        });
+    }
+
+    /**
+     * Send one operation and wait for its response
+     *
+     * @param operation The operation to execute on the participant
+     * @param order The order payload, or null for operations without one
+     * @return The successful response
+     * @throws CustomException with the participant's error code if the operation failed
+     */
+    public TwoPCResponse call(Operation operation, OrderMessage order) throws CustomException {
+        return call(operation, order, List.of());
+    }
+
+    /**
+     * Send one read operation with a column projection and wait for its response
+     *
+     * @param operation The operation to execute on the participant
+     * @param order The order payload, or null for operations without one
+     * @param fields Columns to read (empty = all)
+     * @return The successful response
+     * @throws CustomException with the participant's error code if the operation failed
+     */
+    public TwoPCResponse call(Operation operation, OrderMessage order, List<String> fields) throws CustomException {
+        if (closed) {
+            throw new CustomException("gRPC stream for transaction " + transactionId + " is closed", 9400);
+        }
+        TwoPCRequest.Builder request = TwoPCRequest.newBuilder().setOperation(operation);
+        if (!transactionIdSent) {
+            request.setTransactionId(transactionId);
+            transactionIdSent = true;
+        }
+        if (order != null) {
+            request.setOrder(order);
+        }
+        request.addAllFields(fields);
+        Long deadline = RequestDeadline.current();
+        if (deadline != null) {
+            request.setDeadlineMs(deadline);
+        }
+        requestObserver.onNext(request.build());
+
+        Object result;
+        try {
+            long remainingMs = RequestDeadline.remainingMs();
+            result = remainingMs == Long.MAX_VALUE
+                    ? responses.take()
+                    : responses.poll(Math.max(0, remainingMs), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomException(e, 9500);
+        }
+        if (result == null) {
+            // The response is still outstanding, so the stream cannot be reused: cancel it
+            closed = true;
+            requestObserver.onError(Status.CANCELLED.withDescription("Request deadline exceeded").asRuntimeException());
+            throw RequestDeadline.exceeded(operation.name(), null);
+        }
+        if (result instanceof Throwable t) {
+            closed = true;
+            throw new CustomException("gRPC stream failed during " + operation + ": " + t.getMessage(), t, 9400);
+        }
+        if (result == COMPLETED) {
+            closed = true;
+            throw new CustomException("gRPC stream closed by participant during " + operation, 9400);
+        }
+        TwoPCResponse response = (TwoPCResponse) result;
+        if (!response.getSuccess()) {
+            int errorCode = response.getErrorCode() != 0 ? response.getErrorCode() : 9100;
+            throw new CustomException(operation + " operation failed: " + response.getMessage(), errorCode);
+        }
+        return response;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            requestObserver.onCompleted();
+        }
+    }
+}
@@ -1,30 +1,74 @@
 package com.example.demo_multiple_tm_order.mapper;
 
 import com.example.demo_multiple_tm_order.model.Order;
+import com.example.demo_multiple_tm_order.model.OrderProductSummary;
 import com.example.demo_multiple_tm_order.dto.OrderDto;
+import com.example.demo_multiple_tm_order.dto.OrderProductSummaryDto;
+import com.example.demo_multiple_tm_order.exception.CustomException;
+import com.example.demo_multiple_tm_order.util.ExecuteSqlUtil;
 import java.util.ArrayList;
 import java.util.List;
-import org.modelmapper.ModelMapper;
 
+/**
+ * Order <-> OrderDto conversions
+ *
+ * Fields are copied explicitly (no reflection), which keeps the mapping cheap on the hot path
+ * and compatible with Spring AOT / native-image builds.
+ */
 public class OrderMapper {
-    private static final ModelMapper modelMapper = new ModelMapper();
+
+    private static final ExecuteSqlUtil<Order> ORDER_SQL_UTIL = new ExecuteSqlUtil<>(Order.class, OrderRecordMapper.INSTANCE);
 
     // Convert Model to DTO
     public static OrderDto mapToOrderDto(Order order) {
-        return modelMapper.map(order, OrderDto.class);
+        if (order == null) {
+            return null;
+        }
+        return OrderDto.builder()
+                .id(order.getId())
+                .productId(order.getProductId())
+                .orderQty(order.getOrderQty())
+                .orderDatetime(order.getOrderDatetime())
+                .build();
     }
 
     // Convert DTO to Model
     public static Order mapToOrder(OrderDto orderDto) {
-        return modelMapper.map(orderDto, Order.class);
+        if (orderDto == null) {
+            return null;
+        }
+        return Order.builder()
+                .id(orderDto.getId())
+                .productId(orderDto.getProductId())
+                .orderQty(orderDto.getOrderQty())
+                .orderDatetime(orderDto.getOrderDatetime())
+                .build();
+    }
+
+    // Convert merged product aggregate to DTO
+    public static OrderProductSummaryDto mapToOrderProductSummaryDto(OrderProductSummary summary) {
+        return OrderProductSummaryDto.builder()
+                .productId(summary.getProductId())
+                .totalQty(summary.getTotalQty())
+                .orderCount(summary.getOrderCount())
+                .build();
     }
 
     // Convert Model List to DTO List
     public static List<OrderDto> mapToOrderDtoList(List<Order> orderList) {
-        List<OrderDto> orderDtoList = new ArrayList<>();
+        List<OrderDto> orderDtoList = new ArrayList<>(orderList.size());
         for (Order order : orderList) {
             orderDtoList.add(mapToOrderDto(order));
         }
         return orderDtoList;
     }
-}
\ No newline at end of file
+
+    // Resolve a fields= request parameter to Order column names (empty list = all columns)
+    public static List<String> mapToOrderColumns(String fields) throws CustomException {
+        try {
+            return ORDER_SQL_UTIL.resolveRequestedColumns(fields);
+        } catch (ExecuteSqlUtil.ValidationException e) {
+            throw new CustomException(e, 9400);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo_multiple_tm_order.mapper;
+
+import com.example.demo_multiple_tm_order.dto.OrderDto;
+import com.example.demo_multiple_tm_order.grpc.proto.OrderMessage;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * OrderDto <-> OrderMessage (gRPC) conversions
+ *
+ * Unset optional fields map to null and back.
+ */
+public class OrderProtoMapper {
+
+    // Convert DTO to gRPC message
+    public static OrderMessage mapToOrderMessage(OrderDto orderDto) {
+        OrderMessage.Builder builder = OrderMessage.newBuilder();
+        if (orderDto.getId() != null) {
+            builder.setId(orderDto.getId());
+        }
+        if (orderDto.getProductId() != null) {
+            builder.setProductId(orderDto.getProductId());
+        }
+        if (orderDto.getOrderQty() != null) {
+            builder.setOrderQty(orderDto.getOrderQty());
+        }
+        if (orderDto.getOrderDatetime() != null) {
+            builder.setOrderDatetime(orderDto.getOrderDatetime().toString());
+        }
+        return builder.build();
+    }
+
+    // Convert gRPC message to DTO
+    public static OrderDto mapToOrderDto(OrderMessage message) {
+        return OrderDto.builder()
+                .id(message.getId().isEmpty() ? null : message.getId())
+                .productId(message.hasProductId() ? message.getProductId() : null)
+                .orderQty(message.hasOrderQty() ? message.getOrderQty() : null)
+                .orderDatetime(message.hasOrderDatetime() ? LocalDateTime.parse(message.getOrderDatetime()) : null)
+                .build();
+    }
+
+    // Convert gRPC message list to DTO list
+    public static List<OrderDto> mapToOrderDtoList(List<OrderMessage> messages) {
+        List<OrderDto> orderDtoList = new ArrayList<>(messages.size());
+        for (OrderMessage message : messages) {
+            orderDtoList.add(mapToOrderDto(message));
+        }
+        return orderDtoList;
+    }
+}
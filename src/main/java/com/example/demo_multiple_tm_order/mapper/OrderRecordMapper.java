@@ -0,0 +1,47 @@
+package com.example.demo_multiple_tm_order.mapper;
+
+import com.example.demo_multiple_tm_order.model.Order;
+import com.example.demo_multiple_tm_order.util.SqlRecordMapper;
+import com.scalar.db.sql.ColumnDefinition;
+import com.scalar.db.sql.ColumnDefinitions;
+import com.scalar.db.sql.Record;
+
+import java.util.Set;
+
+/**
+ * Hand-written SqlRecordMapper for Order, used by ExecuteSqlUtil instead of reflection
+ */
+public class OrderRecordMapper implements SqlRecordMapper<Order> {
+
+    public static final OrderRecordMapper INSTANCE = new OrderRecordMapper();
+
+    // bucket is accepted so SELECT * works, but is not mapped to the entity
+    private static final Set<String> COLUMNS =
+            Set.of(Order.ID, Order.PRODUCT_ID, Order.ORDER_QTY, Order.ORDER_DATETIME, Order.BUCKET);
+
+    @Override
+    public Set<String> getColumns() {
+        return COLUMNS;
+    }
+
+    @Override
+    public Order map(Record record, ColumnDefinitions columnDefinitions) {
+        Order order = new Order();
+        for (ColumnDefinition column : columnDefinitions) {
+            String columnName = column.getColumnName();
+            if (record.isNull(columnName)) {
+                continue;
+            }
+            switch (columnName) {
+                case Order.ID -> order.setId(record.getText(columnName));
+                case Order.PRODUCT_ID -> order.setProductId(record.getInt(columnName));
+                case Order.ORDER_QTY -> order.setOrderQty(record.getInt(columnName));
+                case Order.ORDER_DATETIME -> order.setOrderDatetime(record.getTimestamp(columnName));
+                default -> {
+                    // validated by ExecuteSqlUtil before mapping
+                }
+            }
+        }
+        return order;
+    }
+}
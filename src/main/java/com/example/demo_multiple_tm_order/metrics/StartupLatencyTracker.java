@@ -0,0 +1,94 @@
+package com.example.demo_multiple_tm_order.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures time-to-first-fast-request after startup
+ *
+ * Watches API requests (actuator endpoints excluded) until the first one completes within
+ * app.warmup.fast-request-threshold-ms, then publishes the time since JVM start as the
+ * app.startup.first.fast.request gauge and stops measuring. Compare it with and without
+ * app.warmup.enabled to see what the warm-up buys.
+ *
+ * Endpoints returning CompletableFuture finish after the initial dispatch has returned, so for
+ * async requests the latency and status are taken when the async request completes (AsyncListener).
+ */
+@Slf4j
+@Component
+public class StartupLatencyTracker extends OncePerRequestFilter {
+
+    private final long thresholdNanos;
+    private final AtomicLong firstFastRequestMillis = new AtomicLong(-1);
+
+    public StartupLatencyTracker(MeterRegistry registry,
+                                 @Value("${app.warmup.fast-request-threshold-ms:50}") long thresholdMillis) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        TimeGauge.builder("app.startup.first.fast.request", firstFastRequestMillis, TimeUnit.MILLISECONDS,
+                        AtomicLong::get)
+                .description("Time from JVM start until the first API request under the fast-request threshold")
+                .register(registry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return firstFastRequestMillis.get() >= 0 || request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(request, response, start);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                record(request, response, start);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response, long start) {
+        if (System.nanoTime() - start <= thresholdNanos && response.getStatus() < 400) {
+            long sinceJvmStart = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+            if (firstFastRequestMillis.compareAndSet(-1, sinceJvmStart)) {
+                log.info("First fast request ({}) served {} ms after JVM start",
+                        request.getRequestURI(), sinceJvmStart);
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.demo_multiple_tm_order.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Micrometer instrumentation for Two-Phase Commit transactions
+ *
+ * Records two meter families that are scraped through /actuator/prometheus:
+ * - scalardb.twopc.phase: latency histogram per 2PC step (start, data calls, prepare,
+ *   validate, commit, rollback), tagged by role, phase, participant and outcome
+ * - scalardb.twopc.aborts: aborted transactions, tagged by role and error code (9100-9500)
+ *
+ * The participant tag is the participant base URL (scheme, host, port and first path segment),
+ * so path variables such as order IDs do not create new time series.
+ */
+@Component
+public class TwoPCMetrics {
+
+    public static final String PHASE_TIMER = "scalardb.twopc.phase";
+    public static final String ABORT_COUNTER = "scalardb.twopc.aborts";
+
+    public static final String ROLE_COORDINATOR = "coordinator";
+    public static final String ROLE_PARTICIPANT = "participant";
+
+    public static final String PHASE_START = "start";
+    public static final String PHASE_EXECUTE = "execute";
+    public static final String PHASE_PREPARE = "prepare";
+    public static final String PHASE_VALIDATE = "validate";
+    public static final String PHASE_COMMIT = "commit";
+    public static final String PHASE_ROLLBACK = "rollback";
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_FAILURE = "failure";
+
+    private final MeterRegistry registry;
+    private final String applicationName;
+
+    public TwoPCMetrics(MeterRegistry registry,
+                        @Value("${spring.application.name:application}") String applicationName) {
+        this.registry = registry;
+        this.applicationName = applicationName;
+    }
+
+    /**
+     * Start timing a 2PC step
+     */
+    public Timer.Sample startSample() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * Stop the sample and record it in the phase histogram
+     *
+     * @param sample The sample returned by startSample()
+     * @param role coordinator or participant
+     * @param phase The 2PC step (start, post, put, delete, get, execute, prepare, validate, commit, rollback)
+     * @param participant The participant base URL, or the local application name
+     * @param outcome success or failure
+     */
+    public void recordPhase(Timer.Sample sample, String role, String phase, String participant, String outcome) {
+        sample.stop(Timer.builder(PHASE_TIMER)
+                .description("Latency of Two-Phase Commit transaction steps")
+                .tag("role", role)
+                .tag("phase", phase)
+                .tag("participant", participant)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry));
+    }
+
+    /**
+     * Count an aborted transaction by error code
+     */
+    public void recordAbort(String role, int errorCode) {
+        Counter.builder(ABORT_COUNTER)
+                .description("Aborted Two-Phase Commit transactions by error code")
+                .tag("role", role)
+                .tag("error_code", String.valueOf(errorCode))
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Name used for the participant tag when recording on the participant side
+     */
+    public String getLocalParticipant() {
+        return applicationName;
+    }
+
+    /**
+     * Reduce a participant URL to its base (e.g. http://localhost:8081/product-two-pc)
+     *
+     * @param url The full request URL
+     * @return The participant base URL used as tag value
+     */
+    public static String participantOf(String url) {
+        try {
+            URI uri = URI.create(url);
+            String path = uri.getPath() == null ? "" : uri.getPath();
+            int next = path.indexOf('/', 1);
+            String basePath = next > 0 ? path.substring(0, next) : path;
+            return uri.getScheme() + "://" + uri.getAuthority() + basePath;
+        } catch (IllegalArgumentException e) {
+            return "unknown";
+        }
+    }
+
+    /**
+     * Derive the phase tag from a 2PC lifecycle endpoint URL (.../prepare, .../commit, ...)
+     */
+    public static String phaseOf(String url) {
+        int slash = url.lastIndexOf('/');
+        return slash >= 0 ? url.substring(slash + 1) : url;
+    }
+}
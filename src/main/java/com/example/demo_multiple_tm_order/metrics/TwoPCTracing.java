@@ -0,0 +1,68 @@
+package com.example.demo_multiple_tm_order.metrics;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Tracing helper for Two-Phase Commit transactions
+ *
+ * W3C trace context (traceparent) is extracted from incoming requests by the Spring MVC
+ * server observation and injected into participant calls by the RestTemplate client
+ * observation. This class adds the 2PC specific pieces on top:
+ * - a child span per coordinator step (start, data call, prepare, validate, commit, rollback)
+ * - the ScalarDB transaction ID as a span tag, so spans can be matched with ScalarDB logs
+ *
+ * Falls back to a no-op tracer when tracing is disabled.
+ */
+@Component
+public class TwoPCTracing {
+
+    public static final String TRANSACTION_ID_TAG = "scalardb.transaction_id";
+    public static final String PARTICIPANT_TAG = "twopc.participant";
+
+    private final ObjectProvider<Tracer> tracerProvider;
+
+    public TwoPCTracing(ObjectProvider<Tracer> tracerProvider) {
+        this.tracerProvider = tracerProvider;
+    }
+
+    /**
+     * Run the call in a new child span of the current span
+     *
+     * @param name The span name
+     * @param participant The participant the call is made to
+     * @param call The call to execute
+     * @param <R> The type returned by the call
+     * @return The value returned by the call
+     */
+    public <R> R inSpan(String name, String participant, Supplier<R> call) {
+        Tracer tracer = getTracer();
+        Span span = tracer.nextSpan().name(name).tag(PARTICIPANT_TAG, participant).start();
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+            return call.get();
+        } catch (RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Tag the current span with the ScalarDB transaction ID
+     */
+    public void tagTransaction(String transactionId) {
+        Span span = getTracer().currentSpan();
+        if (span != null && transactionId != null) {
+            span.tag(TRANSACTION_ID_TAG, transactionId);
+        }
+    }
+
+    private Tracer getTracer() {
+        return tracerProvider.getIfAvailable(() -> Tracer.NOOP);
+    }
+}
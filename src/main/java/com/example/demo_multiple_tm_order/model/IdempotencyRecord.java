@@ -0,0 +1,31 @@
+package com.example.demo_multiple_tm_order.model;
+
+import lombok.*;
+import com.scalar.db.io.Key;
+import java.time.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+
+    public static final String NAMESPACE = "shopping";
+    public static final String TABLE = "idempotency_key";
+    public static final String IDEMPOTENCY_KEY = "idempotency_key";
+    public static final String REQUEST_DIGEST = "request_digest";
+    public static final String HTTP_STATUS = "http_status";
+    public static final String RESPONSE_BODY = "response_body";
+    public static final String CREATED_AT = "created_at";
+
+    private String idempotencyKey;
+    private String requestDigest;
+    private Integer httpStatus;
+    private String responseBody;
+    private LocalDateTime createdAt;
+
+    public Key getPartitionKey() {
+        return Key.newBuilder().addText(IDEMPOTENCY_KEY, getIdempotencyKey()).build();
+    }
+
+}
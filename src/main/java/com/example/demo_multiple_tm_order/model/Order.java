@@ -17,6 +17,10 @@ public class Order {
     public static final String PRODUCT_ID = "product_id";
     public static final String ORDER_QTY = "order_qty";
     public static final String ORDER_DATETIME = "order_datetime";
+    public static final String BUCKET = "bucket";
+
+    // Number of hash buckets for parallel full-table scans; fixed once data has been written
+    public static final int BUCKET_COUNT = 64;
 
     private String id;
     private Integer productId;
@@ -27,4 +31,9 @@ public class Order {
         return Key.newBuilder().addText(ID, getId()).build();
     }
 
+    // Hash bucket of an order id, stored in the bucket column (secondary index)
+    public static int bucketOf(String id) {
+        return Math.floorMod(id.hashCode(), BUCKET_COUNT);
+    }
+
 }
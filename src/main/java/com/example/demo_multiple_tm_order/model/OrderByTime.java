@@ -0,0 +1,59 @@
+package com.example.demo_multiple_tm_order.model;
+
+import lombok.*;
+import com.scalar.db.io.Key;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Time-bucketed copy of an order (shopping.order_by_time), maintained together with shopping.order
+ *
+ * Partitioned by hour (time_bucket) and clustered by order_datetime and id, so time range queries
+ * scan only the partitions of the requested hours, in order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderByTime {
+
+    public static final String NAMESPACE = "shopping";
+    public static final String TABLE = "order_by_time";
+    public static final String TIME_BUCKET = "time_bucket";
+    public static final String ORDER_DATETIME = "order_datetime";
+    public static final String ID = "id";
+    public static final String PRODUCT_ID = "product_id";
+    public static final String ORDER_QTY = "order_qty";
+
+    private static final DateTimeFormatter BUCKET_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH");
+
+    private String timeBucket;
+    private LocalDateTime orderDatetime;
+    private String id;
+    private Integer productId;
+    private Integer orderQty;
+
+    public Key getPartitionKey() {
+        return Key.newBuilder().addText(TIME_BUCKET, getTimeBucket()).build();
+    }
+
+    public Key getClusteringKey() {
+        return Key.newBuilder().addTimestamp(ORDER_DATETIME, getOrderDatetime()).addText(ID, getId()).build();
+    }
+
+    // Hourly bucket of a timestamp, e.g. 2025-09-15T14
+    public static String bucketOf(LocalDateTime dateTime) {
+        return dateTime.format(BUCKET_FORMAT);
+    }
+
+    public static OrderByTime of(Order order) {
+        return OrderByTime.builder()
+                .timeBucket(bucketOf(order.getOrderDatetime()))
+                .orderDatetime(order.getOrderDatetime())
+                .id(order.getId())
+                .productId(order.getProductId())
+                .orderQty(order.getOrderQty())
+                .build();
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.example.demo_multiple_tm_order.model;
+
+import lombok.*;
+import com.scalar.db.io.Key;
+
+/**
+ * One counter shard of the per-product order aggregate (shopping.order_product_summary)
+ *
+ * Each product has up to N shard rows; the aggregate is the sum over all of them.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderProductSummary {
+
+    public static final String NAMESPACE = "shopping";
+    public static final String TABLE = "order_product_summary";
+    public static final String PRODUCT_ID = "product_id";
+    public static final String SHARD = "shard";
+    public static final String TOTAL_QTY = "total_qty";
+    public static final String ORDER_COUNT = "order_count";
+
+    private Integer productId;
+    private Integer shard;
+    private Long totalQty;
+    private Long orderCount;
+
+    public Key getPartitionKey() {
+        return Key.newBuilder().addInt(PRODUCT_ID, getProductId()).build();
+    }
+
+    public Key getClusteringKey() {
+        return Key.newBuilder().addInt(SHARD, getShard()).build();
+    }
+
+}
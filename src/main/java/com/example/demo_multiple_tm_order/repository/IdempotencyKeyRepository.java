@@ -0,0 +1,48 @@
+package com.example.demo_multiple_tm_order.repository;
+
+import com.example.demo_multiple_tm_order.model.IdempotencyRecord;
+import java.util.Optional;
+
+import com.scalar.db.api.*;
+import com.scalar.db.exception.transaction.*;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class IdempotencyKeyRepository {
+
+    // Get Record by Partition Key
+    public Optional<IdempotencyRecord> getIdempotencyRecord(DistributedTransaction transaction, String idempotencyKey) throws CrudException {
+        Get get = Get.newBuilder()
+            .namespace(IdempotencyRecord.NAMESPACE)
+            .table(IdempotencyRecord.TABLE)
+            .partitionKey(IdempotencyRecord.builder().idempotencyKey(idempotencyKey).build().getPartitionKey())
+            .build();
+        return transaction.get(get).map(this::buildIdempotencyRecord);
+    }
+
+    // Upsert Record
+    public IdempotencyRecord upsertIdempotencyRecord(DistributedTransaction transaction, IdempotencyRecord record) throws CrudException {
+        Upsert upsert = Upsert.newBuilder()
+            .namespace(IdempotencyRecord.NAMESPACE)
+            .table(IdempotencyRecord.TABLE)
+            .partitionKey(record.getPartitionKey())
+            .textValue(IdempotencyRecord.REQUEST_DIGEST, record.getRequestDigest())
+            .intValue(IdempotencyRecord.HTTP_STATUS, record.getHttpStatus())
+            .textValue(IdempotencyRecord.RESPONSE_BODY, record.getResponseBody())
+            .timestampValue(IdempotencyRecord.CREATED_AT, record.getCreatedAt())
+            .build();
+        transaction.upsert(upsert);
+        return record;
+    }
+
+    // Object Builder from ScalarDB Result
+    private IdempotencyRecord buildIdempotencyRecord(Result result) {
+        return IdempotencyRecord.builder()
+            .idempotencyKey(result.getText(IdempotencyRecord.IDEMPOTENCY_KEY))
+            .requestDigest(result.getText(IdempotencyRecord.REQUEST_DIGEST))
+            .httpStatus(result.getInt(IdempotencyRecord.HTTP_STATUS))
+            .responseBody(result.getText(IdempotencyRecord.RESPONSE_BODY))
+            .createdAt(result.getTimestamp(IdempotencyRecord.CREATED_AT))
+            .build();
+    }
+}
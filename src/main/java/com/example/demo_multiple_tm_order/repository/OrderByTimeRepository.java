@@ -0,0 +1,91 @@
+package com.example.demo_multiple_tm_order.repository;
+
+import com.example.demo_multiple_tm_order.model.Order;
+import com.example.demo_multiple_tm_order.model.OrderByTime;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.scalar.db.api.*;
+import com.scalar.db.exception.transaction.*;
+import com.scalar.db.io.Key;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for shopping.order_by_time
+ *
+ * Works with both DistributedTransaction and TwoPhaseCommitTransaction (TransactionCrudOperable),
+ * so OrderRepository and OrderTwoPCRepository keep it in sync within the order's own transaction.
+ */
+@Repository
+public class OrderByTimeRepository {
+
+    // Keep the time index in sync after an order write. previousDatetime is order_datetime before the write (null if none)
+    public void syncOrder(TransactionCrudOperable transaction, LocalDateTime previousDatetime, Order order) throws CrudException {
+        if (previousDatetime != null && !previousDatetime.equals(order.getOrderDatetime())) {
+            deleteOrder(transaction, order.getId(), previousDatetime);
+        }
+        if (order.getOrderDatetime() != null) {
+            OrderByTime orderByTime = OrderByTime.of(order);
+            Upsert upsert = Upsert.newBuilder()
+                .namespace(OrderByTime.NAMESPACE)
+                .table(OrderByTime.TABLE)
+                .partitionKey(orderByTime.getPartitionKey())
+                .clusteringKey(orderByTime.getClusteringKey())
+                .intValue(OrderByTime.PRODUCT_ID, orderByTime.getProductId())
+                .intValue(OrderByTime.ORDER_QTY, orderByTime.getOrderQty())
+                .build();
+            transaction.upsert(upsert);
+        }
+    }
+
+    // Delete the time index entry of an order
+    public void deleteOrder(TransactionCrudOperable transaction, String id, LocalDateTime orderDatetime) throws CrudException {
+        if (orderDatetime == null) {
+            return;
+        }
+        OrderByTime orderByTime = OrderByTime.builder()
+            .timeBucket(OrderByTime.bucketOf(orderDatetime))
+            .orderDatetime(orderDatetime)
+            .id(id)
+            .build();
+        Delete delete = Delete.newBuilder()
+            .namespace(OrderByTime.NAMESPACE)
+            .table(OrderByTime.TABLE)
+            .partitionKey(orderByTime.getPartitionKey())
+            .clusteringKey(orderByTime.getClusteringKey())
+            .build();
+        transaction.delete(delete);
+    }
+
+    // Range scan over [from, to): one clustering-key range scan per hourly bucket, stopping at limit rows
+    public List<Order> getOrderListByTimeRange(TransactionCrudOperable transaction, LocalDateTime from, LocalDateTime to, int limit) throws CrudException {
+        List<Order> orderList = new ArrayList<>();
+        LocalDateTime bucketStart = from.withMinute(0).withSecond(0).withNano(0);
+        while (bucketStart.isBefore(to) && orderList.size() < limit) {
+            Scan scan = Scan.newBuilder()
+                .namespace(OrderByTime.NAMESPACE)
+                .table(OrderByTime.TABLE)
+                .partitionKey(Key.ofText(OrderByTime.TIME_BUCKET, OrderByTime.bucketOf(bucketStart)))
+                .start(Key.ofTimestamp(OrderByTime.ORDER_DATETIME, from), true)
+                .end(Key.ofTimestamp(OrderByTime.ORDER_DATETIME, to), false)
+                .limit(limit - orderList.size())
+                .build();
+            for (Result result : transaction.scan(scan)) {
+                orderList.add(buildOrder(result));
+            }
+            bucketStart = bucketStart.plusHours(1);
+        }
+        return orderList;
+    }
+
+    // Object Builder from ScalarDB Result
+    private Order buildOrder(Result result) {
+        return Order.builder()
+            .id(result.getText(OrderByTime.ID))
+            .productId(result.getInt(OrderByTime.PRODUCT_ID))
+            .orderQty(result.getInt(OrderByTime.ORDER_QTY))
+            .orderDatetime(result.getTimestamp(OrderByTime.ORDER_DATETIME))
+            .build();
+    }
+}
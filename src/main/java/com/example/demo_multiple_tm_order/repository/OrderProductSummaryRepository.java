@@ -0,0 +1,104 @@
+package com.example.demo_multiple_tm_order.repository;
+
+import com.example.demo_multiple_tm_order.model.Order;
+import com.example.demo_multiple_tm_order.model.OrderProductSummary;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.scalar.db.api.*;
+import com.scalar.db.exception.transaction.*;
+import com.scalar.db.io.Key;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for shopping.order_product_summary
+ *
+ * Applies order deltas to one of N counter shards per product so concurrent orders for a hot
+ * product rarely write the same record. Reads scan the product's partition and sum every shard,
+ * so a delta may go to any shard: each one is picked at random rather than from the order id, and
+ * a transaction retried after a conflict on a shard most likely lands on another one. Changing the
+ * shard count keeps existing totals valid.
+ * Works on TransactionCrudOperable, shared by the 1PC and 2PC order repositories.
+ */
+@Repository
+public class OrderProductSummaryRepository {
+
+    @Value("${order.product-summary.shards:16}")
+    private int shards;
+
+    // Apply the change from previous (null if none) to current (null if deleted) to the aggregate
+    public void syncOrder(TransactionCrudOperable transaction, Order previous, Order current) throws CrudException {
+        Integer previousProductId = previous == null ? null : previous.getProductId();
+        Integer currentProductId = current == null ? null : current.getProductId();
+        long previousQty = previous == null ? 0 : qtyOf(previous);
+        long currentQty = current == null ? 0 : qtyOf(current);
+
+        if (previousProductId != null && previousProductId.equals(currentProductId)) {
+            if (previousQty != currentQty) {
+                applyDelta(transaction, currentProductId, nextShard(), currentQty - previousQty, 0);
+            }
+            return;
+        }
+        if (previousProductId != null) {
+            applyDelta(transaction, previousProductId, nextShard(), -previousQty, -1);
+        }
+        if (currentProductId != null) {
+            applyDelta(transaction, currentProductId, nextShard(), currentQty, 1);
+        }
+    }
+
+    // Sum of all shards of a product
+    public OrderProductSummary getProductSummary(TransactionCrudOperable transaction, int productId) throws CrudException {
+        Scan scan = Scan.newBuilder()
+            .namespace(OrderProductSummary.NAMESPACE)
+            .table(OrderProductSummary.TABLE)
+            .partitionKey(Key.ofInt(OrderProductSummary.PRODUCT_ID, productId))
+            .build();
+        List<Result> results = transaction.scan(scan);
+        long totalQty = 0;
+        long orderCount = 0;
+        for (Result result : results) {
+            totalQty += result.getBigInt(OrderProductSummary.TOTAL_QTY);
+            orderCount += result.getBigInt(OrderProductSummary.ORDER_COUNT);
+        }
+        return OrderProductSummary.builder()
+            .productId(productId)
+            .totalQty(totalQty)
+            .orderCount(orderCount)
+            .build();
+    }
+
+    // Read-modify-write of one shard
+    private void applyDelta(TransactionCrudOperable transaction, int productId, int shard, long qtyDelta, long countDelta) throws CrudException {
+        OrderProductSummary key = OrderProductSummary.builder().productId(productId).shard(shard).build();
+        Get get = Get.newBuilder()
+            .namespace(OrderProductSummary.NAMESPACE)
+            .table(OrderProductSummary.TABLE)
+            .partitionKey(key.getPartitionKey())
+            .clusteringKey(key.getClusteringKey())
+            .build();
+        Optional<Result> result = transaction.get(get);
+        long totalQty = result.map(r -> r.getBigInt(OrderProductSummary.TOTAL_QTY)).orElse(0L);
+        long orderCount = result.map(r -> r.getBigInt(OrderProductSummary.ORDER_COUNT)).orElse(0L);
+
+        Upsert upsert = Upsert.newBuilder()
+            .namespace(OrderProductSummary.NAMESPACE)
+            .table(OrderProductSummary.TABLE)
+            .partitionKey(key.getPartitionKey())
+            .clusteringKey(key.getClusteringKey())
+            .bigIntValue(OrderProductSummary.TOTAL_QTY, totalQty + qtyDelta)
+            .bigIntValue(OrderProductSummary.ORDER_COUNT, orderCount + countDelta)
+            .build();
+        transaction.upsert(upsert);
+    }
+
+    private int nextShard() {
+        return ThreadLocalRandom.current().nextInt(shards);
+    }
+
+    private static long qtyOf(Order order) {
+        return order.getOrderQty() == null ? 0 : order.getOrderQty();
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.demo_multiple_tm_order.repository;
 
 import com.example.demo_multiple_tm_order.model.Order;
+import com.example.demo_multiple_tm_order.model.OrderProductSummary;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -8,11 +10,27 @@ import java.util.Optional;
 import com.scalar.db.api.*;
 import com.scalar.db.exception.transaction.*;
 import com.scalar.db.io.Key;
+import io.micrometer.observation.annotation.Observed;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+@Observed(name = "order.repository")
 @Repository
 public class OrderRepository {
 
+    private static final List<String> ALL_COLUMNS =
+        List.of(Order.ID, Order.PRODUCT_ID, Order.ORDER_QTY, Order.ORDER_DATETIME);
+
+    // Columns read before a write; bucket tells whether the record is counted in the derived tables
+    private static final List<String> STORED_COLUMNS =
+        List.of(Order.ID, Order.PRODUCT_ID, Order.ORDER_QTY, Order.ORDER_DATETIME, Order.BUCKET);
+
+    @Autowired
+    private OrderByTimeRepository orderByTimeRepository;
+
+    @Autowired
+    private OrderProductSummaryRepository orderProductSummaryRepository;
+
     private int scanLimit = 100; // Default scan limit
     
     public void setScanLimit(int scanLimit) {
@@ -25,6 +43,11 @@ public class OrderRepository {
 
     // Get Record by Partition & Clustering Key
     public Order getOrder(DistributedTransaction transaction, Order order) throws CrudException {
+        return getOrder(transaction, order, ALL_COLUMNS);
+    }
+
+    // Get Record by Partition & Clustering Key, reading only the given columns (empty = all)
+    public Order getOrder(DistributedTransaction transaction, Order order, List<String> projections) throws CrudException {
         Key partitionKey = order.getPartitionKey();
         
         Get get = Get.newBuilder()
@@ -32,7 +55,7 @@ public class OrderRepository {
             .table(Order.TABLE)
             .partitionKey(partitionKey)
             
-            .projections(Order.ID, Order.PRODUCT_ID, Order.ORDER_QTY, Order.ORDER_DATETIME)
+            .projections(projectionsOrAll(projections))
             .build();
         Optional<Result> result = transaction.get(get);
         if (result.isEmpty()) {
@@ -52,14 +75,17 @@ public class OrderRepository {
             .intValue(Order.PRODUCT_ID, order.getProductId())
             .intValue(Order.ORDER_QTY, order.getOrderQty())
             .timestampValue(Order.ORDER_DATETIME, order.getOrderDatetime())
+            .intValue(Order.BUCKET, Order.bucketOf(order.getId()))
             .build();
         transaction.insert(insert);
+        syncDerivedTables(transaction, Optional.empty(), order);
         return order;
     }
 
     // Update Record
     public Order updateOrder(DistributedTransaction transaction, Order order) throws CrudException {
         Key partitionKey = order.getPartitionKey();
+        Optional<Result> stored = getStoredOrder(transaction, partitionKey);
         
         MutationCondition condition = ConditionBuilder.updateIfExists();
 
@@ -70,15 +96,18 @@ public class OrderRepository {
             .intValue(Order.PRODUCT_ID, order.getProductId())
             .intValue(Order.ORDER_QTY, order.getOrderQty())
             .timestampValue(Order.ORDER_DATETIME, order.getOrderDatetime())
+            .intValue(Order.BUCKET, Order.bucketOf(order.getId()))
             .condition(condition)
             .build();
         transaction.update(update);
+        syncDerivedTables(transaction, stored, order);
         return order;
     }
 
     // Upsert Record
     public Order upsertOrder(DistributedTransaction transaction, Order order) throws CrudException {
         Key partitionKey = order.getPartitionKey();
+        Optional<Result> stored = getStoredOrder(transaction, partitionKey);
         
         Upsert upsert = Upsert.newBuilder()
             .namespace(Order.NAMESPACE)
@@ -87,14 +116,17 @@ public class OrderRepository {
             .intValue(Order.PRODUCT_ID, order.getProductId())
             .intValue(Order.ORDER_QTY, order.getOrderQty())
             .timestampValue(Order.ORDER_DATETIME, order.getOrderDatetime())
+            .intValue(Order.BUCKET, Order.bucketOf(order.getId()))
             .build();
         transaction.upsert(upsert);
+        syncDerivedTables(transaction, stored, order);
         return order;
     }
 
     // Delete Record
     public void deleteOrder(DistributedTransaction transaction, Order order) throws CrudException {
         Key partitionKey = order.getPartitionKey();
+        Optional<Result> stored = getStoredOrder(transaction, partitionKey);
         
         MutationCondition condition = ConditionBuilder.deleteIfExists();
         Delete delete = Delete.newBuilder()
@@ -105,15 +137,21 @@ public class OrderRepository {
             .condition(condition)
             .build();
         transaction.delete(delete);
+        syncDerivedTables(transaction, stored, null);
     }
 
     // Scan All Records
     public List<Order> getOrderListAll(DistributedTransaction transaction) throws CrudException {
+        return getOrderListAll(transaction, ALL_COLUMNS);
+    }
+
+    // Scan All Records, reading only the given columns (empty = all)
+    public List<Order> getOrderListAll(DistributedTransaction transaction, List<String> projections) throws CrudException {
         Scan scan = Scan.newBuilder()
             .namespace(Order.NAMESPACE)
             .table(Order.TABLE)
             .all()
-            .projections(Order.ID, Order.PRODUCT_ID, Order.ORDER_QTY, Order.ORDER_DATETIME)
+            .projections(projectionsOrAll(projections))
             .limit(scanLimit)
             .build();
         List<Result> results = transaction.scan(scan);
@@ -126,11 +164,33 @@ public class OrderRepository {
 
     // Scan Records by Partition Key
     public List<Order> getOrderListByPk(DistributedTransaction transaction, Key partitionKey) throws CrudException {
+        return getOrderListByPk(transaction, partitionKey, ALL_COLUMNS);
+    }
+
+    // Scan Records by Partition Key, reading only the given columns (empty = all)
+    public List<Order> getOrderListByPk(DistributedTransaction transaction, Key partitionKey, List<String> projections) throws CrudException {
         Scan scan = Scan.newBuilder()
             .namespace(Order.NAMESPACE)
             .table(Order.TABLE)
             .partitionKey(partitionKey)
-            .projections(Order.ID, Order.PRODUCT_ID, Order.ORDER_QTY, Order.ORDER_DATETIME)
+            .projections(projectionsOrAll(projections))
+            .limit(scanLimit)
+            .build();
+        List<Result> results = transaction.scan(scan);
+        List<Order> orderList = new ArrayList<>();
+        for (Result result : results) {
+            orderList.add(buildOrder(result));
+        }
+        return orderList;
+    }
+
+    // Scan Records by product_id via the secondary index, reading only the given columns (empty = all)
+    public List<Order> getOrderListByProductId(DistributedTransaction transaction, int productId, List<String> projections) throws CrudException {
+        Scan scan = Scan.newBuilder()
+            .namespace(Order.NAMESPACE)
+            .table(Order.TABLE)
+            .indexKey(Key.ofInt(Order.PRODUCT_ID, productId))
+            .projections(projectionsOrAll(projections))
             .limit(scanLimit)
             .build();
         List<Result> results = transaction.scan(scan);
@@ -141,13 +201,124 @@ public class OrderRepository {
         return orderList;
     }
 
-    // Object Builder from ScalarDB Result
+    // Receives one page of Records of a streamed scan
+    @FunctionalInterface
+    public interface OrderPageConsumer {
+        void accept(List<Order> page) throws Exception;
+    }
+
+    // Stream every Record of one hash bucket via the bucket secondary index, pageRows Records per page
+    // (no scan limit); returns the number of Records read
+    public long scanOrderListByBucket(DistributedTransaction transaction, int bucket, List<String> projections,
+                                      int pageRows, OrderPageConsumer consumer) throws Exception {
+        Scan scan = Scan.newBuilder()
+            .namespace(Order.NAMESPACE)
+            .table(Order.TABLE)
+            .indexKey(Key.ofInt(Order.BUCKET, bucket))
+            .projections(projectionsOrAll(projections))
+            .build();
+        long rows = 0;
+        try (TransactionCrudOperable.Scanner scanner = transaction.getScanner(scan)) {
+            List<Order> page = new ArrayList<>(pageRows);
+            Optional<Result> result;
+            while ((result = scanner.one()).isPresent()) {
+                page.add(buildOrder(result.get()));
+                if (page.size() == pageRows) {
+                    consumer.accept(page);
+                    rows += page.size();
+                    page = new ArrayList<>(pageRows);
+                }
+            }
+            if (!page.isEmpty()) {
+                consumer.accept(page);
+                rows += page.size();
+            }
+        }
+        return rows;
+    }
+
+    // Scan up to limit Records whose bucket column is not set yet (written before the column existed);
+    // a cross-partition scan with a filter, so scalar.db.cross_partition_scan.filtering.enabled must be true
+    public List<Order> getUnbucketedOrderList(DistributedTransaction transaction, int limit) throws CrudException {
+        Scan scan = Scan.newBuilder()
+            .namespace(Order.NAMESPACE)
+            .table(Order.TABLE)
+            .all()
+            .where(ConditionBuilder.column(Order.BUCKET).isNullInt())
+            .projections(ALL_COLUMNS)
+            .limit(limit)
+            .build();
+        List<Result> results = transaction.scan(scan);
+        List<Order> orderList = new ArrayList<>(results.size());
+        for (Result result : results) {
+            orderList.add(buildOrder(result));
+        }
+        return orderList;
+    }
+
+    // Set the bucket column of a Record read by getUnbucketedOrderList, write its shopping.order_by_time entry
+    // and add it to shopping.order_product_summary
+    public void backfillOrder(DistributedTransaction transaction, Order order) throws CrudException {
+        Update update = Update.newBuilder()
+            .namespace(Order.NAMESPACE)
+            .table(Order.TABLE)
+            .partitionKey(order.getPartitionKey())
+            .intValue(Order.BUCKET, Order.bucketOf(order.getId()))
+            .condition(ConditionBuilder.updateIfExists())
+            .build();
+        transaction.update(update);
+        orderByTimeRepository.syncOrder(transaction, null, order);
+        orderProductSummaryRepository.syncOrder(transaction, null, order);
+    }
+
+    // Scan Records with order_datetime in [from, to) via shopping.order_by_time
+    public List<Order> getOrderListByTimeRange(DistributedTransaction transaction, LocalDateTime from, LocalDateTime to) throws CrudException {
+        return orderByTimeRepository.getOrderListByTimeRange(transaction, from, to, scanLimit);
+    }
+
+    // Per-product aggregate merged from its counter shards
+    public OrderProductSummary getProductSummary(DistributedTransaction transaction, int productId) throws CrudException {
+        return orderProductSummaryRepository.getProductSummary(transaction, productId);
+    }
+
+    // Stored record before a write, with its bucket column (empty if the record does not exist)
+    private Optional<Result> getStoredOrder(DistributedTransaction transaction, Key partitionKey) throws CrudException {
+        Get get = Get.newBuilder()
+            .namespace(Order.NAMESPACE)
+            .table(Order.TABLE)
+            .partitionKey(partitionKey)
+            .projections(STORED_COLUMNS)
+            .build();
+        return transaction.get(get);
+    }
+
+    // Keep shopping.order_by_time and shopping.order_product_summary in sync with a write (current = null on delete).
+    // A stored record without bucket predates the aggregate and was never counted (see OrderBackfillService),
+    // so only the new values are added for it
+    private void syncDerivedTables(DistributedTransaction transaction, Optional<Result> stored, Order current) throws CrudException {
+        Order previous = stored.map(this::buildOrder).orElse(null);
+        if (current != null) {
+            orderByTimeRepository.syncOrder(transaction, previous == null ? null : previous.getOrderDatetime(), current);
+        } else if (previous != null) {
+            orderByTimeRepository.deleteOrder(transaction, previous.getId(), previous.getOrderDatetime());
+        }
+        Order counted = stored.isPresent() && !stored.get().isNull(Order.BUCKET) ? previous : null;
+        if (counted != null || current != null) {
+            orderProductSummaryRepository.syncOrder(transaction, counted, current);
+        }
+    }
+
+    private static List<String> projectionsOrAll(List<String> projections) {
+        return projections == null || projections.isEmpty() ? ALL_COLUMNS : projections;
+    }
+
+    // Object Builder from ScalarDB Result (columns not projected stay null)
     private Order buildOrder(Result result) {
         return Order.builder()
-            .id(result.getText(Order.ID))
-            .productId(result.getInt(Order.PRODUCT_ID))
-            .orderQty(result.getInt(Order.ORDER_QTY))
-            .orderDatetime(result.getTimestamp(Order.ORDER_DATETIME))
+            .id(result.contains(Order.ID) ? result.getText(Order.ID) : null)
+            .productId(result.contains(Order.PRODUCT_ID) ? result.getInt(Order.PRODUCT_ID) : null)
+            .orderQty(result.contains(Order.ORDER_QTY) ? result.getInt(Order.ORDER_QTY) : null)
+            .orderDatetime(result.contains(Order.ORDER_DATETIME) ? result.getTimestamp(Order.ORDER_DATETIME) : null)
             .build();
     }
 }
\ No newline at end of file
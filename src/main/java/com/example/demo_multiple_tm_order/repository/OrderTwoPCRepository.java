@@ -8,11 +8,27 @@ import java.util.Optional;
 import com.scalar.db.api.*;
 import com.scalar.db.exception.transaction.*;
 import com.scalar.db.io.Key;
+import io.micrometer.observation.annotation.Observed;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+@Observed(name = "order.two-pc.repository")
 @Repository
 public class OrderTwoPCRepository {
 
+    private static final List<String> ALL_COLUMNS =
+        List.of(Order.ID, Order.PRODUCT_ID, Order.ORDER_QTY, Order.ORDER_DATETIME);
+
+    // Columns read before a write; bucket tells whether the record is counted in the derived tables
+    private static final List<String> STORED_COLUMNS =
+        List.of(Order.ID, Order.PRODUCT_ID, Order.ORDER_QTY, Order.ORDER_DATETIME, Order.BUCKET);
+
+    @Autowired
+    private OrderByTimeRepository orderByTimeRepository;
+
+    @Autowired
+    private OrderProductSummaryRepository orderProductSummaryRepository;
+
     private int scanLimit = 100; // Default scan limit
 
     public void setScanLimit(int scanLimit) {
@@ -25,6 +41,11 @@ public class OrderTwoPCRepository {
 
     // Get Record by Partition & Clustering Key
     public Order getOrder(TwoPhaseCommitTransaction transaction, Order order) throws CrudException {
+        return getOrder(transaction, order, ALL_COLUMNS);
+    }
+
+    // Get Record by Partition & Clustering Key, reading only the given columns (empty = all)
+    public Order getOrder(TwoPhaseCommitTransaction transaction, Order order, List<String> projections) throws CrudException {
         Key partitionKey = order.getPartitionKey();
         
         Get get = Get.newBuilder()
@@ -32,7 +53,7 @@ public class OrderTwoPCRepository {
             .table(Order.TABLE)
             .partitionKey(partitionKey)
             
-            .projections(Order.ID, Order.PRODUCT_ID, Order.ORDER_QTY, Order.ORDER_DATETIME)
+            .projections(projectionsOrAll(projections))
             .build();
         Optional<Result> result = transaction.get(get);
         if (result.isEmpty()) {
@@ -52,14 +73,17 @@ public class OrderTwoPCRepository {
             .intValue(Order.PRODUCT_ID, order.getProductId())
             .intValue(Order.ORDER_QTY, order.getOrderQty())
             .timestampValue(Order.ORDER_DATETIME, order.getOrderDatetime())
+            .intValue(Order.BUCKET, Order.bucketOf(order.getId()))
             .build();
         transaction.insert(insert);
+        syncDerivedTables(transaction, Optional.empty(), order);
         return order;
     }
 
     // Update Record
     public Order updateOrder(TwoPhaseCommitTransaction transaction, Order order) throws CrudException {
         Key partitionKey = order.getPartitionKey();
+        Optional<Result> stored = getStoredOrder(transaction, partitionKey);
         
         MutationCondition condition = ConditionBuilder.updateIfExists();
 
@@ -70,15 +94,18 @@ public class OrderTwoPCRepository {
             .intValue(Order.PRODUCT_ID, order.getProductId())
             .intValue(Order.ORDER_QTY, order.getOrderQty())
             .timestampValue(Order.ORDER_DATETIME, order.getOrderDatetime())
+            .intValue(Order.BUCKET, Order.bucketOf(order.getId()))
             .condition(condition)
             .build();
         transaction.update(update);
+        syncDerivedTables(transaction, stored, order);
         return order;
     }
 
     // Upsert Record
     public Order upsertOrder(TwoPhaseCommitTransaction transaction, Order order) throws CrudException {
         Key partitionKey = order.getPartitionKey();
+        Optional<Result> stored = getStoredOrder(transaction, partitionKey);
         
         Upsert upsert = Upsert.newBuilder()
             .namespace(Order.NAMESPACE)
@@ -87,14 +114,17 @@ public class OrderTwoPCRepository {
             .intValue(Order.PRODUCT_ID, order.getProductId())
             .intValue(Order.ORDER_QTY, order.getOrderQty())
             .timestampValue(Order.ORDER_DATETIME, order.getOrderDatetime())
+            .intValue(Order.BUCKET, Order.bucketOf(order.getId()))
             .build();
         transaction.upsert(upsert);
+        syncDerivedTables(transaction, stored, order);
         return order;
     }
 
     // Delete Record
     public void deleteOrder(TwoPhaseCommitTransaction transaction, Order order) throws CrudException {
         Key partitionKey = order.getPartitionKey();
+        Optional<Result> stored = getStoredOrder(transaction, partitionKey);
         
         MutationCondition condition = ConditionBuilder.deleteIfExists();
         Delete delete = Delete.newBuilder()
@@ -105,15 +135,21 @@ public class OrderTwoPCRepository {
             .condition(condition)
             .build();
         transaction.delete(delete);
+        syncDerivedTables(transaction, stored, null);
     }
 
     // Scan All Records
     public List<Order> getOrderListAll(TwoPhaseCommitTransaction transaction) throws CrudException {
+        return getOrderListAll(transaction, ALL_COLUMNS);
+    }
+
+    // Scan All Records, reading only the given columns (empty = all)
+    public List<Order> getOrderListAll(TwoPhaseCommitTransaction transaction, List<String> projections) throws CrudException {
         Scan scan = Scan.newBuilder()
             .namespace(Order.NAMESPACE)
             .table(Order.TABLE)
             .all()
-            .projections(Order.ID, Order.PRODUCT_ID, Order.ORDER_QTY, Order.ORDER_DATETIME)
+            .projections(projectionsOrAll(projections))
             .limit(scanLimit)
             .build();
         List<Result> results = transaction.scan(scan);
@@ -126,11 +162,16 @@ public class OrderTwoPCRepository {
 
     // Scan Records by Partition Key
     public List<Order> getOrderListByPk(TwoPhaseCommitTransaction transaction, Key partitionKey) throws CrudException {
+        return getOrderListByPk(transaction, partitionKey, ALL_COLUMNS);
+    }
+
+    // Scan Records by Partition Key, reading only the given columns (empty = all)
+    public List<Order> getOrderListByPk(TwoPhaseCommitTransaction transaction, Key partitionKey, List<String> projections) throws CrudException {
         Scan scan = Scan.newBuilder()
             .namespace(Order.NAMESPACE)
             .table(Order.TABLE)
             .partitionKey(partitionKey)
-            .projections(Order.ID, Order.PRODUCT_ID, Order.ORDER_QTY, Order.ORDER_DATETIME)
+            .projections(projectionsOrAll(projections))
             .limit(scanLimit)
             .build();
         List<Result> results = transaction.scan(scan);
@@ -141,13 +182,44 @@ public class OrderTwoPCRepository {
         return orderList;
     }
 
-    // Object Builder from ScalarDB Result
+    // Stored record before a write, with its bucket column (empty if the record does not exist)
+    private Optional<Result> getStoredOrder(TwoPhaseCommitTransaction transaction, Key partitionKey) throws CrudException {
+        Get get = Get.newBuilder()
+            .namespace(Order.NAMESPACE)
+            .table(Order.TABLE)
+            .partitionKey(partitionKey)
+            .projections(STORED_COLUMNS)
+            .build();
+        return transaction.get(get);
+    }
+
+    // Keep shopping.order_by_time and shopping.order_product_summary in sync with a write (current = null on delete).
+    // A stored record without bucket predates the aggregate and was never counted (see OrderBackfillService),
+    // so only the new values are added for it
+    private void syncDerivedTables(TwoPhaseCommitTransaction transaction, Optional<Result> stored, Order current) throws CrudException {
+        Order previous = stored.map(this::buildOrder).orElse(null);
+        if (current != null) {
+            orderByTimeRepository.syncOrder(transaction, previous == null ? null : previous.getOrderDatetime(), current);
+        } else if (previous != null) {
+            orderByTimeRepository.deleteOrder(transaction, previous.getId(), previous.getOrderDatetime());
+        }
+        Order counted = stored.isPresent() && !stored.get().isNull(Order.BUCKET) ? previous : null;
+        if (counted != null || current != null) {
+            orderProductSummaryRepository.syncOrder(transaction, counted, current);
+        }
+    }
+
+    private static List<String> projectionsOrAll(List<String> projections) {
+        return projections == null || projections.isEmpty() ? ALL_COLUMNS : projections;
+    }
+
+    // Object Builder from ScalarDB Result (columns not projected stay null)
     private Order buildOrder(Result result) {
         return Order.builder()
-            .id(result.getText(Order.ID))
-            .productId(result.getInt(Order.PRODUCT_ID))
-            .orderQty(result.getInt(Order.ORDER_QTY))
-            .orderDatetime(result.getTimestamp(Order.ORDER_DATETIME))
+            .id(result.contains(Order.ID) ? result.getText(Order.ID) : null)
+            .productId(result.contains(Order.PRODUCT_ID) ? result.getInt(Order.PRODUCT_ID) : null)
+            .orderQty(result.contains(Order.ORDER_QTY) ? result.getInt(Order.ORDER_QTY) : null)
+            .orderDatetime(result.contains(Order.ORDER_DATETIME) ? result.getTimestamp(Order.ORDER_DATETIME) : null)
             .build();
     }
 }
@@ -0,0 +1,169 @@
+package com.example.demo_multiple_tm_order.service;
+
+import com.example.demo_multiple_tm_order.exception.CustomException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive concurrency limit on transaction start (tx.concurrency.enabled=true)
+ *
+ * - One limit per scope (order, twopc-bff, sql); acquire() is called before the transaction
+ *   starts and fails fast with error code 9800 (503 + Retry-After) when the scope is at its limit
+ * - The permit is released after commit or rollback. Only committed transactions feed their latency
+ *   (start to end of commit) back into the limit; fast failures (validation errors, open circuits,
+ *   shed participants) say nothing about capacity and are ignored
+ * - Gradient style: the limit grows by sqrt(limit) while latency stays within
+ *   tx.concurrency.tolerance of its long-term average, and shrinks in proportion when latency rises above it (at most by half per sample, smoothed)
+ * - The limit only grows while at least half of it is in use, and stays between
+ *   tx.concurrency.min-limit and tx.concurrency.max-limit
+ *
+ * Metrics: tx.concurrency.limit{scope}, tx.concurrency.inflight{scope}, tx.concurrency.shed{scope}.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    public static final String SCOPE_ORDER = "order";
+    public static final String SCOPE_TWOPC_BFF = "twopc-bff";
+    public static final String SCOPE_SQL = "sql";
+
+    // Retry-After hint (seconds) sent with 9800
+    public static final String RETRY_AFTER_SECONDS = "1";
+
+    // Samples in the long-term latency average
+    private static final double LONG_WINDOW = 100;
+    private static final double SMOOTHING = 0.2;
+
+    private final boolean enabled;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ScopeLimit> scopes = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyLimiter(@Value("${tx.concurrency.enabled:true}") boolean enabled,
+                                      @Value("${tx.concurrency.initial-limit:50}") int initialLimit,
+                                      @Value("${tx.concurrency.min-limit:8}") int minLimit,
+                                      @Value("${tx.concurrency.max-limit:500}") int maxLimit,
+                                      @Value("${tx.concurrency.tolerance:1.5}") double tolerance,
+                                      MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Held for the duration of one transaction; release(committed) exactly once, in a finally block
+     */
+    public static final class Permit {
+        private static final Permit NONE = new Permit(null, 0, 0);
+
+        private final ScopeLimit scope;
+        private final long startNanos;
+        private final int inFlight;
+        private boolean released;
+
+        private Permit(ScopeLimit scope, long startNanos, int inFlight) {
+            this.scope = scope;
+            this.startNanos = startNanos;
+            this.inFlight = inFlight;
+        }
+
+        /**
+         * Give the permit back
+         *
+         * @param committed Whether the transaction committed; only then is its latency a sample
+         */
+        public void release(boolean committed) {
+            if (scope == null || released) {
+                return;
+            }
+            released = true;
+            scope.inFlight.decrementAndGet();
+            if (committed) {
+                scope.onSample(System.nanoTime() - startNanos, inFlight);
+            }
+        }
+    }
+
+    // Take a permit for a new transaction in the scope, or shed the request with 9800
+    public Permit acquire(String scope) throws CustomException {
+        if (!enabled) {
+            return Permit.NONE;
+        }
+        ScopeLimit limit = scopes.computeIfAbsent(scope, this::newScope);
+        while (true) {
+            int current = limit.inFlight.get();
+            if (current >= (int) limit.limit) {
+                limit.shed.increment();
+                throw new CustomException("Too many concurrent transactions for " + scope
+                        + " (limit " + (int) limit.limit + "), retry later", 9800);
+            }
+            if (limit.inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(limit, System.nanoTime(), current + 1);
+            }
+        }
+    }
+
+    // Current limit of a scope (the initial limit before its first transaction)
+    int limitOf(String scope) {
+        ScopeLimit limit = scopes.get(scope);
+        return limit == null ? initialLimit : (int) limit.limit;
+    }
+
+    // Feed one latency sample into a scope, as Permit.release(true) does
+    void onSample(String scope, long rttNanos, int inFlightAtStart) {
+        scopes.computeIfAbsent(scope, this::newScope).onSample(rttNanos, inFlightAtStart);
+    }
+
+    private ScopeLimit newScope(String scope) {
+        ScopeLimit limit = new ScopeLimit(initialLimit,
+                Counter.builder("tx.concurrency.shed").tag("scope", scope).register(meterRegistry));
+        Gauge.builder("tx.concurrency.limit", limit, l -> l.limit).tag("scope", scope).register(meterRegistry);
+        Gauge.builder("tx.concurrency.inflight", limit, l -> l.inFlight.get()).tag("scope", scope).register(meterRegistry);
+        return limit;
+    }
+
+    private final class ScopeLimit {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final Counter shed;
+        volatile double limit;
+        double longRttNanos;
+
+        ScopeLimit(int limit, Counter shed) {
+            this.limit = limit;
+            this.shed = shed;
+        }
+
+        synchronized void onSample(long rttNanos, int inFlightAtStart) {
+            double rtt = Math.max(1, rttNanos);
+            if (longRttNanos == 0) {
+                longRttNanos = rtt;
+                return;
+            }
+            longRttNanos += (rtt - longRttNanos) / LONG_WINDOW;
+            // Latency dropped well below the average (recovery): let the average catch up faster
+            if (longRttNanos > 2 * rtt) {
+                longRttNanos *= 0.95;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRttNanos / rtt));
+            // Not enough load to tell whether a higher limit would help
+            if (gradient == 1.0 && inFlightAtStart < limit / 2) {
+                return;
+            }
+            double target = limit * gradient + Math.sqrt(limit);
+            double next = limit * (1 - SMOOTHING) + target * SMOOTHING;
+            limit = Math.max(minLimit, Math.min(maxLimit, next));
+        }
+    }
+}
@@ -2,15 +2,25 @@ package com.example.demo_multiple_tm_order.service;
 
 import com.example.demo_multiple_tm_order.dto.ApiResponse;
 import com.example.demo_multiple_tm_order.exception.CustomException;
+import com.example.demo_multiple_tm_order.metrics.TwoPCMetrics;
+import com.example.demo_multiple_tm_order.metrics.TwoPCTracing;
+import com.example.demo_multiple_tm_order.util.RequestDeadline;
 import com.scalar.db.api.TwoPhaseCommitTransaction;
 import com.scalar.db.api.TwoPhaseCommitTransactionManager;
 import com.scalar.db.exception.transaction.*;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
 /**
  * Base class for Two-Phase Commit BFF Services
  *
@@ -20,21 +30,208 @@ import org.springframework.web.client.RestTemplate;
  * - Providing reusable REST API call methods
  * - Handling 2PC protocol phases (prepare, validate, commit, rollback)
  * - Centralizing error handling and response validation
+ * - Recording per-phase latency and abort metrics (see TwoPCMetrics)
+ * - Tracing each phase as a child span propagated to participants (see TwoPCTracing)
+ * - Building participant request headers in the configured wire format (twopc.wire-format: json or cbor)
+ * - Shedding new transactions above the adaptive concurrency limit (see AdaptiveConcurrencyLimiter)
+ * - Guarding CRUD, prepare and validate calls with per-participant circuit breakers (see ParticipantCircuitBreakers)
+ * - Forwarding the request deadline to participants and stopping before any call once it has
+ *   passed, so the transaction is rolled back instead of committed (see RequestDeadline)
  *
  * All TwoPC BFF service classes should extend this base class to inherit these capabilities.
  */
 @Slf4j
 public abstract class BaseTwoPCBffService {
 
+    // Codes that determineErrorCode passes through: unknown commit outcome, open circuit, missed deadline
+    private static final Set<Integer> KEPT_ERROR_CODES = Set.of(9200, 9810, 9820);
+
     @Autowired
     protected RestTemplate restTemplate;
 
+    @Autowired
+    protected TwoPCMetrics metrics;
+
+    @Autowired
+    protected TwoPCTracing tracing;
+
+    @Autowired
+    protected AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    @Autowired
+    protected ParticipantCircuitBreakers circuitBreakers;
+
     protected TwoPhaseCommitTransactionManager manager;
 
+    private MediaType wireMediaType = MediaType.APPLICATION_JSON;
+
     protected BaseTwoPCBffService(TwoPhaseCommitTransactionManager manager) {
         this.manager = manager;
     }
 
+    /**
+     * Set the encoding used for request and response bodies exchanged with participants
+     *
+     * @param wireFormat json (default) or cbor
+     */
+    @Value("${twopc.wire-format:json}")
+    public void setWireFormat(String wireFormat) {
+        switch (wireFormat.toLowerCase()) {
+            case "json" -> this.wireMediaType = MediaType.APPLICATION_JSON;
+            case "cbor" -> this.wireMediaType = MediaType.APPLICATION_CBOR;
+            default -> throw new IllegalArgumentException("Unsupported twopc.wire-format: " + wireFormat);
+        }
+    }
+
+    /**
+     * Create headers for participant calls: transaction ID, request deadline (if any) plus Content-Type
+     * and Accept in the wire format
+     *
+     * @param transactionId The transaction ID to propagate
+     * @return The request headers
+     */
+    protected HttpHeaders createHeaders(String transactionId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(wireMediaType);
+        headers.setAccept(List.of(wireMediaType));
+        headers.set("ScalarDB-Transaction-ID", transactionId);
+        Long deadline = RequestDeadline.current();
+        if (deadline != null) {
+            headers.set(RequestDeadline.HEADER, Long.toString(deadline));
+        }
+        return headers;
+    }
+
+    /**
+     * Append a fields= query parameter for projected reads
+     *
+     * @param url The participant URL
+     * @param fields Resolved column names; null or empty reads all columns
+     * @return The URL with the fields parameter, or the URL unchanged
+     */
+    protected static String withFields(String url, List<String> fields) {
+        return fields == null || fields.isEmpty() ? url : url + "?fields=" + String.join(",", fields);
+    }
+
+    /**
+     * Reject the request before a transaction is started if a participant's circuit is open
+     *
+     * @param participantUrls Base URLs of the participants the transaction will call
+     * @throws CustomException with error code 9810 if a circuit is open
+     */
+    protected void checkParticipants(String... participantUrls) throws CustomException {
+        String[] participants = new String[participantUrls.length];
+        for (int i = 0; i < participantUrls.length; i++) {
+            participants[i] = TwoPCMetrics.participantOf(participantUrls[i]);
+        }
+        circuitBreakers.checkAvailable(participants);
+    }
+
+    /**
+     * Take a concurrency permit for a new distributed transaction
+     *
+     * Call before startTransaction() and release the permit in a finally block after commit or rollback.
+     *
+     * @return The permit
+     * @throws CustomException with error code 9800 if the coordinator is at its concurrency limit
+     */
+    protected AdaptiveConcurrencyLimiter.Permit acquirePermit() throws CustomException {
+        return concurrencyLimiter.acquire(AdaptiveConcurrencyLimiter.SCOPE_TWOPC_BFF);
+    }
+
+    /**
+     * Start a new 2PC transaction and record the start latency
+     *
+     * @return The started transaction
+     * @throws TransactionException if the transaction cannot be started
+     */
+    protected TwoPhaseCommitTransaction startTransaction() throws TransactionException {
+        Timer.Sample sample = metrics.startSample();
+        String outcome = TwoPCMetrics.OUTCOME_FAILURE;
+        try {
+            TwoPhaseCommitTransaction transaction = manager.start();
+            tracing.tagTransaction(transaction.getId());
+            outcome = TwoPCMetrics.OUTCOME_SUCCESS;
+            return transaction;
+        } finally {
+            metrics.recordPhase(sample, TwoPCMetrics.ROLE_COORDINATOR, TwoPCMetrics.PHASE_START,
+                    metrics.getLocalParticipant(), outcome);
+        }
+    }
+
+    /**
+     * Run a participant call in its own span and record its latency in the phase histogram
+     *
+     * The call goes through the participant's circuit breaker and fails with 9810 while it is open.
+     * It is not made once the request deadline has passed, and a call that fails after the deadline
+     * (e.g. read timeout) fails with 9820 without counting against the participant's circuit.
+     * Commit and rollback are exempt from both: the outcome is already decided, so they are always
+     * sent, with the full timeouts and without the deadline header (see isDecided). A failed commit
+     * call fails with 9200: the participant may have committed before the failure was seen.
+     *
+     * @param phase The phase tag (HTTP method for data calls, lifecycle step otherwise)
+     * @param url The participant URL, reduced to its base for the participant tag
+     * @param call The call to execute
+     * @param <R> The type returned by the call
+     * @return The value returned by the call
+     */
+    protected <R> R timed(String phase, String url, Supplier<R> call) {
+        String participant = TwoPCMetrics.participantOf(url);
+        Timer.Sample sample = metrics.startSample();
+        String outcome = TwoPCMetrics.OUTCOME_FAILURE;
+        try {
+            if (isDecided(phase)) {
+                R result;
+                try {
+                    result = RequestDeadline.with(null, () -> tracing.inSpan("twopc " + phase, participant, call));
+                } catch (RuntimeException e) {
+                    if (TwoPCMetrics.PHASE_COMMIT.equals(phase)) {
+                        throw new CustomException("Commit outcome unknown on " + participant + ": " + e.getMessage(), e, 9200);
+                    }
+                    throw e;
+                }
+                outcome = TwoPCMetrics.OUTCOME_SUCCESS;
+                return result;
+            }
+            RequestDeadline.check(phase + " on " + participant);
+            R result = circuitBreakers.call(participant,
+                    () -> tracing.inSpan("twopc " + phase, participant, () -> {
+                        try {
+                            return call.get();
+                        } catch (RestClientException e) {
+                            if (RequestDeadline.isExpired()) {
+                                throw RequestDeadline.exceeded(phase + " on " + participant, e);
+                            }
+                            throw e;
+                        }
+                    }));
+            outcome = TwoPCMetrics.OUTCOME_SUCCESS;
+            return result;
+        } finally {
+            metrics.recordPhase(sample, TwoPCMetrics.ROLE_COORDINATOR, phase, participant, outcome);
+        }
+    }
+
+    /**
+     * Commit and rollback carry a decision already taken, so neither the request deadline nor the
+     * circuit breaker applies to them
+     */
+    protected static boolean isDecided(String phase) {
+        return TwoPCMetrics.PHASE_COMMIT.equals(phase) || TwoPCMetrics.PHASE_ROLLBACK.equals(phase);
+    }
+
+    /**
+     * Count an aborted distributed transaction and return its error code
+     *
+     * @param e The exception that aborted the transaction
+     * @return The error code determined for the exception
+     */
+    protected int recordAbort(Exception e) {
+        int errorCode = determineErrorCode(e);
+        metrics.recordAbort(TwoPCMetrics.ROLE_COORDINATOR, errorCode);
+        return errorCode;
+    }
+
     /**
      * Execute HTTP POST operation for insert/upsert operations
      *
@@ -45,21 +242,24 @@ public abstract class BaseTwoPCBffService {
      * @throws CustomException if the operation fails
      */
     protected <T> void executePost(String url, T dto, HttpHeaders headers) throws CustomException {
-        HttpEntity<T> request = new HttpEntity<>(dto, headers);
-
-        ResponseEntity<ApiResponse<Void>> response = restTemplate.exchange(
-            url,
-            HttpMethod.POST,
-            request,
-            new ParameterizedTypeReference<ApiResponse<Void>>() {}
-        );
-
-        ApiResponse<Void> body = response.getBody();
-        if (!response.getStatusCode().is2xxSuccessful() || body == null || !body.isSuccess()) {
-            String errorMsg = body != null ? body.getMessage() : "POST operation failed";
-            Integer errorCode = body != null ? body.getErrorCode() : 9100;
-            throw new CustomException("POST operation failed: " + errorMsg, errorCode != null ? errorCode : 9100);
-        }
+        timed("post", url, () -> {
+            HttpEntity<T> request = new HttpEntity<>(dto, headers);
+
+            ResponseEntity<ApiResponse<Void>> response = restTemplate.exchange(
+                url,
+                HttpMethod.POST,
+                request,
+                new ParameterizedTypeReference<ApiResponse<Void>>() {}
+            );
+
+            ApiResponse<Void> body = response.getBody();
+            if (!response.getStatusCode().is2xxSuccessful() || body == null || !body.isSuccess()) {
+                String errorMsg = body != null ? body.getMessage() : "POST operation failed";
+                Integer errorCode = body != null ? body.getErrorCode() : 9100;
+                throw new CustomException("POST operation failed: " + errorMsg, errorCode != null ? errorCode : 9100);
+            }
+            return null;
+        });
     }
 
     /**
@@ -72,21 +272,24 @@ public abstract class BaseTwoPCBffService {
      * @throws CustomException if the operation fails
      */
     protected <T> void executePut(String url, T dto, HttpHeaders headers) throws CustomException {
-        HttpEntity<T> request = new HttpEntity<>(dto, headers);
-
-        ResponseEntity<ApiResponse<Void>> response = restTemplate.exchange(
-            url,
-            HttpMethod.PUT,
-            request,
-            new ParameterizedTypeReference<ApiResponse<Void>>() {}
-        );
-
-        ApiResponse<Void> body = response.getBody();
-        if (!response.getStatusCode().is2xxSuccessful() || body == null || !body.isSuccess()) {
-            String errorMsg = body != null ? body.getMessage() : "PUT operation failed";
-            Integer errorCode = body != null ? body.getErrorCode() : 9100;
-            throw new CustomException("PUT operation failed: " + errorMsg, errorCode != null ? errorCode : 9100);
-        }
+        timed("put", url, () -> {
+            HttpEntity<T> request = new HttpEntity<>(dto, headers);
+
+            ResponseEntity<ApiResponse<Void>> response = restTemplate.exchange(
+                url,
+                HttpMethod.PUT,
+                request,
+                new ParameterizedTypeReference<ApiResponse<Void>>() {}
+            );
+
+            ApiResponse<Void> body = response.getBody();
+            if (!response.getStatusCode().is2xxSuccessful() || body == null || !body.isSuccess()) {
+                String errorMsg = body != null ? body.getMessage() : "PUT operation failed";
+                Integer errorCode = body != null ? body.getErrorCode() : 9100;
+                throw new CustomException("PUT operation failed: " + errorMsg, errorCode != null ? errorCode : 9100);
+            }
+            return null;
+        });
     }
 
     /**
@@ -97,21 +300,24 @@ public abstract class BaseTwoPCBffService {
      * @throws CustomException if the operation fails
      */
     protected void executeDelete(String url, HttpHeaders headers) throws CustomException {
-        HttpEntity<Void> request = new HttpEntity<>(headers);
-
-        ResponseEntity<ApiResponse<Void>> response = restTemplate.exchange(
-            url,
-            HttpMethod.DELETE,
-            request,
-            new ParameterizedTypeReference<ApiResponse<Void>>() {}
-        );
-
-        ApiResponse<Void> body = response.getBody();
-        if (!response.getStatusCode().is2xxSuccessful() || body == null || !body.isSuccess()) {
-            String errorMsg = body != null ? body.getMessage() : "DELETE operation failed";
-            Integer errorCode = body != null ? body.getErrorCode() : 9100;
-            throw new CustomException("DELETE operation failed: " + errorMsg, errorCode != null ? errorCode : 9100);
-        }
+        timed("delete", url, () -> {
+            HttpEntity<Void> request = new HttpEntity<>(headers);
+
+            ResponseEntity<ApiResponse<Void>> response = restTemplate.exchange(
+                url,
+                HttpMethod.DELETE,
+                request,
+                new ParameterizedTypeReference<ApiResponse<Void>>() {}
+            );
+
+            ApiResponse<Void> body = response.getBody();
+            if (!response.getStatusCode().is2xxSuccessful() || body == null || !body.isSuccess()) {
+                String errorMsg = body != null ? body.getMessage() : "DELETE operation failed";
+                Integer errorCode = body != null ? body.getErrorCode() : 9100;
+                throw new CustomException("DELETE operation failed: " + errorMsg, errorCode != null ? errorCode : 9100);
+            }
+            return null;
+        });
     }
 
     /**
@@ -125,23 +331,25 @@ public abstract class BaseTwoPCBffService {
      * @throws CustomException if the operation fails
      */
     protected <T> T executeGet(String url, HttpHeaders headers, ParameterizedTypeReference<ApiResponse<T>> typeRef) throws CustomException {
-        HttpEntity<Void> request = new HttpEntity<>(headers);
-
-        ResponseEntity<ApiResponse<T>> response = restTemplate.exchange(
-            url,
-            HttpMethod.GET,
-            request,
-            typeRef
-        );
-
-        ApiResponse<T> body = response.getBody();
-        if (!response.getStatusCode().is2xxSuccessful() || body == null || !body.isSuccess()) {
-            String errorMsg = body != null ? body.getMessage() : "GET operation failed";
-            Integer errorCode = body != null ? body.getErrorCode() : 9100;
-            throw new CustomException("GET operation failed: " + errorMsg, errorCode != null ? errorCode : 9100);
-        }
+        return timed("get", url, () -> {
+            HttpEntity<Void> request = new HttpEntity<>(headers);
+
+            ResponseEntity<ApiResponse<T>> response = restTemplate.exchange(
+                url,
+                HttpMethod.GET,
+                request,
+                typeRef
+            );
+
+            ApiResponse<T> body = response.getBody();
+            if (!response.getStatusCode().is2xxSuccessful() || body == null || !body.isSuccess()) {
+                String errorMsg = body != null ? body.getMessage() : "GET operation failed";
+                Integer errorCode = body != null ? body.getErrorCode() : 9100;
+                throw new CustomException("GET operation failed: " + errorMsg, errorCode != null ? errorCode : 9100);
+            }
 
-        return body.getData();
+            return body.getData();
+        });
     }
 
     /**
@@ -152,25 +360,41 @@ public abstract class BaseTwoPCBffService {
      * @throws CustomException if the phase operation fails
      */
     protected void executeTwoPcPhase(String url, HttpHeaders headers) throws CustomException {
-        HttpEntity<Void> request = new HttpEntity<>(headers);
-
-        ResponseEntity<ApiResponse<Void>> response = restTemplate.exchange(
-            url,
-            HttpMethod.GET,
-            request,
-            new ParameterizedTypeReference<ApiResponse<Void>>() {}
-        );
-
-        if (!response.getStatusCode().is2xxSuccessful() ||
-            response.getBody() == null ||
-            !response.getBody().isSuccess()) {
-            throw new CustomException("2PC phase operation failed for: " + url, 9100);
-        }
+        String phase = TwoPCMetrics.phaseOf(url);
+        timed(phase, url, () -> {
+            HttpEntity<Void> request = new HttpEntity<>(isDecided(phase) ? withoutDeadline(headers) : headers);
+
+            ResponseEntity<ApiResponse<Void>> response = restTemplate.exchange(
+                url,
+                HttpMethod.GET,
+                request,
+                new ParameterizedTypeReference<ApiResponse<Void>>() {}
+            );
+
+            if (!response.getStatusCode().is2xxSuccessful() ||
+                response.getBody() == null ||
+                !response.getBody().isSuccess()) {
+                throw new CustomException("2PC phase operation failed for: " + url, 9100);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Copy of the headers without X-Request-Deadline, so the participant does not check it
+     */
+    private static HttpHeaders withoutDeadline(HttpHeaders headers) {
+        HttpHeaders copy = new HttpHeaders();
+        copy.addAll(headers);
+        copy.remove(RequestDeadline.HEADER);
+        return copy;
     }
 
     /**
      * Handle transaction rollback when an error occurs
      *
+     * Runs without the request deadline: rollback must still reach the participant after it has passed.
+     *
      * @param transaction The transaction to rollback
      * @param rollbackUrl The rollback endpoint URL
      * @param transactionId The transaction ID for logging
@@ -178,16 +402,17 @@ public abstract class BaseTwoPCBffService {
     protected void handleTransactionRollback(TwoPhaseCommitTransaction transaction, String rollbackUrl, String transactionId) {
         if (transaction != null) {
             try {
-                HttpHeaders headers = new HttpHeaders();
-                headers.set("ScalarDB-Transaction-ID", transactionId);
+                RequestDeadline.with(null, () -> {
+                    HttpHeaders headers = createHeaders(transactionId);
 
-                HttpEntity<Void> rollbackRequest = new HttpEntity<>(headers);
-                restTemplate.exchange(
-                    rollbackUrl,
-                    HttpMethod.GET,
-                    rollbackRequest,
-                    new ParameterizedTypeReference<ApiResponse<Void>>() {}
-                );
+                    HttpEntity<Void> rollbackRequest = new HttpEntity<>(headers);
+                    return timed(TwoPCMetrics.PHASE_ROLLBACK, rollbackUrl, () -> restTemplate.exchange(
+                        rollbackUrl,
+                        HttpMethod.GET,
+                        rollbackRequest,
+                        new ParameterizedTypeReference<ApiResponse<Void>>() {}
+                    ));
+                });
 
                 log.info("Transaction rolled back: {}", transactionId);
             } catch (Exception ex) {
@@ -203,6 +428,10 @@ public abstract class BaseTwoPCBffService {
      * @return The appropriate error code
      */
     protected int determineErrorCode(Exception e) {
+        if (e instanceof CustomException customException && customException.getErrorCode() != null
+                && KEPT_ERROR_CODES.contains(customException.getErrorCode())) {
+            return customException.getErrorCode();
+        }
         if (e instanceof UnsatisfiedConditionException) return 9100;
         if (e instanceof UnknownTransactionStatusException) return 9200;
         if (e instanceof TransactionException) return 9300;
@@ -2,10 +2,20 @@ package com.example.demo_multiple_tm_order.service;
 
 import com.example.demo_multiple_tm_order.dto.ResponseStatusDto;
 import com.example.demo_multiple_tm_order.exception.CustomException;
+import com.example.demo_multiple_tm_order.metrics.TwoPCMetrics;
+import com.example.demo_multiple_tm_order.util.AsyncIo;
+import com.example.demo_multiple_tm_order.util.RequestDeadline;
 import com.scalar.db.api.TwoPhaseCommitTransaction;
 import com.scalar.db.api.TwoPhaseCommitTransactionManager;
 import com.scalar.db.exception.transaction.*;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
  * Base class for Two-Phase Commit (2PC) services
@@ -17,11 +27,22 @@ import lombok.extern.slf4j.Slf4j;
  * - rollback: Rolls back the transaction
  *
  * All lifecycle methods use manager.resume(transactionId) to access the transaction.
+ * Lifecycle latency and failures are recorded through TwoPCMetrics with role=participant.
+ * The *Async variants run the same methods on orderIoExecutor (see AsyncIoConfig).
+ * Prepare and validate abort early with 9820 once the request deadline has passed (see RequestDeadline);
+ * commit and rollback always run, because the coordinator has already decided the outcome.
  */
 @Slf4j
 public abstract class BaseTwoPCService {
     protected TwoPhaseCommitTransactionManager manager;
 
+    @Autowired
+    protected TwoPCMetrics metrics;
+
+    @Autowired
+    @Qualifier("orderIoExecutor")
+    protected AsyncTaskExecutor ioExecutor;
+
     public BaseTwoPCService(TwoPhaseCommitTransactionManager manager) {
         this.manager = manager;
     }
@@ -30,14 +51,21 @@ public abstract class BaseTwoPCService {
      * Prepare phase - locks resources and prepares for commit
      */
     public ResponseStatusDto prepare(String transactionId) throws CustomException {
+        Timer.Sample sample = metrics.startSample();
+        String outcome = TwoPCMetrics.OUTCOME_FAILURE;
         try {
+            checkDeadline(TwoPCMetrics.PHASE_PREPARE);
             TwoPhaseCommitTransaction transaction = manager.resume(transactionId);
             transaction.prepare();
             log.info("Transaction prepared: {}", transactionId);
+            outcome = TwoPCMetrics.OUTCOME_SUCCESS;
             return ResponseStatusDto.builder().code(0).message("").build();
         } catch (Exception e) {
             log.error("Prepare failed: {}", e.getMessage(), e);
-            throw new CustomException(e, determineErrorCode(e));
+            throw new CustomException(e, recordAbort(e));
+        } finally {
+            metrics.recordPhase(sample, TwoPCMetrics.ROLE_PARTICIPANT, TwoPCMetrics.PHASE_PREPARE,
+                    metrics.getLocalParticipant(), outcome);
         }
     }
 
@@ -45,14 +73,21 @@ public abstract class BaseTwoPCService {
      * Validate phase - verifies transaction can be committed
      */
     public ResponseStatusDto validate(String transactionId) throws CustomException {
+        Timer.Sample sample = metrics.startSample();
+        String outcome = TwoPCMetrics.OUTCOME_FAILURE;
         try {
+            checkDeadline(TwoPCMetrics.PHASE_VALIDATE);
             TwoPhaseCommitTransaction transaction = manager.resume(transactionId);
             transaction.validate();
             log.info("Transaction validated: {}", transactionId);
+            outcome = TwoPCMetrics.OUTCOME_SUCCESS;
             return ResponseStatusDto.builder().code(0).message("").build();
         } catch (Exception e) {
             log.error("Validate failed: {}", e.getMessage(), e);
-            throw new CustomException(e, determineErrorCode(e));
+            throw new CustomException(e, recordAbort(e));
+        } finally {
+            metrics.recordPhase(sample, TwoPCMetrics.ROLE_PARTICIPANT, TwoPCMetrics.PHASE_VALIDATE,
+                    metrics.getLocalParticipant(), outcome);
         }
     }
 
@@ -60,14 +95,20 @@ public abstract class BaseTwoPCService {
      * Commit phase - commits the transaction
      */
     public ResponseStatusDto commit(String transactionId) throws CustomException {
+        Timer.Sample sample = metrics.startSample();
+        String outcome = TwoPCMetrics.OUTCOME_FAILURE;
         try {
             TwoPhaseCommitTransaction transaction = manager.resume(transactionId);
             transaction.commit();
             log.info("Transaction committed: {}", transactionId);
+            outcome = TwoPCMetrics.OUTCOME_SUCCESS;
             return ResponseStatusDto.builder().code(0).message("").build();
         } catch (Exception e) {
             log.error("Commit failed: {}", e.getMessage(), e);
-            throw new CustomException(e, determineErrorCode(e));
+            throw new CustomException(e, recordAbort(e));
+        } finally {
+            metrics.recordPhase(sample, TwoPCMetrics.ROLE_PARTICIPANT, TwoPCMetrics.PHASE_COMMIT,
+                    metrics.getLocalParticipant(), outcome);
         }
     }
 
@@ -75,20 +116,57 @@ public abstract class BaseTwoPCService {
      * Rollback phase - rolls back the transaction
      */
     public ResponseStatusDto rollback(String transactionId) throws CustomException {
+        Timer.Sample sample = metrics.startSample();
+        String outcome = TwoPCMetrics.OUTCOME_FAILURE;
         try {
             TwoPhaseCommitTransaction transaction = manager.resume(transactionId);
             transaction.rollback();
             log.info("Transaction rolled back: {}", transactionId);
+            outcome = TwoPCMetrics.OUTCOME_SUCCESS;
             return ResponseStatusDto.builder().code(0).message("").build();
         } catch (TransactionNotFoundException e) {
             log.warn("Transaction not found for rollback: {}", transactionId);
+            outcome = TwoPCMetrics.OUTCOME_SUCCESS;
             return ResponseStatusDto.builder().code(0).message("Transaction not found").build();
         } catch (Exception e) {
             log.error("Rollback failed: {}", e.getMessage(), e);
-            throw new CustomException(e, determineErrorCode(e));
+            throw new CustomException(e, recordAbort(e));
+        } finally {
+            metrics.recordPhase(sample, TwoPCMetrics.ROLE_PARTICIPANT, TwoPCMetrics.PHASE_ROLLBACK,
+                    metrics.getLocalParticipant(), outcome);
         }
     }
 
+    public CompletableFuture<ResponseStatusDto> prepareAsync(String transactionId) {
+        return async(() -> prepare(transactionId));
+    }
+
+    public CompletableFuture<ResponseStatusDto> validateAsync(String transactionId) {
+        return async(() -> validate(transactionId));
+    }
+
+    public CompletableFuture<ResponseStatusDto> commitAsync(String transactionId) {
+        return async(() -> commit(transactionId));
+    }
+
+    public CompletableFuture<ResponseStatusDto> rollbackAsync(String transactionId) {
+        return async(() -> rollback(transactionId));
+    }
+
+    /**
+     * Run a blocking call on the I/O executor
+     */
+    protected <T> CompletableFuture<T> async(Supplier<T> call) {
+        return AsyncIo.supply(ioExecutor, call);
+    }
+
+    /**
+     * Abort the step with 9820 if the caller's request deadline has passed
+     */
+    protected void checkDeadline(String step) throws CustomException {
+        RequestDeadline.check(step);
+    }
+
     /**
      * Handle transaction exceptions and attempt rollback
      */
@@ -103,10 +181,20 @@ public abstract class BaseTwoPCService {
         }
     }
 
+    /**
+     * Count a failed lifecycle phase and return its error code
+     */
+    protected int recordAbort(Exception e) {
+        int errorCode = determineErrorCode(e);
+        metrics.recordAbort(TwoPCMetrics.ROLE_PARTICIPANT, errorCode);
+        return errorCode;
+    }
+
     /**
      * Determine error code based on exception type
      */
     protected int determineErrorCode(Exception e) {
+        if (e instanceof CustomException customException && customException.getErrorCode() == 9820) return 9820;
         if (e instanceof UnsatisfiedConditionException) return 9100;
         if (e instanceof UnknownTransactionStatusException) return 9200;
         if (e instanceof TransactionException) return 9300;
@@ -1,13 +1,22 @@
 package com.example.demo_multiple_tm_order.service;
 
+import com.example.demo_multiple_tm_order.dto.SqlBatchDto;
+import com.example.demo_multiple_tm_order.dto.SqlBatchStatementDto;
 import com.example.demo_multiple_tm_order.dto.SqlCommandDto;
 import com.example.demo_multiple_tm_order.exception.CustomException;
+import com.example.demo_multiple_tm_order.util.ExecuteSqlUtil;
 import com.example.demo_multiple_tm_order.util.GenericSqlUtil;
+import com.example.demo_multiple_tm_order.util.SqlRowGuard;
+import com.example.demo_multiple_tm_order.util.SqlResultTable;
 import com.scalar.db.exception.transaction.*;
 import com.scalar.db.sql.SqlSession;
 import com.scalar.db.sql.SqlSessionFactory;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import java.time.DateTimeException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -16,12 +25,82 @@ import java.util.Map;
 public class GenericSqlService {
     SqlSessionFactory sqlSessionFactory;
 
+    @Autowired
+    SqlResultCache sqlResultCache;
+
+    @Autowired
+    SqlResourceGovernor sqlResourceGovernor;
+
+    @Autowired
+    AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    @Value("${sql.batch.max-statements:100}")
+    private int batchMaxStatements;
+
     public GenericSqlService(SqlSessionFactory sqlSessionFactory) {
         this.sqlSessionFactory = sqlSessionFactory;
     }
 
-    // Execute SQL Command (Generic - returns Map)
+    // Execute SQL Command (Generic - returns Map) under SqlResourceGovernor limits; SELECTs may be served from SqlResultCache
     public List<Map<String, Object>> executeSQLGeneric(SqlCommandDto sqlCommandDto) throws CustomException {
+        String sql = sqlCommandDto.getSqlCommand();
+        OrderService.rejectOrderTableWrite(sql);
+        SqlResourceGovernor.Limits limits = sqlResourceGovernor.limitsFor(sqlCommandDto);
+        return sqlResultCache.getOrLoad(cacheFormat("objects", limits), sql,
+                () -> sqlResourceGovernor.execute(limits, guard -> executeQuery(sql, guard)));
+    }
+
+    // Execute SQL Command (Generic - returns column header + Object[] rows) under SqlResourceGovernor limits; SELECTs may be served from SqlResultCache
+    public SqlResultTable executeSQLGenericTable(SqlCommandDto sqlCommandDto) throws CustomException {
+        String sql = sqlCommandDto.getSqlCommand();
+        OrderService.rejectOrderTableWrite(sql);
+        SqlResourceGovernor.Limits limits = sqlResourceGovernor.limitsFor(sqlCommandDto);
+        return sqlResultCache.getOrLoad(cacheFormat("rows", limits), sql,
+                () -> sqlResourceGovernor.execute(limits, guard -> executeQueryAsTable(sql, guard)));
+    }
+
+    // Execute an ordered list of statements (optionally with bind parameters) in one transaction
+    public List<SqlResultTable> executeSQLBatch(SqlBatchDto sqlBatchDto) throws CustomException {
+        List<SqlBatchStatementDto> statements = validateBatch(sqlBatchDto);
+        SqlResourceGovernor.Limits limits = sqlResourceGovernor.limitsFor(
+                sqlBatchDto.getMaxRows(), sqlBatchDto.getMaxBytes(), sqlBatchDto.getTimeoutMs());
+        return sqlResourceGovernor.execute(limits, guard -> executeBatch(statements, guard));
+    }
+
+    // Check the statement count and validate every statement and its params before a transaction
+    // is touched (also used by GenericSqlTwoPCService); writes to the order tables are rejected
+    public List<SqlBatchStatementDto> validateBatch(SqlBatchDto sqlBatchDto) throws CustomException {
+        List<SqlBatchStatementDto> statements = sqlBatchDto.getStatements();
+        if (statements == null || statements.isEmpty()) {
+            throw new CustomException("Batch contains no statements", 9400);
+        }
+        if (statements.size() > batchMaxStatements) {
+            throw new CustomException("Batch contains more than " + batchMaxStatements + " statements", 9400);
+        }
+        for (int i = 0; i < statements.size(); i++) {
+            try {
+                ExecuteSqlUtil.validateSqlStatement(statements.get(i).getSqlCommand());
+                OrderService.rejectOrderTableWrite(statements.get(i).getSqlCommand());
+                if (statements.get(i).getParams() != null) {
+                    statements.get(i).getParams().forEach(GenericSqlUtil::toValue);
+                }
+            } catch (ExecuteSqlUtil.ValidationException | IllegalArgumentException | DateTimeException e) {
+                throw new CustomException("Statement " + i + ": " + e.getMessage(), e, 9400);
+            } catch (CustomException e) {
+                throw new CustomException("Statement " + i + ": " + e.getMessage(), e, e.getErrorCode());
+            }
+        }
+        return statements;
+    }
+
+    // Results depend on the row and byte limits, so they are part of the cache key
+    private static String cacheFormat(String format, SqlResourceGovernor.Limits limits) {
+        return format + "/" + limits.maxRows() + "/" + limits.maxBytes();
+    }
+
+    private List<Map<String, Object>> executeQuery(String sql, SqlRowGuard guard) throws CustomException {
+        AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(AdaptiveConcurrencyLimiter.SCOPE_SQL);
+        boolean committed = false;
         SqlSession sqlSession = null;
 
         try {
@@ -31,13 +110,84 @@ public class GenericSqlService {
             // Begin a transaction
             sqlSession.begin();
 
-            List<Map<String, Object>> resultList = genericSqlUtil.executeQuery(sqlCommandDto.getSqlCommand());
+            List<Map<String, Object>> resultList = genericSqlUtil.executeQuery(sql, guard);
 
+            guard.beginCommit();
             sqlSession.commit();
+            committed = true;
+            invalidateCacheAfterWrite(sql);
             return resultList;
         } catch (Exception e) {
             handleSqlSessionException(e, sqlSession);
             throw new CustomException(e, determineErrorCode(e));
+        } finally {
+            permit.release(committed);
+        }
+    }
+
+    private SqlResultTable executeQueryAsTable(String sql, SqlRowGuard guard) throws CustomException {
+        AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(AdaptiveConcurrencyLimiter.SCOPE_SQL);
+        boolean committed = false;
+        SqlSession sqlSession = null;
+
+        try {
+            sqlSession = sqlSessionFactory.createSqlSession();
+            GenericSqlUtil genericSqlUtil = new GenericSqlUtil(sqlSession);
+
+            // Begin a transaction
+            sqlSession.begin();
+
+            SqlResultTable resultTable = genericSqlUtil.executeQueryAsTable(sql, guard);
+
+            guard.beginCommit();
+            sqlSession.commit();
+            committed = true;
+            invalidateCacheAfterWrite(sql);
+            return resultTable;
+        } catch (Exception e) {
+            handleSqlSessionException(e, sqlSession);
+            throw new CustomException(e, determineErrorCode(e));
+        } finally {
+            permit.release(committed);
+        }
+    }
+
+    private List<SqlResultTable> executeBatch(List<SqlBatchStatementDto> statements, SqlRowGuard guard) throws CustomException {
+        AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(AdaptiveConcurrencyLimiter.SCOPE_SQL);
+        boolean committed = false;
+        SqlSession sqlSession = null;
+
+        try {
+            sqlSession = sqlSessionFactory.createSqlSession();
+            GenericSqlUtil genericSqlUtil = new GenericSqlUtil(sqlSession);
+
+            // Begin a transaction
+            sqlSession.begin();
+
+            List<SqlResultTable> results = new ArrayList<>(statements.size());
+            for (SqlBatchStatementDto statement : statements) {
+                results.add(genericSqlUtil.executeStatementAsTable(statement.getSqlCommand(), statement.getParams(), guard));
+            }
+
+            guard.beginCommit();
+            sqlSession.commit();
+            committed = true;
+            for (SqlBatchStatementDto statement : statements) {
+                invalidateCacheAfterWrite(statement.getSqlCommand());
+            }
+            return results;
+        } catch (Exception e) {
+            handleSqlSessionException(e, sqlSession);
+            throw new CustomException(e, determineErrorCode(e));
+        } finally {
+            permit.release(committed);
+        }
+    }
+
+    // DML committed through this service invalidates cached results of the tables it touched
+    private void invalidateCacheAfterWrite(String sql) {
+        if (!SqlResultCache.isCacheable(sql)) {
+            sqlResultCache.invalidateStatement(sql);
         }
     }
 
@@ -53,6 +203,8 @@ public class GenericSqlService {
     }
 
     private int determineErrorCode(Exception e) {
+        if (e instanceof SqlRowGuard.LimitExceededException limitExceeded) return SqlResourceGovernor.errorCodeOf(limitExceeded);
+        if (e instanceof CustomException customException) return customException.getErrorCode();
         if (e instanceof UnsatisfiedConditionException) return 9100;
         if (e instanceof UnknownTransactionStatusException) return 9200;
         if (e instanceof TransactionException) return 9300;
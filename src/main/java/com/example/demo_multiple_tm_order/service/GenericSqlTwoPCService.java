@@ -0,0 +1,283 @@
+package com.example.demo_multiple_tm_order.service;
+
+import com.example.demo_multiple_tm_order.dto.ResponseStatusDto;
+import com.example.demo_multiple_tm_order.dto.SqlBatchDto;
+import com.example.demo_multiple_tm_order.dto.SqlBatchStatementDto;
+import com.example.demo_multiple_tm_order.exception.CustomException;
+import com.example.demo_multiple_tm_order.metrics.TwoPCMetrics;
+import com.example.demo_multiple_tm_order.util.GenericSqlUtil;
+import com.example.demo_multiple_tm_order.util.RequestDeadline;
+import com.example.demo_multiple_tm_order.util.SqlResultTable;
+import com.example.demo_multiple_tm_order.util.SqlRowGuard;
+import com.scalar.db.exception.transaction.*;
+import com.scalar.db.sql.SqlSession;
+import com.scalar.db.sql.SqlSessionFactory;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Two-Phase Commit (2PC) participant over the SQL interface
+ *
+ * - execute joins the coordinator's transaction (ScalarDB-Transaction-ID) with a session from the
+ *   shared SqlSessionFactory, switched to two-phase commit mode, and runs a list of statements in
+ *   it, so one set-based statement can replace many per-row CRUD calls
+ * - The SQL API has no resume, so the joined session is kept per transaction ID on this instance
+ *   until commit or rollback; later execute calls and the prepare / validate / commit / rollback
+ *   phases use the same session
+ * - A released transaction ID stays registered for sql.two-pc.session-timeout-ms, so a late execute
+ *   is rejected with 9400 instead of joining the finished transaction again
+ * - Statements are validated like /generic-sql/execute-batch and run under SqlResourceGovernor
+ * - A failed execute rolls the session back (as the CRUD participants do); a background task rolls
+ *   back and drops sessions idle longer than sql.two-pc.session-timeout-ms
+ * - Execute, prepare and validate abort early with 9820 once the request deadline has passed;
+ *   commit and rollback always run (see RequestDeadline)
+ * - DML statements invalidate SqlResultCache after commit
+ */
+@Slf4j
+@Service
+public class GenericSqlTwoPCService implements InitializingBean, DisposableBean {
+    SqlSessionFactory sqlSessionFactory;
+
+    @Autowired
+    GenericSqlService genericSqlService;
+
+    @Autowired
+    SqlResourceGovernor sqlResourceGovernor;
+
+    @Autowired
+    SqlResultCache sqlResultCache;
+
+    @Autowired
+    TwoPCMetrics metrics;
+
+    @Value("${sql.two-pc.session-timeout-ms:60000}")
+    private long sessionTimeoutMs;
+
+    private final Map<String, ParticipantSession> sessions = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService expiryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sql-two-pc-expiry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public GenericSqlTwoPCService(SqlSessionFactory sqlSessionFactory) {
+        this.sqlSessionFactory = sqlSessionFactory;
+    }
+
+    // Check for idle sessions four times per timeout (at most once a second)
+    @Override
+    public void afterPropertiesSet() {
+        long periodMs = Math.max(1000, sessionTimeoutMs / 4);
+        expiryExecutor.scheduleWithFixedDelay(this::expireIdleSessions, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    @FunctionalInterface
+    private interface Phase {
+        void run(SqlSession sqlSession);
+    }
+
+    // Join the transaction (first call) and execute the statements in its session
+    public List<SqlResultTable> execute(SqlBatchDto sqlBatchDto, String transactionId) throws CustomException {
+        List<SqlBatchStatementDto> statements = genericSqlService.validateBatch(sqlBatchDto);
+        SqlResourceGovernor.Limits limits = sqlResourceGovernor.limitsFor(
+                sqlBatchDto.getMaxRows(), sqlBatchDto.getMaxBytes(), sqlBatchDto.getTimeoutMs());
+        Timer.Sample sample = metrics.startSample();
+        String outcome = TwoPCMetrics.OUTCOME_FAILURE;
+        try {
+            RequestDeadline.check(TwoPCMetrics.PHASE_EXECUTE);
+            List<SqlResultTable> results = sqlResourceGovernor.execute(limits,
+                    guard -> executeInSession(transactionId, statements, guard));
+            outcome = TwoPCMetrics.OUTCOME_SUCCESS;
+            return results;
+        } catch (CustomException e) {
+            metrics.recordAbort(TwoPCMetrics.ROLE_PARTICIPANT, e.getErrorCode());
+            throw e;
+        } finally {
+            metrics.recordPhase(sample, TwoPCMetrics.ROLE_PARTICIPANT, TwoPCMetrics.PHASE_EXECUTE,
+                    metrics.getLocalParticipant(), outcome);
+        }
+    }
+
+    // Prepare phase
+    public ResponseStatusDto prepare(String transactionId) throws CustomException {
+        return runPhase(transactionId, TwoPCMetrics.PHASE_PREPARE, SqlSession::prepare, false);
+    }
+
+    // Validate phase
+    public ResponseStatusDto validate(String transactionId) throws CustomException {
+        return runPhase(transactionId, TwoPCMetrics.PHASE_VALIDATE, SqlSession::validate, false);
+    }
+
+    // Commit phase - the session is released and written tables are invalidated in SqlResultCache
+    public ResponseStatusDto commit(String transactionId) throws CustomException {
+        return runPhase(transactionId, TwoPCMetrics.PHASE_COMMIT, SqlSession::commit, true);
+    }
+
+    // Rollback phase - an unknown transaction (nothing executed here, or already rolled back) is not an error
+    public ResponseStatusDto rollback(String transactionId) throws CustomException {
+        ParticipantSession session = sessions.get(transactionId);
+        if (session == null || session.released) {
+            log.warn("SQL session not found for rollback: {}", transactionId);
+            return ResponseStatusDto.builder().code(0).message("Transaction not found").build();
+        }
+        return runPhase(transactionId, TwoPCMetrics.PHASE_ROLLBACK, SqlSession::rollback, true);
+    }
+
+    private List<SqlResultTable> executeInSession(String transactionId, List<SqlBatchStatementDto> statements,
+                                                  SqlRowGuard guard) throws CustomException {
+        ParticipantSession session = sessions.computeIfAbsent(transactionId, ParticipantSession::new);
+        synchronized (session) {
+            if (session.released) {
+                throw new CustomException("SQL session for transaction " + transactionId + " was already released", 9400);
+            }
+            session.touch();
+            try {
+                if (session.sqlSession == null) {
+                    SqlSession sqlSession = sqlSessionFactory.createSqlSession();
+                    sqlSession.execute("SET MODE TWO_PHASE_COMMIT_TRANSACTION");
+                    sqlSession.join(transactionId);
+                    session.sqlSession = sqlSession;
+                    log.info("Joined transaction {} with a SQL session", transactionId);
+                }
+                GenericSqlUtil genericSqlUtil = new GenericSqlUtil(session.sqlSession);
+                List<SqlResultTable> results = new ArrayList<>(statements.size());
+                for (SqlBatchStatementDto statement : statements) {
+                    results.add(genericSqlUtil.executeStatementAsTable(statement.getSqlCommand(), statement.getParams(), guard));
+                    if (!SqlResultCache.isCacheable(statement.getSqlCommand())) {
+                        session.writes.add(statement.getSqlCommand());
+                    }
+                }
+                guard.checkpoint();
+                session.touch();
+                return results;
+            } catch (Exception e) {
+                log.error(e.getMessage(), e);
+                release(session, true);
+                throw new CustomException(e, determineErrorCode(e));
+            }
+        }
+    }
+
+    private ResponseStatusDto runPhase(String transactionId, String phaseName, Phase phase, boolean releases) throws CustomException {
+        Timer.Sample sample = metrics.startSample();
+        String outcome = TwoPCMetrics.OUTCOME_FAILURE;
+        try {
+            if (!releases) {
+                RequestDeadline.check(phaseName);
+            }
+            ParticipantSession session = sessions.get(transactionId);
+            if (session == null) {
+                throw new CustomException("No SQL session for transaction " + transactionId + " on this instance", 9400);
+            }
+            synchronized (session) {
+                if (session.released || session.sqlSession == null) {
+                    throw new CustomException("SQL session for transaction " + transactionId + " was already released", 9400);
+                }
+                session.touch();
+                phase.run(session.sqlSession);
+                if (releases) {
+                    release(session, false);
+                    if (TwoPCMetrics.PHASE_COMMIT.equals(phaseName)) {
+                        session.writes.forEach(sqlResultCache::invalidateStatement);
+                    }
+                }
+            }
+            log.info("SQL transaction {}: {}", phaseName, transactionId);
+            outcome = TwoPCMetrics.OUTCOME_SUCCESS;
+            return ResponseStatusDto.builder().code(0).message("").build();
+        } catch (Exception e) {
+            log.error("{} failed: {}", phaseName, e.getMessage(), e);
+            int errorCode = determineErrorCode(e);
+            metrics.recordAbort(TwoPCMetrics.ROLE_PARTICIPANT, errorCode);
+            throw e instanceof CustomException customException ? customException : new CustomException(e, errorCode);
+        } finally {
+            metrics.recordPhase(sample, TwoPCMetrics.ROLE_PARTICIPANT, phaseName, metrics.getLocalParticipant(), outcome);
+        }
+    }
+
+    // Mark the session released, optionally rolling it back first (caller holds the session lock);
+    // the entry stays in the registry until it expires, so the transaction cannot be joined again
+    private void release(ParticipantSession session, boolean rollback) {
+        session.released = true;
+        session.touch();
+        if (rollback && session.sqlSession != null) {
+            try {
+                session.sqlSession.rollback();
+            } catch (Exception ex) {
+                log.error(ex.getMessage(), ex);
+            }
+        }
+        session.sqlSession = null;
+    }
+
+    // Roll back sessions whose coordinator never finished the transaction, and drop released ones
+    void expireIdleSessions() {
+        long now = System.nanoTime();
+        for (ParticipantSession session : sessions.values()) {
+            if (now - session.lastUsedNanos > sessionTimeoutMs * 1_000_000L) {
+                synchronized (session) {
+                    if (now - session.lastUsedNanos <= sessionTimeoutMs * 1_000_000L) {
+                        continue;
+                    }
+                    if (session.released) {
+                        sessions.remove(session.transactionId, session);
+                    } else {
+                        log.warn("Rolling back idle SQL session for transaction {}", session.transactionId);
+                        release(session, true);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        expiryExecutor.shutdownNow();
+        for (ParticipantSession session : sessions.values()) {
+            synchronized (session) {
+                if (!session.released) {
+                    release(session, true);
+                }
+            }
+        }
+    }
+
+    private int determineErrorCode(Exception e) {
+        if (e instanceof SqlRowGuard.LimitExceededException limitExceeded) return SqlResourceGovernor.errorCodeOf(limitExceeded);
+        if (e instanceof CustomException customException) return customException.getErrorCode();
+        if (e instanceof UnsatisfiedConditionException) return 9100;
+        if (e instanceof UnknownTransactionStatusException) return 9200;
+        if (e instanceof TransactionException) return 9300;
+        if (e instanceof RuntimeException) return 9400;
+        return 9500;
+    }
+
+    private static class ParticipantSession {
+        final String transactionId;
+        final List<String> writes = new ArrayList<>();
+        SqlSession sqlSession;
+        boolean released;
+        volatile long lastUsedNanos = System.nanoTime();
+
+        ParticipantSession(String transactionId) {
+            this.transactionId = transactionId;
+        }
+
+        void touch() {
+            lastUsedNanos = System.nanoTime();
+        }
+    }
+}
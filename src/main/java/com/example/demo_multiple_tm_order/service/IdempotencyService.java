@@ -0,0 +1,330 @@
+package com.example.demo_multiple_tm_order.service;
+
+import com.example.demo_multiple_tm_order.dto.ApiResponse;
+import com.example.demo_multiple_tm_order.exception.CustomException;
+import com.example.demo_multiple_tm_order.model.IdempotencyRecord;
+import com.example.demo_multiple_tm_order.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.scalar.db.api.DistributedTransaction;
+import com.scalar.db.api.DistributedTransactionManager;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency Service for write endpoints (Idempotency-Key header)
+ *
+ * Deduplicates retried writes so a retry never runs a second transaction:
+ * - The first request with a key runs the write; its successful response is stored per key
+ * - Concurrent duplicates wait for the first result (up to idempotency.wait-timeout-ms)
+ * - Later duplicates get the stored response with the Idempotent-Replayed: true header
+ * - Reusing a key with a different request body fails with error code 9600 (409 Conflict); bodies are
+ *   compared by the SHA-256 digest of their canonical JSON (object fields sorted by name)
+ * - Writes that failed before commit are not stored, so the client can retry them with the same key
+ * - Writes whose outcome is unknown (9200, 9500 or an unexpected exception; the commit may have
+ *   happened) keep the key: duplicates get the stored failure instead of running a second transaction
+ *
+ * Entries live in a bounded in-memory store (idempotency.max-entries, idempotency.ttl-seconds).
+ * With idempotency.store=scalardb, completed responses are also written to shopping.idempotency_key,
+ * so they survive restarts and are shared between instances. In-flight deduplication is per instance.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final String REQUESTS_COUNTER = "idempotency.requests";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final TypeReference<ApiResponse<Void>> RESPONSE_TYPE = new TypeReference<>() {};
+
+    private final DistributedTransactionManager manager;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final boolean persistent;
+    private final Duration ttl;
+    private final long waitTimeoutMs;
+    private final Map<String, Entry> entries;
+
+    public IdempotencyService(DistributedTransactionManager manager,
+                              IdempotencyKeyRepository idempotencyKeyRepository,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${idempotency.store:memory}") String store,
+                              @Value("${idempotency.max-entries:10000}") int maxEntries,
+                              @Value("${idempotency.ttl-seconds:86400}") long ttlSeconds,
+                              @Value("${idempotency.wait-timeout-ms:30000}") long waitTimeoutMs) {
+        this.manager = manager;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.persistent = "scalardb".equalsIgnoreCase(store);
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.waitTimeoutMs = waitTimeoutMs;
+        // Insertion order, so the eldest entry is also the first to expire. In-flight entries are never evicted.
+        this.entries = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                Entry entry = eldest.getValue();
+                return entry.result.isDone() && (size() > maxEntries || entry.isExpired(LocalDateTime.now(), ttl));
+            }
+        };
+    }
+
+    /**
+     * Run a write at most once per idempotency key
+     *
+     * @param idempotencyKey The Idempotency-Key header value, or null to run the write without deduplication
+     * @param operation The endpoint, e.g. "POST /order"; keys are scoped per endpoint
+     * @param request The request body (or path variables) used to detect key reuse with a different request
+     * @param action The write to run
+     * @return The response of the write, or the stored response of the first request with the same key
+     * @throws CustomException 9600 if the key was used with a different request or the first request is still running
+     */
+    public ResponseEntity<ApiResponse<Void>> execute(String idempotencyKey, String operation, Object request,
+                                                     Supplier<ResponseEntity<ApiResponse<Void>>> action) throws CustomException {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new CustomException(HEADER + " must be at most " + MAX_KEY_LENGTH + " characters", 9400);
+        }
+        String key = operation + " " + idempotencyKey;
+        String requestDigest = fingerprint(request);
+
+        Entry entry;
+        boolean owner;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && entry.result.isDone() && entry.isExpired(LocalDateTime.now(), ttl)) {
+                entries.remove(key);
+                entry = null;
+            }
+            owner = entry == null;
+            if (owner) {
+                entry = new Entry(requestDigest, LocalDateTime.now());
+                entries.put(key, entry);
+            }
+        }
+        if (!owner) {
+            return awaitFirstResult(entry, requestDigest, idempotencyKey);
+        }
+
+        try {
+            ResponseEntity<ApiResponse<Void>> stored = persistent ? loadStoredResponse(key, requestDigest, idempotencyKey) : null;
+            if (stored != null) {
+                entry.result.complete(stored);
+                count("replayed");
+                return replay(stored);
+            }
+            ResponseEntity<ApiResponse<Void>> response = action.get();
+            if (persistent && response.getStatusCode().is2xxSuccessful()) {
+                storeResponse(key, requestDigest, response, entry.createdAt);
+            }
+            entry.result.complete(response);
+            count("executed");
+            return response;
+        } catch (RuntimeException e) {
+            if (mayHaveCommitted(e)) {
+                // Keep the key: a retry must not run the write again while it may already be committed
+                ResponseEntity<ApiResponse<Void>> failure = unknownOutcome(e);
+                if (persistent) {
+                    storeResponse(key, requestDigest, failure, entry.createdAt);
+                }
+                entry.result.complete(failure);
+                count("unknown");
+                throw e;
+            }
+            synchronized (entries) {
+                entries.remove(key, entry);
+            }
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Hex SHA-256 of the request serialized as JSON with object fields sorted by name
+    String fingerprint(Object request) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(canonical(objectMapper.valueToTree(request)));
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (NoSuchAlgorithmException | IOException | IllegalArgumentException e) {
+            throw new CustomException("Cannot fingerprint the request: " + e.getMessage(), e, 9500);
+        }
+    }
+
+    private static JsonNode canonical(JsonNode node) {
+        if (node.isObject()) {
+            List<String> names = new ArrayList<>();
+            node.fieldNames().forEachRemaining(names::add);
+            Collections.sort(names);
+            ObjectNode sorted = JsonNodeFactory.instance.objectNode();
+            for (String name : names) {
+                sorted.set(name, canonical(node.get(name)));
+            }
+            return sorted;
+        }
+        if (node.isArray()) {
+            ArrayNode items = JsonNodeFactory.instance.arrayNode();
+            node.forEach(item -> items.add(canonical(item)));
+            return items;
+        }
+        return node;
+    }
+
+    // Only failures known to have happened before commit release the key
+    static boolean mayHaveCommitted(RuntimeException e) {
+        if (!(e instanceof CustomException customException)) {
+            return true;
+        }
+        Integer errorCode = customException.getErrorCode();
+        return errorCode == null || errorCode == 9200 || errorCode == 9500;
+    }
+
+    private static ResponseEntity<ApiResponse<Void>> unknownOutcome(RuntimeException e) {
+        int errorCode = e instanceof CustomException customException && customException.getErrorCode() != null
+                ? customException.getErrorCode() : 9500;
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ApiResponse.error(errorCode, e.getMessage()));
+    }
+
+    private ResponseEntity<ApiResponse<Void>> awaitFirstResult(Entry entry, String requestDigest, String idempotencyKey) {
+        if (!entry.requestDigest.equals(requestDigest)) {
+            count("conflict");
+            throw new CustomException(HEADER + " " + idempotencyKey + " was already used with a different request", 9600);
+        }
+        boolean completed = entry.result.isDone();
+        try {
+            ResponseEntity<ApiResponse<Void>> response = entry.result.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+            count(completed ? "replayed" : "waited");
+            return replay(response);
+        } catch (TimeoutException e) {
+            count("conflict");
+            throw new CustomException("A request with " + HEADER + " " + idempotencyKey + " is still in progress", 9600);
+        } catch (ExecutionException e) {
+            // The first request failed and was not stored; report the same failure
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CustomException(e, 9500);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomException(e, 9500);
+        }
+    }
+
+    private ResponseEntity<ApiResponse<Void>> loadStoredResponse(String key, String requestDigest, String idempotencyKey) {
+        Optional<IdempotencyRecord> record;
+        DistributedTransaction transaction = null;
+        try {
+            transaction = manager.start();
+            record = idempotencyKeyRepository.getIdempotencyRecord(transaction, key);
+            transaction.commit();
+        } catch (Exception e) {
+            abort(transaction);
+            log.warn("Failed to read idempotency record {}: {}", key, e.getMessage());
+            return null;
+        }
+        if (record.isEmpty() || new Entry(record.get().getRequestDigest(), record.get().getCreatedAt()).isExpired(LocalDateTime.now(), ttl)) {
+            return null;
+        }
+        if (!requestDigest.equals(record.get().getRequestDigest())) {
+            count("conflict");
+            throw new CustomException(HEADER + " " + idempotencyKey + " was already used with a different request", 9600);
+        }
+        try {
+            ApiResponse<Void> body = objectMapper.readValue(record.get().getResponseBody(), RESPONSE_TYPE);
+            return ResponseEntity.status(record.get().getHttpStatus()).body(body);
+        } catch (Exception e) {
+            log.warn("Failed to read stored response for {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void storeResponse(String key, String requestDigest, ResponseEntity<ApiResponse<Void>> response, LocalDateTime createdAt) {
+        DistributedTransaction transaction = null;
+        try {
+            IdempotencyRecord record = IdempotencyRecord.builder()
+                    .idempotencyKey(key)
+                    .requestDigest(requestDigest)
+                    .httpStatus(response.getStatusCode().value())
+                    .responseBody(objectMapper.writeValueAsString(response.getBody()))
+                    .createdAt(createdAt)
+                    .build();
+            transaction = manager.start();
+            idempotencyKeyRepository.upsertIdempotencyRecord(transaction, record);
+            transaction.commit();
+        } catch (Exception e) {
+            // The write itself succeeded; only cross-instance/restart deduplication is lost for this key
+            abort(transaction);
+            log.warn("Failed to store idempotency record {}: {}", key, e.getMessage());
+        }
+    }
+
+    private void abort(DistributedTransaction transaction) {
+        if (transaction != null) {
+            try {
+                transaction.abort();
+            } catch (Exception ex) {
+                log.debug(ex.getMessage(), ex);
+            }
+        }
+    }
+
+    private static ResponseEntity<ApiResponse<Void>> replay(ResponseEntity<ApiResponse<Void>> response) {
+        return ResponseEntity.status(response.getStatusCode())
+                .header(REPLAYED_HEADER, "true")
+                .body(response.getBody());
+    }
+
+    private void count(String outcome) {
+        Counter.builder(REQUESTS_COUNTER)
+                .description("Requests with an Idempotency-Key by outcome (executed, replayed, waited, conflict, unknown)")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static class Entry {
+        final String requestDigest;
+        final LocalDateTime createdAt;
+        final CompletableFuture<ResponseEntity<ApiResponse<Void>>> result = new CompletableFuture<>();
+
+        Entry(String requestDigest, LocalDateTime createdAt) {
+            this.requestDigest = requestDigest;
+            this.createdAt = createdAt;
+        }
+
+        boolean isExpired(LocalDateTime now, Duration ttl) {
+            return createdAt.plus(ttl).isBefore(now);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.demo_multiple_tm_order.service;
+
+import com.example.demo_multiple_tm_order.dto.OrderBackfillReportDto;
+import com.example.demo_multiple_tm_order.exception.CustomException;
+import com.example.demo_multiple_tm_order.model.Order;
+import com.example.demo_multiple_tm_order.repository.OrderRepository;
+import com.scalar.db.api.DistributedTransaction;
+import com.scalar.db.api.DistributedTransactionManager;
+import com.scalar.db.exception.transaction.CommitConflictException;
+import com.scalar.db.exception.transaction.CrudConflictException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.util.List;
+
+/**
+ * Backfill of shopping.order rows written before the bucket column and the derived tables existed
+ *
+ * - Rows with a NULL bucket are read with a filtered cross-partition scan, order.backfill.batch-rows
+ *   at a time, and updated in one transaction per batch until none are left; updated rows no longer
+ *   match the filter, so no cursor is kept and an interrupted backfill simply runs again
+ * - Each row gets its bucket and its shopping.order_by_time entry (an upsert, so rows already
+ *   indexed are unaffected), and is added to shopping.order_product_summary. The repositories only
+ *   count rows with a bucket in the aggregate, so every row is added exactly once
+ * - A batch that conflicts with a concurrent write is retried, up to order.backfill.max-conflicts
+ *   times in a row
+ * - Requires scalar.db.cross_partition_scan.filtering.enabled=true
+ */
+@Slf4j
+@Service
+public class OrderBackfillService {
+    DistributedTransactionManager manager;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Value("${order.backfill.batch-rows:500}")
+    private int batchRows;
+
+    @Value("${order.backfill.max-conflicts:5}")
+    private int maxConflicts;
+
+    public OrderBackfillService(DistributedTransactionManager manager) {
+        this.manager = manager;
+    }
+
+    // Backfill every row that is not bucketed yet
+    public synchronized OrderBackfillReportDto backfill() throws CustomException {
+        long start = System.nanoTime();
+        long rows = 0;
+        int batches = 0;
+        int conflicts = 0;
+        int conflictsInRow = 0;
+        while (true) {
+            DistributedTransaction transaction = null;
+            try {
+                transaction = manager.start();
+                List<Order> orders = orderRepository.getUnbucketedOrderList(transaction, batchRows);
+                for (Order order : orders) {
+                    orderRepository.backfillOrder(transaction, order);
+                }
+                transaction.commit();
+                if (orders.isEmpty()) {
+                    break;
+                }
+                rows += orders.size();
+                batches++;
+                conflictsInRow = 0;
+            } catch (Exception e) {
+                OrderService.handleTransactionException(e, transaction);
+                if (isConflict(e) && conflictsInRow < maxConflicts) {
+                    conflicts++;
+                    conflictsInRow++;
+                    continue;
+                }
+                throw new CustomException(e, OrderService.determineErrorCode(e));
+            }
+        }
+        log.info("Backfill updated {} orders in {} batches ({} conflicts) in {} ms",
+                rows, batches, conflicts, (System.nanoTime() - start) / 1_000_000);
+        return OrderBackfillReportDto.builder()
+                .rows(rows)
+                .batches(batches)
+                .conflicts(conflicts)
+                .build();
+    }
+
+    private static boolean isConflict(Exception e) {
+        return e instanceof CrudConflictException || e instanceof CommitConflictException;
+    }
+}
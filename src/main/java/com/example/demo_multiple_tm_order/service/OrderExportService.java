@@ -0,0 +1,334 @@
+package com.example.demo_multiple_tm_order.service;
+
+import com.example.demo_multiple_tm_order.model.Order;
+import com.example.demo_multiple_tm_order.dto.OrderExportJobDto;
+import com.example.demo_multiple_tm_order.exception.CustomException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMicroVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Columnar export of shopping.order to Arrow IPC files
+ *
+ * - Runs as a background job (one at a time) so the request only starts it
+ * - Reads with OrderParallelScanService and writes one file per hash bucket
+ *   (orders-bucket-NN.arrow) in record batches of order.export.batch-rows through a FileChannel;
+ *   pages are appended as they arrive, so a bucket is never held in memory
+ * - A bucket file is written to a temporary name, moved into place and then recorded in the
+ *   job's checkpoint file; resuming a job skips the buckets already in its checkpoint
+ * - Progress (buckets, rows, rows/s) is available while the job runs
+ */
+@Slf4j
+@Service
+public class OrderExportService implements DisposableBean {
+
+    private static final Pattern JOB_ID = Pattern.compile("[0-9a-f\\-]{36}");
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private static final Schema SCHEMA = new Schema(List.of(
+            Field.nullable(Order.ID, ArrowType.Utf8.INSTANCE),
+            Field.nullable(Order.PRODUCT_ID, new ArrowType.Int(32, true)),
+            Field.nullable(Order.ORDER_QTY, new ArrowType.Int(32, true)),
+            Field.nullable(Order.ORDER_DATETIME, new ArrowType.Timestamp(TimeUnit.MICROSECOND, null))));
+
+    @Autowired
+    OrderParallelScanService orderParallelScanService;
+
+    @Value("${order.export.dir:build/export}")
+    private String exportDir;
+
+    @Value("${order.export.batch-rows:8192}")
+    private int batchRows;
+
+    private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-export");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    // Start a new export, or resume an earlier one from its checkpoint (resumeJobId != null)
+    public OrderExportJobDto startExport(String resumeJobId) throws CustomException {
+        String jobId;
+        if (resumeJobId != null) {
+            if (!JOB_ID.matcher(resumeJobId).matches()) {
+                throw new CustomException("Invalid export job id: " + resumeJobId, 9400);
+            }
+            ExportJob running = jobs.get(resumeJobId);
+            if (running != null && (running.status.equals("QUEUED") || running.status.equals("RUNNING"))) {
+                throw new CustomException("Export job is already running: " + resumeJobId, 9400);
+            }
+            if (!Files.isDirectory(Paths.get(exportDir, resumeJobId))) {
+                throw new CustomException("No export found for job id: " + resumeJobId, 9400);
+            }
+            jobId = resumeJobId;
+        } else {
+            jobId = UUID.randomUUID().toString();
+        }
+
+        ExportJob job = new ExportJob(jobId, Paths.get(exportDir, jobId));
+        jobs.put(jobId, job);
+        jobExecutor.submit(() -> run(job));
+        return job.toDto();
+    }
+
+    // Status of an export job started by this instance
+    public OrderExportJobDto getExport(String jobId) throws CustomException {
+        ExportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new CustomException("Unknown export job id: " + jobId, 9400);
+        }
+        return job.toDto();
+    }
+
+    private void run(ExportJob job) {
+        job.status = "RUNNING";
+        job.startNanos = System.nanoTime();
+        try {
+            Files.createDirectories(job.directory);
+            Set<Integer> completed = readCheckpoint(job.directory);
+            List<Integer> buckets = new ArrayList<>();
+            for (int bucket = 0; bucket < Order.BUCKET_COUNT; bucket++) {
+                if (!completed.contains(bucket)) {
+                    buckets.add(bucket);
+                }
+            }
+            job.bucketsDone.set(completed.size());
+            log.info("Export {} started: {} buckets to write, {} already in checkpoint", job.jobId, buckets.size(), completed.size());
+
+            try (BufferAllocator allocator = new RootAllocator()) {
+                Map<Integer, BucketFile> files = new ConcurrentHashMap<>();
+                try {
+                    orderParallelScanService.scanBuckets(buckets, List.of(), new OrderParallelScanService.BucketSink() {
+                        @Override
+                        public void accept(int bucket, List<Order> page) throws IOException {
+                            BucketFile file = files.get(bucket);
+                            if (file == null) {
+                                file = new BucketFile(allocator, job.directory, bucket);
+                                files.put(bucket, file);
+                            }
+                            file.write(page);
+                            job.rows.addAndGet(page.size());
+                        }
+
+                        @Override
+                        public void complete(int bucket) throws IOException {
+                            BucketFile file = files.remove(bucket);
+                            if (file == null) {
+                                // Empty bucket
+                                file = new BucketFile(allocator, job.directory, bucket);
+                            }
+                            file.finish();
+                            appendCheckpoint(job.directory, bucket);
+                            job.bucketsDone.incrementAndGet();
+                        }
+                    });
+                } finally {
+                    // Buckets that did not complete leave no file behind
+                    files.values().forEach(BucketFile::discard);
+                }
+            }
+            job.endNanos = System.nanoTime();
+            job.status = "COMPLETED";
+            log.info("Export {} completed: {} rows, {} rows/s", job.jobId, job.rows.get(), job.rowsPerSecond());
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            job.endNanos = System.nanoTime();
+            job.error = e.getMessage();
+            job.status = "FAILED";
+        }
+    }
+
+    // Arrow IPC file of one bucket, written page by page under a temporary name and moved into place by finish
+    private class BucketFile {
+        private final Path target;
+        private final Path temp;
+        private final BufferAllocator allocator;
+        private final VectorSchemaRoot root;
+        private final FileChannel channel;
+        private final ArrowFileWriter writer;
+        private boolean closed;
+
+        BucketFile(BufferAllocator parent, Path directory, int bucket) throws IOException {
+            target = directory.resolve(String.format("orders-bucket-%02d.arrow", bucket));
+            temp = directory.resolve(target.getFileName() + ".tmp");
+            allocator = parent.newChildAllocator("export-bucket-" + bucket, 0, Long.MAX_VALUE);
+            root = VectorSchemaRoot.create(SCHEMA, allocator);
+            try {
+                channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                root.close();
+                allocator.close();
+                throw e;
+            }
+            writer = new ArrowFileWriter(root, null, channel);
+            writer.start();
+        }
+
+        // Append rows in record batches of batchRows rows
+        synchronized void write(List<Order> orders) throws IOException {
+            VarCharVector id = (VarCharVector) root.getVector(Order.ID);
+            IntVector productId = (IntVector) root.getVector(Order.PRODUCT_ID);
+            IntVector orderQty = (IntVector) root.getVector(Order.ORDER_QTY);
+            TimeStampMicroVector orderDatetime = (TimeStampMicroVector) root.getVector(Order.ORDER_DATETIME);
+
+            for (int offset = 0; offset < orders.size(); offset += batchRows) {
+                int size = Math.min(batchRows, orders.size() - offset);
+                root.allocateNew();
+                for (int i = 0; i < size; i++) {
+                    Order order = orders.get(offset + i);
+                    id.setSafe(i, order.getId().getBytes(StandardCharsets.UTF_8));
+                    setInt(productId, i, order.getProductId());
+                    setInt(orderQty, i, order.getOrderQty());
+                    if (order.getOrderDatetime() == null) {
+                        orderDatetime.setNull(i);
+                    } else {
+                        orderDatetime.setSafe(i, toEpochMicros(order.getOrderDatetime()));
+                    }
+                }
+                root.setRowCount(size);
+                writer.writeBatch();
+            }
+        }
+
+        synchronized void finish() throws IOException {
+            writer.end();
+            channel.force(true);
+            close();
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        synchronized void discard() {
+            close();
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                log.warn("Could not delete {}: {}", temp, e.getMessage());
+            }
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                writer.close();
+                channel.close();
+            } catch (Exception e) {
+                log.warn("Could not close {}: {}", temp, e.getMessage());
+            }
+            root.close();
+            allocator.close();
+        }
+    }
+
+    private static void setInt(IntVector vector, int index, Integer value) {
+        if (value == null) {
+            vector.setNull(index);
+        } else {
+            vector.setSafe(index, value);
+        }
+    }
+
+    private static long toEpochMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dateTime.getNano() / 1_000;
+    }
+
+    private Set<Integer> readCheckpoint(Path directory) throws IOException {
+        Set<Integer> completed = new HashSet<>();
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        if (Files.exists(checkpoint)) {
+            for (String line : Files.readAllLines(checkpoint, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) {
+                    completed.add(Integer.parseInt(line.trim()));
+                }
+            }
+        }
+        return completed;
+    }
+
+    private synchronized void appendCheckpoint(Path directory, int bucket) throws IOException {
+        Files.writeString(directory.resolve(CHECKPOINT_FILE), bucket + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+    }
+
+    @Override
+    public void destroy() {
+        jobExecutor.shutdownNow();
+    }
+
+    private static class ExportJob {
+        final String jobId;
+        final Path directory;
+        final AtomicLong rows = new AtomicLong();
+        final AtomicInteger bucketsDone = new AtomicInteger();
+        volatile String status = "QUEUED";
+        volatile String error;
+        volatile long startNanos;
+        volatile long endNanos;
+
+        ExportJob(String jobId, Path directory) {
+            this.jobId = jobId;
+            this.directory = directory;
+        }
+
+        long rowsPerSecond() {
+            if (startNanos == 0) {
+                return 0;
+            }
+            long elapsed = (endNanos != 0 ? endNanos : System.nanoTime()) - startNanos;
+            return elapsed > 0 ? rows.get() * 1_000_000_000L / elapsed : 0;
+        }
+
+        OrderExportJobDto toDto() {
+            return OrderExportJobDto.builder()
+                    .jobId(jobId)
+                    .status(status)
+                    .directory(directory.toString())
+                    .bucketsDone(bucketsDone.get())
+                    .bucketsTotal(Order.BUCKET_COUNT)
+                    .rows(rows.get())
+                    .rowsPerSecond(rowsPerSecond())
+                    .error(error)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package com.example.demo_multiple_tm_order.service;
+
+import com.example.demo_multiple_tm_order.model.Order;
+import com.example.demo_multiple_tm_order.dto.OrderDto;
+import com.example.demo_multiple_tm_order.dto.OrderImportReportDto;
+import com.example.demo_multiple_tm_order.dto.OrderImportRowErrorDto;
+import com.example.demo_multiple_tm_order.exception.CustomException;
+import com.example.demo_multiple_tm_order.mapper.OrderMapper;
+import com.example.demo_multiple_tm_order.repository.OrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scalar.db.api.DistributedTransaction;
+import com.scalar.db.api.DistributedTransactionManager;
+import com.scalar.db.exception.transaction.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streaming bulk import of orders from CSV or NDJSON
+ *
+ * - The body is read line by line; at most order.import.threads chunks are in flight, so memory
+ *   stays bounded by the chunk size rather than the upload size
+ * - Each chunk is written through OrderRepository (insert or upsert) in one transaction on a
+ *   worker pool
+ * - Chunk size follows AIMD on the observed conflict rate: it grows by order.import.chunk-increase
+ *   after a committed chunk and halves on a conflict, between 1 and order.import.max-chunk-size.
+ *   A conflicting chunk is split in half and retried
+ * - A chunk that fails for any other reason is retried row by row so that errors are reported
+ *   per row (line number and id); other rows of the chunk are still imported
+ * - A commit with an unknown outcome (UnknownTransactionStatusException) is not retried blindly:
+ *   the rows are read back, and counted as imported if all of them are stored as written, retried
+ *   if they are not, or reported as unknown (rowsUnknown) if they cannot be read
+ * - If reading the upload fails or the request thread is interrupted, the chunks already submitted
+ *   are awaited before the import is reported as FAILED, so the counts are final
+ * - Progress is available from getImport(importId) while the upload is being read
+ */
+@Slf4j
+@Service
+public class OrderImportService implements DisposableBean {
+
+    public static final String MODE_INSERT = "insert";
+    public static final String MODE_UPSERT = "upsert";
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    private static final int MAX_CONFLICT_RETRIES = 5;
+
+    DistributedTransactionManager manager;
+    ExecutorService executor;
+    int threads;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Value("${order.import.initial-chunk-size:100}")
+    private int initialChunkSize;
+
+    @Value("${order.import.max-chunk-size:1000}")
+    private int maxChunkSize;
+
+    @Value("${order.import.chunk-increase:10}")
+    private int chunkIncrease;
+
+    @Value("${order.import.max-errors:1000}")
+    private int maxErrors;
+
+    private final Map<String, ImportJob> imports = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ImportJob> eldest) {
+            return size() > 100;
+        }
+    });
+
+    public OrderImportService(DistributedTransactionManager manager,
+                              @Value("${order.import.threads:4}") int threads) {
+        this.manager = manager;
+        this.threads = threads;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "order-import-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Import all rows of the stream and return the final report
+    public OrderImportReportDto importOrders(InputStream body, String format, String mode, String importId) throws CustomException {
+        if (!FORMAT_CSV.equals(format) && !FORMAT_NDJSON.equals(format)) {
+            throw new CustomException("Unsupported import format: " + format, 9400);
+        }
+        if (!MODE_INSERT.equals(mode) && !MODE_UPSERT.equals(mode)) {
+            throw new CustomException("Unsupported import mode: " + mode, 9400);
+        }
+        ImportJob job = new ImportJob(importId != null ? importId : UUID.randomUUID().toString(), initialChunkSize);
+        if (imports.putIfAbsent(job.importId, job) != null) {
+            throw new CustomException("Import id already in use: " + job.importId, 9400);
+        }
+
+        Semaphore inFlight = new Semaphore(threads);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            List<Row> chunk = new ArrayList<>();
+            String line;
+            long lineNumber = 0;
+            if (FORMAT_CSV.equals(format)) {
+                // Header line
+                reader.readLine();
+                lineNumber++;
+            }
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                job.rowsRead.incrementAndGet();
+                try {
+                    Order order = FORMAT_CSV.equals(format) ? parseCsv(line) : parseNdjson(line);
+                    chunk.add(new Row(lineNumber, order));
+                } catch (Exception e) {
+                    job.fail(new Row(lineNumber, null), "Parse error: " + e.getMessage(), maxErrors);
+                }
+                if (chunk.size() >= job.chunkSize()) {
+                    submitChunk(job, chunk, mode, inFlight);
+                    chunk = new ArrayList<>();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                submitChunk(job, chunk, mode, inFlight);
+            }
+            // Wait for the chunks still in flight
+            inFlight.acquire(threads);
+            inFlight.release(threads);
+        } catch (InterruptedException e) {
+            awaitChunks(job, inFlight);
+            Thread.currentThread().interrupt();
+            throw new CustomException(e, 9500);
+        } catch (IOException e) {
+            awaitChunks(job, inFlight);
+            throw new CustomException(e, 9400);
+        }
+        job.status = "COMPLETED";
+        job.endNanos = System.nanoTime();
+        OrderImportReportDto report = job.toDto();
+        log.info("Import {} completed: {} read, {} imported, {} failed, {} rows/s",
+                job.importId, report.getRowsRead(), report.getRowsImported(), report.getRowsFailed(), report.getRowsPerSecond());
+        return report;
+    }
+
+    // Progress of an import started on this instance
+    public OrderImportReportDto getImport(String importId) throws CustomException {
+        ImportJob job = imports.get(importId);
+        if (job == null) {
+            throw new CustomException("Unknown import id: " + importId, 9400);
+        }
+        return job.toDto();
+    }
+
+    // Let the submitted chunks finish so the report of a failed import is final
+    private void awaitChunks(ImportJob job, Semaphore inFlight) {
+        inFlight.acquireUninterruptibly(threads);
+        inFlight.release(threads);
+        job.endNanos = System.nanoTime();
+        job.status = "FAILED";
+    }
+
+    private void submitChunk(ImportJob job, List<Row> chunk, String mode, Semaphore inFlight) throws InterruptedException {
+        inFlight.acquire();
+        executor.submit(() -> {
+            try {
+                writeChunk(job, chunk, mode, 0);
+            } catch (Exception e) {
+                log.error(e.getMessage(), e);
+                for (Row row : chunk) {
+                    job.fail(row, e.getMessage(), maxErrors);
+                }
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    // Write a chunk in one transaction; split on conflict, fall back to single rows on other errors
+    private void writeChunk(ImportJob job, List<Row> rows, String mode, int conflictRetries) {
+        DistributedTransaction transaction = null;
+        try {
+            transaction = manager.start();
+            for (Row row : rows) {
+                if (MODE_UPSERT.equals(mode)) {
+                    orderRepository.upsertOrder(transaction, row.order);
+                } else {
+                    orderRepository.insertOrder(transaction, row.order);
+                }
+            }
+            transaction.commit();
+            job.rowsImported.addAndGet(rows.size());
+            job.onCommit(chunkIncrease, maxChunkSize);
+        } catch (Exception e) {
+            rollback(transaction);
+            if (e instanceof UnknownTransactionStatusException) {
+                Boolean committed = verifyCommitted(rows);
+                if (committed == null) {
+                    for (Row row : rows) {
+                        job.unknown(row, "Commit outcome unknown: " + e.getMessage(), maxErrors);
+                    }
+                    return;
+                }
+                if (committed) {
+                    job.rowsImported.addAndGet(rows.size());
+                    return;
+                }
+                // Not committed: handled like any other failure
+            }
+            if (isConflict(e) && conflictRetries < MAX_CONFLICT_RETRIES) {
+                job.onConflict();
+                if (rows.size() > 1) {
+                    int half = rows.size() / 2;
+                    writeChunk(job, rows.subList(0, half), mode, conflictRetries);
+                    writeChunk(job, rows.subList(half, rows.size()), mode, conflictRetries);
+                } else {
+                    writeChunk(job, rows, mode, conflictRetries + 1);
+                }
+            } else if (rows.size() > 1) {
+                for (Row row : rows) {
+                    writeChunk(job, List.of(row), mode, conflictRetries);
+                }
+            } else {
+                job.fail(rows.get(0), e.getMessage(), maxErrors);
+            }
+        }
+    }
+
+    // After a commit with an unknown outcome: true if every row is stored as written, false if one is
+    // not (the commit is atomic, so none was written), null if the rows cannot be read
+    private Boolean verifyCommitted(List<Row> rows) {
+        DistributedTransaction transaction = null;
+        try {
+            transaction = manager.start();
+            boolean committed = true;
+            for (Row row : rows) {
+                List<Order> stored = orderRepository.getOrderListByPk(transaction, row.order().getPartitionKey());
+                if (stored.isEmpty() || !sameValues(stored.get(0), row.order())) {
+                    committed = false;
+                    break;
+                }
+            }
+            transaction.commit();
+            return committed;
+        } catch (Exception e) {
+            log.error("Could not verify chunk after unknown commit status: {}", e.getMessage(), e);
+            rollback(transaction);
+            return null;
+        }
+    }
+
+    // Stored timestamps have millisecond precision
+    private static boolean sameValues(Order stored, Order written) {
+        return Objects.equals(stored.getProductId(), written.getProductId())
+                && Objects.equals(stored.getOrderQty(), written.getOrderQty())
+                && Objects.equals(truncate(stored.getOrderDatetime()), truncate(written.getOrderDatetime()));
+    }
+
+    private static LocalDateTime truncate(LocalDateTime dateTime) {
+        return dateTime == null ? null : dateTime.truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    private static boolean isConflict(Exception e) {
+        return e instanceof CrudConflictException || e instanceof CommitConflictException;
+    }
+
+    private void rollback(DistributedTransaction transaction) {
+        if (transaction != null) {
+            try {
+                transaction.rollback();
+            } catch (RollbackException ex) {
+                log.error(ex.getMessage(), ex);
+            }
+        }
+    }
+
+    // CSV columns: id,product_id,order_qty,order_datetime (ISO-8601, may be empty)
+    private Order parseCsv(String line) {
+        String[] values = line.split(",", -1);
+        if (values.length != 4) {
+            throw new IllegalArgumentException("Expected 4 columns but found " + values.length);
+        }
+        return Order.builder()
+                .id(requireId(values[0].trim()))
+                .productId(Integer.parseInt(values[1].trim()))
+                .orderQty(Integer.parseInt(values[2].trim()))
+                .orderDatetime(values[3].isBlank() ? null : LocalDateTime.parse(values[3].trim()))
+                .build();
+    }
+
+    // NDJSON: one OrderDto per line
+    private Order parseNdjson(String line) throws IOException {
+        Order order = OrderMapper.mapToOrder(objectMapper.readValue(line, OrderDto.class));
+        requireId(order.getId());
+        return order;
+    }
+
+    private static String requireId(String id) {
+        if (id == null || id.isEmpty()) {
+            throw new IllegalArgumentException("id is required");
+        }
+        return id;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private record Row(long line, Order order) {
+    }
+
+    private static class ImportJob {
+        final String importId;
+        final long startNanos = System.nanoTime();
+        final AtomicLong rowsRead = new AtomicLong();
+        final AtomicLong rowsImported = new AtomicLong();
+        final AtomicLong rowsFailed = new AtomicLong();
+        final AtomicLong rowsUnknown = new AtomicLong();
+        final AtomicLong conflicts = new AtomicLong();
+        final List<OrderImportRowErrorDto> errors = Collections.synchronizedList(new ArrayList<>());
+        volatile int chunkSize;
+        volatile String status = "RUNNING";
+        volatile long endNanos;
+
+        ImportJob(String importId, int chunkSize) {
+            this.importId = importId;
+            this.chunkSize = chunkSize;
+        }
+
+        int chunkSize() {
+            return chunkSize;
+        }
+
+        // Additive increase
+        synchronized void onCommit(int increase, int max) {
+            chunkSize = Math.min(max, chunkSize + increase);
+        }
+
+        // Multiplicative decrease
+        synchronized void onConflict() {
+            conflicts.incrementAndGet();
+            chunkSize = Math.max(1, chunkSize / 2);
+        }
+
+        void fail(Row row, String message, int maxErrors) {
+            rowsFailed.incrementAndGet();
+            addError(row, message, maxErrors);
+        }
+
+        // Row whose chunk may or may not have been committed
+        void unknown(Row row, String message, int maxErrors) {
+            rowsUnknown.incrementAndGet();
+            addError(row, message, maxErrors);
+        }
+
+        private void addError(Row row, String message, int maxErrors) {
+            if (errors.size() < maxErrors) {
+                errors.add(OrderImportRowErrorDto.builder()
+                        .line(row.line())
+                        .id(row.order() == null ? null : row.order().getId())
+                        .message(message)
+                        .build());
+            }
+        }
+
+        OrderImportReportDto toDto() {
+            long elapsed = (endNanos != 0 ? endNanos : System.nanoTime()) - startNanos;
+            List<OrderImportRowErrorDto> errorsSnapshot;
+            synchronized (errors) {
+                errorsSnapshot = new ArrayList<>(errors);
+            }
+            return OrderImportReportDto.builder()
+                    .importId(importId)
+                    .status(status)
+                    .rowsRead(rowsRead.get())
+                    .rowsImported(rowsImported.get())
+                    .rowsFailed(rowsFailed.get())
+                    .rowsUnknown(rowsUnknown.get())
+                    .conflicts(conflicts.get())
+                    .chunkSize(chunkSize)
+                    .rowsPerSecond(elapsed > 0 ? rowsImported.get() * 1_000_000_000L / elapsed : 0)
+                    .errors(errorsSnapshot)
+                    .build();
+        }
+    }
+}
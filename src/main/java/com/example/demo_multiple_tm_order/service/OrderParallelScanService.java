@@ -0,0 +1,187 @@
+package com.example.demo_multiple_tm_order.service;
+
+import com.example.demo_multiple_tm_order.model.Order;
+import com.example.demo_multiple_tm_order.model.OrderProductSummary;
+import com.example.demo_multiple_tm_order.dto.ProductSummaryReconcileDto;
+import com.example.demo_multiple_tm_order.exception.CustomException;
+import com.example.demo_multiple_tm_order.repository.OrderProductSummaryRepository;
+import com.example.demo_multiple_tm_order.repository.OrderRepository;
+import com.scalar.db.api.DistributedTransaction;
+import com.scalar.db.api.DistributedTransactionManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parallel full-table scan of shopping.order
+ *
+ * Splits the table by the hash bucket column (Order.BUCKET_COUNT buckets, secondary index) and
+ * reads one bucket per task on a fixed pool of order.scan.threads workers, each bucket in its own
+ * transaction. A bucket is streamed from a scanner and handed to a BucketSink in pages of
+ * order.scan.page-rows rows, so neither the table nor a bucket is held in memory. Buckets are read
+ * at different points in time; the scan is not a single snapshot.
+ *
+ * Rows whose bucket column is not set are not found; OrderBackfillService sets it.
+ */
+@Slf4j
+@Service
+public class OrderParallelScanService implements DisposableBean {
+    DistributedTransactionManager manager;
+    ExecutorService executor;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Autowired
+    OrderProductSummaryRepository orderProductSummaryRepository;
+
+    // Rows per page handed to a BucketSink
+    @Value("${order.scan.page-rows:1000}")
+    private int pageRows;
+
+    public OrderParallelScanService(DistributedTransactionManager manager,
+                                    @Value("${order.scan.threads:0}") int threads) {
+        this.manager = manager;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "order-scan-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Receives the rows of each bucket page by page; buckets are handled concurrently on worker
+    // threads, the pages of one bucket arrive in order on one thread and are followed by complete
+    @FunctionalInterface
+    public interface BucketSink {
+        void accept(int bucket, List<Order> page) throws Exception;
+
+        // Called once the bucket's last page was accepted and its transaction committed
+        default void complete(int bucket) throws Exception {
+        }
+    }
+
+    // Scan the given buckets in parallel and return the number of rows read
+    public long scanBuckets(List<Integer> buckets, List<String> projections, BucketSink sink) throws CustomException {
+        long start = System.nanoTime();
+        AtomicLong rows = new AtomicLong();
+        List<Future<?>> futures = new ArrayList<>(buckets.size());
+        for (int bucket : buckets) {
+            futures.add(executor.submit(() -> {
+                rows.addAndGet(scanBucket(bucket, projections, sink));
+                sink.complete(bucket);
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new CustomException(e, 9500);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            Exception cause = e.getCause() instanceof Exception ex ? ex : e;
+            if (cause instanceof CustomException customException) {
+                throw customException;
+            }
+            throw new CustomException(cause, OrderService.determineErrorCode(cause));
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        log.info("Parallel scan of {} buckets read {} rows in {} s ({} rows/s)",
+                buckets.size(), rows.get(), String.format("%.1f", seconds),
+                seconds > 0 ? Math.round(rows.get() / seconds) : rows.get());
+        return rows.get();
+    }
+
+    // Scan all buckets in parallel
+    public long scanAll(List<String> projections, BucketSink sink) throws CustomException {
+        List<Integer> buckets = new ArrayList<>(Order.BUCKET_COUNT);
+        for (int bucket = 0; bucket < Order.BUCKET_COUNT; bucket++) {
+            buckets.add(bucket);
+        }
+        return scanBuckets(buckets, projections, sink);
+    }
+
+    // Recompute per-product totals from a full parallel scan and compare them with shopping.order_product_summary;
+    // orders without a product_id are not aggregated, so they are skipped here as well
+    public List<ProductSummaryReconcileDto> reconcileProductSummary() throws CustomException {
+        Map<Integer, long[]> totals = new TreeMap<>();
+        AtomicLong withoutProduct = new AtomicLong();
+        scanAll(List.of(Order.PRODUCT_ID, Order.ORDER_QTY), (bucket, orders) -> {
+            synchronized (totals) {
+                for (Order order : orders) {
+                    if (order.getProductId() == null) {
+                        withoutProduct.incrementAndGet();
+                        continue;
+                    }
+                    long[] total = totals.computeIfAbsent(order.getProductId(), k -> new long[2]);
+                    total[0] += order.getOrderQty() == null ? 0 : order.getOrderQty();
+                    total[1]++;
+                }
+            }
+        });
+        if (withoutProduct.get() > 0) {
+            log.info("Reconcile skipped {} orders without product_id", withoutProduct.get());
+        }
+
+        List<ProductSummaryReconcileDto> mismatches = new ArrayList<>();
+        DistributedTransaction transaction = null;
+        try {
+            transaction = manager.start();
+            for (Map.Entry<Integer, long[]> entry : totals.entrySet()) {
+                OrderProductSummary summary = orderProductSummaryRepository.getProductSummary(transaction, entry.getKey());
+                long[] total = entry.getValue();
+                if (summary.getTotalQty() != total[0] || summary.getOrderCount() != total[1]) {
+                    mismatches.add(ProductSummaryReconcileDto.builder()
+                            .productId(entry.getKey())
+                            .scannedTotalQty(total[0])
+                            .scannedOrderCount(total[1])
+                            .summaryTotalQty(summary.getTotalQty())
+                            .summaryOrderCount(summary.getOrderCount())
+                            .build());
+                }
+            }
+            transaction.commit();
+            return mismatches;
+        } catch (Exception e) {
+            OrderService.handleTransactionException(e, transaction);
+            throw new CustomException(e, OrderService.determineErrorCode(e));
+        }
+    }
+
+    // Stream one bucket to the sink in its own transaction and return the number of rows read
+    private long scanBucket(int bucket, List<String> projections, BucketSink sink) throws Exception {
+        DistributedTransaction transaction = null;
+        try {
+            transaction = manager.start();
+            long rows = orderRepository.scanOrderListByBucket(transaction, bucket, projections, pageRows,
+                    page -> sink.accept(bucket, page));
+            transaction.commit();
+            return rows;
+        } catch (Exception e) {
+            OrderService.handleTransactionException(e, transaction);
+            throw e;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
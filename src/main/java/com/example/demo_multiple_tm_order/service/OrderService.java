@@ -1,13 +1,19 @@
 package com.example.demo_multiple_tm_order.service;
 
 import com.example.demo_multiple_tm_order.model.Order;
+import com.example.demo_multiple_tm_order.model.OrderByTime;
+import com.example.demo_multiple_tm_order.model.OrderProductSummary;
 import com.example.demo_multiple_tm_order.dto.OrderDto;
+import com.example.demo_multiple_tm_order.dto.OrderProductSummaryDto;
 import com.example.demo_multiple_tm_order.dto.ResponseStatusDto;
 import com.example.demo_multiple_tm_order.dto.SqlCommandDto;
 import com.example.demo_multiple_tm_order.exception.CustomException;
 import com.example.demo_multiple_tm_order.mapper.OrderMapper;
+import com.example.demo_multiple_tm_order.mapper.OrderRecordMapper;
 import com.example.demo_multiple_tm_order.repository.OrderRepository;
+import com.example.demo_multiple_tm_order.util.AsyncIo;
 import com.example.demo_multiple_tm_order.util.ExecuteSqlUtil;
+import com.example.demo_multiple_tm_order.util.SqlRowGuard;
 import com.scalar.db.api.DistributedTransaction;
 import com.scalar.db.api.DistributedTransactionManager;
 import com.scalar.db.io.Key;
@@ -17,10 +23,17 @@ import com.scalar.db.sql.SqlSession;
 import com.scalar.db.sql.SqlSessionFactory;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
@@ -31,13 +44,44 @@ public class OrderService {
     @Autowired
     OrderRepository orderRepository;
 
+    @Autowired
+    SqlResultCache sqlResultCache;
+
+    @Autowired
+    SqlResourceGovernor sqlResourceGovernor;
+
+    @Autowired
+    AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    @Autowired
+    @Qualifier("orderIoExecutor")
+    AsyncTaskExecutor ioExecutor;
+
+    // Tables written by order CRUD (shopping.order and the tables maintained with it)
+    private static final List<String> ORDER_TABLES = List.of(
+            Order.NAMESPACE + "." + Order.TABLE,
+            OrderByTime.NAMESPACE + "." + OrderByTime.TABLE,
+            OrderProductSummary.NAMESPACE + "." + OrderProductSummary.TABLE);
+
+    // Widest time range (in hours, i.e. order_by_time partitions) a single by-time query may scan
+    @Value("${order.by-time.max-hours:168}")
+    private long byTimeMaxHours;
+
     public OrderService(DistributedTransactionManager manager, SqlSessionFactory sqlSessionFactory) throws InstantiationException, IllegalAccessException {
         this.manager = manager;
         this.sqlSessionFactory = sqlSessionFactory;
     }
 
-    // Execute SQL Command
+    // Execute SQL Command under SqlResourceGovernor limits
     public List<OrderDto> executeSQL(SqlCommandDto sqlCommandDto) throws CustomException {
+        rejectOrderTableWrite(sqlCommandDto.getSqlCommand());
+        SqlResourceGovernor.Limits limits = sqlResourceGovernor.limitsFor(sqlCommandDto);
+        return sqlResourceGovernor.execute(limits, guard -> executeSQL(sqlCommandDto, guard));
+    }
+
+    private List<OrderDto> executeSQL(SqlCommandDto sqlCommandDto, SqlRowGuard guard) throws CustomException {
+        AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(AdaptiveConcurrencyLimiter.SCOPE_SQL);
+        boolean committed = false;
         SqlSession sqlSession = null;
 
         try {
@@ -55,135 +99,331 @@ public class OrderService {
                 result = new ArrayList<>();
             } else {
                 // Handle SELECT operations
-                ExecuteSqlUtil<Order> executeSql = new ExecuteSqlUtil<>(Order.class);
-                List<Order> orderList = executeSql.executeSQL(sqlSession, sqlCommand);
+                ExecuteSqlUtil<Order> executeSql = new ExecuteSqlUtil<>(Order.class, OrderRecordMapper.INSTANCE);
+                List<Order> orderList = executeSql.executeSQL(sqlSession, sqlCommand, guard);
                 result = OrderMapper.mapToOrderDtoList(orderList);
             }
 
+            guard.beginCommit();
             sqlSession.commit();
+            committed = true;
+            if (isDmlOperation(sqlCommand)) {
+                sqlResultCache.invalidateStatement(sqlCommand);
+            }
             return result;
         } catch (Exception e) {
             handleSqlSessionException(e, sqlSession);
             throw new CustomException(e, determineErrorCode(e));
+        } finally {
+            permit.release(committed);
         }
     }
 
     // Helper method to detect DML operations
-    private boolean isDmlOperation(String sqlCommand) {
+    private static boolean isDmlOperation(String sqlCommand) {
         String trimmedCommand = sqlCommand.trim().toUpperCase();
         return trimmedCommand.startsWith("INSERT") || 
+               trimmedCommand.startsWith("UPSERT") || 
                trimmedCommand.startsWith("UPDATE") || 
                trimmedCommand.startsWith("DELETE");
     }
 
+    /**
+     * Reject ad-hoc SQL that writes to the order tables
+     *
+     * OrderRepository sets shopping.order.bucket and maintains shopping.order_by_time and
+     * shopping.order_product_summary with every write; SQL DML would bypass that. Any statement
+     * other than a SELECT that names one of these tables (qualified or not) fails with 9400.
+     */
+    public static void rejectOrderTableWrite(String sqlCommand) throws CustomException {
+        if (sqlCommand == null || sqlCommand.trim().toUpperCase().startsWith("SELECT")) {
+            return;
+        }
+        for (String table : SqlResultCache.tablesOf(sqlCommand)) {
+            // Unqualified names are checked against the shopping namespace (the session default may be it)
+            String qualified = table.indexOf('.') < 0 ? Order.NAMESPACE + "." + table : table;
+            if (ORDER_TABLES.contains(qualified)) {
+                throw new CustomException("SQL writes to " + table + " are not allowed; use the /order endpoints", 9400);
+            }
+        }
+    }
+
     // Create Record
     public ResponseStatusDto insertOrder(OrderDto orderDto) throws CustomException {
+        AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(AdaptiveConcurrencyLimiter.SCOPE_ORDER);
+        boolean committed = false;
         DistributedTransaction transaction = null;
         try {
             Order order = OrderMapper.mapToOrder(orderDto);
             transaction = manager.start();
             order = orderRepository.insertOrder(transaction, order);
             transaction.commit();
+            committed = true;
+            sqlResultCache.invalidateTables(ORDER_TABLES);
             return ResponseStatusDto.builder().code(0).message("").build();
         } catch (Exception e) {
             handleTransactionException(e, transaction);
             throw new CustomException(e, determineErrorCode(e));
+        } finally {
+            permit.release(committed);
         }
     }
 
     // Upsert Record
     public ResponseStatusDto upsertOrder(OrderDto orderDto) throws CustomException {
+        AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(AdaptiveConcurrencyLimiter.SCOPE_ORDER);
+        boolean committed = false;
         DistributedTransaction transaction = null;
         try {
             Order order = OrderMapper.mapToOrder(orderDto);
             transaction = manager.start();
             order = orderRepository.upsertOrder(transaction, order);
             transaction.commit();
+            committed = true;
+            sqlResultCache.invalidateTables(ORDER_TABLES);
             return ResponseStatusDto.builder().code(0).message("").build();
         } catch (Exception e) {
             handleTransactionException(e, transaction);
             throw new CustomException(e, determineErrorCode(e));
+        } finally {
+            permit.release(committed);
         }
     }
 
     // Retrieve Record
     public OrderDto getOrder(OrderDto orderDto) throws CustomException {
+        return getOrder(orderDto, null);
+    }
+
+    // Retrieve Record with only the requested fields (null = all)
+    public OrderDto getOrder(OrderDto orderDto, String fields) throws CustomException {
+        List<String> projections = OrderMapper.mapToOrderColumns(fields);
+        AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(AdaptiveConcurrencyLimiter.SCOPE_ORDER);
+        boolean committed = false;
         DistributedTransaction transaction = null;
         try {
             Order order = OrderMapper.mapToOrder(orderDto);
             transaction = manager.start();
-            order = orderRepository.getOrder(transaction, order);
+            order = orderRepository.getOrder(transaction, order, projections);
             transaction.commit();
+            committed = true;
             return OrderMapper.mapToOrderDto(order);
         } catch (Exception e) {
             handleTransactionException(e, transaction);
             throw new CustomException(e, determineErrorCode(e));
+        } finally {
+            permit.release(committed);
         }
     }
 
     // Update Record
     public ResponseStatusDto updateOrder(OrderDto orderDto) throws CustomException {
+        AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(AdaptiveConcurrencyLimiter.SCOPE_ORDER);
+        boolean committed = false;
         DistributedTransaction transaction = null;
         try {
             Order order = OrderMapper.mapToOrder(orderDto);
             transaction = manager.start();
             order = orderRepository.updateOrder(transaction, order);
             transaction.commit();
+            committed = true;
+            sqlResultCache.invalidateTables(ORDER_TABLES);
             return ResponseStatusDto.builder().code(0).message("").build();
         } catch (Exception e) {
             handleTransactionException(e, transaction);
             throw new CustomException(e, determineErrorCode(e));
+        } finally {
+            permit.release(committed);
         }
     }
 
     // Delete Record
     public ResponseStatusDto deleteOrder(OrderDto orderDto) throws CustomException {
+        AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(AdaptiveConcurrencyLimiter.SCOPE_ORDER);
+        boolean committed = false;
         DistributedTransaction transaction = null;
         try {
             Order order = OrderMapper.mapToOrder(orderDto);
             transaction = manager.start();
             orderRepository.deleteOrder(transaction, order);
             transaction.commit();
+            committed = true;
+            sqlResultCache.invalidateTables(ORDER_TABLES);
             return ResponseStatusDto.builder().code(0).message("").build();
         } catch (Exception e) {
             handleTransactionException(e, transaction);
             throw new CustomException(e, determineErrorCode(e));
+        } finally {
+            permit.release(committed);
         }
     }
 
     // Retrieve All Records
     public List<OrderDto> getOrderListAll() throws CustomException {
+        return getOrderListAll(null);
+    }
+
+    // Retrieve All Records with only the requested fields (null = all)
+    public List<OrderDto> getOrderListAll(String fields) throws CustomException {
+        List<String> projections = OrderMapper.mapToOrderColumns(fields);
+        AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(AdaptiveConcurrencyLimiter.SCOPE_ORDER);
+        boolean committed = false;
         DistributedTransaction transaction = null;
         List<Order> orderList = new ArrayList<>();
         try {
             transaction = manager.start();
-            orderList = orderRepository.getOrderListAll(transaction);
+            orderList = orderRepository.getOrderListAll(transaction, projections);
             transaction.commit();
+            committed = true;
             return OrderMapper.mapToOrderDtoList(orderList);
         } catch (Exception e) {
             handleTransactionException(e, transaction);
             throw new CustomException(e, determineErrorCode(e));
+        } finally {
+            permit.release(committed);
         }
     }
 
     // Retrieve Records by Partition Key
     public List<OrderDto> getOrderListByPk(OrderDto orderDto) throws CustomException {
+        return getOrderListByPk(orderDto, null);
+    }
+
+    // Retrieve Records by Partition Key with only the requested fields (null = all)
+    public List<OrderDto> getOrderListByPk(OrderDto orderDto, String fields) throws CustomException {
+        List<String> projections = OrderMapper.mapToOrderColumns(fields);
+        AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(AdaptiveConcurrencyLimiter.SCOPE_ORDER);
+        boolean committed = false;
         DistributedTransaction transaction = null;
         List<Order> orderList = new ArrayList<>();
         try {
             Order order = OrderMapper.mapToOrder(orderDto);
             Key partitionKey = order.getPartitionKey();
             transaction = manager.start();
-            orderList = orderRepository.getOrderListByPk(transaction, partitionKey);
+            orderList = orderRepository.getOrderListByPk(transaction, partitionKey, projections);
+            transaction.commit();
+            committed = true;
+            return OrderMapper.mapToOrderDtoList(orderList);
+        } catch (Exception e) {
+            handleTransactionException(e, transaction);
+            throw new CustomException(e, determineErrorCode(e));
+        } finally {
+            permit.release(committed);
+        }
+    }
+
+    // Retrieve Records by product_id (secondary index) with only the requested fields (null = all)
+    public List<OrderDto> getOrderListByProductId(int productId, String fields) throws CustomException {
+        List<String> projections = OrderMapper.mapToOrderColumns(fields);
+        AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(AdaptiveConcurrencyLimiter.SCOPE_ORDER);
+        boolean committed = false;
+        DistributedTransaction transaction = null;
+        try {
+            transaction = manager.start();
+            List<Order> orderList = orderRepository.getOrderListByProductId(transaction, productId, projections);
             transaction.commit();
+            committed = true;
             return OrderMapper.mapToOrderDtoList(orderList);
         } catch (Exception e) {
             handleTransactionException(e, transaction);
             throw new CustomException(e, determineErrorCode(e));
+        } finally {
+            permit.release(committed);
         }
     }
 
-    private void handleTransactionException(Exception e, DistributedTransaction transaction) {
+    // Retrieve Records with order_datetime in [from, to), ordered by order_datetime
+    public List<OrderDto> getOrderListByTimeRange(LocalDateTime from, LocalDateTime to) throws CustomException {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new CustomException("'from' must be before 'to'", 9400);
+        }
+        if (Duration.between(from, to).toHours() >= byTimeMaxHours) {
+            throw new CustomException("Time range must be shorter than " + byTimeMaxHours + " hours", 9400);
+        }
+        AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(AdaptiveConcurrencyLimiter.SCOPE_ORDER);
+        boolean committed = false;
+        DistributedTransaction transaction = null;
+        try {
+            transaction = manager.start();
+            List<Order> orderList = orderRepository.getOrderListByTimeRange(transaction, from, to);
+            transaction.commit();
+            committed = true;
+            return OrderMapper.mapToOrderDtoList(orderList);
+        } catch (Exception e) {
+            handleTransactionException(e, transaction);
+            throw new CustomException(e, determineErrorCode(e));
+        } finally {
+            permit.release(committed);
+        }
+    }
+
+    // Retrieve per-product aggregate (total quantity and order count)
+    public OrderProductSummaryDto getProductSummary(int productId) throws CustomException {
+        AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(AdaptiveConcurrencyLimiter.SCOPE_ORDER);
+        boolean committed = false;
+        DistributedTransaction transaction = null;
+        try {
+            transaction = manager.start();
+            OrderProductSummary summary = orderRepository.getProductSummary(transaction, productId);
+            transaction.commit();
+            committed = true;
+            return OrderMapper.mapToOrderProductSummaryDto(summary);
+        } catch (Exception e) {
+            handleTransactionException(e, transaction);
+            throw new CustomException(e, determineErrorCode(e));
+        } finally {
+            permit.release(committed);
+        }
+    }
+
+    // Async variants: the same transactions, run on orderIoExecutor (see AsyncIoConfig)
+    public CompletableFuture<ResponseStatusDto> insertOrderAsync(OrderDto orderDto) {
+        return AsyncIo.supply(ioExecutor, () -> insertOrder(orderDto));
+    }
+
+    public CompletableFuture<ResponseStatusDto> upsertOrderAsync(OrderDto orderDto) {
+        return AsyncIo.supply(ioExecutor, () -> upsertOrder(orderDto));
+    }
+
+    public CompletableFuture<ResponseStatusDto> updateOrderAsync(OrderDto orderDto) {
+        return AsyncIo.supply(ioExecutor, () -> updateOrder(orderDto));
+    }
+
+    public CompletableFuture<ResponseStatusDto> deleteOrderAsync(OrderDto orderDto) {
+        return AsyncIo.supply(ioExecutor, () -> deleteOrder(orderDto));
+    }
+
+    public CompletableFuture<OrderDto> getOrderAsync(OrderDto orderDto, String fields) {
+        return AsyncIo.supply(ioExecutor, () -> getOrder(orderDto, fields));
+    }
+
+    public CompletableFuture<List<OrderDto>> getOrderListAllAsync(String fields) {
+        return AsyncIo.supply(ioExecutor, () -> getOrderListAll(fields));
+    }
+
+    public CompletableFuture<List<OrderDto>> getOrderListByPkAsync(OrderDto orderDto, String fields) {
+        return AsyncIo.supply(ioExecutor, () -> getOrderListByPk(orderDto, fields));
+    }
+
+    public CompletableFuture<List<OrderDto>> getOrderListByProductIdAsync(int productId, String fields) {
+        return AsyncIo.supply(ioExecutor, () -> getOrderListByProductId(productId, fields));
+    }
+
+    public CompletableFuture<List<OrderDto>> getOrderListByTimeRangeAsync(LocalDateTime from, LocalDateTime to) {
+        return AsyncIo.supply(ioExecutor, () -> getOrderListByTimeRange(from, to));
+    }
+
+    public CompletableFuture<OrderProductSummaryDto> getProductSummaryAsync(int productId) {
+        return AsyncIo.supply(ioExecutor, () -> getProductSummary(productId));
+    }
+
+    // Run a caller's blocking call (e.g. an Idempotency-Key check wrapping a write) on orderIoExecutor
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> call) {
+        return AsyncIo.supply(ioExecutor, call);
+    }
+
+    // Shared with the other services working on shopping.order (OrderParallelScanService, OrderBackfillService)
+    static void handleTransactionException(Exception e, DistributedTransaction transaction) {
         log.error(e.getMessage(), e);
         if (transaction != null) {
             try {
@@ -205,7 +445,9 @@ public class OrderService {
         }
     }
 
-    private int determineErrorCode(Exception e) {
+    static int determineErrorCode(Exception e) {
+        if (e instanceof SqlRowGuard.LimitExceededException limitExceeded) return SqlResourceGovernor.errorCodeOf(limitExceeded);
+        if (e instanceof CustomException customException) return customException.getErrorCode();
         if (e instanceof UnsatisfiedConditionException) return 9100;
         if (e instanceof UnknownTransactionStatusException) return 9200;
         if (e instanceof TransactionException) return 9300;
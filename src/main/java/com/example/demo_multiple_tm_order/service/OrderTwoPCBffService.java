@@ -4,6 +4,7 @@ import com.example.demo_multiple_tm_order.dto.OrderDto;
 import com.example.demo_multiple_tm_order.dto.ApiResponse;
 import com.example.demo_multiple_tm_order.dto.ResponseStatusDto;
 import com.example.demo_multiple_tm_order.exception.CustomException;
+import com.example.demo_multiple_tm_order.mapper.OrderMapper;
 import com.scalar.db.api.TwoPhaseCommitTransaction;
 import com.scalar.db.api.TwoPhaseCommitTransactionManager;
 import com.scalar.db.exception.transaction.*;
@@ -47,15 +48,16 @@ public class OrderTwoPCBffService extends BaseTwoPCBffService {
 
     // Create Record
     public ResponseStatusDto insertOrder(OrderDto orderDto) throws CustomException {
+        checkParticipants(BASE_URL + serverPort + "/order-two-pc");
+        AdaptiveConcurrencyLimiter.Permit permit = acquirePermit();
+        boolean committed = false;
         TwoPhaseCommitTransaction transaction = null;
         try {
-            transaction = manager.start();
+            transaction = startTransaction();
             String transactionId = transaction.getId();
             log.info("Starting 2PC transaction: {}", transactionId);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("ScalarDB-Transaction-ID", transactionId);
+            HttpHeaders headers = createHeaders(transactionId);
 
             String baseUrl = BASE_URL + serverPort + "/order-two-pc";
 
@@ -64,6 +66,7 @@ public class OrderTwoPCBffService extends BaseTwoPCBffService {
             executeTwoPcPhase(baseUrl + "/prepare", headers);
             executeTwoPcPhase(baseUrl + "/validate", headers);
             executeTwoPcPhase(baseUrl + "/commit", headers);
+            committed = true;
             log.info("2PC transaction committed: {}", transactionId);
 
             return ResponseStatusDto.builder().code(0).message("").build();
@@ -73,21 +76,24 @@ public class OrderTwoPCBffService extends BaseTwoPCBffService {
                 String rollbackUrl = BASE_URL + serverPort + "/order-two-pc/rollback";
                 handleTransactionRollback(transaction, rollbackUrl, transaction.getId());
             }
-            throw new CustomException(e, determineErrorCode(e));
+            throw new CustomException(e, recordAbort(e));
+        } finally {
+            permit.release(committed);
         }
     }
 
     // Upsert Record
     public ResponseStatusDto upsertOrder(OrderDto orderDto) throws CustomException {
+        checkParticipants(BASE_URL + serverPort + "/order-two-pc");
+        AdaptiveConcurrencyLimiter.Permit permit = acquirePermit();
+        boolean committed = false;
         TwoPhaseCommitTransaction transaction = null;
         try {
-            transaction = manager.start();
+            transaction = startTransaction();
             String transactionId = transaction.getId();
             log.info("Starting 2PC transaction: {}", transactionId);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("ScalarDB-Transaction-ID", transactionId);
+            HttpHeaders headers = createHeaders(transactionId);
 
             String baseUrl = BASE_URL + serverPort + "/order-two-pc";
 
@@ -96,6 +102,7 @@ public class OrderTwoPCBffService extends BaseTwoPCBffService {
             executeTwoPcPhase(baseUrl + "/prepare", headers);
             executeTwoPcPhase(baseUrl + "/validate", headers);
             executeTwoPcPhase(baseUrl + "/commit", headers);
+            committed = true;
             log.info("2PC transaction committed: {}", transactionId);
 
             return ResponseStatusDto.builder().code(0).message("").build();
@@ -105,33 +112,43 @@ public class OrderTwoPCBffService extends BaseTwoPCBffService {
                 String rollbackUrl = BASE_URL + serverPort + "/order-two-pc/rollback";
                 handleTransactionRollback(transaction, rollbackUrl, transaction.getId());
             }
-            throw new CustomException(e, determineErrorCode(e));
+            throw new CustomException(e, recordAbort(e));
+        } finally {
+            permit.release(committed);
         }
     }
 
     // Retrieve Record
     public OrderDto getOrder(OrderDto orderDto) throws CustomException {
+        return getOrder(orderDto, null);
+    }
+
+    // Retrieve Record with only the requested fields (null = all)
+    public OrderDto getOrder(OrderDto orderDto, String fields) throws CustomException {
+        List<String> projections = OrderMapper.mapToOrderColumns(fields);
+        checkParticipants(BASE_URL + serverPort + "/order-two-pc");
+        AdaptiveConcurrencyLimiter.Permit permit = acquirePermit();
+        boolean committed = false;
         TwoPhaseCommitTransaction transaction = null;
         try {
-            transaction = manager.start();
+            transaction = startTransaction();
             String transactionId = transaction.getId();
             log.info("Starting 2PC transaction: {}", transactionId);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("ScalarDB-Transaction-ID", transactionId);
+            HttpHeaders headers = createHeaders(transactionId);
 
             String baseUrl = BASE_URL + serverPort + "/order-two-pc";
 
             // Execute 2PC protocol
             OrderDto result = executeGet(
-                baseUrl + "/" + orderDto.getId(),
+                withFields(baseUrl + "/" + orderDto.getId(), projections),
                 headers,
                 new ParameterizedTypeReference<ApiResponse<OrderDto>>() {}
             );
             executeTwoPcPhase(baseUrl + "/prepare", headers);
             executeTwoPcPhase(baseUrl + "/validate", headers);
             executeTwoPcPhase(baseUrl + "/commit", headers);
+            committed = true;
             log.info("2PC transaction committed: {}", transactionId);
 
             return result;
@@ -141,21 +158,24 @@ public class OrderTwoPCBffService extends BaseTwoPCBffService {
                 String rollbackUrl = BASE_URL + serverPort + "/order-two-pc/rollback";
                 handleTransactionRollback(transaction, rollbackUrl, transaction.getId());
             }
-            throw new CustomException(e, determineErrorCode(e));
+            throw new CustomException(e, recordAbort(e));
+        } finally {
+            permit.release(committed);
         }
     }
 
     // Update Record
     public ResponseStatusDto updateOrder(OrderDto orderDto) throws CustomException {
+        checkParticipants(BASE_URL + serverPort + "/order-two-pc");
+        AdaptiveConcurrencyLimiter.Permit permit = acquirePermit();
+        boolean committed = false;
         TwoPhaseCommitTransaction transaction = null;
         try {
-            transaction = manager.start();
+            transaction = startTransaction();
             String transactionId = transaction.getId();
             log.info("Starting 2PC transaction: {}", transactionId);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("ScalarDB-Transaction-ID", transactionId);
+            HttpHeaders headers = createHeaders(transactionId);
 
             String baseUrl = BASE_URL + serverPort + "/order-two-pc";
 
@@ -164,6 +184,7 @@ public class OrderTwoPCBffService extends BaseTwoPCBffService {
             executeTwoPcPhase(baseUrl + "/prepare", headers);
             executeTwoPcPhase(baseUrl + "/validate", headers);
             executeTwoPcPhase(baseUrl + "/commit", headers);
+            committed = true;
             log.info("2PC transaction committed: {}", transactionId);
 
             return ResponseStatusDto.builder().code(0).message("").build();
@@ -173,21 +194,24 @@ public class OrderTwoPCBffService extends BaseTwoPCBffService {
                 String rollbackUrl = BASE_URL + serverPort + "/order-two-pc/rollback";
                 handleTransactionRollback(transaction, rollbackUrl, transaction.getId());
             }
-            throw new CustomException(e, determineErrorCode(e));
+            throw new CustomException(e, recordAbort(e));
+        } finally {
+            permit.release(committed);
         }
     }
 
     // Delete Record
     public ResponseStatusDto deleteOrder(OrderDto orderDto) throws CustomException {
+        checkParticipants(BASE_URL + serverPort + "/order-two-pc");
+        AdaptiveConcurrencyLimiter.Permit permit = acquirePermit();
+        boolean committed = false;
         TwoPhaseCommitTransaction transaction = null;
         try {
-            transaction = manager.start();
+            transaction = startTransaction();
             String transactionId = transaction.getId();
             log.info("Starting 2PC transaction: {}", transactionId);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("ScalarDB-Transaction-ID", transactionId);
+            HttpHeaders headers = createHeaders(transactionId);
 
             String baseUrl = BASE_URL + serverPort + "/order-two-pc";
 
@@ -196,6 +220,7 @@ public class OrderTwoPCBffService extends BaseTwoPCBffService {
             executeTwoPcPhase(baseUrl + "/prepare", headers);
             executeTwoPcPhase(baseUrl + "/validate", headers);
             executeTwoPcPhase(baseUrl + "/commit", headers);
+            committed = true;
             log.info("2PC transaction committed: {}", transactionId);
 
             return ResponseStatusDto.builder().code(0).message("").build();
@@ -205,33 +230,43 @@ public class OrderTwoPCBffService extends BaseTwoPCBffService {
                 String rollbackUrl = BASE_URL + serverPort + "/order-two-pc/rollback";
                 handleTransactionRollback(transaction, rollbackUrl, transaction.getId());
             }
-            throw new CustomException(e, determineErrorCode(e));
+            throw new CustomException(e, recordAbort(e));
+        } finally {
+            permit.release(committed);
         }
     }
 
     // Retrieve All Records
     public List<OrderDto> getOrderListAll() throws CustomException {
+        return getOrderListAll(null);
+    }
+
+    // Retrieve All Records with only the requested fields (null = all)
+    public List<OrderDto> getOrderListAll(String fields) throws CustomException {
+        List<String> projections = OrderMapper.mapToOrderColumns(fields);
+        checkParticipants(BASE_URL + serverPort + "/order-two-pc");
+        AdaptiveConcurrencyLimiter.Permit permit = acquirePermit();
+        boolean committed = false;
         TwoPhaseCommitTransaction transaction = null;
         try {
-            transaction = manager.start();
+            transaction = startTransaction();
             String transactionId = transaction.getId();
             log.info("Starting 2PC transaction: {}", transactionId);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("ScalarDB-Transaction-ID", transactionId);
+            HttpHeaders headers = createHeaders(transactionId);
 
             String baseUrl = BASE_URL + serverPort + "/order-two-pc";
 
             // Execute 2PC protocol
             List<OrderDto> result = executeGet(
-                baseUrl + "/scan-all",
+                withFields(baseUrl + "/scan-all", projections),
                 headers,
                 new ParameterizedTypeReference<ApiResponse<List<OrderDto>>>() {}
             );
             executeTwoPcPhase(baseUrl + "/prepare", headers);
             executeTwoPcPhase(baseUrl + "/validate", headers);
             executeTwoPcPhase(baseUrl + "/commit", headers);
+            committed = true;
             log.info("2PC transaction committed: {}", transactionId);
 
             return result;
@@ -241,33 +276,43 @@ public class OrderTwoPCBffService extends BaseTwoPCBffService {
                 String rollbackUrl = BASE_URL + serverPort + "/order-two-pc/rollback";
                 handleTransactionRollback(transaction, rollbackUrl, transaction.getId());
             }
-            throw new CustomException(e, determineErrorCode(e));
+            throw new CustomException(e, recordAbort(e));
+        } finally {
+            permit.release(committed);
         }
     }
 
     // Retrieve Records by Partition Key
     public List<OrderDto> getOrderListByPk(OrderDto orderDto) throws CustomException {
+        return getOrderListByPk(orderDto, null);
+    }
+
+    // Retrieve Records by Partition Key with only the requested fields (null = all)
+    public List<OrderDto> getOrderListByPk(OrderDto orderDto, String fields) throws CustomException {
+        List<String> projections = OrderMapper.mapToOrderColumns(fields);
+        checkParticipants(BASE_URL + serverPort + "/order-two-pc");
+        AdaptiveConcurrencyLimiter.Permit permit = acquirePermit();
+        boolean committed = false;
         TwoPhaseCommitTransaction transaction = null;
         try {
-            transaction = manager.start();
+            transaction = startTransaction();
             String transactionId = transaction.getId();
             log.info("Starting 2PC transaction: {}", transactionId);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("ScalarDB-Transaction-ID", transactionId);
+            HttpHeaders headers = createHeaders(transactionId);
 
             String baseUrl = BASE_URL + serverPort + "/order-two-pc";
 
             // Execute 2PC protocol
             List<OrderDto> result = executeGet(
-                baseUrl + "/scan-by-pk" + "/" + orderDto.getId(),
+                withFields(baseUrl + "/scan-by-pk" + "/" + orderDto.getId(), projections),
                 headers,
                 new ParameterizedTypeReference<ApiResponse<List<OrderDto>>>() {}
             );
             executeTwoPcPhase(baseUrl + "/prepare", headers);
             executeTwoPcPhase(baseUrl + "/validate", headers);
             executeTwoPcPhase(baseUrl + "/commit", headers);
+            committed = true;
             log.info("2PC transaction committed: {}", transactionId);
 
             return result;
@@ -277,7 +322,9 @@ public class OrderTwoPCBffService extends BaseTwoPCBffService {
                 String rollbackUrl = BASE_URL + serverPort + "/order-two-pc/rollback";
                 handleTransactionRollback(transaction, rollbackUrl, transaction.getId());
             }
-            throw new CustomException(e, determineErrorCode(e));
+            throw new CustomException(e, recordAbort(e));
+        } finally {
+            permit.release(committed);
         }
     }
 }
@@ -0,0 +1,199 @@
+package com.example.demo_multiple_tm_order.service;
+
+import com.example.demo_multiple_tm_order.dto.OrderDto;
+import com.example.demo_multiple_tm_order.dto.ResponseStatusDto;
+import com.example.demo_multiple_tm_order.exception.CustomException;
+import com.example.demo_multiple_tm_order.grpc.TwoPCStreamSession;
+import com.example.demo_multiple_tm_order.grpc.proto.Operation;
+import com.example.demo_multiple_tm_order.grpc.proto.OrderMessage;
+import com.example.demo_multiple_tm_order.grpc.proto.OrderTwoPCParticipantGrpc;
+import com.example.demo_multiple_tm_order.grpc.proto.TwoPCResponse;
+import com.example.demo_multiple_tm_order.mapper.OrderMapper;
+import com.example.demo_multiple_tm_order.mapper.OrderProtoMapper;
+import com.example.demo_multiple_tm_order.metrics.TwoPCMetrics;
+import com.example.demo_multiple_tm_order.util.RequestDeadline;
+import com.scalar.db.api.TwoPhaseCommitTransaction;
+import com.scalar.db.api.TwoPhaseCommitTransactionManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Two-Phase Commit BFF Service for Order over gRPC
+ *
+ * Same operations as OrderTwoPCBffService, but each distributed transaction uses one bidirectional
+ * gRPC stream (TwoPCStreamSession) to the order participant instead of one HTTP request per step:
+ * - The transaction ID is sent once, on the first message of the stream
+ * - CRUD, prepare, validate and commit travel over the same stream; on error, rollback is sent
+ *   over the stream as well, and the participant rolls back by itself if the stream breaks
+ * - Per-step latency is recorded in the same phase histogram as the REST path, with a grpc:// participant tag
+ * - The stream deadline is grpc.client.deadline-ms. The request deadline travels in each request
+ *   (deadline_ms) and applies to CRUD, prepare and validate only; commit and rollback are sent
+ *   without it, as on the REST path (see BaseTwoPCBffService.timed)
+ */
+@Slf4j
+@Service
+public class OrderTwoPCGrpcBffService extends BaseTwoPCBffService {
+
+    @Autowired
+    private OrderTwoPCParticipantGrpc.OrderTwoPCParticipantStub orderParticipantStub;
+
+    @Value("${grpc.client.order.target:localhost:9090}")
+    private String orderTarget;
+
+    @Value("${grpc.client.deadline-ms:30000}")
+    private long deadlineMs;
+
+    public OrderTwoPCGrpcBffService(TwoPhaseCommitTransactionManager manager) {
+        super(manager);
+    }
+
+    // Create Record
+    public ResponseStatusDto insertOrder(OrderDto orderDto) throws CustomException {
+        return executeInTransaction(session -> {
+            call(session, Operation.INSERT, OrderProtoMapper.mapToOrderMessage(orderDto));
+            return ResponseStatusDto.builder().code(0).message("").build();
+        });
+    }
+
+    // Upsert Record
+    public ResponseStatusDto upsertOrder(OrderDto orderDto) throws CustomException {
+        return executeInTransaction(session -> {
+            call(session, Operation.UPSERT, OrderProtoMapper.mapToOrderMessage(orderDto));
+            return ResponseStatusDto.builder().code(0).message("").build();
+        });
+    }
+
+    // Retrieve Record
+    public OrderDto getOrder(OrderDto orderDto) throws CustomException {
+        return getOrder(orderDto, null);
+    }
+
+    // Retrieve Record with only the requested fields (null = all)
+    public OrderDto getOrder(OrderDto orderDto, String fields) throws CustomException {
+        List<String> projections = OrderMapper.mapToOrderColumns(fields);
+        return executeInTransaction(session -> {
+            TwoPCResponse response = call(session, Operation.GET, OrderProtoMapper.mapToOrderMessage(orderDto), projections);
+            return response.getOrdersCount() > 0 ? OrderProtoMapper.mapToOrderDto(response.getOrders(0)) : null;
+        });
+    }
+
+    // Update Record
+    public ResponseStatusDto updateOrder(OrderDto orderDto) throws CustomException {
+        return executeInTransaction(session -> {
+            call(session, Operation.UPDATE, OrderProtoMapper.mapToOrderMessage(orderDto));
+            return ResponseStatusDto.builder().code(0).message("").build();
+        });
+    }
+
+    // Delete Record
+    public ResponseStatusDto deleteOrder(OrderDto orderDto) throws CustomException {
+        return executeInTransaction(session -> {
+            call(session, Operation.DELETE, OrderProtoMapper.mapToOrderMessage(orderDto));
+            return ResponseStatusDto.builder().code(0).message("").build();
+        });
+    }
+
+    // Retrieve All Records
+    public List<OrderDto> getOrderListAll() throws CustomException {
+        return getOrderListAll(null);
+    }
+
+    // Retrieve All Records with only the requested fields (null = all)
+    public List<OrderDto> getOrderListAll(String fields) throws CustomException {
+        List<String> projections = OrderMapper.mapToOrderColumns(fields);
+        return executeInTransaction(session ->
+                OrderProtoMapper.mapToOrderDtoList(call(session, Operation.SCAN_ALL, null, projections).getOrdersList()));
+    }
+
+    // Retrieve Records by Partition Key
+    public List<OrderDto> getOrderListByPk(OrderDto orderDto) throws CustomException {
+        return getOrderListByPk(orderDto, null);
+    }
+
+    // Retrieve Records by Partition Key with only the requested fields (null = all)
+    public List<OrderDto> getOrderListByPk(OrderDto orderDto, String fields) throws CustomException {
+        List<String> projections = OrderMapper.mapToOrderColumns(fields);
+        return executeInTransaction(session -> OrderProtoMapper.mapToOrderDtoList(
+                call(session, Operation.SCAN_BY_PK, OrderProtoMapper.mapToOrderMessage(orderDto), projections).getOrdersList()));
+    }
+
+    /**
+     * Start a transaction, open its stream, run the operation and then prepare, validate and commit
+     */
+    private <R> R executeInTransaction(Function<TwoPCStreamSession, R> operation) throws CustomException {
+        checkParticipants(participantUrl());
+        AdaptiveConcurrencyLimiter.Permit permit = acquirePermit();
+        boolean committed = false;
+        TwoPhaseCommitTransaction transaction = null;
+        try {
+            transaction = startTransaction();
+            String transactionId = transaction.getId();
+            log.info("Starting 2PC transaction over gRPC: {}", transactionId);
+
+            try (TwoPCStreamSession session = new TwoPCStreamSession(
+                    orderParticipantStub.withDeadlineAfter(deadlineMs, TimeUnit.MILLISECONDS), transactionId)) {
+                try {
+                    R result = operation.apply(session);
+                    call(session, Operation.PREPARE, null);
+                    call(session, Operation.VALIDATE, null);
+                    call(session, Operation.COMMIT, null);
+                    committed = true;
+                    log.info("2PC transaction committed: {}", transactionId);
+                    return result;
+                } catch (Exception e) {
+                    rollback(session, transactionId);
+                    throw e;
+                }
+            }
+        } catch (Exception e) {
+            log.error("2PC transaction failed: {}", e.getMessage(), e);
+            throw new CustomException(e, recordAbort(e));
+        } finally {
+            permit.release(committed);
+        }
+    }
+
+    private TwoPCResponse call(TwoPCStreamSession session, Operation operation, OrderMessage order) {
+        return call(session, operation, order, List.of());
+    }
+
+    private TwoPCResponse call(TwoPCStreamSession session, Operation operation, OrderMessage order, List<String> fields) {
+        return timed(phaseOf(operation), participantUrl(), () -> session.call(operation, order, fields));
+    }
+
+    private void rollback(TwoPCStreamSession session, String transactionId) {
+        try {
+            RequestDeadline.with(null, () -> call(session, Operation.ROLLBACK, null));
+            log.info("Transaction rolled back: {}", transactionId);
+        } catch (Exception ex) {
+            // The participant rolls back by itself when the stream ends before commit
+            log.error("Rollback failed: {}", ex.getMessage(), ex);
+        }
+    }
+
+    private String participantUrl() {
+        return "grpc://" + orderTarget + "/order-two-pc";
+    }
+
+    /**
+     * Map operations to the phase tags used by the REST path
+     */
+    private static String phaseOf(Operation operation) {
+        return switch (operation) {
+            case INSERT, UPSERT -> "post";
+            case UPDATE -> "put";
+            case DELETE -> "delete";
+            case PREPARE -> TwoPCMetrics.PHASE_PREPARE;
+            case VALIDATE -> TwoPCMetrics.PHASE_VALIDATE;
+            case COMMIT -> TwoPCMetrics.PHASE_COMMIT;
+            case ROLLBACK -> TwoPCMetrics.PHASE_ROLLBACK;
+            default -> "get";
+        };
+    }
+}
@@ -14,6 +14,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Two-Phase Commit (2PC) Service for Order
@@ -27,6 +28,8 @@ import java.util.List;
  * - Uses manager.join(transactionId) for CRUD operations
  * - Does NOT commit in CRUD methods (BFF orchestrates commit via REST)
  * - Inherits lifecycle methods (prepare, validate, commit, rollback) from Base2PCService
+ * - *Async variants return CompletableFuture for the async REST endpoints
+ * - CRUD methods abort with 9820 before joining once the request deadline has passed
  */
 @Slf4j
 @Service
@@ -43,13 +46,14 @@ public class OrderTwoPCService extends BaseTwoPCService {
     public ResponseStatusDto insertOrder(OrderDto orderDto, String transactionId) throws CustomException {
         TwoPhaseCommitTransaction transaction = null;
         try {
+            checkDeadline("insert");
             Order order = OrderMapper.mapToOrder(orderDto);
             transaction = manager.join(transactionId);
             order = orderRepository.insertOrder(transaction, order);
             return ResponseStatusDto.builder().code(0).message("").build();
         } catch (Exception e) {
             handleTransactionException(e, transaction);
-            throw new CustomException(e, determineErrorCode(e));
+            throw new CustomException(e, recordAbort(e));
         }
     }
 
@@ -57,27 +61,35 @@ public class OrderTwoPCService extends BaseTwoPCService {
     public ResponseStatusDto upsertOrder(OrderDto orderDto, String transactionId) throws CustomException {
         TwoPhaseCommitTransaction transaction = null;
         try {
+            checkDeadline("upsert");
             Order order = OrderMapper.mapToOrder(orderDto);
             transaction = manager.join(transactionId);
             order = orderRepository.upsertOrder(transaction, order);
             return ResponseStatusDto.builder().code(0).message("").build();
         } catch (Exception e) {
             handleTransactionException(e, transaction);
-            throw new CustomException(e, determineErrorCode(e));
+            throw new CustomException(e, recordAbort(e));
         }
     }
 
     // Retrieve Record
     public OrderDto getOrder(OrderDto orderDto, String transactionId) throws CustomException {
+        return getOrder(orderDto, transactionId, null);
+    }
+
+    // Retrieve Record with only the requested fields (null = all)
+    public OrderDto getOrder(OrderDto orderDto, String transactionId, String fields) throws CustomException {
+        List<String> projections = OrderMapper.mapToOrderColumns(fields);
         TwoPhaseCommitTransaction transaction = null;
         try {
+            checkDeadline("get");
             Order order = OrderMapper.mapToOrder(orderDto);
             transaction = manager.join(transactionId);
-            order = orderRepository.getOrder(transaction, order);
+            order = orderRepository.getOrder(transaction, order, projections);
             return OrderMapper.mapToOrderDto(order);
         } catch (Exception e) {
             handleTransactionException(e, transaction);
-            throw new CustomException(e, determineErrorCode(e));
+            throw new CustomException(e, recordAbort(e));
         }
     }
 
@@ -85,13 +97,14 @@ public class OrderTwoPCService extends BaseTwoPCService {
     public ResponseStatusDto updateOrder(OrderDto orderDto, String transactionId) throws CustomException {
         TwoPhaseCommitTransaction transaction = null;
         try {
+            checkDeadline("update");
             Order order = OrderMapper.mapToOrder(orderDto);
             transaction = manager.join(transactionId);
             order = orderRepository.updateOrder(transaction, order);
             return ResponseStatusDto.builder().code(0).message("").build();
         } catch (Exception e) {
             handleTransactionException(e, transaction);
-            throw new CustomException(e, determineErrorCode(e));
+            throw new CustomException(e, recordAbort(e));
         }
     }
 
@@ -99,43 +112,87 @@ public class OrderTwoPCService extends BaseTwoPCService {
     public ResponseStatusDto deleteOrder(OrderDto orderDto, String transactionId) throws CustomException {
         TwoPhaseCommitTransaction transaction = null;
         try {
+            checkDeadline("delete");
             Order order = OrderMapper.mapToOrder(orderDto);
             transaction = manager.join(transactionId);
             orderRepository.deleteOrder(transaction, order);
             return ResponseStatusDto.builder().code(0).message("").build();
         } catch (Exception e) {
             handleTransactionException(e, transaction);
-            throw new CustomException(e, determineErrorCode(e));
+            throw new CustomException(e, recordAbort(e));
         }
     }
 
     // Retrieve All Records
     public List<OrderDto> getOrderListAll(String transactionId) throws CustomException {
+        return getOrderListAll(transactionId, null);
+    }
+
+    // Retrieve All Records with only the requested fields (null = all)
+    public List<OrderDto> getOrderListAll(String transactionId, String fields) throws CustomException {
+        List<String> projections = OrderMapper.mapToOrderColumns(fields);
         TwoPhaseCommitTransaction transaction = null;
         List<Order> orderList = new ArrayList<>();
         try {
+            checkDeadline("scan");
             transaction = manager.join(transactionId);
-            orderList = orderRepository.getOrderListAll(transaction);
+            orderList = orderRepository.getOrderListAll(transaction, projections);
             return OrderMapper.mapToOrderDtoList(orderList);
         } catch (Exception e) {
             handleTransactionException(e, transaction);
-            throw new CustomException(e, determineErrorCode(e));
+            throw new CustomException(e, recordAbort(e));
         }
     }
 
     // Retrieve Records by Partition Key
     public List<OrderDto> getOrderListByPk(OrderDto orderDto, String transactionId) throws CustomException {
+        return getOrderListByPk(orderDto, transactionId, null);
+    }
+
+    // Retrieve Records by Partition Key with only the requested fields (null = all)
+    public List<OrderDto> getOrderListByPk(OrderDto orderDto, String transactionId, String fields) throws CustomException {
+        List<String> projections = OrderMapper.mapToOrderColumns(fields);
         TwoPhaseCommitTransaction transaction = null;
         List<Order> orderList = new ArrayList<>();
         try {
+            checkDeadline("scan");
             Order order = OrderMapper.mapToOrder(orderDto);
             Key partitionKey = order.getPartitionKey();
             transaction = manager.join(transactionId);
-            orderList = orderRepository.getOrderListByPk(transaction, partitionKey);
+            orderList = orderRepository.getOrderListByPk(transaction, partitionKey, projections);
             return OrderMapper.mapToOrderDtoList(orderList);
         } catch (Exception e) {
             handleTransactionException(e, transaction);
-            throw new CustomException(e, determineErrorCode(e));
+            throw new CustomException(e, recordAbort(e));
         }
     }
+
+    // Async variants for OrderTwoPCController
+    public CompletableFuture<ResponseStatusDto> insertOrderAsync(OrderDto orderDto, String transactionId) {
+        return async(() -> insertOrder(orderDto, transactionId));
+    }
+
+    public CompletableFuture<ResponseStatusDto> upsertOrderAsync(OrderDto orderDto, String transactionId) {
+        return async(() -> upsertOrder(orderDto, transactionId));
+    }
+
+    public CompletableFuture<OrderDto> getOrderAsync(OrderDto orderDto, String transactionId, String fields) {
+        return async(() -> getOrder(orderDto, transactionId, fields));
+    }
+
+    public CompletableFuture<ResponseStatusDto> updateOrderAsync(OrderDto orderDto, String transactionId) {
+        return async(() -> updateOrder(orderDto, transactionId));
+    }
+
+    public CompletableFuture<ResponseStatusDto> deleteOrderAsync(OrderDto orderDto, String transactionId) {
+        return async(() -> deleteOrder(orderDto, transactionId));
+    }
+
+    public CompletableFuture<List<OrderDto>> getOrderListAllAsync(String transactionId, String fields) {
+        return async(() -> getOrderListAll(transactionId, fields));
+    }
+
+    public CompletableFuture<List<OrderDto>> getOrderListByPkAsync(OrderDto orderDto, String transactionId, String fields) {
+        return async(() -> getOrderListByPk(orderDto, transactionId, fields));
+    }
 }
@@ -0,0 +1,122 @@
+package com.example.demo_multiple_tm_order.service;
+
+import com.example.demo_multiple_tm_order.dto.ApiResponse;
+import com.example.demo_multiple_tm_order.exception.CustomException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Per-participant circuit breakers for the 2PC coordinator (twopc.circuit-breaker.enabled=true)
+ *
+ * - One Resilience4j breaker per participant base URL (see TwoPCMetrics.participantOf)
+ * - Only CRUD, prepare and validate calls go through it; commit and rollback are always sent
+ * - Failures are I/O errors and timeouts (ResourceAccessException) and 5xx responses without an
+ *   ApiResponse error code or with 9500/9800. Conflicts and unknown status (9200, 9300) are also
+ *   returned as 500, but they are normal under contention and count as successful calls, like
+ *   business errors (4xx)
+ * - The circuit opens when the failure rate or the rate of calls slower than
+ *   twopc.circuit-breaker.slow-call-ms passes its threshold in the sliding window, and lets
+ *   twopc.circuit-breaker.half-open-calls probe calls through after twopc.circuit-breaker.open-ms
+ * - checkAvailable() rejects a request before its transaction starts when a participant's circuit
+ *   is open; call() rejects a single participant call. Both fail with error code 9810
+ *
+ * Metrics: resilience4j.circuitbreaker.state{name,state}, resilience4j.circuitbreaker.calls{name,kind}
+ * and resilience4j.circuitbreaker.not.permitted.calls{name}.
+ */
+@Component
+public class ParticipantCircuitBreakers {
+
+    // Transaction outcomes a healthy participant can return with a 5xx status
+    private static final Set<Integer> TRANSACTION_ERROR_CODES = Set.of(9100, 9200, 9300, 9400, 9820);
+
+    private final boolean enabled;
+    private final CircuitBreakerRegistry registry;
+
+    public ParticipantCircuitBreakers(@Value("${twopc.circuit-breaker.enabled:true}") boolean enabled,
+                                      @Value("${twopc.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+                                      @Value("${twopc.circuit-breaker.slow-call-rate-threshold:80}") float slowCallRateThreshold,
+                                      @Value("${twopc.circuit-breaker.slow-call-ms:2000}") long slowCallMs,
+                                      @Value("${twopc.circuit-breaker.window-size:20}") int windowSize,
+                                      @Value("${twopc.circuit-breaker.minimum-calls:10}") int minimumCalls,
+                                      @Value("${twopc.circuit-breaker.open-ms:10000}") long openMs,
+                                      @Value("${twopc.circuit-breaker.half-open-calls:3}") int halfOpenCalls,
+                                      MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(windowSize)
+                .minimumNumberOfCalls(minimumCalls)
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slowCallDurationThreshold(Duration.ofMillis(slowCallMs))
+                .waitDurationInOpenState(Duration.ofMillis(openMs))
+                .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+                .recordException(ParticipantCircuitBreakers::isParticipantFailure)
+                .build();
+        this.registry = CircuitBreakerRegistry.of(config);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+    }
+
+    // Fail fast (9810) if the circuit of any participant is open; no permission is kept
+    public void checkAvailable(String... participants) throws CustomException {
+        if (!enabled) {
+            return;
+        }
+        for (String participant : participants) {
+            CircuitBreaker breaker = registry.circuitBreaker(participant);
+            if (!breaker.tryAcquirePermission()) {
+                throw notPermitted(participant, null);
+            }
+            breaker.releasePermission();
+        }
+    }
+
+    // Run one participant call through the participant's breaker
+    public <R> R call(String participant, Supplier<R> call) throws CustomException {
+        if (!enabled) {
+            return call.get();
+        }
+        try {
+            return registry.circuitBreaker(participant).executeSupplier(call);
+        } catch (CallNotPermittedException e) {
+            throw notPermitted(participant, e);
+        }
+    }
+
+    private static CustomException notPermitted(String participant, Exception cause) {
+        return new CustomException("Circuit breaker is open for participant " + participant, cause, 9810);
+    }
+
+    // Transport errors and real server failures open the circuit; ScalarDB conflicts do not
+    static boolean isParticipantFailure(Throwable t) {
+        if (t instanceof ResourceAccessException) {
+            return true;
+        }
+        if (t instanceof HttpServerErrorException e) {
+            Integer errorCode = errorCodeOf(e);
+            return errorCode == null || !TRANSACTION_ERROR_CODES.contains(errorCode);
+        }
+        return false;
+    }
+
+    private static Integer errorCodeOf(HttpServerErrorException e) {
+        try {
+            ApiResponse<?> body = e.getResponseBodyAs(ApiResponse.class);
+            return body != null ? body.getErrorCode() : null;
+        } catch (RuntimeException ex) {
+            return null;
+        }
+    }
+}
@@ -11,7 +11,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -49,6 +48,9 @@ public class PlaceOrderTwoPCBffService extends BaseTwoPCBffService {
 
     // Create Record
     public ResponseStatusDto placeOrder(OrderDto orderDto) throws CustomException {
+        checkParticipants(urlInventory, urlOrder);
+        AdaptiveConcurrencyLimiter.Permit permit = acquirePermit();
+        boolean committed = false;
         TwoPhaseCommitTransaction transaction = null;
         ProductDto productDto = ProductDto.builder()
                 .id(orderDto.getProductId())
@@ -56,13 +58,11 @@ public class PlaceOrderTwoPCBffService extends BaseTwoPCBffService {
         boolean isCommitted = false;
 
         try {
-            transaction = manager.start();
+            transaction = startTransaction();
             String transactionId = transaction.getId();
             log.info("Starting 2PC transaction: {}", transactionId);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("ScalarDB-Transaction-ID", transactionId);
+            HttpHeaders headers = createHeaders(transactionId);
 
 
             // Get Inventory Info
@@ -91,6 +91,7 @@ public class PlaceOrderTwoPCBffService extends BaseTwoPCBffService {
             executeTwoPcPhase(urlInventory + "/commit", headers);
             isCommitted = true;
             executeTwoPcPhase(urlOrder + "/commit", headers);
+            committed = true;
 
             log.info("2PC transaction committed: {}", transactionId);
 
@@ -99,13 +100,15 @@ public class PlaceOrderTwoPCBffService extends BaseTwoPCBffService {
             log.error("2PC transaction failed: {}", e.getMessage(), e);
             if (transaction != null ) {
                 if( !isCommitted ){
-                    handleTransactionRollback(transaction, BASE_URL4INVENTORY + "/rollback", transaction.getId());
-                    handleTransactionRollback(transaction, BASE_URL4ORDER + "/rollback", transaction.getId());
+                    handleTransactionRollback(transaction, urlInventory + "/rollback", transaction.getId());
+                    handleTransactionRollback(transaction, urlOrder + "/rollback", transaction.getId());
                 }else{
                     log.info("Some of tables need Lazy Recovery: {}", transaction.getId());
                 }
             }
-            throw new CustomException(e, determineErrorCode(e));
+            throw new CustomException(e, recordAbort(e));
+        } finally {
+            permit.release(committed);
         }
     }
 
@@ -0,0 +1,225 @@
+package com.example.demo_multiple_tm_order.service;
+
+import com.example.demo_multiple_tm_order.dto.SqlCommandDto;
+import com.example.demo_multiple_tm_order.exception.CustomException;
+import com.example.demo_multiple_tm_order.util.RequestDeadline;
+import com.example.demo_multiple_tm_order.util.SqlRowGuard;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Row, size and time limits for ad-hoc SQL (/generic-sql/execute, /order/execute-sql)
+ *
+ * - Global limits come from sql.governor.*; a request may lower them (maxRows, maxBytes, timeoutMs
+ *   in SqlCommandDto) but not raise them, and the time limit never outlasts the request deadline
+ * - The statement runs on a worker pool (sql.governor.threads) with a bounded queue
+ *   (sql.governor.queue-capacity); a full queue rejects the request with 9800. Trace, MDC and
+ *   deadline context is copied to the workers (ContextPropagatingTaskDecorator)
+ * - The guard counts rows and estimated bytes while the result is read and stops the read when a
+ *   limit is exceeded (9710 rows, 9720 bytes)
+ * - If the time limit passes before commit, the caller gets 9730 at once; the worker is interrupted
+ *   and its guard fails at the next row or before commit, so the session is rolled back by the service
+ * - Once the commit has started (SqlRowGuard.beginCommit) the work is not cancelled: the caller waits
+ *   for the commit and gets its real outcome, so 9730 always means nothing was committed
+ *
+ * Metrics: sql.governor.limit.exceeded{limit=rows|bytes|time}.
+ */
+@Slf4j
+@Component
+public class SqlResourceGovernor implements DisposableBean {
+
+    public static final String LIMIT_ROWS = "rows";
+    public static final String LIMIT_BYTES = "bytes";
+    public static final String LIMIT_TIME = "time";
+
+    private static final Map<String, Integer> ERROR_CODES = Map.of(LIMIT_ROWS, 9710, LIMIT_BYTES, 9720, LIMIT_TIME, 9730);
+
+    private final long maxRows;
+    private final long maxBytes;
+    private final long timeoutMs;
+    private final ThreadPoolTaskExecutor executor;
+    private final Map<String, Counter> limitCounters;
+
+    public SqlResourceGovernor(@Value("${sql.governor.max-rows:10000}") long maxRows,
+                               @Value("${sql.governor.max-bytes:67108864}") long maxBytes,
+                               @Value("${sql.governor.timeout-ms:30000}") long timeoutMs,
+                               @Value("${sql.governor.threads:8}") int threads,
+                               @Value("${sql.governor.queue-capacity:64}") int queueCapacity,
+                               MeterRegistry meterRegistry) {
+        this.maxRows = maxRows;
+        this.maxBytes = maxBytes;
+        this.timeoutMs = timeoutMs;
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("sql-governor-");
+        executor.setDaemon(true);
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+        executor.initialize();
+        this.limitCounters = Map.of(
+                LIMIT_ROWS, limitCounter(meterRegistry, LIMIT_ROWS),
+                LIMIT_BYTES, limitCounter(meterRegistry, LIMIT_BYTES),
+                LIMIT_TIME, limitCounter(meterRegistry, LIMIT_TIME));
+    }
+
+    // Limits for one request: the global limits, lowered by any limits set in the request
+    public Limits limitsFor(SqlCommandDto sqlCommandDto) {
+        return limitsFor(sqlCommandDto.getMaxRows(), sqlCommandDto.getMaxBytes(), sqlCommandDto.getTimeoutMs());
+    }
+
+    // Limits for one request from individual values (null = global limit), capped by the request deadline
+    public Limits limitsFor(Integer requestMaxRows, Long requestMaxBytes, Long requestTimeoutMs) {
+        return new Limits(
+                lower(maxRows, requestMaxRows),
+                lower(maxBytes, requestMaxBytes),
+                Math.max(1, Math.min(lower(timeoutMs, requestTimeoutMs), RequestDeadline.remainingMs())));
+    }
+
+    // Run work under the limits; work reads its result through the given guard
+    public <T> T execute(Limits limits, Function<SqlRowGuard, T> work) throws CustomException {
+        RequestDeadline.check("SQL statement");
+        Guard guard = new Guard(limits);
+        Future<T> future;
+        try {
+            future = executor.submit(() -> work.apply(guard));
+        } catch (RejectedExecutionException e) {
+            throw new CustomException("SQL worker queue is full, retry later", e, 9800);
+        }
+        try {
+            try {
+                return future.get(limits.timeoutMs(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (guard.tryCancel()) {
+                    future.cancel(true);
+                    throw new CustomException("Query exceeded the time limit of " + limits.timeoutMs() + " ms", 9730);
+                }
+                // The commit has already started: report its outcome, not a timeout
+                return future.get();
+            }
+        } catch (InterruptedException e) {
+            if (guard.tryCancel()) {
+                future.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new CustomException(e, 9500);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new CustomException(e, 9500);
+        }
+    }
+
+    // Error code for a limit exception raised by a guard
+    public static int errorCodeOf(SqlRowGuard.LimitExceededException e) {
+        return ERROR_CODES.getOrDefault(e.getLimit(), 9400);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private static long lower(long global, Number requested) {
+        return requested != null && requested.longValue() > 0 ? Math.min(global, requested.longValue()) : global;
+    }
+
+    private static Counter limitCounter(MeterRegistry meterRegistry, String limit) {
+        return Counter.builder("sql.governor.limit.exceeded")
+                .description("Ad-hoc SQL requests stopped by a resource limit")
+                .tag("limit", limit)
+                .register(meterRegistry);
+    }
+
+    public record Limits(long maxRows, long maxBytes, long timeoutMs) {
+    }
+
+    private class Guard implements SqlRowGuard {
+        private static final int RUNNING = 0;
+        private static final int COMMITTING = 1;
+        private static final int CANCELLED = 2;
+
+        private final Limits limits;
+        private final long deadlineNanos;
+        private final AtomicBoolean fired = new AtomicBoolean();
+        private final AtomicInteger state = new AtomicInteger(RUNNING);
+        private long rows;
+        private long bytes;
+
+        Guard(Limits limits) {
+            this.limits = limits;
+            this.deadlineNanos = System.nanoTime() + limits.timeoutMs() * 1_000_000L;
+        }
+
+        // Cancel the work unless its commit has started; false means the caller must wait for the commit
+        boolean tryCancel() {
+            if (!state.compareAndSet(RUNNING, CANCELLED)) {
+                return state.get() == CANCELLED;
+            }
+            fire(LIMIT_TIME);
+            return true;
+        }
+
+        @Override
+        public void onRow(long estimatedBytes) {
+            checkpoint();
+            rows++;
+            bytes += estimatedBytes;
+            if (rows > limits.maxRows()) {
+                throw exceeded(LIMIT_ROWS, "Query returned more than " + limits.maxRows() + " rows");
+            }
+            if (bytes > limits.maxBytes()) {
+                throw exceeded(LIMIT_BYTES, "Query result exceeded " + limits.maxBytes() + " bytes");
+            }
+        }
+
+        @Override
+        public void checkpoint() {
+            if (state.get() == CANCELLED || Thread.currentThread().isInterrupted() || System.nanoTime() > deadlineNanos) {
+                throw timeLimitExceeded();
+            }
+        }
+
+        @Override
+        public void beginCommit() {
+            checkpoint();
+            if (!state.compareAndSet(RUNNING, COMMITTING)) {
+                throw timeLimitExceeded();
+            }
+        }
+
+        private LimitExceededException timeLimitExceeded() {
+            return exceeded(LIMIT_TIME, "Query exceeded the time limit of " + limits.timeoutMs() + " ms");
+        }
+
+        private LimitExceededException exceeded(String limit, String message) {
+            fire(limit);
+            return new LimitExceededException(limit, message);
+        }
+
+        // Count each request once, for the first limit that fired
+        private void fire(String limit) {
+            if (fired.compareAndSet(false, true)) {
+                limitCounters.get(limit).increment();
+                log.warn("SQL resource limit exceeded: {}", limit);
+            }
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.example.demo_multiple_tm_order.service;
+
+import com.example.demo_multiple_tm_order.util.SqlResultTable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.temporal.Temporal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Result cache for read-only SQL statements (sql.cache.enabled=true)
+ *
+ * - Keyed by result format and normalized statement text (whitespace outside literals collapsed,
+ *   trailing semicolon removed)
+ * - Entries expire after sql.cache.ttl-ms; the least recently used entries are evicted when the
+ *   estimated size exceeds sql.cache.max-bytes
+ * - invalidateStatement / invalidateTables drop every entry that reads an affected table. Each
+ *   table has a version counter; a result is only stored if no table it reads was invalidated
+ *   while it was being computed, so a concurrent write cannot leave a stale entry behind
+ * - Writes made outside this process or without an invalidation call are only bounded by the TTL
+ *
+ * Metrics: sql.cache.requests{result=hit|miss}, sql.cache.evictions{reason}, sql.cache.bytes,
+ * sql.cache.entries.
+ */
+@Component
+public class SqlResultCache {
+
+    // Table references after FROM / JOIN / INTO / UPDATE (namespace.table or table, optionally quoted)
+    private static final Pattern TABLE_REFERENCE = Pattern.compile(
+            "\\b(?:FROM|JOIN|INTO|UPDATE)\\s+\"?([A-Za-z_]\\w*)\"?(?:\\.\"?([A-Za-z_]\\w*)\"?)?", Pattern.CASE_INSENSITIVE);
+
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final long maxBytes;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Long> tableVersions = new HashMap<>();
+    private long totalBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter expired;
+    private final Counter evictedForSize;
+    private final Counter invalidated;
+
+    public SqlResultCache(@Value("${sql.cache.enabled:false}") boolean enabled,
+                          @Value("${sql.cache.ttl-ms:5000}") long ttlMs,
+                          @Value("${sql.cache.max-bytes:16777216}") long maxBytes,
+                          MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.ttlNanos = ttlMs * 1_000_000L;
+        this.maxBytes = maxBytes;
+        this.hits = Counter.builder("sql.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("sql.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.expired = Counter.builder("sql.cache.evictions").tag("reason", "expired").register(meterRegistry);
+        this.evictedForSize = Counter.builder("sql.cache.evictions").tag("reason", "size").register(meterRegistry);
+        this.invalidated = Counter.builder("sql.cache.evictions").tag("reason", "invalidated").register(meterRegistry);
+        Gauge.builder("sql.cache.bytes", this, cache -> cache.currentBytes()).register(meterRegistry);
+        Gauge.builder("sql.cache.entries", this, cache -> cache.currentEntries()).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Whether a statement may be served from the cache (plain SELECT)
+    public static boolean isCacheable(String sql) {
+        return sql != null && sql.trim().toUpperCase(Locale.ROOT).startsWith("SELECT");
+    }
+
+    // Return the cached result for (format, sql) or compute and store it
+    @SuppressWarnings("unchecked")
+    public <T> T getOrLoad(String format, String sql, Supplier<T> loader) {
+        if (!enabled || !isCacheable(sql)) {
+            return loader.get();
+        }
+        String key = format + ":" + normalize(sql);
+        Set<String> tables = tablesOf(sql);
+        Map<String, Long> versions;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.createdNanos < ttlNanos) {
+                    hits.increment();
+                    return (T) entry.value;
+                }
+                remove(key);
+                expired.increment();
+            }
+            misses.increment();
+            versions = versionsOf(tables);
+        }
+
+        T value = loader.get();
+        long bytes = estimateBytes(value);
+        synchronized (this) {
+            if (bytes <= maxBytes && versions.equals(versionsOf(tables))) {
+                Entry previous = entries.put(key, new Entry(value, tables, bytes, System.nanoTime()));
+                if (previous != null) {
+                    totalBytes -= previous.bytes;
+                }
+                totalBytes += bytes;
+                evictToSize();
+            }
+        }
+        return value;
+    }
+
+    // Invalidate the tables written by a DML statement
+    public void invalidateStatement(String sql) {
+        if (enabled) {
+            invalidateTables(tablesOf(sql));
+        }
+    }
+
+    // Invalidate every entry reading one of the given tables (namespace.table, lower case)
+    public synchronized void invalidateTables(Collection<String> tables) {
+        if (!enabled || tables.isEmpty()) {
+            return;
+        }
+        for (String table : tables) {
+            tableVersions.merge(table, 1L, Long::sum);
+        }
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            if (!Collections.disjoint(entry.tables, tables)) {
+                totalBytes -= entry.bytes;
+                iterator.remove();
+                invalidated.increment();
+            }
+        }
+    }
+
+    private synchronized long currentBytes() {
+        return totalBytes;
+    }
+
+    private synchronized int currentEntries() {
+        return entries.size();
+    }
+
+    private void evictToSize() {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            totalBytes -= iterator.next().getValue().bytes;
+            iterator.remove();
+            evictedForSize.increment();
+        }
+    }
+
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            totalBytes -= entry.bytes;
+        }
+    }
+
+    private Map<String, Long> versionsOf(Set<String> tables) {
+        Map<String, Long> versions = new HashMap<>();
+        for (String table : tables) {
+            versions.put(table, tableVersions.getOrDefault(table, 0L));
+        }
+        return versions;
+    }
+
+    // Collapse whitespace outside single-quoted literals and drop trailing semicolons
+    static String normalize(String sql) {
+        StringBuilder normalized = new StringBuilder(sql.length());
+        boolean inLiteral = false;
+        boolean pendingSpace = false;
+        for (char c : sql.trim().toCharArray()) {
+            if (c == '\'') {
+                inLiteral = !inLiteral;
+            }
+            if (!inLiteral && Character.isWhitespace(c)) {
+                pendingSpace = true;
+                continue;
+            }
+            if (pendingSpace && normalized.length() > 0) {
+                normalized.append(' ');
+            }
+            pendingSpace = false;
+            normalized.append(c);
+        }
+        int end = normalized.length();
+        while (end > 0 && (normalized.charAt(end - 1) == ';' || normalized.charAt(end - 1) == ' ')) {
+            end--;
+        }
+        return normalized.substring(0, end);
+    }
+
+    static Set<String> tablesOf(String sql) {
+        Set<String> tables = new HashSet<>();
+        Matcher matcher = TABLE_REFERENCE.matcher(sql);
+        while (matcher.find()) {
+            String table = matcher.group(2) == null ? matcher.group(1) : matcher.group(1) + "." + matcher.group(2);
+            tables.add(table.toLowerCase(Locale.ROOT));
+        }
+        return tables;
+    }
+
+    // Rough heap size of a result (maps/lists of scalar values or SqlResultTable)
+    private static long estimateBytes(Object value) {
+        if (value == null) {
+            return 8;
+        }
+        if (value instanceof SqlResultTable table) {
+            long bytes = 64 + estimateBytes(table.getColumns());
+            for (Object[] row : table.getRows()) {
+                bytes += 16 + 8L * row.length;
+                for (Object column : row) {
+                    bytes += estimateBytes(column);
+                }
+            }
+            return bytes;
+        }
+        if (value instanceof Map<?, ?> map) {
+            long bytes = 64;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                bytes += 32 + estimateBytes(entry.getKey()) + estimateBytes(entry.getValue());
+            }
+            return bytes;
+        }
+        if (value instanceof List<?> list) {
+            long bytes = 40;
+            for (Object element : list) {
+                bytes += 8 + estimateBytes(element);
+            }
+            return bytes;
+        }
+        if (value instanceof String string) {
+            return 40 + string.length();
+        }
+        if (value instanceof byte[] bytes) {
+            return 16 + bytes.length;
+        }
+        if (value instanceof Temporal) {
+            return 48;
+        }
+        // Object fields of DTOs and boxed numbers
+        return 24;
+    }
+
+    private record Entry(Object value, Set<String> tables, long bytes, long createdNanos) {
+    }
+}
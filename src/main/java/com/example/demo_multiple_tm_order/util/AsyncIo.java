@@ -0,0 +1,30 @@
+package com.example.demo_multiple_tm_order.util;
+
+import com.example.demo_multiple_tm_order.exception.CustomException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking ScalarDB calls on the I/O executor and returns them as CompletableFuture
+ *
+ * A CustomException thrown by the call completes the future exceptionally; Spring MVC unwraps it
+ * so the controller's @ExceptionHandler still maps the error code. A saturated executor fails the
+ * future with error code 9800 (503 + Retry-After, same as load shedding) instead of throwing on the
+ * request thread.
+ */
+public final class AsyncIo {
+
+    private AsyncIo() {
+    }
+
+    public static <T> CompletableFuture<T> supply(Executor executor, Supplier<T> call) {
+        try {
+            return CompletableFuture.supplyAsync(call, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new CustomException("I/O executor is saturated, retry later", e, 9800));
+        }
+    }
+}
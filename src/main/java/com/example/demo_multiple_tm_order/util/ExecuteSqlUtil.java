@@ -19,7 +19,8 @@ import java.util.stream.Collectors;
 
 /**
  * Utility class for executing SQL queries and mapping results to entity objects.
- * This class uses reflection to map ScalarDB records to Java objects with validation.
+ * This class uses reflection to map ScalarDB records to Java objects with validation,
+ * unless a {@link SqlRecordMapper} is supplied, in which case no reflection is used.
  *
  * @param <T> The type of entity object to map results to
  */
@@ -54,6 +55,7 @@ public class ExecuteSqlUtil<T> {
     private final Constructor<T> constructor;
     private final Map<String, FieldSetterPair> fieldSetterMap;
     private final Set<String> entityColumns;
+    private final SqlRecordMapper<T> recordMapper;
     
     /**
      * Creates a new ExecuteSqlUtil instance for the specified entity class.
@@ -63,6 +65,7 @@ public class ExecuteSqlUtil<T> {
      */
     public ExecuteSqlUtil(Class<T> entityClass) {
         this.entityClass = entityClass;
+        this.recordMapper = null;
         try {
             this.constructor = entityClass.getDeclaredConstructor();
             this.constructor.setAccessible(true);
@@ -76,6 +79,20 @@ public class ExecuteSqlUtil<T> {
         this.entityColumns = entityColumnsCache.computeIfAbsent(entityClass, this::extractEntityColumns);
     }
     
+    /**
+     * Creates a new ExecuteSqlUtil instance that maps records with the given mapper instead of reflection.
+     *
+     * @param entityClass The class of entities to create from query results
+     * @param recordMapper The mapper used to build entities from records
+     */
+    public ExecuteSqlUtil(Class<T> entityClass, SqlRecordMapper<T> recordMapper) {
+        this.entityClass = entityClass;
+        this.recordMapper = Objects.requireNonNull(recordMapper, "recordMapper");
+        this.constructor = null;
+        this.fieldSetterMap = Collections.emptyMap();
+        this.entityColumns = recordMapper.getColumns();
+    }
+    
     /**
      * Executes a SQL query and maps the results to a list of entity objects.
      *
@@ -86,26 +103,28 @@ public class ExecuteSqlUtil<T> {
      * @throws ValidationException if validation fails
      */
     public List<T> executeSQL(SqlSession sqlSession, String statement) throws CrudException {
+        return executeSQL(sqlSession, statement, SqlRowGuard.NONE);
+    }
+
+    /**
+     * Executes a SQL statement and maps the results, reporting every row to a guard.
+     *
+     * @param sqlSession The SQL session to use
+     * @param statement The SQL statement to execute
+     * @param guard Called once per mapped row; may stop the read by throwing
+     * @return List of mapped entity objects
+     * @throws CrudException if the query execution fails
+     * @throws ValidationException if validation fails
+     */
+    public List<T> executeSQL(SqlSession sqlSession, String statement, SqlRowGuard guard) throws CrudException {
         // Validate SQL statement
         validateSqlStatement(statement);
         
         try {
-            List<T> results = new ArrayList<>();
-            
             ResultSet resultSet = sqlSession.execute(statement);
-            List<Record> records = resultSet.all();
-            ColumnDefinitions columnDefinitions = resultSet.getColumnDefinitions();
-            
-            // Validate that all result columns can be mapped to entity fields
-            validateResultColumns(columnDefinitions);
-            
-            for (Record record : records) {
-                results.add(mapRecordToEntity(record, columnDefinitions));
-            }
-            
-            return results;
-        } catch (ValidationException e) {
-            throw e; // Re-throw validation exceptions
+            return mapResultSet(resultSet, guard);
+        } catch (ValidationException | SqlRowGuard.LimitExceededException e) {
+            throw e; // Re-throw validation and guard exceptions
         } catch (Exception e) {
             if (e instanceof CrudException) {
                 throw (CrudException) e;
@@ -114,13 +133,49 @@ public class ExecuteSqlUtil<T> {
         }
     }
     
+    /**
+     * Maps all records of a result set to entity objects.
+     *
+     * @param resultSet The result set returned by the SQL session
+     * @return List of mapped entity objects
+     * @throws ValidationException if result columns cannot be mapped to the entity
+     */
+    public List<T> mapResultSet(ResultSet resultSet) {
+        return mapResultSet(resultSet, SqlRowGuard.NONE);
+    }
+
+    /**
+     * Maps the records of a result set to entity objects, reporting every row to a guard.
+     * Records are iterated rather than collected with all(), so the guard can stop early.
+     *
+     * @param resultSet The result set returned by the SQL session
+     * @param guard Called once per mapped row; may stop the read by throwing
+     * @return List of mapped entity objects
+     * @throws ValidationException if result columns cannot be mapped to the entity
+     */
+    public List<T> mapResultSet(ResultSet resultSet, SqlRowGuard guard) {
+        List<T> results = new ArrayList<>();
+        ColumnDefinitions columnDefinitions = resultSet.getColumnDefinitions();
+        
+        // Validate that all result columns can be mapped to entity fields
+        validateResultColumns(columnDefinitions);
+        
+        long rowBytes = 32 + 24L * columnDefinitions.size();
+        for (Record record : resultSet) {
+            results.add(mapRecordToEntity(record, columnDefinitions));
+            guard.onRow(rowBytes);
+        }
+        
+        return results;
+    }
+    
     /**
      * Validates the SQL statement for potential security issues.
      *
      * @param statement The SQL statement to validate
      * @throws ValidationException if potential SQL injection is detected
      */
-    private void validateSqlStatement(String statement) {
+    public static void validateSqlStatement(String statement) {
         if (statement == null || statement.trim().isEmpty()) {
             throw new ValidationException("SQL statement cannot be null or empty");
         }
@@ -167,6 +222,22 @@ public class ExecuteSqlUtil<T> {
     private void validateResultColumns(ColumnDefinitions columnDefinitions) {
         List<String> unmappedColumns = new ArrayList<>();
         
+        if (recordMapper != null) {
+            for (ColumnDefinition column : columnDefinitions) {
+                if (!entityColumns.contains(column.getColumnName())) {
+                    unmappedColumns.add(column.getColumnName());
+                }
+            }
+            if (!unmappedColumns.isEmpty()) {
+                throw new ValidationException(
+                    String.format("Cannot map columns %s to entity %s. Available columns: [%s]",
+                        unmappedColumns, entityClass.getSimpleName(),
+                        entityColumns.stream().sorted().collect(Collectors.joining(", ")))
+                );
+            }
+            return;
+        }
+        
         for (ColumnDefinition column : columnDefinitions) {
             String columnName = column.getColumnName();
             String camelCaseName = CaseUtils.toCamelCase(columnName, false, '_');
@@ -228,6 +299,40 @@ public class ExecuteSqlUtil<T> {
         }
     }
     
+    /**
+     * Resolves a comma-separated field list (snake_case or camelCase) to entity column names.
+     *
+     * @param fields Comma-separated field names, or null/blank for all columns
+     * @return The matching column names in request order, or an empty list for all columns
+     * @throws ValidationException if a field is not defined in the entity
+     */
+    public List<String> resolveRequestedColumns(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return Collections.emptyList();
+        }
+        Set<String> requestedColumns = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            if (!field.isBlank()) {
+                requestedColumns.add(field.trim());
+            }
+        }
+        validateRequestedColumns(requestedColumns);
+        
+        List<String> columns = new ArrayList<>();
+        for (String column : requestedColumns) {
+            String normalizedColumn = column.toLowerCase().replace("_", "");
+            for (String entityColumn : entityColumns) {
+                if (entityColumn.toLowerCase().replace("_", "").equals(normalizedColumn)) {
+                    if (!columns.contains(entityColumn)) {
+                        columns.add(entityColumn);
+                    }
+                    break;
+                }
+            }
+        }
+        return columns;
+    }
+    
     /**
      * Sanitizes a value for safe inclusion in SQL queries.
      *
@@ -261,6 +366,9 @@ public class ExecuteSqlUtil<T> {
      * @return The mapped entity object
      */
     private T mapRecordToEntity(Record record, ColumnDefinitions columnDefinitions) {
+        if (recordMapper != null) {
+            return recordMapper.map(record, columnDefinitions);
+        }
         try {
             T entity = constructor.newInstance();
             
@@ -3,6 +3,10 @@ package com.example.demo_multiple_tm_order.util;
 import com.scalar.db.sql.Record;
 import com.scalar.db.sql.*;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.*;
 
 public class GenericSqlUtil {
@@ -14,23 +18,166 @@ public class GenericSqlUtil {
     }
 
     public List<Map<String, Object>> executeQuery(String sql) {
-        List<Map<String, Object>> results = new ArrayList<>();
+        return executeQuery(sql, SqlRowGuard.NONE);
+    }
+
+    public List<Map<String, Object>> executeQuery(String sql, SqlRowGuard guard) {
         ResultSet resultSet = sqlSession.execute(sql);
-        List<Record> records = resultSet.all();
+        return buildRows(resultSet, guard);
+    }
+
+    public SqlResultTable executeQueryAsTable(String sql) {
+        return executeQueryAsTable(sql, SqlRowGuard.NONE);
+    }
+
+    public SqlResultTable executeQueryAsTable(String sql, SqlRowGuard guard) {
+        ResultSet resultSet = sqlSession.execute(sql);
+        return buildTable(resultSet, guard);
+    }
+
+    // Execute one statement, binding params to its ? placeholders when any are given
+    public SqlResultTable executeStatementAsTable(String sql, List<Object> params, SqlRowGuard guard) {
+        ResultSet resultSet;
+        if (params == null || params.isEmpty()) {
+            resultSet = sqlSession.execute(sql);
+        } else {
+            PreparedStatement preparedStatement = sqlSession.prepareStatement(sql);
+            for (int i = 0; i < params.size(); i++) {
+                preparedStatement.set(i, toValue(params.get(i)));
+            }
+            resultSet = preparedStatement.execute();
+        }
+        return buildTable(resultSet, guard);
+    }
+
+    // Bind value from a JSON parameter: a scalar, or {"type": "<ScalarDB SQL type>", "value": ...}
+    public static Value toValue(Object param) {
+        if (param == null) {
+            return Value.ofNull();
+        }
+        if (param instanceof Map<?, ?> typed) {
+            Object type = typed.get("type");
+            Object value = typed.get("value");
+            if (type == null) {
+                throw new IllegalArgumentException("Typed parameter requires \"type\"");
+            }
+            if (value == null) {
+                return Value.ofNull();
+            }
+            String text = value.toString();
+            return switch (type.toString().toUpperCase(Locale.ROOT)) {
+                case "BOOLEAN" -> Value.ofBoolean(Boolean.parseBoolean(text));
+                case "INT" -> Value.ofInt(Integer.parseInt(text));
+                case "BIGINT" -> Value.ofBigInt(Long.parseLong(text));
+                case "FLOAT" -> Value.ofFloat(Float.parseFloat(text));
+                case "DOUBLE" -> Value.ofDouble(Double.parseDouble(text));
+                case "TEXT" -> Value.ofText(text);
+                case "BLOB" -> Value.ofBlob(Base64.getDecoder().decode(text));
+                case "DATE" -> Value.ofDate(LocalDate.parse(text));
+                case "TIME" -> Value.ofTime(LocalTime.parse(text));
+                case "TIMESTAMP" -> Value.ofTimestamp(LocalDateTime.parse(text));
+                case "TIMESTAMPTZ" -> Value.ofTimestampTZ(Instant.parse(text));
+                default -> throw new IllegalArgumentException("Unsupported parameter type: " + type);
+            };
+        }
+        if (param instanceof Integer value) {
+            return Value.ofInt(value);
+        }
+        if (param instanceof Long value) {
+            return Value.ofBigInt(value);
+        }
+        if (param instanceof Float value) {
+            return Value.ofFloat(value);
+        }
+        if (param instanceof Double value) {
+            return Value.ofDouble(value);
+        }
+        // BigInteger / BigDecimal (numbers beyond long or double range) would lose precision as a double
+        if (param instanceof Number) {
+            throw new IllegalArgumentException("Unsupported numeric parameter " + param
+                    + " (" + param.getClass().getSimpleName() + "); use {\"type\": ..., \"value\": ...}");
+        }
+        if (param instanceof Boolean value) {
+            return Value.ofBoolean(value);
+        }
+        if (param instanceof String value) {
+            return Value.ofText(value);
+        }
+        throw new IllegalArgumentException("Unsupported parameter: " + param);
+    }
+
+    public static List<Map<String, Object>> buildRows(ResultSet resultSet) {
+        return buildRows(resultSet, SqlRowGuard.NONE);
+    }
+
+    // Records are iterated rather than collected with all(), so the guard can stop a large result early
+    public static List<Map<String, Object>> buildRows(ResultSet resultSet, SqlRowGuard guard) {
+        List<Map<String, Object>> results = new ArrayList<>();
         ColumnDefinitions columnDefinitions = resultSet.getColumnDefinitions();
-        for (Record record : records) {
+        for (Record record : resultSet) {
             Map<String, Object> row = new HashMap<>();
+            long rowBytes = 64;
             for (int i = 0; i < columnDefinitions.size(); i++) {
                 String columnName = columnDefinitions.getColumnDefinition(i).getColumnName();
                 com.scalar.db.sql.DataType type = columnDefinitions.getColumnDefinition(i).getDataType();
-                row.put(columnName, getColumnValue(record, columnName, type));
+                Object value = getColumnValue(record, columnName, type);
+                row.put(columnName, value);
+                rowBytes += 32 + SqlRowGuard.estimateValueBytes(value);
             }
+            guard.onRow(rowBytes);
             results.add(row);
         }
         return results;
     }
 
-    private Object getColumnValue(Record resultSet, String columnName, com.scalar.db.sql.DataType type) {
+    public static SqlResultTable buildTable(ResultSet resultSet) {
+        return buildTable(resultSet, SqlRowGuard.NONE);
+    }
+
+    // Column names and types are resolved once; each row is an Object[] read by column index (NULL -> null)
+    public static SqlResultTable buildTable(ResultSet resultSet, SqlRowGuard guard) {
+        ColumnDefinitions columnDefinitions = resultSet.getColumnDefinitions();
+        int columnCount = columnDefinitions.size();
+        List<String> columns = new ArrayList<>(columnCount);
+        com.scalar.db.sql.DataType[] types = new com.scalar.db.sql.DataType[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            ColumnDefinition columnDefinition = columnDefinitions.getColumnDefinition(i);
+            columns.add(columnDefinition.getColumnName());
+            types[i] = columnDefinition.getDataType();
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        for (Record record : resultSet) {
+            Object[] row = new Object[columnCount];
+            long rowBytes = 16 + 8L * columnCount;
+            for (int i = 0; i < columnCount; i++) {
+                row[i] = record.isNull(i) ? null : getColumnValue(record, i, types[i]);
+                rowBytes += SqlRowGuard.estimateValueBytes(row[i]);
+            }
+            guard.onRow(rowBytes);
+            rows.add(row);
+        }
+        return new SqlResultTable(columns, rows);
+    }
+
+    private static Object getColumnValue(Record record, int i, com.scalar.db.sql.DataType type) {
+        return switch (type) {
+            case BOOLEAN -> record.getBoolean(i);
+            case INT -> record.getInt(i);
+            case BIGINT -> record.getBigInt(i);
+            case FLOAT -> record.getFloat(i);
+            case DOUBLE -> record.getDouble(i);
+            case TEXT -> record.getText(i);
+            case BLOB -> record.getBlobAsBytes(i);
+            case DATE -> record.getDate(i);
+            case TIME -> record.getTime(i);
+            case TIMESTAMP -> record.getTimestamp(i);
+            case TIMESTAMPTZ -> record.getTimestampTZ(i);
+            default -> null; // Handle unknown types safely
+        };
+    }
+
+    private static Object getColumnValue(Record resultSet, String columnName, com.scalar.db.sql.DataType type) {
         return switch (type) {
             case BOOLEAN -> resultSet.getBoolean(columnName);
             case INT -> resultSet.getInt(columnName);
@@ -0,0 +1,82 @@
+package com.example.demo_multiple_tm_order.util;
+
+import com.example.demo_multiple_tm_order.exception.CustomException;
+import io.micrometer.context.ContextRegistry;
+
+import java.util.function.Supplier;
+
+/**
+ * Deadline of the request being served, as epoch milliseconds
+ *
+ * - Set per request by RequestDeadlineFilter and forwarded to participants in the
+ *   X-Request-Deadline header, so the whole 2PC call chain shares one deadline
+ * - Held in a thread local that is registered with the context-propagation ContextRegistry,
+ *   so it follows the request onto orderIoExecutor (ContextPropagatingTaskDecorator)
+ * - check() fails with error code 9820 once the deadline has passed
+ *
+ * Deadlines are absolute, so coordinator and participant clocks are assumed to be in sync (NTP).
+ */
+public final class RequestDeadline {
+
+    // Absolute deadline (epoch ms), forwarded on every participant call
+    public static final String HEADER = "X-Request-Deadline";
+    // Client timeout (ms from now), used when no deadline is given
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout";
+
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    static {
+        ContextRegistry.getInstance().registerThreadLocalAccessor(
+                "request.deadline", DEADLINE::get, DEADLINE::set, DEADLINE::remove);
+    }
+
+    private RequestDeadline() {
+    }
+
+    // The current deadline, or null if the request has none
+    public static Long current() {
+        return DEADLINE.get();
+    }
+
+    // Replace the current deadline (null = none) and return the previous one
+    public static Long set(Long deadline) {
+        Long previous = DEADLINE.get();
+        if (deadline == null) {
+            DEADLINE.remove();
+        } else {
+            DEADLINE.set(deadline);
+        }
+        return previous;
+    }
+
+    // Run the call under the given deadline (null = none), then restore the current one
+    public static <T> T with(Long deadline, Supplier<T> call) {
+        Long previous = set(deadline);
+        try {
+            return call.get();
+        } finally {
+            set(previous);
+        }
+    }
+
+    // Milliseconds left until the deadline (negative once passed), Long.MAX_VALUE without one
+    public static long remainingMs() {
+        Long deadline = DEADLINE.get();
+        return deadline == null ? Long.MAX_VALUE : deadline - System.currentTimeMillis();
+    }
+
+    public static boolean isExpired() {
+        return remainingMs() <= 0;
+    }
+
+    // Abort the step with 9820 if the deadline has passed
+    public static void check(String step) throws CustomException {
+        if (isExpired()) {
+            throw exceeded(step, null);
+        }
+    }
+
+    public static CustomException exceeded(String step, Exception cause) {
+        return new CustomException("Request deadline exceeded at " + step, cause, 9820);
+    }
+}
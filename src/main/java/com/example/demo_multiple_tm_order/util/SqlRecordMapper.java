@@ -0,0 +1,31 @@
+package com.example.demo_multiple_tm_order.util;
+
+import com.scalar.db.sql.ColumnDefinitions;
+import com.scalar.db.sql.Record;
+
+import java.util.Set;
+
+/**
+ * Reflection-free mapping of ScalarDB SQL records to an entity type.
+ *
+ * When an ExecuteSqlUtil is created with a SqlRecordMapper, it uses it instead of
+ * reflective setter lookup, so no reflection metadata is needed for that entity.
+ *
+ * @param <T> The entity type
+ */
+public interface SqlRecordMapper<T> {
+
+    /**
+     * Returns the column names (snake_case) this mapper can populate.
+     */
+    Set<String> getColumns();
+
+    /**
+     * Maps a record to a new entity instance. Columns missing from the result stay null.
+     *
+     * @param record The record to map
+     * @param columnDefinitions The column definitions of the result set
+     * @return The mapped entity
+     */
+    T map(Record record, ColumnDefinitions columnDefinitions);
+}
@@ -0,0 +1,35 @@
+package com.example.demo_multiple_tm_order.util;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.List;
+
+/**
+ * Array-backed SQL result: one shared column header and one Object[] per row
+ *
+ * Row values are in header order, so column names are not repeated per row. Serializes as
+ * {"columns":[...],"rows":[[...],...]}.
+ */
+@JsonPropertyOrder({"columns", "rows"})
+public class SqlResultTable {
+
+    private final List<String> columns;
+    private final List<Object[]> rows;
+
+    public SqlResultTable(List<String> columns, List<Object[]> rows) {
+        this.columns = columns;
+        this.rows = rows;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public List<Object[]> getRows() {
+        return rows;
+    }
+
+    public int size() {
+        return rows.size();
+    }
+}
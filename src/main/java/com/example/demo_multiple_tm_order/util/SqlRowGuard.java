@@ -0,0 +1,61 @@
+package com.example.demo_multiple_tm_order.util;
+
+import java.time.temporal.Temporal;
+
+/**
+ * Callback invoked for every row read from a SQL result set
+ *
+ * Lets a caller enforce row, size and time limits while a result is streamed; an implementation
+ * stops the read by throwing.
+ */
+@FunctionalInterface
+public interface SqlRowGuard {
+
+    SqlRowGuard NONE = estimatedBytes -> { };
+
+    void onRow(long estimatedBytes);
+
+    // Throws if the work must not go on (e.g. cancelled)
+    default void checkpoint() {
+    }
+
+    // Called right before commit: throws like checkpoint(), otherwise the work can no longer be
+    // cancelled and the caller waits for the commit outcome
+    default void beginCommit() {
+        checkpoint();
+    }
+
+    /**
+     * Thrown by a guard to stop reading a result
+     */
+    class LimitExceededException extends RuntimeException {
+        private final String limit;
+
+        public LimitExceededException(String limit, String message) {
+            super(message);
+            this.limit = limit;
+        }
+
+        // Name of the limit that fired (rows, bytes or time)
+        public String getLimit() {
+            return limit;
+        }
+    }
+
+    // Rough heap size of a column value
+    static long estimateValueBytes(Object value) {
+        if (value == null) {
+            return 8;
+        }
+        if (value instanceof String string) {
+            return 40 + string.length();
+        }
+        if (value instanceof byte[] bytes) {
+            return 16 + bytes.length;
+        }
+        if (value instanceof Temporal) {
+            return 48;
+        }
+        return 16;
+    }
+}
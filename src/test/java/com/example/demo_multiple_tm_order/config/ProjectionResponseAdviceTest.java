@@ -0,0 +1,62 @@
+package com.example.demo_multiple_tm_order.config;
+
+import com.example.demo_multiple_tm_order.dto.ApiResponse;
+import com.example.demo_multiple_tm_order.dto.OrderDto;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Null fields are omitted from projected responses only
+ */
+class ProjectionResponseAdviceTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ProjectionResponseAdvice advice = new ProjectionResponseAdvice(objectMapper);
+
+    private static final ApiResponse<List<OrderDto>> BODY =
+            ApiResponse.success(List.of(OrderDto.builder().id("ORD-1").orderQty(2).build()));
+
+    private Object write(MockHttpServletRequest request) {
+        return advice.beforeBodyWrite(BODY, null, MediaType.APPLICATION_JSON, MappingJackson2HttpMessageConverter.class,
+                new ServletServerHttpRequest(request), new ServletServerHttpResponse(new MockHttpServletResponse()));
+    }
+
+    @Test
+    void omitsFieldsThatWereNotRequested() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/order/scan-all");
+        request.addParameter(ProjectionResponseAdvice.FIELDS_PARAM, "id,order_qty");
+
+        JsonNode order = ((JsonNode) write(request)).get("data").get(0);
+
+        assertThat(order.fieldNames()).toIterable().containsExactly("id", "orderQty");
+    }
+
+    @Test
+    void keepsNullFieldsWithoutAProjection() throws Exception {
+        Object body = write(new MockHttpServletRequest("GET", "/order/scan-all"));
+
+        assertThat(body).isSameAs(BODY);
+        JsonNode order = objectMapper.valueToTree(body).get("data").get(0);
+        assertThat(order.has("productId")).isTrue();
+        assertThat(order.get("productId").isNull()).isTrue();
+    }
+
+    @Test
+    void appliesToJacksonConvertersOnly() {
+        assertThat(advice.supports(null, MappingJackson2HttpMessageConverter.class)).isTrue();
+        assertThat(advice.supports(null, StringHttpMessageConverter.class)).isFalse();
+    }
+}
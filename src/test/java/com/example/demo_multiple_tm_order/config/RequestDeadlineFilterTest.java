@@ -0,0 +1,94 @@
+package com.example.demo_multiple_tm_order.config;
+
+import com.example.demo_multiple_tm_order.util.RequestDeadline;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Deadline set by RequestDeadlineFilter from X-Request-Deadline, X-Request-Timeout or the default timeout
+ */
+class RequestDeadlineFilterTest {
+
+    @AfterEach
+    void tearDown() {
+        RequestDeadline.set(null);
+    }
+
+    // Deadline seen by the handler of the request
+    private static Long deadlineSeenBy(RequestDeadlineFilter filter, MockHttpServletRequest request) throws Exception {
+        AtomicReference<Long> seen = new AtomicReference<>();
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> seen.set(RequestDeadline.current()));
+        return seen.get();
+    }
+
+    private static MockHttpServletRequest request(String uri) {
+        return new MockHttpServletRequest("POST", uri);
+    }
+
+    @Test
+    void usesTheForwardedDeadlineAsIs() throws Exception {
+        MockHttpServletRequest request = request("/order");
+        request.addHeader(RequestDeadline.HEADER, "1700000000000");
+        request.addHeader(RequestDeadline.TIMEOUT_HEADER, "500");
+
+        assertThat(deadlineSeenBy(new RequestDeadlineFilter(0), request)).isEqualTo(1700000000000L);
+    }
+
+    @Test
+    void derivesTheDeadlineFromTheClientTimeout() throws Exception {
+        MockHttpServletRequest request = request("/order");
+        request.addHeader(RequestDeadline.TIMEOUT_HEADER, " 5000 ");
+
+        long before = System.currentTimeMillis();
+        Long deadline = deadlineSeenBy(new RequestDeadlineFilter(0), request);
+
+        assertThat(deadline).isBetween(before + 5000, System.currentTimeMillis() + 5000);
+    }
+
+    @Test
+    void hasNoDeadlineByDefault() throws Exception {
+        assertThat(deadlineSeenBy(new RequestDeadlineFilter(0), request("/order/import"))).isNull();
+    }
+
+    @Test
+    void usesTheConfiguredDefaultTimeout() throws Exception {
+        long before = System.currentTimeMillis();
+        Long deadline = deadlineSeenBy(new RequestDeadlineFilter(3000), request("/order"));
+
+        assertThat(deadline).isBetween(before + 3000, System.currentTimeMillis() + 3000);
+    }
+
+    @Test
+    void ignoresInvalidHeaders() throws Exception {
+        MockHttpServletRequest request = request("/order");
+        request.addHeader(RequestDeadline.HEADER, "tomorrow");
+        request.addHeader(RequestDeadline.TIMEOUT_HEADER, "-1");
+
+        assertThat(deadlineSeenBy(new RequestDeadlineFilter(0), request)).isNull();
+    }
+
+    @Test
+    void skipsActuatorEndpoints() throws Exception {
+        MockHttpServletRequest request = request("/actuator/health");
+        request.addHeader(RequestDeadline.TIMEOUT_HEADER, "5000");
+
+        assertThat(deadlineSeenBy(new RequestDeadlineFilter(3000), request)).isNull();
+    }
+
+    @Test
+    void restoresThePreviousDeadlineAfterTheRequest() throws Exception {
+        RequestDeadline.set(1000L);
+        MockHttpServletRequest request = request("/order");
+        request.addHeader(RequestDeadline.TIMEOUT_HEADER, "5000");
+
+        deadlineSeenBy(new RequestDeadlineFilter(0), request);
+
+        assertThat(RequestDeadline.current()).isEqualTo(1000L);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.demo_multiple_tm_order.config;
+
+import com.example.demo_multiple_tm_order.util.RequestDeadline;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.HttpURLConnection;
+import java.net.URI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Per-call timeouts of RestTemplateConfig.DeadlineRequestFactory, capped by the remaining deadline budget
+ */
+class RestTemplateConfigTest {
+
+    @AfterEach
+    void tearDown() {
+        RequestDeadline.set(null);
+    }
+
+    // Timeouts the factory sets on a new (unconnected) connection
+    private static HttpURLConnection prepare(int connectTimeoutMs, int readTimeoutMs) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) URI.create("http://localhost:8081/order-two-pc").toURL().openConnection();
+        new RestTemplateConfig.DeadlineRequestFactory(connectTimeoutMs, readTimeoutMs).prepareConnection(connection, "POST");
+        return connection;
+    }
+
+    @Test
+    void usesTheConfiguredTimeoutsWithoutADeadline() throws Exception {
+        HttpURLConnection connection = prepare(2000, 30000);
+
+        assertThat(connection.getConnectTimeout()).isEqualTo(2000);
+        assertThat(connection.getReadTimeout()).isEqualTo(30000);
+    }
+
+    @Test
+    void capsTheTimeoutsAtTheRemainingBudget() throws Exception {
+        RequestDeadline.set(System.currentTimeMillis() + 5000);
+
+        HttpURLConnection connection = prepare(2000, 30000);
+
+        assertThat(connection.getConnectTimeout()).isEqualTo(2000);
+        assertThat(connection.getReadTimeout()).isBetween(1, 5000);
+    }
+
+    @Test
+    void boundsAnUnlimitedTimeoutByTheDeadline() throws Exception {
+        RequestDeadline.set(System.currentTimeMillis() + 5000);
+
+        HttpURLConnection connection = prepare(0, 0);
+
+        assertThat(connection.getConnectTimeout()).isBetween(1, 5000);
+        assertThat(connection.getReadTimeout()).isBetween(1, 5000);
+    }
+
+    @Test
+    void neverUsesZeroOnceTheDeadlineHasPassed() throws Exception {
+        // 0 would mean no timeout at all
+        RequestDeadline.set(System.currentTimeMillis() - 1000);
+
+        HttpURLConnection connection = prepare(2000, 30000);
+
+        assertThat(connection.getConnectTimeout()).isEqualTo(1);
+        assertThat(connection.getReadTimeout()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.demo_multiple_tm_order.repository;
+
+import com.example.demo_multiple_tm_order.model.Order;
+import com.example.demo_multiple_tm_order.model.OrderProductSummary;
+import com.scalar.db.api.Get;
+import com.scalar.db.api.Result;
+import com.scalar.db.api.Scan;
+import com.scalar.db.api.TransactionCrudOperable;
+import com.scalar.db.api.Upsert;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Deltas applied by OrderProductSummaryRepository.syncOrder, checked against an in-memory
+ * shopping.order_product_summary behind a mocked transaction
+ */
+class OrderProductSummaryRepositoryTest {
+
+    private final OrderProductSummaryRepository repository = new OrderProductSummaryRepository();
+    private final TransactionCrudOperable transaction = mock(TransactionCrudOperable.class);
+
+    // product_id -> shard -> {total_qty, order_count}
+    private final Map<Integer, Map<Integer, long[]>> table = new HashMap<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(repository, "shards", 4);
+
+        when(transaction.get(any(Get.class))).thenAnswer(invocation -> {
+            Get get = invocation.getArgument(0);
+            long[] row = table.getOrDefault(get.getPartitionKey().getColumns().get(0).getIntValue(), Map.of())
+                    .get(get.getClusteringKey().get().getColumns().get(0).getIntValue());
+            return Optional.ofNullable(row == null ? null : result(row));
+        });
+        doAnswer(invocation -> {
+            Upsert upsert = invocation.getArgument(0);
+            int productId = upsert.getPartitionKey().getColumns().get(0).getIntValue();
+            int shard = upsert.getClusteringKey().get().getColumns().get(0).getIntValue();
+            table.computeIfAbsent(productId, k -> new HashMap<>()).put(shard, new long[] {
+                    upsert.getColumns().get(OrderProductSummary.TOTAL_QTY).getBigIntValue(),
+                    upsert.getColumns().get(OrderProductSummary.ORDER_COUNT).getBigIntValue()});
+            return null;
+        }).when(transaction).upsert(any(Upsert.class));
+        when(transaction.scan(any(Scan.class))).thenAnswer(invocation -> {
+            Scan scan = invocation.getArgument(0);
+            List<Result> results = new ArrayList<>();
+            for (long[] row : table.getOrDefault(scan.getPartitionKey().getColumns().get(0).getIntValue(), Map.of()).values()) {
+                results.add(result(row));
+            }
+            return results;
+        });
+    }
+
+    @Test
+    void insertAddsQuantityAndCount() throws Exception {
+        repository.syncOrder(transaction, null, order("ORD-1", 1, 3));
+        repository.syncOrder(transaction, null, order("ORD-2", 1, 4));
+
+        assertSummary(1, 7, 2);
+    }
+
+    @Test
+    void quantityUpdateAppliesOnlyTheDifference() throws Exception {
+        repository.syncOrder(transaction, null, order("ORD-1", 1, 3));
+        repository.syncOrder(transaction, order("ORD-1", 1, 3), order("ORD-1", 1, 5));
+
+        assertSummary(1, 5, 1);
+    }
+
+    @Test
+    void unchangedOrderWritesNothing() throws Exception {
+        repository.syncOrder(transaction, order("ORD-1", 1, 3), order("ORD-1", 1, 3));
+
+        verify(transaction, never()).upsert(any(Upsert.class));
+    }
+
+    @Test
+    void productChangeMovesTheOrderToTheNewProduct() throws Exception {
+        repository.syncOrder(transaction, null, order("ORD-1", 1, 3));
+        repository.syncOrder(transaction, null, order("ORD-2", 1, 2));
+        repository.syncOrder(transaction, order("ORD-1", 1, 3), order("ORD-1", 2, 6));
+
+        assertSummary(1, 2, 1);
+        assertSummary(2, 6, 1);
+    }
+
+    @Test
+    void deleteSubtractsQuantityAndCount() throws Exception {
+        repository.syncOrder(transaction, null, order("ORD-1", 1, 3));
+        repository.syncOrder(transaction, null, order("ORD-2", 1, 4));
+        repository.syncOrder(transaction, order("ORD-1", 1, 3), null);
+
+        assertSummary(1, 4, 1);
+    }
+
+    @Test
+    void ordersWithoutProductAreNotCounted() throws Exception {
+        repository.syncOrder(transaction, null, order("ORD-1", null, 3));
+        verify(transaction, never()).upsert(any(Upsert.class));
+
+        repository.syncOrder(transaction, order("ORD-1", null, 3), order("ORD-1", 1, 3));
+        assertSummary(1, 3, 1);
+
+        repository.syncOrder(transaction, order("ORD-1", 1, 3), order("ORD-1", null, 3));
+        assertSummary(1, 0, 0);
+    }
+
+    private void assertSummary(int productId, long totalQty, long orderCount) throws Exception {
+        OrderProductSummary summary = repository.getProductSummary(transaction, productId);
+        assertThat(summary.getTotalQty()).isEqualTo(totalQty);
+        assertThat(summary.getOrderCount()).isEqualTo(orderCount);
+    }
+
+    private static Result result(long[] row) {
+        Result result = mock(Result.class);
+        when(result.getBigInt(OrderProductSummary.TOTAL_QTY)).thenReturn(row[0]);
+        when(result.getBigInt(OrderProductSummary.ORDER_COUNT)).thenReturn(row[1]);
+        return result;
+    }
+
+    private static Order order(String id, Integer productId, int orderQty) {
+        return Order.builder()
+                .id(id)
+                .productId(productId)
+                .orderQty(orderQty)
+                .orderDatetime(LocalDateTime.of(2025, 9, 15, 14, 0))
+                .build();
+    }
+}
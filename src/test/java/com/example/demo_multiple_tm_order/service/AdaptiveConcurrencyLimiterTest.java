@@ -0,0 +1,129 @@
+package com.example.demo_multiple_tm_order.service;
+
+import com.example.demo_multiple_tm_order.exception.CustomException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Permits and gradient limit updates of AdaptiveConcurrencyLimiter, with latency samples fed directly
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final String SCOPE = AdaptiveConcurrencyLimiter.SCOPE_ORDER;
+    private static final long MS = 1_000_000L;
+
+    private static AdaptiveConcurrencyLimiter limiter(boolean enabled, int initialLimit, int minLimit, int maxLimit) {
+        return new AdaptiveConcurrencyLimiter(enabled, initialLimit, minLimit, maxLimit, 1.5, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void shedsWith9800AtTheLimitUntilAPermitIsReleased() {
+        AdaptiveConcurrencyLimiter limiter = limiter(true, 2, 1, 10);
+        AdaptiveConcurrencyLimiter.Permit first = limiter.acquire(SCOPE);
+        limiter.acquire(SCOPE);
+
+        assertThatThrownBy(() -> limiter.acquire(SCOPE))
+                .isInstanceOf(CustomException.class)
+                .satisfies(e -> assertThat(((CustomException) e).getErrorCode()).isEqualTo(9800));
+
+        first.release(true);
+        first.release(true);
+        limiter.acquire(SCOPE);
+        assertThatThrownBy(() -> limiter.acquire(SCOPE)).isInstanceOf(CustomException.class);
+    }
+
+    @Test
+    void onlyCommittedTransactionsAreLatencySamples() {
+        AdaptiveConcurrencyLimiter limiter = limiter(true, 10, 1, 100);
+        // Baseline sample, then failures with full load: the limit would grow if they counted
+        limiter.acquire(SCOPE).release(true);
+        for (int i = 0; i < 20; i++) {
+            AdaptiveConcurrencyLimiter.Permit[] permits = new AdaptiveConcurrencyLimiter.Permit[10];
+            for (int p = 0; p < permits.length; p++) {
+                permits[p] = limiter.acquire(SCOPE);
+            }
+            for (AdaptiveConcurrencyLimiter.Permit permit : permits) {
+                permit.release(false);
+            }
+        }
+
+        assertThat(limiter.limitOf(SCOPE)).isEqualTo(10);
+    }
+
+    @Test
+    void scopesHaveSeparateLimits() {
+        AdaptiveConcurrencyLimiter limiter = limiter(true, 1, 1, 10);
+        limiter.acquire(AdaptiveConcurrencyLimiter.SCOPE_ORDER);
+
+        limiter.acquire(AdaptiveConcurrencyLimiter.SCOPE_SQL);
+        assertThatThrownBy(() -> limiter.acquire(AdaptiveConcurrencyLimiter.SCOPE_ORDER)).isInstanceOf(CustomException.class);
+    }
+
+    @Test
+    void neverShedsWhenDisabled() {
+        AdaptiveConcurrencyLimiter limiter = limiter(false, 1, 1, 10);
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire(SCOPE);
+        }
+    }
+
+    @Test
+    void growsWhileLatencyIsStableUnderLoad() {
+        AdaptiveConcurrencyLimiter limiter = limiter(true, 50, 8, 500);
+        limiter.onSample(SCOPE, MS, 50);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.onSample(SCOPE, MS, limiter.limitOf(SCOPE));
+        }
+
+        assertThat(limiter.limitOf(SCOPE)).isGreaterThan(50);
+    }
+
+    @Test
+    void doesNotGrowWhenLessThanHalfOfTheLimitIsInUse() {
+        AdaptiveConcurrencyLimiter limiter = limiter(true, 50, 8, 500);
+        limiter.onSample(SCOPE, MS, 1);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.onSample(SCOPE, MS, 24);
+        }
+
+        assertThat(limiter.limitOf(SCOPE)).isEqualTo(50);
+    }
+
+    @Test
+    void shrinksWhenLatencyRisesAboveTheAverage() {
+        AdaptiveConcurrencyLimiter limiter = limiter(true, 50, 8, 500);
+        limiter.onSample(SCOPE, MS, 50);
+
+        limiter.onSample(SCOPE, 10 * MS, 50);
+        int afterOneSample = limiter.limitOf(SCOPE);
+        for (int i = 0; i < 5; i++) {
+            limiter.onSample(SCOPE, 10 * MS, 50);
+        }
+
+        // At most half per sample, smoothed
+        assertThat(afterOneSample).isLessThan(50).isGreaterThanOrEqualTo(45);
+        assertThat(limiter.limitOf(SCOPE)).isLessThan(afterOneSample);
+    }
+
+    @Test
+    void staysBetweenMinAndMaxLimit() {
+        AdaptiveConcurrencyLimiter shrinking = limiter(true, 10, 8, 500);
+        shrinking.onSample(SCOPE, MS, 10);
+        for (int i = 0; i < 20; i++) {
+            shrinking.onSample(SCOPE, 10 * MS, 10);
+        }
+        assertThat(shrinking.limitOf(SCOPE)).isEqualTo(8);
+
+        AdaptiveConcurrencyLimiter growing = limiter(true, 50, 8, 60);
+        growing.onSample(SCOPE, MS, 50);
+        for (int i = 0; i < 50; i++) {
+            growing.onSample(SCOPE, MS, growing.limitOf(SCOPE));
+        }
+        assertThat(growing.limitOf(SCOPE)).isEqualTo(60);
+    }
+}
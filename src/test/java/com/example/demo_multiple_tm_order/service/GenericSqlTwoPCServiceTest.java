@@ -0,0 +1,182 @@
+package com.example.demo_multiple_tm_order.service;
+
+import com.example.demo_multiple_tm_order.dto.ResponseStatusDto;
+import com.example.demo_multiple_tm_order.dto.SqlBatchDto;
+import com.example.demo_multiple_tm_order.dto.SqlBatchStatementDto;
+import com.example.demo_multiple_tm_order.exception.CustomException;
+import com.example.demo_multiple_tm_order.metrics.TwoPCMetrics;
+import com.scalar.db.sql.ColumnDefinitions;
+import com.scalar.db.sql.ResultSet;
+import com.scalar.db.sql.SqlSession;
+import com.scalar.db.sql.SqlSessionFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Session registry of GenericSqlTwoPCService: one joined session per transaction ID, reused until
+ * it is released, with a mocked SqlSessionFactory
+ */
+class GenericSqlTwoPCServiceTest {
+
+    private static final String TX_ID = "tx-1";
+    private static final String SELECT = "SELECT * FROM shopping.product";
+
+    private final SqlSessionFactory sqlSessionFactory = mock(SqlSessionFactory.class);
+    private final SqlSession sqlSession = mock(SqlSession.class);
+    private final GenericSqlTwoPCService service = new GenericSqlTwoPCService(sqlSessionFactory);
+    private final SqlResourceGovernor governor = new SqlResourceGovernor(100, 1 << 20, 10000, 2, 2,
+            new SimpleMeterRegistry());
+
+    @BeforeEach
+    void setUp() {
+        service.genericSqlService = mock(GenericSqlService.class);
+        service.sqlResourceGovernor = governor;
+        service.sqlResultCache = mock(SqlResultCache.class);
+        service.metrics = new TwoPCMetrics(new SimpleMeterRegistry(), "order-service");
+        ReflectionTestUtils.setField(service, "sessionTimeoutMs", 60000L);
+        when(service.genericSqlService.validateBatch(any())).thenAnswer(invocation ->
+                invocation.<SqlBatchDto>getArgument(0).getStatements());
+
+        ResultSet empty = mock(ResultSet.class);
+        when(empty.getColumnDefinitions()).thenReturn(mock(ColumnDefinitions.class));
+        when(empty.iterator()).thenAnswer(invocation -> Collections.emptyIterator());
+        when(sqlSession.execute(anyString())).thenReturn(empty);
+        when(sqlSessionFactory.createSqlSession()).thenReturn(sqlSession);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+        governor.destroy();
+    }
+
+    private static SqlBatchDto batch(String sql) {
+        return SqlBatchDto.builder()
+                .statements(List.of(SqlBatchStatementDto.builder().sqlCommand(sql).build()))
+                .build();
+    }
+
+    private static int errorCodeOf(Throwable e) {
+        return ((CustomException) e).getErrorCode();
+    }
+
+    @Test
+    void joinsOnceAndReusesTheSessionForLaterCallsAndPhases() {
+        service.execute(batch(SELECT), TX_ID);
+        service.execute(batch(SELECT), TX_ID);
+        service.prepare(TX_ID);
+        service.validate(TX_ID);
+        service.commit(TX_ID);
+
+        verify(sqlSessionFactory, times(1)).createSqlSession();
+        verify(sqlSession, times(1)).execute("SET MODE TWO_PHASE_COMMIT_TRANSACTION");
+        verify(sqlSession, times(1)).join(TX_ID);
+        verify(sqlSession, times(2)).execute(SELECT);
+        verify(sqlSession).prepare();
+        verify(sqlSession).validate();
+        verify(sqlSession).commit();
+    }
+
+    @Test
+    void keepsOneSessionPerTransaction() {
+        service.execute(batch(SELECT), TX_ID);
+        service.execute(batch(SELECT), "tx-2");
+
+        verify(sqlSessionFactory, times(2)).createSqlSession();
+        verify(sqlSession).join(TX_ID);
+        verify(sqlSession).join("tx-2");
+    }
+
+    @Test
+    void rollbackOfAnUnknownTransactionIsNotAnError() {
+        ResponseStatusDto response = service.rollback("unknown");
+
+        assertThat(response.getCode()).isZero();
+        assertThat(response.getMessage()).isEqualTo("Transaction not found");
+        verifyNoInteractions(sqlSessionFactory);
+    }
+
+    @Test
+    void phasesForATransactionNotJoinedHereAreRejected() {
+        assertThatThrownBy(() -> service.prepare("unknown"))
+                .isInstanceOf(CustomException.class)
+                .satisfies(e -> assertThat(errorCodeOf(e)).isEqualTo(9400));
+    }
+
+    @Test
+    void rejectsExecuteAfterCommitInsteadOfJoiningAgain() {
+        service.execute(batch(SELECT), TX_ID);
+        service.commit(TX_ID);
+
+        assertThatThrownBy(() -> service.execute(batch(SELECT), TX_ID))
+                .isInstanceOf(CustomException.class)
+                .satisfies(e -> assertThat(errorCodeOf(e)).isEqualTo(9400));
+        verify(sqlSessionFactory, times(1)).createSqlSession();
+        assertThat(service.rollback(TX_ID).getMessage()).isEqualTo("Transaction not found");
+    }
+
+    @Test
+    void rollsBackAndReleasesTheSessionWhenExecuteFails() {
+        when(sqlSession.execute("SELECT broken")).thenThrow(new IllegalArgumentException("syntax error"));
+
+        assertThatThrownBy(() -> service.execute(batch("SELECT broken"), TX_ID))
+                .isInstanceOf(CustomException.class)
+                .satisfies(e -> assertThat(errorCodeOf(e)).isEqualTo(9400));
+
+        verify(sqlSession).rollback();
+        assertThatThrownBy(() -> service.execute(batch(SELECT), TX_ID)).isInstanceOf(CustomException.class);
+        assertThat(service.rollback(TX_ID).getMessage()).isEqualTo("Transaction not found");
+        verify(sqlSession, times(1)).rollback();
+    }
+
+    @Test
+    void rollsBackIdleSessionsAndLaterForgetsThem() throws Exception {
+        ReflectionTestUtils.setField(service, "sessionTimeoutMs", 1L);
+        service.execute(batch(SELECT), TX_ID);
+
+        TimeUnit.MILLISECONDS.sleep(10);
+        service.expireIdleSessions();
+
+        verify(sqlSession).rollback();
+        assertThatThrownBy(() -> service.commit(TX_ID))
+                .isInstanceOf(CustomException.class)
+                .satisfies(e -> assertThat(errorCodeOf(e)).isEqualTo(9400));
+        verify(sqlSession, never()).commit();
+
+        // The released entry expires in turn; the registry does not grow with finished transactions
+        TimeUnit.MILLISECONDS.sleep(10);
+        service.expireIdleSessions();
+        assertThatThrownBy(() -> service.prepare(TX_ID))
+                .isInstanceOf(CustomException.class)
+                .hasMessageContaining("No SQL session");
+    }
+
+    @Test
+    void keepsSessionsThatAreStillInUse() {
+        service.execute(batch(SELECT), TX_ID);
+
+        service.expireIdleSessions();
+        service.commit(TX_ID);
+
+        verify(sqlSession, never()).rollback();
+        verify(sqlSession).commit();
+    }
+}
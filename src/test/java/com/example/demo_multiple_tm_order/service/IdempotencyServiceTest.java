@@ -0,0 +1,147 @@
+package com.example.demo_multiple_tm_order.service;
+
+import com.example.demo_multiple_tm_order.dto.ApiResponse;
+import com.example.demo_multiple_tm_order.exception.CustomException;
+import com.example.demo_multiple_tm_order.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scalar.db.api.DistributedTransactionManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Replay, key reuse and key release of IdempotencyService with the in-memory store
+ */
+class IdempotencyServiceTest {
+
+    private static final String OPERATION = "POST /order";
+
+    private final IdempotencyService service = new IdempotencyService(mock(DistributedTransactionManager.class),
+            mock(IdempotencyKeyRepository.class), new ObjectMapper(), new SimpleMeterRegistry(),
+            "memory", 100, 86400, 1000);
+
+    private final AtomicInteger runs = new AtomicInteger();
+
+    private Supplier<ResponseEntity<ApiResponse<Void>>> write() {
+        return () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.ok(new ApiResponse<>(true, "Order created"));
+        };
+    }
+
+    private Supplier<ResponseEntity<ApiResponse<Void>>> failing(int errorCode) {
+        return () -> {
+            runs.incrementAndGet();
+            throw new CustomException("failed", errorCode);
+        };
+    }
+
+    private static Map<String, Object> order(String id, int qty) {
+        Map<String, Object> order = new LinkedHashMap<>();
+        order.put("id", id);
+        order.put("orderQty", qty);
+        return order;
+    }
+
+    @Test
+    void replaysTheStoredResponseForADuplicate() {
+        ResponseEntity<ApiResponse<Void>> first = service.execute("key-1", OPERATION, order("ORD-1", 2), write());
+        ResponseEntity<ApiResponse<Void>> second = service.execute("key-1", OPERATION, order("ORD-1", 2), write());
+
+        assertThat(runs).hasValue(1);
+        assertThat(first.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+        assertThat(second.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(second.getBody()).isEqualTo(first.getBody());
+    }
+
+    @Test
+    void runsEveryRequestWithoutAKey() {
+        service.execute(null, OPERATION, order("ORD-1", 2), write());
+        service.execute(" ", OPERATION, order("ORD-1", 2), write());
+
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void scopesKeysPerOperation() {
+        service.execute("key-1", OPERATION, order("ORD-1", 2), write());
+        service.execute("key-1", "PUT /order", order("ORD-1", 2), write());
+
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void rejectsAKeyReusedWithADifferentRequest() {
+        service.execute("key-1", OPERATION, order("ORD-1", 2), write());
+
+        assertThatThrownBy(() -> service.execute("key-1", OPERATION, order("ORD-1", 3), write()))
+                .isInstanceOf(CustomException.class)
+                .satisfies(e -> assertThat(((CustomException) e).getErrorCode()).isEqualTo(9600));
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void rejectsAKeyLongerThan255Characters() {
+        assertThatThrownBy(() -> service.execute("k".repeat(256), OPERATION, order("ORD-1", 2), write()))
+                .isInstanceOf(CustomException.class)
+                .satisfies(e -> assertThat(((CustomException) e).getErrorCode()).isEqualTo(9400));
+        assertThat(runs).hasValue(0);
+    }
+
+    @Test
+    void releasesTheKeyWhenTheWriteFailedBeforeCommit() {
+        assertThatThrownBy(() -> service.execute("key-1", OPERATION, order("ORD-1", 2), failing(9300)))
+                .isInstanceOf(CustomException.class);
+
+        service.execute("key-1", OPERATION, order("ORD-1", 2), write());
+
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void keepsTheKeyWhenTheOutcomeIsUnknown() {
+        assertThatThrownBy(() -> service.execute("key-1", OPERATION, order("ORD-1", 2), failing(9200)))
+                .isInstanceOf(CustomException.class);
+
+        ResponseEntity<ApiResponse<Void>> retry = service.execute("key-1", OPERATION, order("ORD-1", 2), write());
+
+        assertThat(runs).hasValue(1);
+        assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(retry.getBody().getErrorCode()).isEqualTo(9200);
+        assertThat(retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    void onlyFailuresBeforeCommitReleaseTheKey() {
+        assertThat(IdempotencyService.mayHaveCommitted(new CustomException("conflict", 9100))).isFalse();
+        assertThat(IdempotencyService.mayHaveCommitted(new CustomException("conflict", 9300))).isFalse();
+        assertThat(IdempotencyService.mayHaveCommitted(new CustomException("bad request", 9400))).isFalse();
+        assertThat(IdempotencyService.mayHaveCommitted(new CustomException("unknown", 9200))).isTrue();
+        assertThat(IdempotencyService.mayHaveCommitted(new CustomException("failed", 9500))).isTrue();
+        assertThat(IdempotencyService.mayHaveCommitted(new CustomException("failed", (Integer) null))).isTrue();
+        assertThat(IdempotencyService.mayHaveCommitted(new IllegalStateException("unexpected"))).isTrue();
+    }
+
+    @Test
+    void fingerprintIgnoresFieldOrder() {
+        Map<String, Object> reordered = new LinkedHashMap<>();
+        reordered.put("orderQty", 2);
+        reordered.put("id", "ORD-1");
+
+        String fingerprint = service.fingerprint(order("ORD-1", 2));
+
+        assertThat(fingerprint).hasSize(64).matches("[0-9a-f]+");
+        assertThat(service.fingerprint(reordered)).isEqualTo(fingerprint);
+        assertThat(service.fingerprint(order("ORD-1", 3))).isNotEqualTo(fingerprint);
+    }
+}
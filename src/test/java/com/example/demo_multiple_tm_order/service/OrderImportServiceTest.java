@@ -0,0 +1,235 @@
+package com.example.demo_multiple_tm_order.service;
+
+import com.example.demo_multiple_tm_order.dto.OrderImportReportDto;
+import com.example.demo_multiple_tm_order.exception.CustomException;
+import com.example.demo_multiple_tm_order.model.Order;
+import com.example.demo_multiple_tm_order.repository.OrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scalar.db.api.DistributedTransaction;
+import com.scalar.db.api.DistributedTransactionManager;
+import com.scalar.db.exception.transaction.CommitConflictException;
+import com.scalar.db.exception.transaction.CrudException;
+import com.scalar.db.exception.transaction.UnknownTransactionStatusException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Chunk sizing, conflict splitting, row-by-row fallback and unknown commit outcomes of
+ * OrderImportService, with a mocked transaction manager and repository
+ */
+class OrderImportServiceTest {
+
+    private static final String HEADER = "id,product_id,order_qty,order_datetime\n";
+
+    private final DistributedTransactionManager manager = mock(DistributedTransactionManager.class);
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private OrderImportService service;
+
+    private void createService(int threads, int initialChunkSize, int maxChunkSize, int chunkIncrease) throws Exception {
+        service = new OrderImportService(manager, threads);
+        service.orderRepository = orderRepository;
+        service.objectMapper = new ObjectMapper();
+        ReflectionTestUtils.setField(service, "initialChunkSize", initialChunkSize);
+        ReflectionTestUtils.setField(service, "maxChunkSize", maxChunkSize);
+        ReflectionTestUtils.setField(service, "chunkIncrease", chunkIncrease);
+        ReflectionTestUtils.setField(service, "maxErrors", 100);
+        when(manager.start()).thenAnswer(invocation -> mock(DistributedTransaction.class));
+    }
+
+    @AfterEach
+    void shutdown() {
+        if (service != null) {
+            service.destroy();
+        }
+    }
+
+    private static Order order(int n) {
+        return Order.builder().id("ORD-" + n).productId(1).orderQty(n).build();
+    }
+
+    // CSV upload with orders ORD-1..ORD-rows; ORD-n is on line n + 1
+    private static InputStream csv(int rows) {
+        StringBuilder body = new StringBuilder(HEADER);
+        for (int n = 1; n <= rows; n++) {
+            body.append("ORD-").append(n).append(",1,").append(n).append(",\n");
+        }
+        return new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Order orderWithId(String id) {
+        return argThat(order -> order != null && id.equals(order.getId()));
+    }
+
+    private static DistributedTransaction transactionFailingCommitWith(Exception e) throws Exception {
+        DistributedTransaction transaction = mock(DistributedTransaction.class);
+        doThrow(e).when(transaction).commit();
+        return transaction;
+    }
+
+    @Test
+    void growsTheChunkSizeAfterEachCommitUpToTheMax() throws Exception {
+        createService(1, 2, 3, 1);
+
+        OrderImportReportDto report = service.importOrders(csv(6), OrderImportService.FORMAT_CSV,
+                OrderImportService.MODE_INSERT, null);
+
+        assertThat(report.getStatus()).isEqualTo("COMPLETED");
+        assertThat(report.getRowsImported()).isEqualTo(6);
+        assertThat(report.getChunkSize()).isEqualTo(3);
+        verify(orderRepository, times(6)).insertOrder(any(), any());
+    }
+
+    @Test
+    void halvesTheChunkSizeAndSplitsTheChunkOnAConflict() throws Exception {
+        createService(1, 4, 10, 1);
+        DistributedTransaction conflicting = transactionFailingCommitWith(new CommitConflictException("conflict", "tx-1"));
+        when(manager.start()).thenReturn(conflicting, mock(DistributedTransaction.class), mock(DistributedTransaction.class));
+
+        OrderImportReportDto report = service.importOrders(csv(4), OrderImportService.FORMAT_CSV,
+                OrderImportService.MODE_UPSERT, null);
+
+        assertThat(report.getRowsImported()).isEqualTo(4);
+        assertThat(report.getConflicts()).isEqualTo(1);
+        // 4 halved to 2, then +1 for each committed half
+        assertThat(report.getChunkSize()).isEqualTo(4);
+        verify(conflicting).rollback();
+        // The whole chunk once, then each half
+        verify(orderRepository, times(8)).upsertOrder(any(), any());
+    }
+
+    @Test
+    void retriesAFailedChunkRowByRowAndReportsTheFailingRow() throws Exception {
+        createService(1, 3, 10, 1);
+        when(orderRepository.insertOrder(any(), orderWithId("ORD-2"))).thenThrow(new CrudException("duplicate id", "tx-1"));
+
+        OrderImportReportDto report = service.importOrders(csv(3), OrderImportService.FORMAT_CSV,
+                OrderImportService.MODE_INSERT, null);
+
+        assertThat(report.getRowsImported()).isEqualTo(2);
+        assertThat(report.getRowsFailed()).isEqualTo(1);
+        assertThat(report.getConflicts()).isZero();
+        assertThat(report.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getLine()).isEqualTo(3);
+            assertThat(error.getId()).isEqualTo("ORD-2");
+            assertThat(error.getMessage()).contains("duplicate id");
+        });
+    }
+
+    @Test
+    void countsAnUnknownCommitAsImportedWhenTheRowsReadBackAsWritten() throws Exception {
+        createService(1, 2, 10, 1);
+        when(manager.start()).thenReturn(
+                transactionFailingCommitWith(new UnknownTransactionStatusException("commit timed out", "tx-1")),
+                mock(DistributedTransaction.class));
+        when(orderRepository.getOrderListByPk(any(), any())).thenReturn(List.of(order(1)), List.of(order(2)));
+
+        OrderImportReportDto report = service.importOrders(csv(2), OrderImportService.FORMAT_CSV,
+                OrderImportService.MODE_INSERT, null);
+
+        assertThat(report.getRowsImported()).isEqualTo(2);
+        assertThat(report.getRowsUnknown()).isZero();
+        // Not written again
+        verify(orderRepository, times(2)).insertOrder(any(), any());
+    }
+
+    @Test
+    void retriesAnUnknownCommitWhenTheRowsAreNotStored() throws Exception {
+        createService(1, 2, 10, 1);
+        when(manager.start()).thenReturn(
+                transactionFailingCommitWith(new UnknownTransactionStatusException("commit timed out", "tx-1")),
+                mock(DistributedTransaction.class), mock(DistributedTransaction.class), mock(DistributedTransaction.class));
+        when(orderRepository.getOrderListByPk(any(), any())).thenReturn(List.of());
+
+        OrderImportReportDto report = service.importOrders(csv(2), OrderImportService.FORMAT_CSV,
+                OrderImportService.MODE_INSERT, null);
+
+        assertThat(report.getRowsImported()).isEqualTo(2);
+        assertThat(report.getRowsUnknown()).isZero();
+        // The chunk, then each row again
+        verify(orderRepository, times(4)).insertOrder(any(), any());
+    }
+
+    @Test
+    void reportsRowsAsUnknownWhenTheyCannotBeReadBack() throws Exception {
+        createService(1, 2, 10, 1);
+        when(manager.start()).thenReturn(
+                transactionFailingCommitWith(new UnknownTransactionStatusException("commit timed out", "tx-1")),
+                mock(DistributedTransaction.class));
+        when(orderRepository.getOrderListByPk(any(), any())).thenThrow(new CrudException("unavailable", "tx-2"));
+
+        OrderImportReportDto report = service.importOrders(csv(2), OrderImportService.FORMAT_CSV,
+                OrderImportService.MODE_INSERT, null);
+
+        assertThat(report.getRowsImported()).isZero();
+        assertThat(report.getRowsFailed()).isZero();
+        assertThat(report.getRowsUnknown()).isEqualTo(2);
+        assertThat(report.getErrors()).hasSize(2);
+        verify(orderRepository, times(2)).insertOrder(any(), any());
+    }
+
+    @Test
+    void awaitsSubmittedChunksWhenTheUploadFails() throws Exception {
+        createService(1, 1, 1, 0);
+        InputStream failing = new SequenceInputStream(csv(2), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        });
+
+        assertThatThrownBy(() -> service.importOrders(failing, OrderImportService.FORMAT_CSV,
+                OrderImportService.MODE_INSERT, "import-1"))
+                .isInstanceOf(CustomException.class)
+                .satisfies(e -> assertThat(((CustomException) e).getErrorCode()).isEqualTo(9400));
+
+        OrderImportReportDto report = service.getImport("import-1");
+        assertThat(report.getStatus()).isEqualTo("FAILED");
+        assertThat(report.getRowsImported()).isEqualTo(report.getRowsRead());
+    }
+
+    @Test
+    void awaitsSubmittedChunksWhenInterrupted() throws Exception {
+        createService(1, 1, 1, 0);
+        Thread requestThread = Thread.currentThread();
+        // The first chunk interrupts the request thread while it waits to submit the next one,
+        // and is still being written when the interrupt arrives
+        when(orderRepository.insertOrder(any(), orderWithId("ORD-1"))).thenAnswer(invocation -> {
+            requestThread.interrupt();
+            TimeUnit.MILLISECONDS.sleep(200);
+            return null;
+        });
+
+        try {
+            assertThatThrownBy(() -> service.importOrders(csv(3), OrderImportService.FORMAT_CSV,
+                    OrderImportService.MODE_INSERT, "import-1"))
+                    .isInstanceOf(CustomException.class)
+                    .satisfies(e -> assertThat(((CustomException) e).getErrorCode()).isEqualTo(9500));
+
+            OrderImportReportDto report = service.getImport("import-1");
+            assertThat(report.getStatus()).isEqualTo("FAILED");
+            assertThat(report.getRowsImported()).isEqualTo(1);
+            assertThat(Thread.currentThread().isInterrupted()).isTrue();
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.demo_multiple_tm_order.service;
+
+import com.example.demo_multiple_tm_order.exception.CustomException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Failure classification of ParticipantCircuitBreakers: transport errors and server failures open
+ * the circuit, transaction outcomes returned as 5xx do not
+ */
+class ParticipantCircuitBreakersTest {
+
+    private static final String PARTICIPANT = "http://localhost:8081";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    // 5xx as RestTemplate raises it, with the body readable through getResponseBodyAs
+    private static HttpServerErrorException serverError(String body) {
+        HttpServerErrorException e = HttpServerErrorException.create(HttpStatus.INTERNAL_SERVER_ERROR,
+                "Internal Server Error", HttpHeaders.EMPTY, body.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+        e.setBodyConvertFunction(type -> {
+            try {
+                return OBJECT_MAPPER.readValue(body, OBJECT_MAPPER.constructType(type.getType()));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        return e;
+    }
+
+    private static HttpServerErrorException serverError(int errorCode) {
+        return serverError("{\"success\":false,\"message\":\"failed\",\"errorCode\":" + errorCode + "}");
+    }
+
+    private static ParticipantCircuitBreakers breakers() {
+        return new ParticipantCircuitBreakers(true, 50, 100, 60000, 4, 4, 60000, 1, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void transportErrorsAndServerFailuresAreParticipantFailures() {
+        assertThat(ParticipantCircuitBreakers.isParticipantFailure(new ResourceAccessException("Read timed out"))).isTrue();
+        assertThat(ParticipantCircuitBreakers.isParticipantFailure(serverError(9500))).isTrue();
+        assertThat(ParticipantCircuitBreakers.isParticipantFailure(serverError(9800))).isTrue();
+        // No ApiResponse body (proxy error page, crash)
+        assertThat(ParticipantCircuitBreakers.isParticipantFailure(serverError("<html>Bad Gateway</html>"))).isTrue();
+        assertThat(ParticipantCircuitBreakers.isParticipantFailure(serverError("{\"success\":false}"))).isTrue();
+    }
+
+    @Test
+    void transactionOutcomesAndClientErrorsAreNotParticipantFailures() {
+        for (int errorCode : new int[] {9100, 9200, 9300, 9400, 9820}) {
+            assertThat(ParticipantCircuitBreakers.isParticipantFailure(serverError(errorCode))).as("%d", errorCode).isFalse();
+        }
+        assertThat(ParticipantCircuitBreakers.isParticipantFailure(
+                HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", HttpHeaders.EMPTY, new byte[0], null))).isFalse();
+        assertThat(ParticipantCircuitBreakers.isParticipantFailure(new CustomException("Order not found", 9400))).isFalse();
+    }
+
+    @Test
+    void opensOnServerFailuresAndRejectsWith9810() {
+        ParticipantCircuitBreakers breakers = breakers();
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> breakers.call(PARTICIPANT, () -> {
+                throw serverError(9500);
+            })).isInstanceOf(HttpServerErrorException.class);
+        }
+
+        assertThatThrownBy(() -> breakers.checkAvailable(PARTICIPANT))
+                .isInstanceOf(CustomException.class)
+                .satisfies(e -> assertThat(((CustomException) e).getErrorCode()).isEqualTo(9810));
+        assertThatThrownBy(() -> breakers.call(PARTICIPANT, () -> "ok"))
+                .isInstanceOf(CustomException.class)
+                .satisfies(e -> assertThat(((CustomException) e).getErrorCode()).isEqualTo(9810));
+    }
+
+    @Test
+    void staysClosedOnConflicts() {
+        ParticipantCircuitBreakers breakers = breakers();
+        for (int i = 0; i < 8; i++) {
+            assertThatThrownBy(() -> breakers.call(PARTICIPANT, () -> {
+                throw serverError(9300);
+            })).isInstanceOf(HttpServerErrorException.class);
+        }
+
+        breakers.checkAvailable(PARTICIPANT);
+        assertThat(breakers.call(PARTICIPANT, () -> "ok")).isEqualTo("ok");
+    }
+
+    @Test
+    void passesCallsThroughWhenDisabled() {
+        ParticipantCircuitBreakers breakers = new ParticipantCircuitBreakers(false, 50, 100, 60000, 4, 4, 60000, 1,
+                new SimpleMeterRegistry());
+        for (int i = 0; i < 8; i++) {
+            assertThatThrownBy(() -> breakers.call(PARTICIPANT, () -> {
+                throw serverError(9500);
+            })).isInstanceOf(HttpServerErrorException.class);
+        }
+
+        breakers.checkAvailable(PARTICIPANT);
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.demo_multiple_tm_order.service;
+
+import com.example.demo_multiple_tm_order.exception.CustomException;
+import com.example.demo_multiple_tm_order.util.RequestDeadline;
+import com.example.demo_multiple_tm_order.util.SqlRowGuard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Limits and the RUNNING -> COMMITTING / CANCELLED guard states of SqlResourceGovernor, driven with
+ * stub work functions
+ */
+class SqlResourceGovernorTest {
+
+    private static final long WAIT_SECONDS = 5;
+
+    private final SqlResourceGovernor governor = new SqlResourceGovernor(100, 1 << 20, 10000, 1, 1,
+            new SimpleMeterRegistry());
+
+    @AfterEach
+    void shutdown() {
+        governor.destroy();
+    }
+
+    private static int errorCodeOf(Throwable e) {
+        return ((CustomException) e).getErrorCode();
+    }
+
+    @Test
+    void requestLimitsLowerButDoNotRaiseTheGlobalLimits() {
+        SqlResourceGovernor.Limits lowered = governor.limitsFor(10, 1024L, 500L);
+        SqlResourceGovernor.Limits raised = governor.limitsFor(1000, (long) Integer.MAX_VALUE, 60000L);
+
+        assertThat(lowered).isEqualTo(new SqlResourceGovernor.Limits(10, 1024, 500));
+        assertThat(raised).isEqualTo(new SqlResourceGovernor.Limits(100, 1 << 20, 10000));
+    }
+
+    @Test
+    void timeLimitIsCappedByTheRequestDeadline() {
+        long timeoutMs = RequestDeadline.with(System.currentTimeMillis() + 200,
+                () -> governor.limitsFor(null, null, null).timeoutMs());
+
+        assertThat(timeoutMs).isPositive().isLessThanOrEqualTo(200);
+    }
+
+    @Test
+    void rejectsWith9820WhenTheDeadlineHasPassed() {
+        AtomicBoolean ran = new AtomicBoolean();
+
+        assertThatThrownBy(() -> RequestDeadline.with(System.currentTimeMillis() - 1,
+                () -> governor.execute(governor.limitsFor(null, null, null), guard -> ran.getAndSet(true))))
+                .isInstanceOf(CustomException.class)
+                .satisfies(e -> assertThat(errorCodeOf(e)).isEqualTo(9820));
+        assertThat(ran).isFalse();
+    }
+
+    @Test
+    void stopsTheReadAtTheRowLimit() {
+        SqlResourceGovernor.Limits limits = governor.limitsFor(2, null, null);
+
+        assertThatThrownBy(() -> governor.execute(limits, guard -> {
+            for (int i = 0; i < 3; i++) {
+                guard.onRow(10);
+            }
+            return null;
+        }))
+                .isInstanceOf(SqlRowGuard.LimitExceededException.class)
+                .satisfies(e -> assertThat(SqlResourceGovernor.errorCodeOf((SqlRowGuard.LimitExceededException) e))
+                        .isEqualTo(9710));
+    }
+
+    @Test
+    void cancelsRunningWorkWith9730AndItCannotCommitAfterwards() throws Exception {
+        SqlResourceGovernor.Limits limits = governor.limitsFor(null, null, 50L);
+        CountDownLatch timedOut = new CountDownLatch(1);
+        AtomicReference<String> commitOutcome = new AtomicReference<>();
+        CountDownLatch workDone = new CountDownLatch(1);
+
+        assertThatThrownBy(() -> governor.execute(limits, guard -> {
+            try {
+                // Keep running past the time limit, ignoring the interrupt, then try to commit
+                timedOut.await(WAIT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                // Cancelled by the governor
+            }
+            try {
+                guard.beginCommit();
+                commitOutcome.set("committed");
+            } catch (SqlRowGuard.LimitExceededException e) {
+                commitOutcome.set(e.getLimit());
+            } finally {
+                workDone.countDown();
+            }
+            return null;
+        }))
+                .isInstanceOf(CustomException.class)
+                .satisfies(e -> assertThat(errorCodeOf(e)).isEqualTo(9730));
+        timedOut.countDown();
+
+        assertThat(workDone.await(WAIT_SECONDS, TimeUnit.SECONDS)).isTrue();
+        // 9730 means nothing was committed
+        assertThat(commitOutcome).hasValue(SqlResourceGovernor.LIMIT_TIME);
+    }
+
+    @Test
+    void waitsForACommitThatStartedBeforeTheTimeLimit() {
+        SqlResourceGovernor.Limits limits = governor.limitsFor(null, null, 50L);
+
+        String result = governor.execute(limits, guard -> {
+            guard.beginCommit();
+            // The commit outlasts the time limit
+            sleepUninterruptibly(200);
+            return "committed";
+        });
+
+        assertThat(result).isEqualTo("committed");
+    }
+
+    @Test
+    void reportsTheCommitFailureInsteadOfATimeout() {
+        SqlResourceGovernor.Limits limits = governor.limitsFor(null, null, 50L);
+
+        assertThatThrownBy(() -> governor.execute(limits, guard -> {
+            guard.beginCommit();
+            sleepUninterruptibly(200);
+            throw new CustomException("Commit conflict", 9100);
+        }))
+                .isInstanceOf(CustomException.class)
+                .satisfies(e -> assertThat(errorCodeOf(e)).isEqualTo(9100));
+    }
+
+    @Test
+    void rejectsWith9800WhenTheQueueIsFull() throws Exception {
+        SqlResourceGovernor.Limits limits = governor.limitsFor(null, null, null);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean rejectedRan = new AtomicBoolean();
+
+        // One worker busy, one request queued
+        CompletableFuture<Object> busy = CompletableFuture.supplyAsync(() -> governor.execute(limits, guard -> {
+            running.countDown();
+            awaitUninterruptibly(release);
+            return null;
+        }));
+        assertThat(running.await(WAIT_SECONDS, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Object> queued = CompletableFuture.supplyAsync(() -> governor.execute(limits, guard -> null));
+        waitForQueuedTask(queued);
+
+        try {
+            assertThatThrownBy(() -> governor.execute(limits, guard -> rejectedRan.getAndSet(true)))
+                    .isInstanceOf(CustomException.class)
+                    .satisfies(e -> assertThat(errorCodeOf(e)).isEqualTo(9800));
+        } finally {
+            release.countDown();
+        }
+        busy.get(WAIT_SECONDS, TimeUnit.SECONDS);
+        queued.get(WAIT_SECONDS, TimeUnit.SECONDS);
+        assertThat(rejectedRan).isFalse();
+    }
+
+    // The queued request is submitted from another thread; give it time to reach the queue
+    private static void waitForQueuedTask(CompletableFuture<?> queued) {
+        sleepUninterruptibly(200);
+        assertThat(queued).isNotDone();
+    }
+
+    private static void sleepUninterruptibly(long millis) {
+        long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        while (System.nanoTime() < until) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(until - System.nanoTime());
+            } catch (InterruptedException e) {
+                // Keep sleeping: the commit must not be cut short
+            }
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        while (true) {
+            try {
+                latch.await();
+                return;
+            } catch (InterruptedException e) {
+                // Wait for the test to release the worker
+            }
+        }
+    }
+}
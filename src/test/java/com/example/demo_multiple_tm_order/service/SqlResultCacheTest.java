@@ -0,0 +1,98 @@
+package com.example.demo_multiple_tm_order.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cache keys, table extraction and invalidation of SqlResultCache
+ */
+class SqlResultCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private List<Map<String, Object>> load() {
+        loads.incrementAndGet();
+        return List.of(Map.of("id", "ORD-1"));
+    }
+
+    private static SqlResultCache cache(boolean enabled) {
+        return new SqlResultCache(enabled, 60000, 1 << 20, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void normalizeCollapsesWhitespaceOutsideLiterals() {
+        assertThat(SqlResultCache.normalize("  SELECT *\n\tFROM   shopping.product  WHERE name = 'a  b' ;; "))
+                .isEqualTo("SELECT * FROM shopping.product WHERE name = 'a  b'");
+        assertThat(SqlResultCache.normalize("SELECT 'it''s  here'  FROM t"))
+                .isEqualTo("SELECT 'it''s  here' FROM t");
+    }
+
+    @Test
+    void tablesOfFindsQualifiedAndQuotedTables() {
+        assertThat(SqlResultCache.tablesOf(
+                "SELECT * FROM shopping.\"order\" o JOIN Shopping.Product p ON o.product_id = p.id"))
+                .containsExactlyInAnyOrder("shopping.order", "shopping.product");
+        assertThat(SqlResultCache.tablesOf("INSERT INTO shopping.customer VALUES (1, 'a')"))
+                .containsExactly("shopping.customer");
+        assertThat(SqlResultCache.tablesOf("update customer set name = 'a'"))
+                .containsExactly("customer");
+        assertThat(SqlResultCache.tablesOf("SELECT 1")).isEmpty();
+    }
+
+    @Test
+    void servesRepeatedSelectsFromTheCache() {
+        SqlResultCache cache = cache(true);
+
+        cache.getOrLoad("maps", "SELECT * FROM shopping.product", this::load);
+        cache.getOrLoad("maps", "SELECT *  FROM shopping.product;", this::load);
+        cache.getOrLoad("rows", "SELECT * FROM shopping.product", this::load);
+
+        // Same normalized statement; the other format is a separate entry
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void doesNotCacheWritesOrWhenDisabled() {
+        SqlResultCache cache = cache(true);
+        cache.getOrLoad("maps", "UPDATE shopping.customer SET name = 'a' WHERE id = 1", this::load);
+        cache.getOrLoad("maps", "UPDATE shopping.customer SET name = 'a' WHERE id = 1", this::load);
+
+        SqlResultCache disabled = cache(false);
+        disabled.getOrLoad("maps", "SELECT * FROM shopping.product", this::load);
+        disabled.getOrLoad("maps", "SELECT * FROM shopping.product", this::load);
+
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    void invalidatesEntriesReadingAWrittenTable() {
+        SqlResultCache cache = cache(true);
+        cache.getOrLoad("maps", "SELECT * FROM shopping.product", this::load);
+        cache.getOrLoad("maps", "SELECT * FROM shopping.customer", this::load);
+
+        cache.invalidateStatement("UPDATE shopping.product SET price = 10 WHERE id = 1");
+        cache.getOrLoad("maps", "SELECT * FROM shopping.product", this::load);
+        cache.getOrLoad("maps", "SELECT * FROM shopping.customer", this::load);
+
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void doesNotStoreAResultInvalidatedWhileLoading() {
+        SqlResultCache cache = cache(true);
+
+        cache.getOrLoad("maps", "SELECT * FROM shopping.product", () -> {
+            cache.invalidateTables(List.of("shopping.product"));
+            return load();
+        });
+        cache.getOrLoad("maps", "SELECT * FROM shopping.product", this::load);
+
+        assertThat(loads).hasValue(2);
+    }
+}
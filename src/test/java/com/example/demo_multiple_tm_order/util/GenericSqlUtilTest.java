@@ -0,0 +1,47 @@
+package com.example.demo_multiple_tm_order.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Parameter binding of GenericSqlUtil.toValue: JSON scalars, typed values and numbers that do not fit
+ */
+class GenericSqlUtilTest {
+
+    @Test
+    void bindsJsonScalars() {
+        for (Object param : new Object[] {null, 1, 1L << 40, 1.5d, true, "text"}) {
+            assertThat(GenericSqlUtil.toValue(param)).as("%s", param).isNotNull();
+        }
+    }
+
+    @Test
+    void bindsTypedValues() {
+        assertThat(GenericSqlUtil.toValue(Map.of("type", "TIMESTAMP", "value", "2025-09-15T14:30:00"))).isNotNull();
+        assertThat(GenericSqlUtil.toValue(Map.of("type", "bigint", "value", "9007199254740993"))).isNotNull();
+    }
+
+    @Test
+    void rejectsNumbersThatWouldLosePrecisionAsADouble() {
+        assertThatThrownBy(() -> GenericSqlUtil.toValue(new BigInteger("9223372036854775808")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("BigInteger");
+        assertThatThrownBy(() -> GenericSqlUtil.toValue(new BigDecimal("0.1000000000000000055511151231257827")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("BigDecimal");
+    }
+
+    @Test
+    void rejectsUnknownTypes() {
+        assertThatThrownBy(() -> GenericSqlUtil.toValue(Map.of("type", "DECIMAL", "value", "1.5")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> GenericSqlUtil.toValue(Map.of("value", "1.5")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
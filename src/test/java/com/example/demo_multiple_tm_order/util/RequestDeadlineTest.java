@@ -0,0 +1,70 @@
+package com.example.demo_multiple_tm_order.util;
+
+import com.example.demo_multiple_tm_order.exception.CustomException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Thread-local deadline of RequestDeadline: remaining budget, expiry and restoring the previous deadline
+ */
+class RequestDeadlineTest {
+
+    @AfterEach
+    void tearDown() {
+        RequestDeadline.set(null);
+    }
+
+    @Test
+    void hasNoBudgetLimitWithoutADeadline() {
+        assertThat(RequestDeadline.current()).isNull();
+        assertThat(RequestDeadline.remainingMs()).isEqualTo(Long.MAX_VALUE);
+        assertThat(RequestDeadline.isExpired()).isFalse();
+        RequestDeadline.check("start");
+    }
+
+    @Test
+    void reportsTheRemainingBudget() {
+        RequestDeadline.set(System.currentTimeMillis() + 10_000);
+
+        assertThat(RequestDeadline.remainingMs()).isBetween(1L, 10_000L);
+        assertThat(RequestDeadline.isExpired()).isFalse();
+        RequestDeadline.check("start");
+    }
+
+    @Test
+    void checkFailsWith9820OnceTheDeadlineHasPassed() {
+        RequestDeadline.set(System.currentTimeMillis() - 1);
+
+        assertThat(RequestDeadline.remainingMs()).isNegative();
+        assertThat(RequestDeadline.isExpired()).isTrue();
+        assertThatThrownBy(() -> RequestDeadline.check("prepare"))
+                .isInstanceOf(CustomException.class)
+                .hasMessageContaining("prepare")
+                .satisfies(e -> assertThat(((CustomException) e).getErrorCode()).isEqualTo(9820));
+    }
+
+    @Test
+    void setReturnsThePreviousDeadline() {
+        assertThat(RequestDeadline.set(1000L)).isNull();
+        assertThat(RequestDeadline.set(2000L)).isEqualTo(1000L);
+        assertThat(RequestDeadline.set(null)).isEqualTo(2000L);
+        assertThat(RequestDeadline.current()).isNull();
+    }
+
+    @Test
+    void withRestoresTheCurrentDeadline() {
+        RequestDeadline.set(1000L);
+
+        Long inside = RequestDeadline.with(null, RequestDeadline::current);
+        assertThat(inside).isNull();
+        assertThat(RequestDeadline.current()).isEqualTo(1000L);
+
+        assertThatThrownBy(() -> RequestDeadline.with(2000L, () -> {
+            throw new IllegalStateException("failed");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(RequestDeadline.current()).isEqualTo(1000L);
+    }
+}